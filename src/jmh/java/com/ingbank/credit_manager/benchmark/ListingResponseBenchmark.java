@@ -0,0 +1,99 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.CreditManagerApplication;
+import com.ingbank.credit_manager.repository.LoanInstallmentRepository;
+import com.ingbank.credit_manager.repository.LoanRepository;
+import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Read and serialize the loan and installment listings as JPA entities, with nested loan and customer, against the
+ * flat projections the endpoints return. Response sizes are printed at setup; run with {@code -prof gc} for the
+ * allocations per listing ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListingResponseBenchmark {
+
+    @Param({"100"})
+    public int seededLoans;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private LoanInstallmentService loanInstallmentService;
+    private LoanRepository loanRepository;
+    private LoanInstallmentRepository loanInstallmentRepository;
+    private ObjectMapper objectMapper;
+    private Long listedLoanId;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws JsonProcessingException {
+        context = new SpringApplicationBuilder(CreditManagerApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:listing-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn",
+                        "logging.level.com.ingbank=warn")
+                .run();
+        loanService = context.getBean(LoanService.class);
+        loanInstallmentService = context.getBean(LoanInstallmentService.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        loanInstallmentRepository = context.getBean(LoanInstallmentRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        context.getBean(JdbcTemplate.class).update("UPDATE customer SET credit_limit = 1000000000000");
+        for (int i = 0; i < seededLoans; i++) {
+            listedLoanId = loanService.createLoan(LoanServiceBenchmark.createLoanRequest(LoanServiceBenchmark.LISTING_CUSTOMER_ID, 24)).getId();
+        }
+        System.out.printf("%nResponse bytes: %d loans as entities %d, as responses %d; 24 installments as entities %d, as responses %d%n",
+                seededLoans, loansAsEntities().length, loansAsResponses().length, installmentsAsEntities().length, installmentsAsResponses().length);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] loansAsEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanRepository.findByCustomerId(LoanServiceBenchmark.LISTING_CUSTOMER_ID));
+    }
+
+    @Benchmark
+    public byte[] loansAsResponses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanService.listLoans(LoanServiceBenchmark.LISTING_CUSTOMER_ID, null, null));
+    }
+
+    @Benchmark
+    public byte[] installmentsAsEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanInstallmentRepository.findByLoanId(listedLoanId));
+    }
+
+    @Benchmark
+    public byte[] installmentsAsResponses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanInstallmentService.listInstallmentsByLoanId(listedLoanId));
+    }
+}
@@ -0,0 +1,152 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.entity.Customer;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.repository.CustomerRepository;
+import com.ingbank.credit_manager.repository.CustomerSummaryRepository;
+import com.ingbank.credit_manager.repository.LoanInstallmentRepository;
+import com.ingbank.credit_manager.repository.LoanRepository;
+import com.ingbank.credit_manager.repository.LoanScheduleRepository;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import com.ingbank.credit_manager.service.LoanIndexService;
+import com.ingbank.credit_manager.service.LoanLedgerService;
+import com.ingbank.credit_manager.serviceimpl.CreditLimitServiceImpl;
+import com.ingbank.credit_manager.serviceimpl.CustomerSummaryServiceImpl;
+import com.ingbank.credit_manager.serviceimpl.LoanInstallmentServiceImpl;
+import com.ingbank.credit_manager.serviceimpl.LoanServiceImpl;
+import com.ingbank.credit_manager.util.LoanMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pure computations of the loan and payment hot paths: time based amount (penalty and discount) math,
+ * installment schedule generation and payment allocation, with repositories replaced by in-memory stubs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoanCalculationBenchmark {
+
+    private static final BigDecimal INSTALLMENT_AMOUNT = new BigDecimal("1234.56");
+    private static final int NUMBER_OF_INSTALLMENTS = 24;
+
+    private LoanInstallmentServiceImpl loanInstallmentService;
+    private LoanServiceImpl loanService;
+    private Loan scheduleLoan;
+    private Loan packedScheduleLoan;
+    private LocalDate overdueDate;
+    private LocalDate earlyDate;
+    private LocalDate firstDueDate;
+    private PayLoanRequest payLoanRequest;
+
+    @Setup
+    public void setUp() {
+        LocalDate today = LocalDate.now();
+        overdueDate = today.minusDays(17);
+        earlyDate = today.plusDays(23);
+        firstDueDate = today.plusMonths(1).withDayOfMonth(1);
+
+        LoanMetrics loanMetrics = new LoanMetrics(new SimpleMeterRegistry());
+        LoanInstallmentRepository loanInstallmentRepository = RepositoryStubs.stub(LoanInstallmentRepository.class, Map.of(
+                "saveAll", args -> args[0],
+                "findByLoanIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc", args -> payableInstallments((LocalDate) args[1]),
+                "existsByLoanIdAndIsPaidFalseAndDueDateGreaterThanEqual", args -> true));
+        LoanScheduleRepository loanScheduleRepository = RepositoryStubs.stub(LoanScheduleRepository.class, Map.of("save", args -> args[0]));
+        loanInstallmentService = new LoanInstallmentServiceImpl(loanInstallmentRepository, loanScheduleRepository, loanMetrics);
+
+        LoanRepository loanRepository = RepositoryStubs.stub(LoanRepository.class, Map.of(
+                "findById", args -> Optional.of(unpaidLoan()),
+                "save", args -> args[0]));
+        CustomerRepository customerRepository = RepositoryStubs.stub(CustomerRepository.class, Map.of());
+        loanService = new LoanServiceImpl(loanRepository, customerRepository, loanInstallmentService,
+                new CreditLimitServiceImpl(customerRepository, RepositoryStubs.stub(EntityManagerFactory.class, Map.of()), 0, 0), null, customerSummaryService(),
+                RepositoryStubs.stub(LoanLedgerService.class, Map.of("loanOriginated", args -> null, "paymentRecorded", args -> null)),
+                RepositoryStubs.stub(LoanIndexService.class, Map.of("loanCreated", args -> null, "loanPaid", args -> null)), loanMetrics, false, false);
+
+        scheduleLoan = new Loan();
+        scheduleLoan.setNumberOfInstallments(NUMBER_OF_INSTALLMENTS);
+        packedScheduleLoan = new Loan();
+        packedScheduleLoan.setId(1L);
+        packedScheduleLoan.setNumberOfInstallments(NUMBER_OF_INSTALLMENTS);
+        packedScheduleLoan.setPackedSchedule(true);
+        // enough for the three installments payable within the 3 month window
+        payLoanRequest = PayLoanRequest.builder().loanId(1L).amount(new BigDecimal("3703.68")).build();
+    }
+
+    @Benchmark
+    public BigDecimal timeBasedAmountPenalty() {
+        return loanInstallmentService.getTimeBasedInstallmentAmount(overdueDate, INSTALLMENT_AMOUNT);
+    }
+
+    @Benchmark
+    public BigDecimal timeBasedAmountDiscount() {
+        return loanInstallmentService.getTimeBasedInstallmentAmount(earlyDate, INSTALLMENT_AMOUNT);
+    }
+
+    @Benchmark
+    public List<LoanInstallment> scheduleGeneration() {
+        return loanInstallmentService.saveLoanInstallments(scheduleLoan, INSTALLMENT_AMOUNT, firstDueDate);
+    }
+
+    @Benchmark
+    public List<LoanInstallment> packedScheduleGeneration() {
+        return loanInstallmentService.saveLoanInstallments(packedScheduleLoan, INSTALLMENT_AMOUNT, firstDueDate);
+    }
+
+    @Benchmark
+    public PaymentResult paymentAllocation() {
+        return loanService.payLoan(payLoanRequest);
+    }
+
+    private static CustomerSummaryService customerSummaryService() {
+        return new CustomerSummaryServiceImpl(RepositoryStubs.stub(CustomerSummaryRepository.class, Map.of(
+                "addLoan", args -> 1,
+                "settleInstallments", args -> 1)));
+    }
+
+    private static Loan unpaidLoan() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        Loan loan = new Loan();
+        loan.setId(1L);
+        loan.setCustomer(customer);
+        loan.setNumberOfInstallments(NUMBER_OF_INSTALLMENTS);
+        return loan;
+    }
+
+    private List<LoanInstallment> payableInstallments(LocalDate dueDateBefore) {
+        List<LoanInstallment> installments = new ArrayList<>(NUMBER_OF_INSTALLMENTS);
+        for (int i = 0; i < NUMBER_OF_INSTALLMENTS && firstDueDate.plusMonths(i).isBefore(dueDateBefore); i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setId((long) i);
+            installment.setAmount(INSTALLMENT_AMOUNT);
+            installment.setDueDate(firstDueDate.plusMonths(i));
+            installments.add(installment);
+        }
+        return installments;
+    }
+}
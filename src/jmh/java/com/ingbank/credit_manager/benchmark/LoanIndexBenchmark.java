@@ -0,0 +1,101 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.ingbank.credit_manager.CreditManagerApplication;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.repository.LoanRepository;
+import com.ingbank.credit_manager.response.LoanResponse;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.serviceimpl.LoanIndexServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Filtered loan listings of a random customer served by the in-memory loan index against the same listings read from
+ * the database, for {@code loans} seeded loans spread over customers with {@code loansPerCustomer} each. The estimated
+ * heap of the index per loan is printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanIndexBenchmark {
+
+    private static final long FIRST_CUSTOMER_ID = 1_000_000L;
+
+    @Param({"200000"})
+    public int loans;
+
+    @Param({"10", "100"})
+    public int loansPerCustomer;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private LoanRepository loanRepository;
+    private int customers;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(CreditManagerApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loan-index-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn",
+                        "logging.level.com.ingbank=warn")
+                // default properties give way to application.properties, arguments do not
+                .run("--credit-manager.loan.index.enabled=true");
+        loanService = context.getBean(LoanService.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        customers = loans / loansPerCustomer;
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit)" +
+                " SELECT ? + x, 'Name' || x, 'Surname' || x, 100000, 0 FROM SYSTEM_RANGE(0, ?)", FIRST_CUSTOMER_ID, customers - 1);
+        jdbcTemplate.update("INSERT INTO loan (customer_id, loan_amount, number_of_installments, create_date, is_paid)" +
+                " SELECT ? + MOD(x, ?), 1200 + MOD(x, 977), 6 * (1 + MOD(x, 4)), DATEADD(DAY, -MOD(x, 700), CURRENT_DATE), MOD(x, 5) = 0" +
+                " FROM SYSTEM_RANGE(0, ?)", FIRST_CUSTOMER_ID, customers, loans - 1);
+
+        LoanIndexServiceImpl loanIndexService = context.getBean(LoanIndexServiceImpl.class);
+        loanIndexService.rebuild();
+        System.out.printf("%nLoan index of %d loans, %d per customer: about %d bytes per loan%n", loans, loansPerCustomer,
+                (long) context.getBean(MeterRegistry.class).get(CreditManagerConstants.LOAN_INDEX_BYTES_METRIC).gauge().value() / loans);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<LoanResponse> listFromIndex() {
+        return loanService.listLoans(randomCustomerId(), 12, false);
+    }
+
+    @Benchmark
+    public List<LoanResponse> listFromDatabase() {
+        return loanRepository.findLoans(randomCustomerId(), 12, false);
+    }
+
+    private long randomCustomerId() {
+        return FIRST_CUSTOMER_ID + ThreadLocalRandom.current().nextInt(customers);
+    }
+}
@@ -0,0 +1,186 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import com.ingbank.credit_manager.CreditManagerApplication;
+import com.ingbank.credit_manager.beans.InstallmentPayment;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.response.LoanBalanceResponse;
+import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanLedgerService;
+import com.ingbank.credit_manager.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write and replay throughput of the loan ledger against the embedded H2 database.
+ * <ul>
+ *     <li>{@code appendPayment} appends the entry of one paid installment, {@code updateInstallment} writes one installment
+ *     in place through the entity update path payments use, both by 4 threads spread over {@code hotLoans} loans, so a
+ *     single loan shows the row contention the updates run into,</li>
+ *     <li>{@code replayBalance} reads the balance of a loan with {@code ledgerEntries} entries, either all of them
+ *     replayed or from a snapshot with a short tail.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanLedgerBenchmark {
+
+    private static final int INSTALLMENTS = 24;
+    private static final int SNAPSHOT_TAIL = 10;
+
+    ConfigurableApplicationContext context;
+    LoanService loanService;
+    LoanLedgerService loanLedgerService;
+    LoanInstallmentService loanInstallmentService;
+    TransactionTemplate transactionTemplate;
+    JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(CreditManagerApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:ledger-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn",
+                        "logging.level.com.ingbank=warn")
+                // default properties give way to application.properties, arguments do not
+                .run("--credit-manager.ledger.snapshot.cron=-", "--credit-manager.ledger.snapshot.settle-time=0s");
+        loanService = context.getBean(LoanService.class);
+        loanLedgerService = context.getBean(LoanLedgerService.class);
+        loanInstallmentService = context.getBean(LoanInstallmentService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("UPDATE customer SET credit_limit = 1000000000000");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long appendPayment(HotLoans hotLoans) {
+        long operation = hotLoans.operations.getAndIncrement();
+        Loan loan = hotLoans.loan(operation);
+        LoanInstallment installment = hotLoans.installment(operation);
+        transactionTemplate.executeWithoutResult(status -> loanLedgerService.paymentRecorded(loan.getId(), LocalDate.now(),
+                List.of(new InstallmentPayment(installment.getId(), installment.getAmount(), installment.getAmount())), false));
+        return operation;
+    }
+
+    /**
+     * Writes the same installments over and over, it is the cost of the update and its row lock that is measured.
+     */
+    @Benchmark
+    @Threads(4)
+    public long updateInstallment(HotLoans hotLoans) {
+        long operation = hotLoans.operations.getAndIncrement();
+        Loan loan = hotLoans.loan(operation);
+        LoanInstallment installment = hotLoans.installment(operation);
+        LoanInstallment update = new LoanInstallment();
+        update.setId(installment.getId());
+        update.setLoan(loan);
+        update.setAmount(installment.getAmount());
+        update.setDueDate(installment.getDueDate());
+        update.setPaidAmount(BigDecimal.valueOf(operation % 1000, 2));
+        update.setPaymentDate(LocalDate.now());
+        transactionTemplate.executeWithoutResult(status -> loanInstallmentService.saveAllLoanInstallments(loan, List.of(update)));
+        return operation;
+    }
+
+    @Benchmark
+    public LoanBalanceResponse replayBalance(ReplayedLoan replayedLoan) {
+        return loanLedgerService.findBalance(replayedLoan.loanId);
+    }
+
+    /**
+     * Loans the writing threads share, taken in turn.
+     */
+    @State(Scope.Benchmark)
+    public static class HotLoans {
+
+        @Param({"1", "64"})
+        public int hotLoans;
+
+        private List<Loan> loans;
+        private List<List<LoanInstallment>> installments;
+        private final AtomicLong operations = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void createLoans(LoanLedgerBenchmark benchmark) {
+            loans = IntStream.range(0, hotLoans)
+                    .mapToObj(i -> benchmark.loanService.createLoan(LoanServiceBenchmark.createLoanRequest(LoanServiceBenchmark.ORIGINATION_CUSTOMER_ID, INSTALLMENTS)))
+                    .toList();
+            installments = loans.stream()
+                    .map(loan -> benchmark.transactionTemplate.execute(status ->
+                            benchmark.loanInstallmentService.listPayableInstallments(loan, LocalDate.now().plusYears(INSTALLMENTS))))
+                    .toList();
+        }
+
+        Loan loan(long operation) {
+            return loans.get((int) (operation % hotLoans));
+        }
+
+        LoanInstallment installment(long operation) {
+            return installments.get((int) (operation % hotLoans)).get((int) (operation / hotLoans % INSTALLMENTS));
+        }
+    }
+
+    /**
+     * A loan with {@code ledgerEntries} entries, all but the last few folded into its snapshot when {@code snapshot}
+     * is set.
+     */
+    @State(Scope.Benchmark)
+    public static class ReplayedLoan {
+
+        private static final String APPEND_ENTRIES = "INSERT INTO loan_ledger (loan_id, entry_type, amount, paid_amount, entry_date)" +
+                " SELECT ?, 'INSTALLMENT_PAID', 1, 1, CURRENT_DATE FROM SYSTEM_RANGE(1, ?)";
+
+        @Param({"100", "10000"})
+        public int ledgerEntries;
+
+        @Param({"true", "false"})
+        public boolean snapshot;
+
+        private Long loanId;
+
+        @Setup(Level.Trial)
+        public void appendEntries(LoanLedgerBenchmark benchmark) {
+            loanId = benchmark.loanService.createLoan(LoanServiceBenchmark.createLoanRequest(LoanServiceBenchmark.ORIGINATION_CUSTOMER_ID, INSTALLMENTS)).getId();
+            benchmark.jdbcTemplate.update(APPEND_ENTRIES, loanId, ledgerEntries - SNAPSHOT_TAIL - 1);
+            if (snapshot) {
+                benchmark.loanLedgerService.compactSnapshots();
+            }
+            benchmark.jdbcTemplate.update(APPEND_ENTRIES, loanId, SNAPSHOT_TAIL);
+        }
+    }
+}
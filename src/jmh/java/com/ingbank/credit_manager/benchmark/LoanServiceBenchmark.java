@@ -0,0 +1,162 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.ingbank.credit_manager.CreditManagerApplication;
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
+import com.ingbank.credit_manager.response.LoanResponse;
+import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Full service calls against the embedded H2 database, seeded with {@code seededLoans} loans for the listing customer.
+ * Loans are created for a second customer so the listing data set does not grow during the run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanServiceBenchmark {
+
+    static final long LISTING_CUSTOMER_ID = 1L;
+    static final long ORIGINATION_CUSTOMER_ID = 2L;
+    private static final int[] INSTALLMENT_OPTIONS = {6, 9, 12, 24};
+
+    @Param({"1000"})
+    public int seededLoans;
+
+    ConfigurableApplicationContext context;
+    LoanService loanService;
+    LoanInstallmentService loanInstallmentService;
+    LoanPaymentService loanPaymentService;
+    private Long listedLoanId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(CreditManagerApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=warn",
+                        "logging.level.com.ingbank=warn")
+                .run();
+        loanService = context.getBean(LoanService.class);
+        loanInstallmentService = context.getBean(LoanInstallmentService.class);
+        loanPaymentService = context.getBean(LoanPaymentService.class);
+        context.getBean(JdbcTemplate.class).update("UPDATE customer SET credit_limit = 1000000000000");
+        for (int i = 0; i < seededLoans; i++) {
+            Loan loan = loanService.createLoan(createLoanRequest(LISTING_CUSTOMER_ID, INSTALLMENT_OPTIONS[i % INSTALLMENT_OPTIONS.length]));
+            listedLoanId = loan.getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Loan createLoan() {
+        return loanService.createLoan(createLoanRequest(ORIGINATION_CUSTOMER_ID, 12));
+    }
+
+    @Benchmark
+    public List<LoanResponse> listLoans() {
+        return loanService.listLoans(LISTING_CUSTOMER_ID, 24, false);
+    }
+
+    @Benchmark
+    public List<LoanInstallmentResponse> listInstallments() {
+        return loanInstallmentService.listInstallmentsByLoanId(listedLoanId);
+    }
+
+    @Benchmark
+    public PaymentResult payLoan(PayableLoans payableLoans) {
+        return payableLoans.pay(loanService::payLoan);
+    }
+
+    @Benchmark
+    public PaymentResult payLoanSetBased(PayableLoans payableLoans) {
+        return payableLoans.pay(loanPaymentService::payLoan);
+    }
+
+    static CreateLoanRequest createLoanRequest(long customerId, int installments) {
+        return CreateLoanRequest.builder()
+                .customerId(customerId)
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.2"))
+                .installments(installments)
+                .build();
+    }
+
+    /**
+     * Per thread pool of 24 installment loans, each one accepts single installment payments
+     * until its 3 month payment window is exhausted, then the next loan is used.
+     */
+    @State(Scope.Thread)
+    public static class PayableLoans {
+
+        private static final int LOANS_PER_ITERATION = 500;
+        private static final BigDecimal INSTALLMENT_PAYMENT = new BigDecimal("500.00");
+
+        private final List<Long> loanIds = new ArrayList<>();
+        private int current;
+
+        private LoanService loanService;
+
+        @Setup(Level.Iteration)
+        public void createLoans(LoanServiceBenchmark benchmark) {
+            loanService = benchmark.loanService;
+            loanIds.clear();
+            current = 0;
+            for (int i = 0; i < LOANS_PER_ITERATION; i++) {
+                loanIds.add(loanService.createLoan(createLoanRequest(ORIGINATION_CUSTOMER_ID, 24)).getId());
+            }
+        }
+
+        PaymentResult pay(Function<PayLoanRequest, PaymentResult> payment) {
+            while (true) {
+                if (current == loanIds.size()) {
+                    loanIds.add(loanService.createLoan(createLoanRequest(ORIGINATION_CUSTOMER_ID, 24)).getId());
+                }
+                try {
+                    PaymentResult result = payment.apply(PayLoanRequest.builder().loanId(loanIds.get(current)).amount(INSTALLMENT_PAYMENT).build());
+                    if (result.getInstallmentsPaid() > 0) {
+                        return result;
+                    }
+                } catch (LoanInstallmentsMoreThan3MonthsCannotBePaidException e) {
+                    // window exhausted, move on
+                }
+                current++;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link BigDecimal} against {@link Money} for the arithmetic of createLoan and payLoan: loan total and installment
+ * split, and allocating a payment over installments with time based (penalty or discount) amounts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private static final BigDecimal LOAN_AMOUNT = new BigDecimal("10000.00");
+    private static final BigDecimal INTEREST_RATE = new BigDecimal("0.25");
+    private static final BigDecimal PAYMENT_AMOUNT = new BigDecimal("3703.68");
+    private static final long RATE_NUMERATOR = CreditManagerConstants.PAYMENT_TIMING_BASED_INTEREST_RATE.unscaledValue().longValueExact();
+    private static final long RATE_DENOMINATOR = BigDecimal.ONE.movePointRight(CreditManagerConstants.PAYMENT_TIMING_BASED_INTEREST_RATE.scale()).longValueExact();
+
+    @Param({"12"})
+    private int numberOfInstallments;
+
+    // days between due date and payment for the payable installments: overdue, due today, early
+    private final long[] daysDifference = {17, 0, -13, -44};
+    private BigDecimal installmentAmount;
+    private Money installmentMoney;
+
+    @Setup
+    public void setUp() {
+        installmentAmount = LOAN_AMOUNT.multiply(INTEREST_RATE.add(BigDecimal.ONE)).setScale(2, RoundingMode.HALF_UP)
+                .divide(BigDecimal.valueOf(numberOfInstallments), RoundingMode.HALF_UP);
+        installmentMoney = Money.of(installmentAmount);
+    }
+
+    @Benchmark
+    public BigDecimal loanSplitBigDecimal() {
+        BigDecimal totalLoanAmount = LOAN_AMOUNT.multiply(INTEREST_RATE.add(BigDecimal.ONE)).setScale(2, RoundingMode.HALF_UP);
+        return totalLoanAmount.divide(BigDecimal.valueOf(numberOfInstallments), RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public Money loanSplitMoney() {
+        return Money.of(LOAN_AMOUNT).multiply(INTEREST_RATE.add(BigDecimal.ONE)).divide(numberOfInstallments);
+    }
+
+    @Benchmark
+    public void paymentAllocationBigDecimal(Blackhole blackhole) {
+        BigDecimal amount = PAYMENT_AMOUNT.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal totalAmountSpent = BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
+        for (long days : daysDifference) {
+            if (amount.compareTo(installmentAmount) < 0) {
+                break;
+            }
+            BigDecimal timeBasedAmount = installmentAmount;
+            if (days != 0) {
+                timeBasedAmount = timeBasedAmount.add(timeBasedAmount.multiply(CreditManagerConstants.PAYMENT_TIMING_BASED_INTEREST_RATE).multiply(BigDecimal.valueOf(days)));
+            }
+            timeBasedAmount = timeBasedAmount.setScale(2, RoundingMode.HALF_UP);
+            if (amount.compareTo(timeBasedAmount) >= 0) {
+                amount = amount.subtract(timeBasedAmount);
+                totalAmountSpent = totalAmountSpent.add(timeBasedAmount);
+                blackhole.consume(timeBasedAmount);
+            }
+        }
+        blackhole.consume(totalAmountSpent);
+    }
+
+    @Benchmark
+    public void paymentAllocationMoney(Blackhole blackhole) {
+        Money amount = Money.of(PAYMENT_AMOUNT);
+        Money totalAmountSpent = Money.ZERO;
+        for (long days : daysDifference) {
+            if (amount.isLessThan(installmentMoney)) {
+                break;
+            }
+            Money timeBasedAmount = days == 0 ? installmentMoney : installmentMoney.multiply(RATE_DENOMINATOR + RATE_NUMERATOR * days, RATE_DENOMINATOR);
+            if (!amount.isLessThan(timeBasedAmount)) {
+                amount = amount.subtract(timeBasedAmount);
+                totalAmountSpent = totalAmountSpent.add(timeBasedAmount);
+                blackhole.consume(timeBasedAmount);
+            }
+        }
+        blackhole.consume(totalAmountSpent);
+    }
+}
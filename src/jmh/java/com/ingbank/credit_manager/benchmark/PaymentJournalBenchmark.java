@@ -0,0 +1,80 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.util.PaymentJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Payments acknowledged per second by the payment journal for 32 concurrent payers, with a group commit window of
+ * {@code groupCommitWindowMicros}. The journal is written in a temporary directory, so the numbers depend on the disk
+ * under it; the synchronous {@code LoanServiceBenchmark.payLoan} is the path it takes the place of.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class PaymentJournalBenchmark {
+
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    @Param({"0", "100", "1000", "5000"})
+    public long groupCommitWindowMicros;
+
+    private Path directory;
+    private PaymentJournal journal;
+    private final AtomicLong payments = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void openJournal() throws IOException {
+        directory = Files.createTempDirectory("payment-journal-benchmark");
+        journal = new PaymentJournal(directory, SEGMENT_BYTES, Duration.ofNanos(groupCommitWindowMicros * 1000), 0);
+    }
+
+    // as if the applier kept up, so full segments do not pile up on disk
+    @TearDown(Level.Iteration)
+    public void applyJournal() {
+        journal.applied(journal.durableSequence());
+    }
+
+    @TearDown(Level.Trial)
+    public void closeJournal() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public long appendPayment() {
+        long payment = payments.incrementAndGet();
+        return journal.append(payment % 1000 + 1, new Money(payment % 100_000 + 1), LocalDate.now());
+    }
+}
@@ -0,0 +1,32 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repositories, so the pure computations of the service layer
+ * can be measured without a database. Unstubbed methods fail fast.
+ */
+final class RepositoryStubs {
+
+    private RepositoryStubs() {
+        // private contructor to prevent init
+    }
+
+    static <T> T stub(Class<T> repositoryType, Map<String, Function<Object[], Object>> methods) {
+        Object stub = Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType}, (proxy, method, args) -> {
+            Function<Object[], Object> implementation = methods.get(method.getName());
+            if (implementation != null) {
+                return implementation.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> repositoryType.getSimpleName() + "Stub";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(repositoryType.getSimpleName() + "." + method.getName() + " is not stubbed");
+            };
+        });
+        return repositoryType.cast(stub);
+    }
+}
@@ -0,0 +1,97 @@
+package com.ingbank.credit_manager.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.ingbank.credit_manager.CreditManagerApplication;
+import com.ingbank.credit_manager.repository.CustomerRepository;
+import com.ingbank.credit_manager.repository.UserRepository;
+import com.ingbank.credit_manager.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Read-heavy mix of loan, customer and user lookups with {@code readPercent} of the operations being reads and the
+ * rest loan originations, run with and without the Hibernate second-level and query caches.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SecondLevelCacheBenchmark {
+
+    private static final String[] USERNAMES = {"admin", "customer", "customer2"};
+
+    @Param({"true", "false"})
+    public boolean secondLevelCache;
+
+    @Param({"90", "99"})
+    public int readPercent;
+
+    @Param({"1000"})
+    public int seededLoans;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private CustomerRepository customerRepository;
+    private UserRepository userRepository;
+    private final List<Long> loanIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(CreditManagerApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:second-level-cache-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache,
+                        "logging.level.root=warn",
+                        "logging.level.com.ingbank=warn")
+                .run();
+        loanService = context.getBean(LoanService.class);
+        customerRepository = context.getBean(CustomerRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        context.getBean(JdbcTemplate.class).update("UPDATE customer SET credit_limit = 1000000000000");
+        for (int i = 0; i < seededLoans; i++) {
+            loanIds.add(loanService.createLoan(LoanServiceBenchmark.createLoanRequest(LoanServiceBenchmark.LISTING_CUSTOMER_ID, 12)).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object readHeavyMix() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) >= readPercent) {
+            return loanService.createLoan(LoanServiceBenchmark.createLoanRequest(LoanServiceBenchmark.ORIGINATION_CUSTOMER_ID, 12));
+        }
+        return switch (random.nextInt(3)) {
+            case 0 -> loanService.findById(loanIds.get(random.nextInt(loanIds.size())));
+            case 1 -> customerRepository.findById(random.nextBoolean() ? LoanServiceBenchmark.LISTING_CUSTOMER_ID : LoanServiceBenchmark.ORIGINATION_CUSTOMER_ID);
+            default -> userRepository.findByUsername(USERNAMES[random.nextInt(USERNAMES.length)]).map(user -> user.getRoles().size());
+        };
+    }
+}
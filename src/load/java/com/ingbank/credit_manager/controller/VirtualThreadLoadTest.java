@@ -0,0 +1,188 @@
+package com.ingbank.credit_manager.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.CreditManagerApplication;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs the same load of slow requests against {@link LoanController} and {@link LoanInstallmentController}
+ * on the platform thread pool and with {@code spring.threads.virtual.enabled}, where every SQL statement is delayed to
+ * simulate a slow database. Virtual threads are recorded with JFR during the run and any pinning fails the test; the
+ * throughput of both runs is only logged, as it depends on the machine. Built with the {@code load} profile only:
+ * {@code mvn -Pload test -Dtest=VirtualThreadLoadTest}.
+ */
+@Slf4j
+class VirtualThreadLoadTest {
+
+    private static final int WARMUP_REQUESTS = 50;
+    private static final int REQUESTS = 150;
+    private static final int CONCURRENT_REQUESTS = 100;
+    // a deliberately small Tomcat pool, so that the platform threads run out at test scale
+    private static final int PLATFORM_REQUEST_THREADS = 5;
+    private static final long STATEMENT_LATENCY_MS = 200;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testVirtualThreadsServeSlowRequestsWithoutPinning() throws Exception {
+        LoadResult platformThreads = run(false);
+
+        List<RecordedEvent> pinnedEvents = new CopyOnWriteArrayList<>();
+        LoadResult virtualThreads;
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(STATEMENT_LATENCY_MS / 2)).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinnedEvents::add);
+            recording.startAsync();
+            virtualThreads = run(true);
+            recording.stop();
+        }
+
+        log.info("{} requests, {} concurrent, {} ms per statement\n{}\n{}", REQUESTS, CONCURRENT_REQUESTS, STATEMENT_LATENCY_MS,
+                platformThreads.describe("platform (" + PLATFORM_REQUEST_THREADS + " threads)"), virtualThreads.describe("virtual"));
+
+        assertEquals(0, platformThreads.failures());
+        assertEquals(0, virtualThreads.failures());
+        assertTrue(pinnedEvents.isEmpty(), () -> "Virtual threads pinned while blocking:\n" + describePinning(pinnedEvents));
+    }
+
+    private LoadResult run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        // command line arguments, as they take precedence over application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CreditManagerApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + PLATFORM_REQUEST_THREADS,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.hikari.maximum-pool-size=" + (CONCURRENT_REQUESTS + 10),
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector=" + SlowStatementInspector.class.getName(),
+                "--logging.level.com.ingbank.credit_manager=info")) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient client = HttpClient.newBuilder().executor(executor).build();
+                String authorization = "Bearer " + issueToken(client, baseUrl);
+                long loanId = createLoan(client, baseUrl, authorization);
+                List<URI> targets = List.of(URI.create(baseUrl + "/api/v1/loans/1"), URI.create(baseUrl + "/api/v1/loans/installments/" + loanId));
+                load(client, executor, targets, authorization, WARMUP_REQUESTS);
+                return load(client, executor, targets, authorization, REQUESTS);
+            }
+        }
+    }
+
+    private LoadResult load(HttpClient client, ExecutorService executor, List<URI> targets, String authorization, int requests) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENT_REQUESTS);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = HttpRequest.newBuilder(targets.get(i % targets.size())).header("Authorization", authorization).GET().build();
+            inFlight.acquire();
+            executor.execute(() -> {
+                long sent = System.nanoTime();
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                        failures.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies.add(System.nanoTime() - sent);
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(CONCURRENT_REQUESTS);
+        long elapsed = System.nanoTime() - start;
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new LoadResult(requests / (elapsed / 1e9), percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99),
+                TimeUnit.NANOSECONDS.toMillis(sorted[sorted.length - 1]), failures.get());
+    }
+
+    private String issueToken(HttpClient client, String baseUrl) throws Exception {
+        String credentials = Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/auth/token"))
+                .header("Authorization", "Basic " + credentials).POST(HttpRequest.BodyPublishers.noBody()).build();
+        return objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body()).get("token").asText();
+    }
+
+    private long createLoan(HttpClient client, String baseUrl, String authorization) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/loans"))
+                .header("Authorization", authorization).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"customerId\":1,\"amount\":1200,\"interestRate\":0.2,\"installments\":12}")).build();
+        JsonNode response = objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        return response.get("loanCreated").get("id").asLong();
+    }
+
+    private static long percentileMillis(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sortedNanos[Math.max(index, 0)]);
+    }
+
+    private static String describePinning(List<RecordedEvent> pinnedEvents) {
+        return pinnedEvents.stream()
+                .map(event -> event.getDuration().toMillis() + " ms at\n" + event.getStackTrace().getFrames().stream()
+                        .limit(60)
+                        .map(VirtualThreadLoadTest::describeFrame)
+                        .collect(Collectors.joining("\n    ", "    ", "")))
+                .distinct()
+                .limit(5)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String describeFrame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private record LoadResult(double throughput, long p50Millis, long p99Millis, long maxMillis, int failures) {
+
+        String describe(String mode) {
+            return String.format("%-22s %8.1f req/s  p50 %5d ms  p99 %5d ms  max %5d ms  failures %d",
+                    mode, throughput, p50Millis, p99Millis, maxMillis, failures);
+        }
+    }
+
+    /**
+     * Delays every statement on the calling request thread, like a database that answers slowly.
+     */
+    public static class SlowStatementInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            try {
+                Thread.sleep(STATEMENT_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ingbank.credit_manager.load;
+
+import java.util.Arrays;
+
+/**
+ * The calls of a load scenario, each replaying the request of the same name in the Postman collection.
+ */
+enum Endpoint {
+    CREATE("create", "create loan"),
+    LIST("list", "list loans"),
+    INSTALLMENTS("installments", "list installments"),
+    PAY("pay", "pay loan");
+
+    // name in the scenario mix and the baseline
+    final String key;
+    // name of the request in the Postman collection
+    final String requestName;
+
+    Endpoint(String key, String requestName) {
+        this.key = key;
+        this.requestName = requestName;
+    }
+
+    static Endpoint of(String key) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint " + key + ", expected one of " + Arrays.toString(keys())));
+    }
+
+    private static String[] keys() {
+        return Arrays.stream(values()).map(endpoint -> endpoint.key).toArray(String[]::new);
+    }
+}
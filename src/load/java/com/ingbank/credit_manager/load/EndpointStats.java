@@ -0,0 +1,86 @@
+package com.ingbank.credit_manager.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies of the calls of one endpoint in microseconds, with the calls refused by the application (4xx, e.g. a
+ * payment of a paid loan) and the failed ones (5xx or no response) counted apart.
+ */
+final class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Endpoint endpoint;
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    Endpoint endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Records a call that started at {@code startNanos}, or was due then in the open model, with its status, 0 when
+     * no response came.
+     */
+    void record(long startNanos, int status) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        latencies.recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+        if (status >= 500 || status == 0) {
+            failed.increment();
+        } else if (status >= 400) {
+            refused.increment();
+        }
+    }
+
+    void reset() {
+        latencies.reset();
+        refused.reset();
+        failed.reset();
+    }
+
+    long calls() {
+        return latencies.getTotalCount();
+    }
+
+    long refused() {
+        return refused.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long percentileMicros(double percentile) {
+        return latencies.getValueAtPercentile(percentile);
+    }
+
+    long maxMicros() {
+        return latencies.getMaxValue();
+    }
+
+    /**
+     * Writes the percentile distribution in milliseconds, in the {@code .hgrm} format of the HdrHistogram plotter.
+     */
+    Path writeHistogram(Path directory, String scenario) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(scenario + "-" + endpoint.key + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+        return file;
+    }
+}
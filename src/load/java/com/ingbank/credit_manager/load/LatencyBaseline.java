@@ -0,0 +1,99 @@
+package com.ingbank.credit_manager.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Latency percentiles of earlier runs, in microseconds, keyed {@code <scenario>.<endpoint>.p<percentile>.micros}. A run
+ * regresses when one of its percentiles exceeds the one of the same scenario by more than the tolerance; scenarios and
+ * endpoints without a baseline are not checked.
+ */
+final class LatencyBaseline {
+
+    static final double[] PERCENTILES = {50, 99};
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final Properties values;
+
+    private LatencyBaseline(Properties values) {
+        this.values = values;
+    }
+
+    static LatencyBaseline read(String location) throws IOException {
+        Properties values = new Properties();
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            try (InputStream in = LatencyBaseline.class.getClassLoader().getResourceAsStream(location.substring(CLASSPATH_PREFIX.length()))) {
+                if (in != null) {
+                    values.load(in);
+                }
+            }
+        } else if (Files.exists(Path.of(location))) {
+            try (InputStream in = Files.newInputStream(Path.of(location))) {
+                values.load(in);
+            }
+        }
+        return new LatencyBaseline(values);
+    }
+
+    boolean covers(String scenario) {
+        return values.stringPropertyNames().stream().anyMatch(key -> key.startsWith(scenario + "."));
+    }
+
+    List<String> regressions(String scenario, Collection<EndpointStats> stats, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (EndpointStats endpointStats : stats) {
+            if (endpointStats.calls() == 0) {
+                continue;
+            }
+            for (double percentile : PERCENTILES) {
+                String baseline = values.getProperty(key(scenario, endpointStats.endpoint(), percentile));
+                long measured = endpointStats.percentileMicros(percentile);
+                if (baseline != null && measured > Long.parseLong(baseline) * (1 + tolerance)) {
+                    regressions.add(String.format("%s p%.0f of %d us exceeds its baseline of %s us by more than %.0f%%", endpointStats.endpoint().key, percentile, measured,
+                            baseline, tolerance * 100));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Writes the percentiles of the run over the ones of its scenario in the file, keeping the other scenarios.
+     */
+    static void record(Path file, String scenario, Collection<EndpointStats> stats) throws IOException {
+        Map<String, String> sorted = new TreeMap<>();
+        LatencyBaseline current = read(file.toString());
+        current.values.stringPropertyNames().stream()
+                .filter(key -> !key.startsWith(scenario + "."))
+                .forEach(key -> sorted.put(key, current.values.getProperty(key)));
+        for (EndpointStats endpointStats : stats) {
+            if (endpointStats.calls() > 0) {
+                for (double percentile : PERCENTILES) {
+                    sorted.put(key(scenario, endpointStats.endpoint(), percentile), Long.toString(endpointStats.percentileMicros(percentile)));
+                }
+            }
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer out = Files.newBufferedWriter(file)) {
+            out.write("# latency percentiles in microseconds of the load scenarios, written with --load.record-baseline\n");
+            for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                out.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+    }
+
+    private static String key(String scenario, Endpoint endpoint, double percentile) {
+        return String.format("%s.%s.p%.0f.micros", scenario, endpoint.key, percentile);
+    }
+}
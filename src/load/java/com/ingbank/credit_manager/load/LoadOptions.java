@@ -0,0 +1,99 @@
+package com.ingbank.credit_manager.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Options of a load test run, given as {@code --load.<name>=<value>} arguments; any other argument is passed on to the
+ * embedded application, e.g. {@code --credit-manager.loan.index.enabled=true}.
+ *
+ * @param scenario        name of the run in the baseline, {@code <model>-<users or rate>} by default
+ * @param mix             weights of the endpoints, see {@link ScenarioMix}
+ * @param openModel       {@code load.model=open}: requests sent at {@code rate} per second whatever the responses,
+ *                        their latency counted from when they were due; {@code closed}: {@code users} callers each
+ *                        sending their next request {@code thinkTime} after the previous one returned
+ * @param customers       customers seeded, each with {@code loansPerCustomer} loans created before the warmup
+ * @param tolerance       a percentile may exceed its baseline by this fraction before it counts as a regression
+ * @param baseline        baseline read, {@code classpath:} or a file
+ * @param recordBaseline  file the measured percentiles are written to as the new baseline, if given
+ * @param output          directory of the latency histograms
+ */
+record LoadOptions(String scenario,
+                   ScenarioMix mix,
+                   boolean openModel,
+                   int users,
+                   Duration thinkTime,
+                   int rate,
+                   Duration warmup,
+                   Duration duration,
+                   int customers,
+                   int loansPerCustomer,
+                   double tolerance,
+                   String baseline,
+                   Path recordBaseline,
+                   Path output,
+                   List<String> applicationArgs) {
+
+    private static final String PREFIX = "--load.";
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(PREFIX) && arg.contains("=")) {
+                options.put(arg.substring(PREFIX.length(), arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (!arg.isBlank()) {
+                applicationArgs.add(arg);
+            }
+        }
+        String model = options.getOrDefault("model", "closed");
+        if (!model.equals("closed") && !model.equals("open")) {
+            throw new IllegalArgumentException("Expected closed or open as load.model: " + model);
+        }
+        boolean openModel = model.equals("open");
+        int users = positive(options, "users", "8");
+        int rate = positive(options, "rate", "50");
+        String recordBaseline = options.get("record-baseline");
+        return new LoadOptions(
+                options.getOrDefault("scenario", openModel ? "open-" + rate + "rps" : "closed-" + users + "users"),
+                ScenarioMix.parse(options.getOrDefault("mix", "create=5,list=60,installments=30,pay=5")),
+                openModel,
+                users,
+                DurationStyle.detectAndParse(options.getOrDefault("think-time", "0ms")),
+                rate,
+                DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s")),
+                DurationStyle.detectAndParse(options.getOrDefault("duration", "30s")),
+                positive(options, "customers", "100"),
+                positive(options, "loans-per-customer", "2"),
+                Double.parseDouble(options.getOrDefault("tolerance", "0.5")),
+                options.getOrDefault("baseline", "classpath:load-baseline.properties"),
+                recordBaseline == null ? null : Path.of(recordBaseline),
+                Path.of(options.getOrDefault("output", "target/load")),
+                List.copyOf(applicationArgs));
+    }
+
+    String describe() {
+        return openModel
+                ? String.format("%s: open model, %d requests/s for %s after %s of warmup", scenario, rate, print(duration), print(warmup))
+                : String.format("%s: closed model, %d users thinking %s for %s after %s of warmup", scenario, users, print(thinkTime),
+                        print(duration), print(warmup));
+    }
+
+    private static String print(Duration duration) {
+        return DurationStyle.SIMPLE.print(duration);
+    }
+
+    private static int positive(Map<String, String> options, String name, String defaultValue) {
+        int value = Integer.parseInt(options.getOrDefault(name, defaultValue));
+        if (value <= 0) {
+            throw new IllegalArgumentException("load." + name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,246 @@
+package com.ingbank.credit_manager.load;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.CreditManagerApplication;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.load.PostmanCollection.RequestTemplate;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Replays the requests of the Postman collection against an embedded instance of the application in a weighted mix,
+ * under a closed or an open workload model, see {@link LoadOptions}. Prints the throughput and latency percentiles of
+ * every endpoint, writes their histograms and exits with 1 when a percentile regressed against the
+ * {@link LatencyBaseline} or a request failed.
+ * <p>
+ * The collection authenticates every request with basic credentials; the load uses them once to issue a bearer token,
+ * so that the BCrypt check of every request does not dominate the latencies measured.
+ */
+public final class LoadTest {
+
+    private static final long FIRST_CUSTOMER_ID = 1_000_000;
+    private static final BigDecimal CREDIT_LIMIT = new BigDecimal("1000000000000.00");
+
+    private final LoadOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    // ids of the loans created so far, read by the installments and pay requests
+    private final List<Long> loanIds = Collections.synchronizedList(new ArrayList<>());
+    private PostmanCollection collection;
+    private HttpClient client;
+    private String baseUrl;
+    private String authorization;
+
+    private LoadTest(LoadOptions options) {
+        this.options = options;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        // devtools would restart the application on its own thread, out of reach of the failures of this one
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> regressions;
+        List<String> applicationArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=warn",
+                "--logging.level.com.ingbank.credit_manager=warn",
+                "--credit-manager.auth.token.ttl=1d"));
+        // command line arguments, as they take precedence over application.properties; later ones win
+        applicationArgs.addAll(options.applicationArgs());
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CreditManagerApplication.class)
+                .run(applicationArgs.toArray(String[]::new));
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            LoadTest loadTest = new LoadTest(options);
+            regressions = loadTest.run(context, executor);
+        }
+        if (!regressions.isEmpty()) {
+            System.out.println("Latency regressions:\n  " + String.join("\n  ", regressions));
+            System.exit(1);
+        }
+    }
+
+    private List<String> run(ConfigurableApplicationContext context, ExecutorService executor) throws Exception {
+        collection = PostmanCollection.read(objectMapper);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        seedCustomers(context.getBean(JdbcTemplate.class));
+        authorization = "Bearer " + issueToken(collection.request(Endpoint.CREATE));
+        for (long customerId = FIRST_CUSTOMER_ID; customerId < FIRST_CUSTOMER_ID + options.customers(); customerId++) {
+            for (int i = 0; i < options.loansPerCustomer(); i++) {
+                send(Endpoint.CREATE, customerId, System.nanoTime());
+            }
+        }
+        if (loanIds.isEmpty()) {
+            throw new IllegalStateException("No loan created, the create loan request of the collection was refused");
+        }
+
+        System.out.println(options.describe());
+        // the initial loans are counted with the warmup
+        load(executor, options.warmup());
+        stats.values().forEach(EndpointStats::reset);
+        load(executor, options.duration());
+
+        report();
+        LatencyBaseline baseline = LatencyBaseline.read(options.baseline());
+        List<String> regressions = new ArrayList<>();
+        if (!baseline.covers(options.scenario())) {
+            System.out.println("No latency baseline of " + options.scenario() + " in " + options.baseline());
+        }
+        regressions.addAll(baseline.regressions(options.scenario(), stats.values(), options.tolerance()));
+        stats.values().stream()
+                .filter(endpointStats -> endpointStats.failed() > 0)
+                .forEach(endpointStats -> regressions.add(endpointStats.endpoint().key + " " + endpointStats.failed() + " failed requests"));
+        if (options.recordBaseline() != null) {
+            LatencyBaseline.record(options.recordBaseline(), options.scenario(), stats.values());
+            System.out.println("Latency baseline of " + options.scenario() + " written to " + options.recordBaseline());
+        }
+        return regressions;
+    }
+
+    private void load(ExecutorService executor, Duration duration) throws InterruptedException {
+        long end = System.nanoTime() + duration.toNanos();
+        List<Thread> senders = new ArrayList<>();
+        if (options.openModel()) {
+            senders.add(Thread.ofVirtual().start(() -> sendAtRate(executor, end)));
+        } else {
+            for (int i = 0; i < options.users(); i++) {
+                senders.add(Thread.ofVirtual().start(() -> sendUntil(end)));
+            }
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+    }
+
+    // closed model: the next request of a user waits for the response to the previous one
+    private void sendUntil(long end) {
+        while (System.nanoTime() < end) {
+            send(options.mix().next(ThreadLocalRandom.current()), randomCustomerId(), System.nanoTime());
+            if (!options.thinkTime().isZero()) {
+                LockSupport.parkNanos(options.thinkTime().toNanos());
+            }
+        }
+    }
+
+    // open model: requests go out on schedule; a late one is measured from when it was due, not from when it was sent
+    private void sendAtRate(ExecutorService executor, long end) {
+        long start = System.nanoTime();
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        List<Future<?>> inFlight = new ArrayList<>();
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long dueAt = due;
+            inFlight.add(executor.submit(() -> send(options.mix().next(ThreadLocalRandom.current()), randomCustomerId(), dueAt)));
+        }
+        for (Future<?> request : inFlight) {
+            try {
+                request.get();
+            } catch (Exception e) {
+                // send records its own failures
+            }
+        }
+    }
+
+    private void send(Endpoint endpoint, long customerId, long startNanos) {
+        RequestTemplate template = collection.request(endpoint);
+        long loanId = endpoint == Endpoint.CREATE || endpoint == Endpoint.LIST
+                ? 0 : loanIds.get(ThreadLocalRandom.current().nextInt(loanIds.size()));
+        HttpRequest.Builder request = HttpRequest.newBuilder(template.uri(baseUrl, Map.of("customerId", customerId, "loanId", loanId)))
+                .header("Authorization", authorization);
+        if (template.body() == null) {
+            request.method(template.method(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            Map<String, Long> fields = endpoint == Endpoint.CREATE ? Map.of("customerId", customerId) : Map.of("loanId", loanId);
+            request.header("Content-Type", "application/json")
+                    .method(template.method(), HttpRequest.BodyPublishers.ofString(template.body(fields).toString()));
+        }
+        int status = 0;
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            if (endpoint == Endpoint.CREATE && status / 100 == 2) {
+                loanIds.add(objectMapper.readTree(response.body()).path("loanCreated").path("id").asLong());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // no response, recorded with status 0
+        } finally {
+            stats.get(endpoint).record(startNanos, status);
+        }
+    }
+
+    private void seedCustomers(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.batchUpdate("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Load', 'Test', ?, 0)",
+                LongStream.range(FIRST_CUSTOMER_ID, FIRST_CUSTOMER_ID + options.customers()).mapToObj(id -> new Object[]{id, CREDIT_LIMIT}).toList());
+    }
+
+    private String issueToken(RequestTemplate template) throws Exception {
+        String credentials = Base64.getEncoder().encodeToString((template.username() + ":" + template.password()).getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + CreditManagerConstants.AUTH_TOKEN_ENDPOINT))
+                .header("Authorization", "Basic " + credentials).POST(HttpRequest.BodyPublishers.noBody()).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Token request of " + template.username() + " refused with " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private long randomCustomerId() {
+        return FIRST_CUSTOMER_ID + ThreadLocalRandom.current().nextLong(options.customers());
+    }
+
+    private void report() throws Exception {
+        double seconds = options.duration().toNanos() / 1e9;
+        System.out.printf("%-13s %8s %9s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "calls", "req/s", "refused", "failed", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (EndpointStats endpointStats : stats.values()) {
+            total += endpointStats.calls();
+            if (endpointStats.calls() == 0) {
+                continue;
+            }
+            System.out.printf("%-13s %8d %9.1f %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", endpointStats.endpoint().key,
+                    endpointStats.calls(), endpointStats.calls() / seconds, endpointStats.refused(), endpointStats.failed(),
+                    millis(endpointStats.percentileMicros(50)), millis(endpointStats.percentileMicros(90)),
+                    millis(endpointStats.percentileMicros(99)), millis(endpointStats.percentileMicros(99.9)), millis(endpointStats.maxMicros()));
+            endpointStats.writeHistogram(options.output(), options.scenario());
+        }
+        System.out.printf("%-13s %8d %9.1f%nHistograms written to %s%n", "total", total, total / seconds, options.output().toAbsolutePath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
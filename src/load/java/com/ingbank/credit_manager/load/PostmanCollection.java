@@ -0,0 +1,86 @@
+package com.ingbank.credit_manager.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The requests of the Postman collection shipped with the application, by name, so the load scenarios send what the
+ * collection describes: its methods, paths, bodies and basic credentials.
+ */
+final class PostmanCollection {
+
+    static final String LOCATION = "postman/collections/Credit-Manager.postman_collection.json";
+
+    private final Map<String, RequestTemplate> requests;
+
+    private PostmanCollection(Map<String, RequestTemplate> requests) {
+        this.requests = requests;
+    }
+
+    static PostmanCollection read(ObjectMapper objectMapper) throws IOException {
+        try (InputStream collection = PostmanCollection.class.getClassLoader().getResourceAsStream(LOCATION)) {
+            if (collection == null) {
+                throw new IOException("Postman collection not found on the classpath: " + LOCATION);
+            }
+            Map<String, RequestTemplate> requests = new HashMap<>();
+            collect(objectMapper, objectMapper.readTree(collection).path("item"), requests);
+            return new PostmanCollection(requests);
+        }
+    }
+
+    RequestTemplate request(Endpoint endpoint) {
+        RequestTemplate request = requests.get(endpoint.requestName);
+        if (request == null) {
+            throw new IllegalStateException("No request named '" + endpoint.requestName + "' in " + LOCATION);
+        }
+        return request;
+    }
+
+    // folders nest their requests in item as well
+    private static void collect(ObjectMapper objectMapper, JsonNode items, Map<String, RequestTemplate> requests) throws IOException {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(objectMapper, item.get("item"), requests);
+                continue;
+            }
+            JsonNode request = item.path("request");
+            String path = StreamSupport.stream(request.path("url").path("path").spliterator(), false)
+                    .map(JsonNode::asText)
+                    .collect(Collectors.joining("/", "/", ""));
+            String body = request.path("body").path("raw").asText("");
+            Map<String, String> credentials = new HashMap<>();
+            request.path("auth").path("basic").forEach(entry -> credentials.put(entry.path("key").asText(), entry.path("value").asText()));
+            requests.put(item.path("name").asText(), new RequestTemplate(request.path("method").asText(), path,
+                    body.isBlank() ? null : (ObjectNode) objectMapper.readTree(body), credentials.get("username"), credentials.get("password")));
+        }
+    }
+
+    /**
+     * A request of the collection; its {@code :variable} path segments and body fields are replaced per call.
+     */
+    record RequestTemplate(String method, String path, ObjectNode body, String username, String password) {
+
+        URI uri(String baseUrl, Map<String, ?> variables) {
+            String resolved = path;
+            for (Map.Entry<String, ?> variable : variables.entrySet()) {
+                resolved = resolved.replace(":" + variable.getKey(), String.valueOf(variable.getValue()));
+            }
+            return URI.create(baseUrl + resolved);
+        }
+
+        ObjectNode body(Map<String, Long> fields) {
+            ObjectNode resolved = body.deepCopy();
+            fields.forEach(resolved::put);
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ingbank.credit_manager.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Relative weights of the endpoints called by a scenario, written as {@code create=5,list=60,installments=30,pay=5}.
+ */
+record ScenarioMix(List<Endpoint> endpoints, int[] cumulativeWeights) {
+
+    static ScenarioMix parse(String mix) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] keyAndWeight = entry.trim().split("=");
+            if (keyAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint=weight in the mix: " + entry);
+            }
+            int weight = Integer.parseInt(keyAndWeight[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in the mix: " + entry);
+            }
+            if (weight > 0) {
+                endpoints.add(Endpoint.of(keyAndWeight[0].trim()));
+                weights.add(weight);
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("No endpoint with a positive weight in the mix: " + mix);
+        }
+        int[] cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+        return new ScenarioMix(List.copyOf(endpoints), cumulativeWeights);
+    }
+
+    Endpoint next(RandomGenerator random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; ; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return endpoints.get(i);
+            }
+        }
+    }
+}
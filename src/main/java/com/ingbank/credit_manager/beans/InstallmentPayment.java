@@ -0,0 +1,9 @@
+package com.ingbank.credit_manager.beans;
+
+import java.math.BigDecimal;
+
+/**
+ * An installment settled by a payment: its amount and what the payment timing made it cost.
+ */
+public record InstallmentPayment(Long installmentId, BigDecimal amount, BigDecimal paidAmount) {
+}
@@ -0,0 +1,16 @@
+package com.ingbank.credit_manager.beans;
+
+import java.time.LocalDate;
+
+import com.ingbank.credit_manager.request.PayLoanRequest;
+
+/**
+ * A payment acknowledged by the payment journal, not yet applied when read from it. It is paid as of the day it was
+ * accepted, however late it is applied.
+ */
+public record JournaledPayment(long sequence, Long loanId, Money amount, LocalDate acceptedOn) {
+
+    public PayLoanRequest toRequest() {
+        return PayLoanRequest.builder().loanId(loanId).amount(amount.toBigDecimal()).build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ingbank.credit_manager.beans;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.exception.InvalidPageRequestException;
+import com.ingbank.credit_manager.util.KeysetCursor;
+
+/**
+ * One page of a keyset paginated listing and the cursor of the next page, {@code null} on the last page.
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Builds the page from rows queried with a limit of {@code pageSize + 1}; the extra row only tells that
+     * another page exists and is not returned.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, ToLongFunction<T> sortKey) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, KeysetCursor.encode(sortKey.applyAsLong(items.get(pageSize - 1))));
+    }
+
+    /**
+     * @throws InvalidPageRequestException if the page size is not between 1 and {@link CreditManagerConstants#MAX_PAGE_SIZE}
+     */
+    public static int checkPageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > CreditManagerConstants.MAX_PAGE_SIZE) {
+            throw new InvalidPageRequestException("Page size must be between 1 and " + CreditManagerConstants.MAX_PAGE_SIZE + ": " + pageSize);
+        }
+        return pageSize;
+    }
+}
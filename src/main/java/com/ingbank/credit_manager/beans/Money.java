@@ -0,0 +1,103 @@
+package com.ingbank.credit_manager.beans;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point amount of money held as a {@code long} count of minor units (scale 2), used for the loan and
+ * payment calculations instead of chaining {@link BigDecimal} operations.
+ * <p>
+ * Operations that have to drop digits round once, {@link RoundingMode#HALF_UP}, so every result is equal to the
+ * exact {@link BigDecimal} computation followed by {@code setScale(2, RoundingMode.HALF_UP)}. Results that do not
+ * fit in a {@code long} throw {@link ArithmeticException} instead of overflowing silently.
+ * Convert with {@link #of(BigDecimal)} and {@link #toBigDecimal()} at the persistence and JSON edges only.
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    /**
+     * Converts the amount, rounding HALF_UP to two decimals like {@code amount.setScale(2, RoundingMode.HALF_UP)}.
+     */
+    public static Money of(BigDecimal amount) {
+        return new Money(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public Money add(Money other) {
+        return new Money(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money subtract(Money other) {
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    /**
+     * Same result as {@code toBigDecimal().divide(BigDecimal.valueOf(divisor), RoundingMode.HALF_UP)}.
+     */
+    public Money divide(long divisor) {
+        return new Money(divideHalfUp(minorUnits, divisor));
+    }
+
+    /**
+     * Multiplies by the exact fraction {@code numerator / denominator} and rounds the product once.
+     */
+    public Money multiply(long numerator, long denominator) {
+        return new Money(divideHalfUp(Math.multiplyExact(minorUnits, numerator), denominator));
+    }
+
+    /**
+     * Same result as {@code toBigDecimal().multiply(factor).setScale(2, RoundingMode.HALF_UP)}.
+     */
+    public Money multiply(BigDecimal factor) {
+        int scale = factor.scale();
+        if (scale <= 0) {
+            return new Money(Math.multiplyExact(minorUnits, factor.longValueExact()));
+        }
+        if (scale >= POWERS_OF_TEN.length) {
+            return of(toBigDecimal().multiply(factor));
+        }
+        return multiply(factor.unscaledValue().longValueExact(), POWERS_OF_TEN[scale]);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    /**
+     * Integer division rounding half away from zero, the {@link RoundingMode#HALF_UP} rule of {@link BigDecimal}.
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.absExact(dividend % divisor);
+        // compared as remainder >= divisor - remainder so that doubling the remainder cannot overflow
+        if (remainder != 0 && remainder >= Math.absExact(divisor) - remainder) {
+            quotient += (dividend ^ divisor) < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
@@ -5,9 +5,11 @@ import java.math.BigDecimal;
 import jakarta.persistence.Column;
 import lombok.Builder;
 import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
 
 @Data
 @Builder
+@Jacksonized
 public class PaymentResult {
     private int installmentsPaid;
     @Column(precision = 20, scale = 2)
@@ -0,0 +1,57 @@
+package com.ingbank.credit_manager.beans;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * SQL statements executed while a {@link com.ingbank.credit_manager.util.SqlStatementCounter} scope was open: how many,
+ * the rows they read or wrote and the time spent executing them. A JDBC batch counts as one statement.
+ * Only used by the thread that opened the scope.
+ */
+@Getter
+public class SqlStatementStatistics {
+
+    private int statements;
+    private long rows;
+    private long elapsedNanos;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Integer> executionsBySql = new LinkedHashMap<>();
+
+    public void statementExecuted(String sql, long rowsWritten, long statementNanos) {
+        statements++;
+        rows += rowsWritten;
+        elapsedNanos += statementNanos;
+        executionsBySql.merge(sql, 1, Integer::sum);
+    }
+
+    public void rowRead() {
+        rows++;
+    }
+
+    public void add(SqlStatementStatistics other) {
+        statements += other.statements;
+        rows += other.rows;
+        elapsedNanos += other.elapsedNanos;
+        other.executionsBySql.forEach((sql, executions) -> executionsBySql.merge(sql, executions, Integer::sum));
+    }
+
+    /**
+     * Returns the statements executed at least {@code threshold} times, the signature of an N+1: one statement per
+     * row of a previous result instead of a join or an {@code IN} list.
+     */
+    public Map<String, Integer> repeatedStatements(int threshold) {
+        return executionsBySql.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, Integer::sum, LinkedHashMap::new));
+    }
+
+    public String describe() {
+        return executionsBySql.entrySet().stream()
+                .map(entry -> entry.getValue() + " x " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+}
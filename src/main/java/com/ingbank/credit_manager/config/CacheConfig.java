@@ -0,0 +1,13 @@
+package com.ingbank.credit_manager.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables Spring caching. Caches are Caffeine backed and configured with the {@code spring.cache.*} properties,
+ * hit/miss statistics are published through the actuator {@code cache.gets} metric.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
@@ -0,0 +1,13 @@
+package com.ingbank.credit_manager.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the {@code @Scheduled} jobs, such as the daily installment accrual. A job whose cron property is set to
+ * {@code -} is not scheduled.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
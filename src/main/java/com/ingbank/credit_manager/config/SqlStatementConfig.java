@@ -0,0 +1,55 @@
+package com.ingbank.credit_manager.config;
+
+import javax.sql.DataSource;
+
+import com.ingbank.credit_manager.util.SqlStatementCounter;
+import com.ingbank.credit_manager.util.SqlStatementFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Wraps the data source in a datasource-proxy that accounts every SQL statement, and the requests in a
+ * {@link SqlStatementFilter} that reports the statements per endpoint. Disabled with
+ * {@code credit-manager.sql.accounting.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "credit-manager.sql.accounting.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    SqlStatementCounter counter = new SqlStatementCounter();
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(counter)
+                            .methodListener(counter)
+                            .proxyResultSet()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Registered ahead of the security filters, so the user lookups of authentication are accounted too.
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatementFilter> sqlStatementFilter(MeterRegistry meterRegistry,
+                                                                        @Value("${credit-manager.sql.repeated-statement-threshold:5}") int repeatedStatementThreshold) {
+        FilterRegistrationBean<SqlStatementFilter> registration = new FilterRegistrationBean<>(new SqlStatementFilter(meterRegistry, repeatedStatementThreshold));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -9,9 +9,70 @@ public class CreditManagerConstants {
     }
     // general usages
     public static final String RETURNING_RESPONSE = "Returning response {}";
+    // authentication
+    public static final String AUTH_TOKEN_ENDPOINT = "/api/v1/auth/token";
     // loans
     public static final String LOANS_ENDPOINT = "/api/v1/loans";
     // loan installment
     public static final String LOAN_INSTALLMENTS_ENDPOINT = "/api/v1/loans/installments";
     public static final BigDecimal PAYMENT_TIMING_BASED_INTEREST_RATE = new BigDecimal("0.001");
+    // integer digits of request amounts, so that a loan with interest and fifty years of timing interest fit in Money
+    public static final int AMOUNT_INTEGER_DIGITS = 13;
+    // listings
+    public static final String STREAM_PATH = "/stream";
+    public static final String SUMMARY_PATH = "/summary";
+    public static final String BALANCE_PATH = "/balance";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final String STREAM_FETCH_SIZE = "200";
+    // caches
+    public static final String CUSTOMER_ID_BY_USERNAME_CACHE = "customerIdByUsername";
+    public static final String USER_DETAILS_CACHE = "userDetails";
+    public static final String IDEMPOTENT_RESPONSES_CACHE = "idempotentResponses";
+    // idempotency
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
+    // operations, names used by idempotency records and metric tags
+    public static final String CREATE_LOAN_OPERATION = "createLoan";
+    public static final String PAY_LOAN_OPERATION = "payLoan";
+    public static final String LIST_LOANS_OPERATION = "listLoans";
+    public static final String LIST_INSTALLMENTS_OPERATION = "listInstallmentsByLoanId";
+    // metrics
+    public static final String LOAN_OPERATIONS_METRIC = "loan.operations";
+    public static final String CREDIT_LIMIT_REJECTIONS_METRIC = "loan.credit.limit.rejections";
+    public static final String INSTALLMENTS_PAID_METRIC = "loan.payment.installments.paid";
+    public static final String LOANS_FULLY_PAID_METRIC = "loan.payment.loans.fully.paid";
+    public static final String LOAN_INDEX_LOANS_METRIC = "loan.index.loans";
+    public static final String LOAN_INDEX_BYTES_METRIC = "loan.index.estimated.bytes";
+    public static final String OPERATION_TAG = "operation";
+    public static final String OUTCOME_TAG = "outcome";
+    public static final String SQL_STATEMENTS_METRIC = "sql.request.statements";
+    public static final String SQL_ROWS_METRIC = "sql.request.rows";
+    public static final String SQL_TIME_METRIC = "sql.request.time";
+    public static final String SQL_REPEATED_STATEMENTS_METRIC = "sql.request.repeated.statements";
+    public static final String METHOD_TAG = "method";
+    public static final String URI_TAG = "uri";
+    // persistence
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String LOAN_WITH_CUSTOMER_GRAPH = "Loan.withCustomer";
+    public static final String INSTALLMENT_WITH_LOAN_GRAPH = "LoanInstallment.withLoan";
+    // installment ids of a packed schedule are PACKED_INSTALLMENT_ID_OFFSET + loanId * PACKED_INSTALLMENT_ID_FACTOR + index;
+    // the offset is 2^52, above the MAXVALUE of loan_installment_id_seq (V14) so they never share an id with a row, and
+    // the ids stay exact JSON numbers below 2^53 for loan ids below 4.5e13
+    public static final int PACKED_INSTALLMENT_ID_FACTOR = 100;
+    public static final long PACKED_INSTALLMENT_ID_OFFSET = 1L << 52;
+    // second-level cache regions, configured in hibernate-cache.conf
+    public static final String CUSTOMER_CACHE_REGION = "customer";
+    public static final String LOAN_CACHE_REGION = "loan";
+    public static final String USER_CACHE_REGION = "user";
+    public static final String USER_ROLES_CACHE_REGION = "user-roles";
+    public static final String USER_BY_USERNAME_CACHE_REGION = "user-by-username";
+    // query space of the credit limit reservation, matching no entity table so no cache region is invalidated by it
+    public static final String CREDIT_LIMIT_QUERY_SPACE = "credit-limit-reservation";
+    // loan ledger entry types
+    public static final String LEDGER_ORIGINATED = "ORIGINATED";
+    public static final String LEDGER_INSTALLMENT_PAID = "INSTALLMENT_PAID";
+    public static final String LEDGER_LOAN_PAID = "LOAN_PAID";
 }
@@ -0,0 +1,48 @@
+package com.ingbank.credit_manager.controller;
+
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.response.AuthTokenResponse;
+import com.ingbank.credit_manager.security.AuthTokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller class for exchanging verified credentials for a short-lived bearer token.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = CreditManagerConstants.AUTH_TOKEN_ENDPOINT, produces = {MediaType.APPLICATION_JSON_VALUE})
+public class AuthController {
+
+    private static final String TOKEN_TYPE = "Bearer";
+
+    private final AuthTokenService authTokenService;
+
+    @Autowired
+    public AuthController(AuthTokenService authTokenService) {
+        this.authTokenService = authTokenService;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @PostMapping
+    @Operation(summary = "Issue bearer token", description = "Issues a short-lived bearer token for the authenticated user, to be sent as 'Authorization: Bearer <token>' instead of HTTP Basic credentials")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully issued token"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<AuthTokenResponse> issueToken(Authentication authentication) {
+        log.debug("POST /api/v1/auth/token: issueToken({})", authentication.getName());
+        AuthTokenService.AuthToken authToken = authTokenService.issue(authentication);
+        return ResponseEntity.ok(AuthTokenResponse.builder().token(authToken.token()).tokenType(TOKEN_TYPE).expiresAt(authToken.expiresAt()).build());
+    }
+}
@@ -1,7 +1,9 @@
 package com.ingbank.credit_manager.controller;
 
+import java.io.IOException;
 import java.util.List;
 
+import com.ingbank.credit_manager.beans.KeysetPage;
 import com.ingbank.credit_manager.beans.PaymentResult;
 import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Loan;
@@ -12,12 +14,24 @@ import com.ingbank.credit_manager.exception.NotFoundException;
 import com.ingbank.credit_manager.request.CreateLoanRequest;
 import com.ingbank.credit_manager.request.PayLoanRequest;
 import com.ingbank.credit_manager.response.CreateLoanResponse;
+import com.ingbank.credit_manager.response.CustomerSummaryResponse;
+import com.ingbank.credit_manager.response.LoanBalanceResponse;
+import com.ingbank.credit_manager.response.LoanResponse;
 import com.ingbank.credit_manager.response.PayLoanResponse;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import com.ingbank.credit_manager.service.IdempotencyService;
+import com.ingbank.credit_manager.service.LoanBulkService;
+import com.ingbank.credit_manager.service.LoanLedgerService;
 import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.service.LoanStreamService;
+import com.ingbank.credit_manager.service.PaymentJournalService;
 import com.ingbank.credit_manager.util.AuthorizationComponent;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +43,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -43,13 +58,31 @@ import org.springframework.web.bind.annotation.RestController;
 public class LoanController {
 
     private final LoanService loanService;
+    private final LoanBulkService loanBulkService;
+    private final LoanStreamService loanStreamService;
     private final AuthorizationComponent authorizationComponent;
+    private final IdempotencyService idempotencyService;
+    private final CustomerSummaryService customerSummaryService;
+    private final LoanLedgerService loanLedgerService;
+    private final PaymentJournalService paymentJournalService;
 
     @Autowired
     public LoanController(LoanService loanService,
-                          AuthorizationComponent authorizationComponent) {
+                          LoanBulkService loanBulkService,
+                          LoanStreamService loanStreamService,
+                          AuthorizationComponent authorizationComponent,
+                          IdempotencyService idempotencyService,
+                          CustomerSummaryService customerSummaryService,
+                          LoanLedgerService loanLedgerService,
+                          PaymentJournalService paymentJournalService) {
         this.loanService = loanService;
+        this.loanBulkService = loanBulkService;
+        this.loanStreamService = loanStreamService;
         this.authorizationComponent = authorizationComponent;
+        this.idempotencyService = idempotencyService;
+        this.customerSummaryService = customerSummaryService;
+        this.loanLedgerService = loanLedgerService;
+        this.paymentJournalService = paymentJournalService;
         log.trace("{} initialized", this.getClass().getName());
     }
 
@@ -59,10 +92,20 @@ public class LoanController {
             @ApiResponse(responseCode = "200", description = "Successfully created loan"),
             @ApiResponse(responseCode = "400", description = "Bad request"),
             @ApiResponse(responseCode = "404", description = "Not found"),
+            @ApiResponse(responseCode = "422", description = "Idempotency key already used for a different request"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
     })
-    public ResponseEntity<CreateLoanResponse> createLoan(@Valid @NotNull @RequestBody CreateLoanRequest request) {
+    public ResponseEntity<CreateLoanResponse> createLoan(@Valid @NotNull @RequestBody CreateLoanRequest request,
+                                                         @Parameter(description = "Retries with the same key return the first response instead of creating another loan")
+                                                         @RequestHeader(value = CreditManagerConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         authorizationComponent.checkAccess(request.getCustomerId());
+        if (idempotencyKey == null) {
+            return createLoan(request);
+        }
+        return idempotencyService.execute(idempotencyKey, CreditManagerConstants.CREATE_LOAN_OPERATION, request, CreateLoanResponse.class, () -> createLoan(request));
+    }
+
+    private ResponseEntity<CreateLoanResponse> createLoan(CreateLoanRequest request) {
         CreateLoanResponse response;
         CreateLoanResponse.CreateLoanResponseBuilder builder = CreateLoanResponse.builder();
         try {
@@ -82,39 +125,135 @@ public class LoanController {
         }
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Create loans in bulk", description = "Creates loans from a newline delimited JSON stream of create loan requests and streams back one create loan response per request, in request order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Processed the stream, per record outcome is in each response line"),
+            @ApiResponse(responseCode = "400", description = "Bad request"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public void createLoans(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("POST /api/v1/loans/bulk: createLoans()");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        loanBulkService.createLoans(request.getInputStream(), response.getOutputStream());
+    }
+
     @GetMapping(value = "/{customerId}")
-    @Operation(summary = "Get all loans for customer", description = "Retrieves a list of all loans.")
+    @Operation(summary = "Get all loans for customer", description = "Retrieves a list of all loans. When limit or cursor is given, " +
+            "retrieves one page in loan id order and returns the cursor of the next page in the " + CreditManagerConstants.NEXT_CURSOR_HEADER + " header, absent on the last page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved loans"),
             @ApiResponse(responseCode = "400", description = "Bad request"),
             @ApiResponse(responseCode = "404", description = "Not found"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
     })
-    public ResponseEntity<List<Loan>> listLoans(@PathVariable Long customerId,
+    public ResponseEntity<List<LoanResponse>> listLoans(@PathVariable Long customerId,
                                                 @RequestParam(required = false) Integer numberOfInstallments,
-                                                @RequestParam(required = false) Boolean isPaid) {
+                                                @RequestParam(required = false) Boolean isPaid,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String cursor) {
+        authorizationComponent.checkAccess(customerId);
+        log.debug("GET /api/v1/loans/{customerId}: listLoans({},{},{},{},{})", customerId, numberOfInstallments, isPaid, limit, cursor);
+        if (limit == null && cursor == null) {
+            List<LoanResponse> loansList = loanService.listLoans(customerId, numberOfInstallments, isPaid);
+            log.debug("GET /api/v1/loans/{customerId}: " + CreditManagerConstants.RETURNING_RESPONSE, loansList);
+            return ResponseEntity.ok(loansList);
+        }
+        KeysetPage<LoanResponse> page = loanService.listLoans(customerId, numberOfInstallments, isPaid, cursor,
+                limit != null ? limit : CreditManagerConstants.DEFAULT_PAGE_SIZE);
+        log.debug("GET /api/v1/loans/{customerId}: " + CreditManagerConstants.RETURNING_RESPONSE, page);
+        return pageResponse(page);
+    }
+
+    @GetMapping(value = "/{customerId}" + CreditManagerConstants.STREAM_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all loans for customer", description = "Streams all loans in loan id order as newline delimited JSON, written while they are read from the database.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully streamed loans"),
+            @ApiResponse(responseCode = "400", description = "Bad request"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public void streamLoans(@PathVariable Long customerId,
+                            @RequestParam(required = false) Integer numberOfInstallments,
+                            @RequestParam(required = false) Boolean isPaid,
+                            HttpServletResponse response) throws IOException {
+        authorizationComponent.checkAccess(customerId);
+        log.debug("GET /api/v1/loans/{customerId}/stream: streamLoans({},{},{})", customerId, numberOfInstallments, isPaid);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        loanStreamService.writeLoans(customerId, numberOfInstallments, isPaid, response.getOutputStream());
+    }
+
+    @GetMapping(value = "/{customerId}" + CreditManagerConstants.SUMMARY_PATH)
+    @Operation(summary = "Get credit and loan summary for customer", description = "Retrieves the credit limit, the outstanding installment amount, " +
+            "the number of unpaid loans and the next due date with the amount due on it, from a summary kept up to date by every loan creation and payment.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved summary"),
+            @ApiResponse(responseCode = "404", description = "Not found"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<CustomerSummaryResponse> getSummary(@PathVariable Long customerId) {
         authorizationComponent.checkAccess(customerId);
-        log.debug("GET /api/v1/loans/{customerId}: listLoans({},{},{})", customerId, numberOfInstallments, isPaid);
-        List<Loan> loansList = loanService.listLoans(customerId, numberOfInstallments, isPaid);
-        log.debug("GET /api/v1/loans/{customerId}: " + CreditManagerConstants.RETURNING_RESPONSE, loansList);
-        return ResponseEntity.ok(loansList);
+        log.debug("GET /api/v1/loans/{customerId}/summary: getSummary({})", customerId);
+        CustomerSummaryResponse summary = customerSummaryService.findByCustomerId(customerId);
+        log.debug("GET /api/v1/loans/{customerId}/summary: " + CreditManagerConstants.RETURNING_RESPONSE, summary);
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping(value = CreditManagerConstants.BALANCE_PATH + "/{loanId}")
+    @Operation(summary = "Get balance of a loan", description = "Retrieves the outstanding amount, the installments paid and the amount spent on them, " +
+            "replayed from the payment ledger of the loan after its last snapshot.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved balance"),
+            @ApiResponse(responseCode = "404", description = "Not found"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public ResponseEntity<LoanBalanceResponse> getBalance(@PathVariable Long loanId) {
+        authorizationComponent.checkAccess(loanService.findCustomerIdByLoanId(loanId));
+        log.debug("GET /api/v1/loans/balance/{loanId}: getBalance({})", loanId);
+        LoanBalanceResponse balance = loanLedgerService.findBalance(loanId);
+        log.debug("GET /api/v1/loans/balance/{loanId}: " + CreditManagerConstants.RETURNING_RESPONSE, balance);
+        return ResponseEntity.ok(balance);
+    }
+
+    static <T> ResponseEntity<List<T>> pageResponse(KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            builder.header(CreditManagerConstants.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(page.items());
     }
 
     @PostMapping(value = "/pay", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @Operation(summary = "Pay installment for a loan", description = "Pays installment for a loan with the given amount ")
+    @Operation(summary = "Pay installment for a loan", description = "Pays installment for a loan with the given amount. With the payment journal enabled, " +
+            "the payment is accepted once it is durably journaled and applied in the background, the response carries its journal sequence instead of the result.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved installments"),
+            @ApiResponse(responseCode = "202", description = "Payment journaled, it is applied in the background"),
             @ApiResponse(responseCode = "400", description = "Bad request"),
             @ApiResponse(responseCode = "404", description = "Not found"),
+            @ApiResponse(responseCode = "422", description = "Idempotency key already used for a different request"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
     })
-    public ResponseEntity<PayLoanResponse> payLoan(@Valid @NotNull @RequestBody PayLoanRequest request) {
-        Loan loan = loanService.findById(request.getLoanId());
-        authorizationComponent.checkAccess(loan.getCustomer().getId());
+    public ResponseEntity<PayLoanResponse> payLoan(@Valid @NotNull @RequestBody PayLoanRequest request,
+                                                   @Parameter(description = "Retries with the same key return the first response instead of paying again")
+                                                   @RequestHeader(value = CreditManagerConstants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        authorizationComponent.checkAccess(loanService.findCustomerIdByLoanId(request.getLoanId()));
+        if (idempotencyKey == null) {
+            return payLoan(request);
+        }
+        return idempotencyService.execute(idempotencyKey, CreditManagerConstants.PAY_LOAN_OPERATION, request, PayLoanResponse.class, () -> payLoan(request));
+    }
+
+    private ResponseEntity<PayLoanResponse> payLoan(PayLoanRequest request) {
         PayLoanResponse response;
         PayLoanResponse.PayLoanResponseBuilder builder = PayLoanResponse.builder();
         try {
             log.debug("POST /api/v1/loans/pay: payLoan({})", request);
+            if (paymentJournalService.isEnabled()) {
+                long sequence = paymentJournalService.accept(request);
+                log.debug("POST /api/v1/loans/pay: payment journaled with sequence {}", sequence);
+                response = builder.journalSequence(sequence).build();
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            }
             PaymentResult paymentResult = loanService.payLoan(request);
             log.debug("POST /api/v1/loans/pay: " + CreditManagerConstants.RETURNING_RESPONSE, paymentResult);
             response = builder.paymentResult(paymentResult).build();
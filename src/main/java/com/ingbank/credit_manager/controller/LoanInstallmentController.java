@@ -1,16 +1,19 @@
 package com.ingbank.credit_manager.controller;
 
+import java.io.IOException;
 import java.util.List;
 
+import com.ingbank.credit_manager.beans.KeysetPage;
 import com.ingbank.credit_manager.constants.CreditManagerConstants;
-import com.ingbank.credit_manager.entity.Loan;
-import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
 import com.ingbank.credit_manager.service.LoanInstallmentService;
 import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.service.LoanStreamService;
 import com.ingbank.credit_manager.util.AuthorizationComponent;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
@@ -18,6 +21,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @Slf4j
@@ -27,32 +31,58 @@ public class LoanInstallmentController {
 
     private final LoanInstallmentService loanInstallmentService;
     private final LoanService loanService;
+    private final LoanStreamService loanStreamService;
     private final AuthorizationComponent authorizationComponent;
 
     @Autowired
     public LoanInstallmentController(LoanInstallmentService loanInstallmentService,
                                      LoanService loanService,
+                                     LoanStreamService loanStreamService,
                                      AuthorizationComponent authorizationComponent) {
         this.loanInstallmentService = loanInstallmentService;
         this.loanService = loanService;
+        this.loanStreamService = loanStreamService;
         this.authorizationComponent = authorizationComponent;
         log.trace("{} initialized", this.getClass().getName());
     }
 
     @GetMapping(value = "/{loanId}")
-    @Operation(summary = "Get all installments for a loan", description = "Retrieves a list of all installments for the loan.")
+    @Operation(summary = "Get all installments for a loan", description = "Retrieves a list of all installments for the loan. When limit or cursor is given, " +
+            "retrieves one page in due date order and returns the cursor of the next page in the " + CreditManagerConstants.NEXT_CURSOR_HEADER + " header, absent on the last page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved installments"),
             @ApiResponse(responseCode = "400", description = "Bad request"),
             @ApiResponse(responseCode = "404", description = "Not found"),
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
     })
-    public ResponseEntity<List<LoanInstallment>> listInstallmentsByLoanId(@PathVariable Long loanId) {
-        Loan loan = loanService.findById(loanId);
-        authorizationComponent.checkAccess(loan.getCustomer().getId());
-        log.debug("GET /api/v1/loans/installments/{loanId}: listInstallmentsByLoanId({})", loanId);
-        List<LoanInstallment> loanInstallments = loanInstallmentService.listInstallmentsByLoanId(loanId);
-        log.debug("GET /api/v1/loans/installments/{loanId}: " + CreditManagerConstants.RETURNING_RESPONSE, loanInstallments);
-        return ResponseEntity.ok(loanInstallments);
+    public ResponseEntity<List<LoanInstallmentResponse>> listInstallmentsByLoanId(@PathVariable Long loanId,
+                                                                          @RequestParam(required = false) Integer limit,
+                                                                          @RequestParam(required = false) String cursor) {
+        authorizationComponent.checkAccess(loanService.findCustomerIdByLoanId(loanId));
+        log.debug("GET /api/v1/loans/installments/{loanId}: listInstallmentsByLoanId({},{},{})", loanId, limit, cursor);
+        if (limit == null && cursor == null) {
+            List<LoanInstallmentResponse> loanInstallments = loanInstallmentService.listInstallmentsByLoanId(loanId);
+            log.debug("GET /api/v1/loans/installments/{loanId}: " + CreditManagerConstants.RETURNING_RESPONSE, loanInstallments);
+            return ResponseEntity.ok(loanInstallments);
+        }
+        KeysetPage<LoanInstallmentResponse> page = loanInstallmentService.listInstallmentsByLoanId(loanId, cursor,
+                limit != null ? limit : CreditManagerConstants.DEFAULT_PAGE_SIZE);
+        log.debug("GET /api/v1/loans/installments/{loanId}: " + CreditManagerConstants.RETURNING_RESPONSE, page);
+        return LoanController.pageResponse(page);
+    }
+
+    @GetMapping(value = "/{loanId}" + CreditManagerConstants.STREAM_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all installments for a loan", description = "Streams all installments of the loan in due date order as newline delimited JSON, written while they are read from the database.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully streamed installments"),
+            @ApiResponse(responseCode = "400", description = "Bad request"),
+            @ApiResponse(responseCode = "404", description = "Not found"),
+            @ApiResponse(responseCode = "500", description = "Internal Server Error")
+    })
+    public void streamInstallmentsByLoanId(@PathVariable Long loanId, HttpServletResponse response) throws IOException {
+        authorizationComponent.checkAccess(loanService.findCustomerIdByLoanId(loanId));
+        log.debug("GET /api/v1/loans/installments/{loanId}/stream: streamInstallmentsByLoanId({})", loanId);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        loanStreamService.writeInstallments(loanId, response.getOutputStream());
     }
 }
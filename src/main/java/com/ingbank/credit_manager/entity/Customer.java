@@ -2,17 +2,26 @@ package com.ingbank.credit_manager.entity;
 
 import java.math.BigDecimal;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.listener.UserCacheEvictionListener;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CreditManagerConstants.CUSTOMER_CACHE_REGION)
+@EntityListeners(UserCacheEvictionListener.class)
 public class Customer {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_id_seq_generator")
@@ -0,0 +1,27 @@
+package com.ingbank.credit_manager.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * Running totals of the loans of one customer: the unpaid installment amounts, the loans not yet paid and the
+ * earliest unpaid due date with the amount due on it. Only written through the updates of
+ * {@link com.ingbank.credit_manager.repository.CustomerSummaryRepository}, in the transaction of the loan change.
+ */
+@Entity
+@Data
+public class CustomerSummary {
+    @Id
+    private Long customerId;
+    @Column(precision = 20, scale = 2)
+    private BigDecimal outstandingAmount;
+    private Integer openLoanCount;
+    private LocalDate nextDueDate;
+    @Column(precision = 20, scale = 2)
+    private BigDecimal nextDueAmount;
+}
@@ -0,0 +1,31 @@
+package com.ingbank.credit_manager.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Lob;
+import lombok.Data;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Stored response of a request sent with an {@code Idempotency-Key} header. Records are inserted as a claim of the key
+ * before the request runs and completed with its response in the same transaction, so they are always new to Spring
+ * Data and saved with a plain insert: a concurrent duplicate waits on the primary key and then fails on it.
+ */
+@Entity
+@Data
+public class IdempotencyRecord implements Persistable<IdempotencyRecordId> {
+    @EmbeddedId
+    private IdempotencyRecordId id;
+    private String requestFingerprint;
+    private int statusCode;
+    @Lob
+    private String responseBody;
+    private LocalDateTime createDate = LocalDateTime.now();
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
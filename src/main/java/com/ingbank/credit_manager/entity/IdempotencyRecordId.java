@@ -0,0 +1,20 @@
+package com.ingbank.credit_manager.entity;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Idempotency keys are scoped to the user sending them, so one user can never replay the response of another.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecordId implements Serializable {
+    private String username;
+    private String idempotencyKey;
+}
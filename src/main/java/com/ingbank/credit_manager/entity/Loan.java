@@ -3,30 +3,54 @@ package com.ingbank.credit_manager.entity;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.SequenceGenerator;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+/**
+ * The customer is lazy: payment and authorization only need the loan row and its customer id (read from the proxy
+ * without a select). Queries that hand loans out with their customer fetch it with {@link CreditManagerConstants#LOAN_WITH_CUSTOMER_GRAPH}.
+ * <p>
+ * Loans are kept in the second-level cache; updates made with plain SQL must evict them, see {@code LoanPaymentServiceImpl}.
+ */
 @Entity
 @Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CreditManagerConstants.LOAN_CACHE_REGION)
+@NamedEntityGraph(name = CreditManagerConstants.LOAN_WITH_CUSTOMER_GRAPH, attributeNodes = @NamedAttributeNode("customer"))
 public class Loan {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_id_seq_generator")
-    @SequenceGenerator(name = "loan_id_seq_generator", sequenceName = "loan_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "loan_id_seq_generator", sequenceName = "loan_id_seq", allocationSize = CreditManagerConstants.ID_ALLOCATION_SIZE)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customerId", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Customer customer;
     @Column(precision = 20, scale = 2)
     private BigDecimal loanAmount;
     private Integer numberOfInstallments;
     private LocalDate createDate = LocalDate.now();
     private Boolean isPaid = false;
+    // installments kept in one LoanSchedule row instead of LoanInstallment rows, a storage detail left out of the API
+    @JsonIgnore
+    private Boolean packedSchedule = false;
 }
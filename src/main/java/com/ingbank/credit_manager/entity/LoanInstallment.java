@@ -3,26 +3,43 @@ package com.ingbank.credit_manager.entity;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.SequenceGenerator;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
+/**
+ * The loan is lazy: payments work on amounts and dates only, and installments of a loan that is already loaded
+ * resolve it from the persistence context. Queries that hand installments out with their loan and customer fetch them
+ * with {@link CreditManagerConstants#INSTALLMENT_WITH_LOAN_GRAPH}.
+ */
 @Entity
 @Data
+@NamedEntityGraph(name = CreditManagerConstants.INSTALLMENT_WITH_LOAN_GRAPH,
+        attributeNodes = @NamedAttributeNode(value = "loan", subgraph = "loan"),
+        subgraphs = @NamedSubgraph(name = "loan", attributeNodes = @NamedAttributeNode("customer")))
 public class LoanInstallment {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_installment_id_seq_generator")
-    @SequenceGenerator(name = "loan_installment_id_seq_generator", sequenceName = "loan_installment_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "loan_installment_id_seq_generator", sequenceName = "loan_installment_id_seq", allocationSize = CreditManagerConstants.ID_ALLOCATION_SIZE)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "loanId", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Loan loan;
     @Column(precision = 20, scale = 2)
     private BigDecimal amount;
@@ -31,4 +48,8 @@ public class LoanInstallment {
     private LocalDate dueDate;
     private LocalDate paymentDate;
     private Boolean isPaid = false;
+    // time based amount as of the accrual date, see InstallmentAccrualServiceImpl
+    @Column(precision = 20, scale = 2)
+    private BigDecimal accruedAmount;
+    private LocalDate accrualDate;
 }
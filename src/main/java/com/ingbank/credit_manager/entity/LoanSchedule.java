@@ -0,0 +1,35 @@
+package com.ingbank.credit_manager.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Installment schedule of a loan created with {@code credit-manager.schedule.packed}: equal installments due on the
+ * first of consecutive months, stored as one row instead of one {@link LoanInstallment} per month. Read and written
+ * through {@link com.ingbank.credit_manager.util.PackedSchedules}, which expands it to installments on demand.
+ */
+@Entity
+@Data
+public class LoanSchedule {
+    @Id
+    private Long loanId;
+    @Column(precision = 20, scale = 2)
+    private BigDecimal installmentAmount;
+    private LocalDate firstDueDate;
+    private Integer numberOfInstallments;
+    private Integer paidMask;
+    private Integer paidInstallments;
+    @Column(length = 384)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private byte[] payments;
+    // earliest unpaid due date, for the customer summary
+    private LocalDate nextDueDate;
+}
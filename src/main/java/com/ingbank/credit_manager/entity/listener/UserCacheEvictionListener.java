@@ -0,0 +1,46 @@
+package com.ingbank.credit_manager.entity.listener;
+
+import java.util.List;
+
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clears the username keyed caches (customer id and user details) whenever a user or a customer is created,
+ * changed or removed. These are rare admin operations, so whole caches are cleared rather than tracking previous usernames.
+ */
+@Component
+@Slf4j
+public class UserCacheEvictionListener {
+
+    private static final List<String> USER_CACHES = List.of(
+            CreditManagerConstants.CUSTOMER_ID_BY_USERNAME_CACHE,
+            CreditManagerConstants.USER_DETAILS_CACHE);
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public UserCacheEvictionListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void evict(Object entity) {
+        for (String cacheName : USER_CACHES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                log.debug("Clearing {} cache after change of {}", cacheName, entity.getClass().getSimpleName());
+                cache.clear();
+            }
+        }
+    }
+}
@@ -31,6 +31,24 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body("Illegal state: " + ex.getMessage());
     }
 
+    @ExceptionHandler({ InvalidPageRequestException.class })
+    public ResponseEntity<Object> handleInvalidPageRequestException(final InvalidPageRequestException ex) {
+        log.warn("Invalid page request - {}", ex.getMessage());
+        return ResponseEntity.badRequest().body("Invalid page request: " + ex.getMessage());
+    }
+
+    @ExceptionHandler({ InvalidIdempotencyKeyException.class })
+    public ResponseEntity<Object> handleInvalidIdempotencyKeyException(final InvalidIdempotencyKeyException ex) {
+        log.warn("Invalid idempotency key - {}", ex.getMessage());
+        return ResponseEntity.badRequest().body("Invalid idempotency key: " + ex.getMessage());
+    }
+
+    @ExceptionHandler({ IdempotencyKeyReusedException.class })
+    public ResponseEntity<Object> handleIdempotencyKeyReusedException(final IdempotencyKeyReusedException ex) {
+        log.warn("Idempotency key reused - {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("Idempotency key reused: " + ex.getMessage());
+    }
+
     @ExceptionHandler({ TypeMismatchException.class })
     public ResponseEntity<Object> handleTypeMismatchException(final TypeMismatchException ex) {
         log.warn("Type mismatch - {}", ex.getMessage());
@@ -61,6 +79,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found : " + ex.getMessage());
     }
 
+    @ExceptionHandler({NotFoundException.class})
+    public ResponseEntity<Object> handleNotFoundException(final NotFoundException ex) {
+        log.warn("Not found - {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Not found: " + ex.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneralException(Exception ex) {
         log.error("An error occurred: {}", ex.getMessage());
@@ -0,0 +1,7 @@
+package com.ingbank.credit_manager.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ingbank.credit_manager.exception;
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,37 @@
 package com.ingbank.credit_manager.repository;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Customer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findById(Long id);
+
+    /**
+     * Checks and debits the credit limit in a single conditional update, so concurrent reservations
+     * for the same customer can never exceed the limit.
+     * <p>
+     * A bulk HQL update would invalidate the whole customer cache region on every loan creation. This native update is
+     * synchronized on a query space of its own instead, and the caller evicts the one customer it changed.
+     *
+     * @return 1 if the amount was reserved, 0 if the customer does not exist or the limit would be exceeded
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CreditManagerConstants.CREDIT_LIMIT_QUERY_SPACE))
+    @Query(value = "UPDATE customer SET used_credit_limit = used_credit_limit + :amount" +
+            " WHERE id = :customerId AND used_credit_limit + :amount <= credit_limit", nativeQuery = true)
+    int reserveCreditLimit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
 }
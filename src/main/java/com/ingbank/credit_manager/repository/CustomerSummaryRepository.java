@@ -0,0 +1,94 @@
+package com.ingbank.credit_manager.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import com.ingbank.credit_manager.entity.CustomerSummary;
+import com.ingbank.credit_manager.response.CustomerSummaryResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CustomerSummaryRepository extends JpaRepository<CustomerSummary, Long> {
+
+    // the only table the native updates write, so that Hibernate does not invalidate every cache region after them
+    String CUSTOMER_SUMMARY_TABLE = "customer_summary";
+
+    @Query("SELECT new com.ingbank.credit_manager.response.CustomerSummaryResponse(c.id, c.creditLimit, c.usedCreditLimit," +
+            " s.outstandingAmount, s.openLoanCount, s.nextDueDate, s.nextDueAmount)" +
+            " FROM CustomerSummary s JOIN Customer c ON c.id = s.customerId WHERE s.customerId = :customerId")
+    Optional<CustomerSummaryResponse> findResponseByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * Adds a new loan: its installments are all unpaid, the first one moves the next due date when it is earlier
+     * than the current one and adds to the amount due when it falls on the same date.
+     *
+     * @return 0 if the customer has no summary row yet
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CustomerSummary s SET s.outstandingAmount = s.outstandingAmount + :loanAmount," +
+            " s.openLoanCount = s.openLoanCount + 1," +
+            " s.nextDueAmount = CASE WHEN s.nextDueDate IS NULL OR s.nextDueDate > :firstDueDate THEN :installmentAmount" +
+            "                        WHEN s.nextDueDate = :firstDueDate THEN s.nextDueAmount + :installmentAmount" +
+            "                        ELSE s.nextDueAmount END," +
+            " s.nextDueDate = CASE WHEN s.nextDueDate IS NULL OR s.nextDueDate > :firstDueDate THEN :firstDueDate" +
+            "                      ELSE s.nextDueDate END" +
+            " WHERE s.customerId = :customerId")
+    int addLoan(@Param("customerId") Long customerId, @Param("loanAmount") BigDecimal loanAmount,
+                @Param("installmentAmount") BigDecimal installmentAmount, @Param("firstDueDate") LocalDate firstDueDate);
+
+    /**
+     * Subtracts the amounts of the settled installments and the loan when it is fully paid. The next due date is read
+     * again from the unpaid installments of the customer, rows and packed schedules alike, as a payment may settle any
+     * of them.
+     *
+     * @return 0 if the customer has no summary row yet
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CUSTOMER_SUMMARY_TABLE))
+    @Query(value = """
+            UPDATE customer_summary
+               SET outstanding_amount = outstanding_amount - :settledAmount,
+                   open_loan_count = open_loan_count - :paidLoans,
+                   next_due_date = (SELECT MIN(d.due_date) FROM unpaid_installment_due d WHERE d.customer_id = :customerId),
+                   next_due_amount = (SELECT SUM(d.amount) FROM unpaid_installment_due d
+                                       WHERE d.customer_id = :customerId
+                                         AND d.due_date = (SELECT MIN(e.due_date) FROM unpaid_installment_due e WHERE e.customer_id = :customerId))
+             WHERE customer_id = :customerId""", nativeQuery = true)
+    int settleInstallments(@Param("customerId") Long customerId, @Param("settledAmount") BigDecimal settledAmount, @Param("paidLoans") int paidLoans);
+
+    /**
+     * Writes the summary of the customer computed from all of its loans, for customers created without one.
+     *
+     * @return 0 if the customer does not exist
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CUSTOMER_SUMMARY_TABLE))
+    @Query(value = """
+            MERGE INTO customer_summary (customer_id, outstanding_amount, open_loan_count, next_due_date, next_due_amount) KEY (customer_id)
+            SELECT c.id,
+                   COALESCE((SELECT SUM(i.amount) FROM loan l JOIN loan_installment i ON i.loan_id = l.id
+                              WHERE l.customer_id = c.id AND i.is_paid = FALSE), 0)
+                   + COALESCE((SELECT SUM(s.installment_amount * (s.number_of_installments - s.paid_installments))
+                                 FROM loan l JOIN loan_schedule s ON s.loan_id = l.id
+                                WHERE l.customer_id = c.id), 0),
+                   (SELECT COUNT(*) FROM loan l WHERE l.customer_id = c.id AND l.is_paid = FALSE),
+                   n.due_date,
+                   (SELECT SUM(d.amount) FROM unpaid_installment_due d WHERE d.customer_id = c.id AND d.due_date = n.due_date)
+              FROM customer c
+              LEFT JOIN (SELECT MIN(d.due_date) AS due_date FROM unpaid_installment_due d
+                          WHERE d.customer_id = :customerId) n ON TRUE
+             WHERE c.id = :customerId""", nativeQuery = true)
+    int rebuild(@Param("customerId") Long customerId);
+}
@@ -0,0 +1,27 @@
+package com.ingbank.credit_manager.repository;
+
+import java.time.LocalDateTime;
+
+import com.ingbank.credit_manager.entity.IdempotencyRecord;
+import com.ingbank.credit_manager.entity.IdempotencyRecordId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecordId> {
+
+    /**
+     * Deletes the claim of a key whose response is not stored. Records are always new to Spring Data, which does not
+     * delete new entities.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id")
+    void deleteClaim(@Param("id") IdempotencyRecordId id);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createDate < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
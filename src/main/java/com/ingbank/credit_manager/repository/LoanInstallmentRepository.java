@@ -1,13 +1,42 @@
 package com.ingbank.credit_manager.repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment, Long> {
+    String SELECT_INSTALLMENT_RESPONSE = "SELECT new com.ingbank.credit_manager.response.LoanInstallmentResponse(" +
+            "i.id, i.loan.id, i.amount, i.paidAmount, i.dueDate, i.paymentDate, i.isPaid, i.accruedAmount, i.accrualDate) FROM LoanInstallment i";
+
+    @EntityGraph(CreditManagerConstants.INSTALLMENT_WITH_LOAN_GRAPH)
     List<LoanInstallment> findByLoanId(Long loanId);
+    @EntityGraph(CreditManagerConstants.INSTALLMENT_WITH_LOAN_GRAPH)
     List<LoanInstallment> findByLoanIdAndIsPaid(Long loanId, Boolean isPaid);
+    // payment: amounts and dates only, the loan stays lazy
+    List<LoanInstallment> findByLoanIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(Long loanId, LocalDate dueDateBefore);
+    boolean existsByLoanIdAndIsPaidFalseAndDueDateGreaterThanEqual(Long loanId, LocalDate dueDateFrom);
+
+    @Query(SELECT_INSTALLMENT_RESPONSE + " WHERE i.loan.id = :loanId ORDER BY i.id")
+    List<LoanInstallmentResponse> findResponsesByLoanId(@Param("loanId") Long loanId);
+
+    @Query(SELECT_INSTALLMENT_RESPONSE + " WHERE i.loan.id = :loanId AND i.id > :afterId ORDER BY i.id")
+    List<LoanInstallmentResponse> findResponsesByLoanIdAfter(@Param("loanId") Long loanId, @Param("afterId") Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = CreditManagerConstants.STREAM_FETCH_SIZE))
+    @Query(SELECT_INSTALLMENT_RESPONSE + " WHERE i.loan.id = :loanId ORDER BY i.id")
+    Stream<LoanInstallmentResponse> streamResponsesByLoanId(@Param("loanId") Long loanId);
 }
@@ -1,21 +1,55 @@
 package com.ingbank.credit_manager.repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.response.LoanResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
+    String SELECT_LOAN_RESPONSE = "SELECT new com.ingbank.credit_manager.response.LoanResponse(" +
+            "l.id, l.customer.id, l.loanAmount, l.numberOfInstallments, l.createDate, l.isPaid) FROM Loan l";
+    String LOAN_FILTERS = " WHERE l.customer.id = :customerId" +
+            " AND (:numberOfInstallments IS NULL OR l.numberOfInstallments = :numberOfInstallments)" +
+            " AND (:isPaid IS NULL OR l.isPaid = :isPaid)";
+
+    @EntityGraph(CreditManagerConstants.LOAN_WITH_CUSTOMER_GRAPH)
     List<Loan> findByCustomerId(Long customerId);
 
-    @Query("SELECT l FROM Loan l WHERE l.customer.id = :customerId" +
-            " AND (:numberOfInstallments IS NULL OR l.numberOfInstallments = :numberOfInstallments)" +
-            " AND (:isPaid IS NULL OR l.isPaid = :isPaid)")
-    List<Loan> findLoans(@Param("customerId") Long customerId,
-                         @Param("numberOfInstallments") Integer numberOfInstallments,
-                         @Param("isPaid") Boolean isPaid);
+    @Query("SELECT l.customer.id FROM Loan l WHERE l.id = :loanId")
+    Optional<Long> findCustomerIdById(@Param("loanId") Long loanId);
+
+    @Query(SELECT_LOAN_RESPONSE + LOAN_FILTERS + " ORDER BY l.id")
+    List<LoanResponse> findLoans(@Param("customerId") Long customerId,
+                                 @Param("numberOfInstallments") Integer numberOfInstallments,
+                                 @Param("isPaid") Boolean isPaid);
+
+    @Query(SELECT_LOAN_RESPONSE + LOAN_FILTERS + " AND l.id > :afterId ORDER BY l.id")
+    List<LoanResponse> findLoansAfter(@Param("customerId") Long customerId,
+                                      @Param("numberOfInstallments") Integer numberOfInstallments,
+                                      @Param("isPaid") Boolean isPaid,
+                                      @Param("afterId") Long afterId,
+                                      Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = CreditManagerConstants.STREAM_FETCH_SIZE))
+    @Query(SELECT_LOAN_RESPONSE + LOAN_FILTERS + " ORDER BY l.id")
+    Stream<LoanResponse> streamLoans(@Param("customerId") Long customerId,
+                                     @Param("numberOfInstallments") Integer numberOfInstallments,
+                                     @Param("isPaid") Boolean isPaid);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = CreditManagerConstants.STREAM_FETCH_SIZE))
+    @Query(SELECT_LOAN_RESPONSE + " ORDER BY l.customer.id, l.id")
+    Stream<LoanResponse> streamAllLoans();
 }
@@ -0,0 +1,23 @@
+package com.ingbank.credit_manager.repository;
+
+import java.util.Optional;
+
+import com.ingbank.credit_manager.entity.LoanSchedule;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LoanScheduleRepository extends JpaRepository<LoanSchedule, Long> {
+
+    /**
+     * Reads the schedule for a payment, locking its row until commit: every installment of the loan lives in it, so
+     * concurrent payments of the loan must not both read it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM LoanSchedule s WHERE s.loanId = :loanId")
+    Optional<LoanSchedule> findForUpdate(@Param("loanId") Long loanId);
+}
@@ -2,11 +2,27 @@ package com.ingbank.credit_manager.repository;
 
 import java.util.Optional;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
+    /**
+     * Served from the query cache, invalidated whenever {@code app_user} is written through Hibernate.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CreditManagerConstants.USER_BY_USERNAME_CACHE_REGION)
+    })
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u.customer.id FROM User u WHERE u.username = :username")
+    Optional<Long> findCustomerIdByUsername(@Param("username") String username);
 }
@@ -2,6 +2,7 @@ package com.ingbank.credit_manager.request;
 
 import java.math.BigDecimal;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.validator.annotation.ValidInstallments;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
@@ -19,7 +20,8 @@ public class CreateLoanRequest {
 
     @NotNull(message = "Loan amount is required")
     @Positive(message = "Loan amount must be positive")
-    @Digits(integer = 20, fraction = 2, message = "Amount must be a valid value with up to 20 digits and 2 decimals")
+    @Digits(integer = CreditManagerConstants.AMOUNT_INTEGER_DIGITS, fraction = 2,
+            message = "Amount must be a valid value with up to " + CreditManagerConstants.AMOUNT_INTEGER_DIGITS + " digits and 2 decimals")
     private BigDecimal amount;
 
     @NotNull(message = "Interest rate is required")
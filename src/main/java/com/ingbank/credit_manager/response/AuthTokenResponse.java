@@ -0,0 +1,16 @@
+package com.ingbank.credit_manager.response;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AuthTokenResponse {
+    private String token;
+    private String tokenType;
+    private Instant expiresAt;
+}
@@ -0,0 +1,17 @@
+package com.ingbank.credit_manager.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Credit and loan summary of a customer, read from {@code customer_summary} and the customer row by primary key.
+ * Built by the constructor projection in {@link com.ingbank.credit_manager.repository.CustomerSummaryRepository}.
+ */
+public record CustomerSummaryResponse(Long customerId,
+                                      BigDecimal creditLimit,
+                                      BigDecimal usedCreditLimit,
+                                      BigDecimal outstandingAmount,
+                                      Integer openLoanCount,
+                                      LocalDate nextDueDate,
+                                      BigDecimal nextDueAmount) {
+}
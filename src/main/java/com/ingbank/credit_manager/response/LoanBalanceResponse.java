@@ -0,0 +1,16 @@
+package com.ingbank.credit_manager.response;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance of a loan replayed from its ledger: the outstanding amount is the loan amount less the amounts of the
+ * installments settled, zero once the loan is paid, and the paid amount what was spent on them.
+ */
+public record LoanBalanceResponse(Long loanId,
+                                  BigDecimal loanAmount,
+                                  Integer numberOfInstallments,
+                                  Integer paidInstallments,
+                                  BigDecimal outstandingAmount,
+                                  BigDecimal paidAmount,
+                                  Boolean isPaid) {
+}
@@ -0,0 +1,20 @@
+package com.ingbank.credit_manager.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Installment as returned by the listing endpoints, with the id of its loan instead of the nested loan and customer.
+ * {@code accruedAmount} is what paying it would cost on {@code accrualDate}, as of the last daily accrual.
+ * Built by constructor projections in {@link com.ingbank.credit_manager.repository.LoanInstallmentRepository}.
+ */
+public record LoanInstallmentResponse(Long id,
+                                      Long loanId,
+                                      BigDecimal amount,
+                                      BigDecimal paidAmount,
+                                      LocalDate dueDate,
+                                      LocalDate paymentDate,
+                                      Boolean isPaid,
+                                      BigDecimal accruedAmount,
+                                      LocalDate accrualDate) {
+}
@@ -0,0 +1,16 @@
+package com.ingbank.credit_manager.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Loan as returned by the listing endpoints, with the id of its customer instead of the nested customer.
+ * Built by constructor projections in {@link com.ingbank.credit_manager.repository.LoanRepository}.
+ */
+public record LoanResponse(Long id,
+                           Long customerId,
+                           BigDecimal loanAmount,
+                           Integer numberOfInstallments,
+                           LocalDate createDate,
+                           Boolean isPaid) {
+}
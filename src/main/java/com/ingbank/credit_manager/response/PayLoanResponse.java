@@ -5,12 +5,16 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.ingbank.credit_manager.beans.PaymentResult;
 import lombok.Builder;
 import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
 
 @Data
 @Builder
+@Jacksonized
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class PayLoanResponse {
     @JsonProperty("payLoanResult")
     private PaymentResult paymentResult;
+    // sequence of the payment in the payment journal, when it is accepted there to be applied later
+    private Long journalSequence;
     private String errorMessage;
 }
@@ -0,0 +1,47 @@
+package com.ingbank.credit_manager.security;
+
+import java.io.IOException;
+
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Authenticates requests carrying an {@code Authorization: Bearer <token>} header issued by {@link AuthTokenService}.
+ * Requests without a bearer token continue down the chain to HTTP Basic authentication. Tokens are not accepted by the
+ * token endpoint itself, so a new token always takes the credentials and their current roles.
+ */
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AuthTokenService authTokenService;
+
+    public AuthTokenFilter(AuthTokenService authTokenService) {
+        this.authTokenService = authTokenService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return CreditManagerConstants.AUTH_TOKEN_ENDPOINT.equals(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            authTokenService.verify(header.substring(BEARER_PREFIX.length())).ifPresent(authentication -> {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            });
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,117 @@
+package com.ingbank.credit_manager.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues and verifies short-lived, HMAC-SHA256 signed bearer tokens.
+ * <p>
+ * A token is {@code base64url(expiry|roles|username).base64url(signature)}. Credentials are verified with BCrypt once,
+ * when the token is issued; afterwards each request is authenticated from the token alone with one HMAC computation,
+ * without a password check or a user lookup. Role changes therefore take effect when the token expires.
+ */
+@Service
+@Slf4j
+public class AuthTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String FIELD_SEPARATOR = "|";
+    private static final String ROLE_SEPARATOR = ",";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public AuthTokenService(@Value("${credit-manager.auth.token.secret:}") String secret,
+                            @Value("${credit-manager.auth.token.ttl:15m}") Duration ttl) {
+        this(secret, ttl, Clock.systemUTC());
+    }
+
+    AuthTokenService(String secret, Duration ttl, Clock clock) {
+        this.key = new SecretKeySpec(secretBytes(secret), HMAC_ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public AuthToken issue(Authentication authentication) {
+        Instant expiresAt = clock.instant().plus(ttl);
+        String roles = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(ROLE_SEPARATOR));
+        String payload = ENCODER.encodeToString((expiresAt.getEpochSecond() + FIELD_SEPARATOR + roles + FIELD_SEPARATOR + authentication.getName())
+                .getBytes(StandardCharsets.UTF_8));
+        return new AuthToken(payload + "." + ENCODER.encodeToString(sign(payload)), expiresAt);
+    }
+
+    public Optional<Authentication> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(token.substring(dot + 1)))) {
+                log.debug("Rejected token with invalid signature");
+                return Optional.empty();
+            }
+            String[] fields = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split("\\" + FIELD_SEPARATOR, 3);
+            if (fields.length != 3 || clock.instant().getEpochSecond() >= Long.parseLong(fields[0])) {
+                log.debug("Rejected expired or malformed token");
+                return Optional.empty();
+            }
+            Collection<SimpleGrantedAuthority> authorities = fields[1].isEmpty() ? List.of()
+                    : Arrays.stream(fields[1].split(ROLE_SEPARATOR)).map(SimpleGrantedAuthority::new).toList();
+            return Optional.of(UsernamePasswordAuthenticationToken.authenticated(fields[2], null, authorities));
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected undecodable token - {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign token", e);
+        }
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (secret != null && !secret.isBlank()) {
+            return Base64.getDecoder().decode(secret);
+        }
+        log.warn("credit-manager.auth.token.secret is not set, using a random key: tokens will not survive a restart or work across instances");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+
+    public record AuthToken(String token, Instant expiresAt) {
+    }
+}
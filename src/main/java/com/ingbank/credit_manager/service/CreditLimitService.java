@@ -0,0 +1,7 @@
+package com.ingbank.credit_manager.service;
+
+import java.math.BigDecimal;
+
+public interface CreditLimitService {
+    boolean reserve(Long customerId, BigDecimal amount);
+}
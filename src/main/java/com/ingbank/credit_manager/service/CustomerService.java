@@ -4,4 +4,5 @@ import com.ingbank.credit_manager.entity.Customer;
 
 public interface CustomerService {
     Customer findByUsername(String username);
+    Long findCustomerIdByUsername(String username);
 }
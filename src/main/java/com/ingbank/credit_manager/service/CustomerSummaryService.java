@@ -0,0 +1,12 @@
+package com.ingbank.credit_manager.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.ingbank.credit_manager.response.CustomerSummaryResponse;
+
+public interface CustomerSummaryService {
+    CustomerSummaryResponse findByCustomerId(Long customerId);
+    void loanCreated(Long customerId, BigDecimal installmentAmount, int installments, LocalDate firstDueDate);
+    void installmentsSettled(Long customerId, BigDecimal settledAmount, boolean loanFullyPaid);
+}
@@ -0,0 +1,10 @@
+package com.ingbank.credit_manager.service;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.ResponseEntity;
+
+public interface IdempotencyService {
+    <T> ResponseEntity<T> execute(String idempotencyKey, String operation, Object request, Class<T> responseType, Supplier<ResponseEntity<T>> action);
+    int purgeExpired();
+}
@@ -0,0 +1,7 @@
+package com.ingbank.credit_manager.service;
+
+import java.time.LocalDate;
+
+public interface InstallmentAccrualService {
+    long accrue(LocalDate businessDate);
+}
@@ -0,0 +1,9 @@
+package com.ingbank.credit_manager.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface LoanBulkService {
+    void createLoans(InputStream requests, OutputStream responses) throws IOException;
+}
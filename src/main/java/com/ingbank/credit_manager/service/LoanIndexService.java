@@ -0,0 +1,13 @@
+package com.ingbank.credit_manager.service;
+
+import java.util.List;
+
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.response.LoanResponse;
+
+public interface LoanIndexService {
+    boolean isReady();
+    void loanCreated(Loan loan);
+    void loanPaid(Long customerId, Long loanId);
+    List<LoanResponse> findLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid, long afterId, int limit);
+}
@@ -4,13 +4,21 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
+import com.ingbank.credit_manager.beans.KeysetPage;
+import com.ingbank.credit_manager.beans.Money;
 import com.ingbank.credit_manager.entity.Loan;
 import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
 
 public interface LoanInstallmentService {
     BigDecimal getTimeBasedInstallmentAmount(LocalDate dueDate, BigDecimal installmentAmount);
-    List<LoanInstallment> listInstallmentsByLoanId(Long loanId);
+    Money getTimeBasedInstallmentAmount(LocalDate dueDate, Money installmentAmount);
+    Money getTimeBasedInstallmentAmount(LocalDate dueDate, Money installmentAmount, LocalDate businessDate);
+    List<LoanInstallmentResponse> listInstallmentsByLoanId(Long loanId);
+    KeysetPage<LoanInstallmentResponse> listInstallmentsByLoanId(Long loanId, String cursor, int pageSize);
     List<LoanInstallment> listInstallmentsByLoanIdAndIsPaid(Long loanId, Boolean isPaid);
-    void saveLoanInstallment(Loan loan, BigDecimal totalLoanAmount, LocalDate dueDate);
-    void saveAllLoanInstallments(List<LoanInstallment> installments);
+    List<LoanInstallment> listPayableInstallments(Loan loan, LocalDate dueDateBefore);
+    boolean hasUnpaidInstallmentsFrom(Loan loan, LocalDate dueDateFrom);
+    List<LoanInstallment> saveLoanInstallments(Loan loan, BigDecimal installmentAmount, LocalDate firstDueDate);
+    void saveAllLoanInstallments(Loan loan, List<LoanInstallment> installments);
 }
@@ -0,0 +1,15 @@
+package com.ingbank.credit_manager.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.ingbank.credit_manager.beans.InstallmentPayment;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.response.LoanBalanceResponse;
+
+public interface LoanLedgerService {
+    void loanOriginated(Loan loan);
+    void paymentRecorded(Long loanId, LocalDate paymentDate, List<InstallmentPayment> payments, boolean loanFullyPaid);
+    LoanBalanceResponse findBalance(Long loanId);
+    long compactSnapshots();
+}
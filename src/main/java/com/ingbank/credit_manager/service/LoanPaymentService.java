@@ -0,0 +1,11 @@
+package com.ingbank.credit_manager.service;
+
+import java.time.LocalDate;
+
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+
+public interface LoanPaymentService {
+    PaymentResult payLoan(PayLoanRequest request);
+    PaymentResult payLoan(PayLoanRequest request, LocalDate paymentDate);
+}
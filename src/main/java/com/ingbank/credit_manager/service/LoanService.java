@@ -1,16 +1,22 @@
 package com.ingbank.credit_manager.service;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import com.ingbank.credit_manager.beans.KeysetPage;
 import com.ingbank.credit_manager.beans.PaymentResult;
 import com.ingbank.credit_manager.entity.Loan;
 import com.ingbank.credit_manager.request.CreateLoanRequest;
 import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.LoanResponse;
 
 public interface LoanService {
     Loan createLoan(CreateLoanRequest request);
     List<Loan> listLoans(Long customerId);
-    List<Loan> listLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid);
+    List<LoanResponse> listLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid);
+    KeysetPage<LoanResponse> listLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid, String cursor, int pageSize);
     PaymentResult payLoan(PayLoanRequest request);
+    PaymentResult payLoan(PayLoanRequest request, LocalDate paymentDate);
     Loan findById(Long loanId);
+    Long findCustomerIdByLoanId(Long loanId);
 }
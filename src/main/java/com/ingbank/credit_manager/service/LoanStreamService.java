@@ -0,0 +1,9 @@
+package com.ingbank.credit_manager.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface LoanStreamService {
+    void writeLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid, OutputStream output) throws IOException;
+    void writeInstallments(Long loanId, OutputStream output) throws IOException;
+}
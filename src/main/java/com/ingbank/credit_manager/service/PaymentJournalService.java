@@ -0,0 +1,9 @@
+package com.ingbank.credit_manager.service;
+
+import com.ingbank.credit_manager.request.PayLoanRequest;
+
+public interface PaymentJournalService {
+    boolean isEnabled();
+    long accept(PayLoanRequest request);
+    long appliedSequence();
+}
@@ -0,0 +1,116 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ingbank.credit_manager.entity.Customer;
+import com.ingbank.credit_manager.repository.CustomerRepository;
+import com.ingbank.credit_manager.service.CreditLimitService;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Reserves credit limit with a conditional update in the database, which is what guarantees the limit is never exceeded.
+ * <p>
+ * Optionally, reservations are also serialized per customer on one of {@code credit-manager.credit-limit.lock-stripes}
+ * in-process locks, held until the surrounding transaction completes. Hot accounts then queue in memory instead of
+ * on the database row lock. Striping is best-effort: when the stripe cannot be taken within
+ * {@code credit-manager.credit-limit.lock-timeout-ms} the reservation proceeds unserialized, so a thread holding
+ * several stripes (e.g. a bulk chunk) can never deadlock with another one.
+ */
+@Service
+@Slf4j
+public class CreditLimitServiceImpl implements CreditLimitService {
+
+    private final CustomerRepository customerRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ReentrantLock[] stripes;
+    private final long lockTimeoutMillis;
+
+    @Autowired
+    public CreditLimitServiceImpl(CustomerRepository customerRepository,
+                                  EntityManagerFactory entityManagerFactory,
+                                  @Value("${credit-manager.credit-limit.lock-stripes:0}") int lockStripes,
+                                  @Value("${credit-manager.credit-limit.lock-timeout-ms:500}") long lockTimeoutMillis) {
+        if (lockStripes < 0) {
+            throw new IllegalArgumentException("Credit limit lock stripes cannot be negative: " + lockStripes);
+        }
+        this.customerRepository = customerRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.lockTimeoutMillis = lockTimeoutMillis;
+        log.trace("{} initialized with {} lock stripes", this.getClass().getName(), lockStripes);
+    }
+
+    @Override
+    public boolean reserve(Long customerId, BigDecimal amount) {
+        ReentrantLock lock = acquireStripe(customerId);
+        try {
+            if (customerRepository.reserveCreditLimit(customerId, amount) == 0) {
+                return false;
+            }
+            evictCustomer(customerId);
+            return true;
+        } finally {
+            if (lock != null) {
+                releaseOnCompletion(lock);
+            }
+        }
+    }
+
+    /**
+     * Evicts the customer now and again when the transaction completes, as a concurrent load may have put back the row
+     * as it was before the commit in between.
+     */
+    private void evictCustomer(Long customerId) {
+        Cache cache = entityManagerFactory.getCache();
+        cache.evict(Customer.class, customerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Customer.class, customerId);
+                }
+            });
+        }
+    }
+
+    private ReentrantLock acquireStripe(Long customerId) {
+        if (stripes.length == 0) {
+            return null;
+        }
+        ReentrantLock lock = stripes[Math.floorMod(customerId.hashCode(), stripes.length)];
+        try {
+            if (lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return lock;
+            }
+            log.debug("Credit limit stripe for customer {} busy, reserving unserialized", customerId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static void releaseOnCompletion(ReentrantLock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.unlock();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+}
@@ -1,8 +1,11 @@
 package com.ingbank.credit_manager.serviceimpl;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.User;
 import com.ingbank.credit_manager.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -13,14 +16,35 @@ import org.springframework.stereotype.Service;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache userDetailsCache;
 
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, CacheManager cacheManager) {
         this.userRepository = userRepository;
+        this.userDetailsCache = cacheManager.getCache(CreditManagerConstants.USER_DETAILS_CACHE);
     }
 
+    /**
+     * User details are cached, but a copy is returned on every call: authentication erases the password
+     * of the returned instance, which must not happen to the cached one.
+     * <p>
+     * A miss is loaded outside of the cache and put afterwards. Loading through {@code Cache.get(key, loader)} would run
+     * the query inside the cache's synchronized compute, pinning the carrier when requests run on virtual threads.
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (userDetailsCache == null) {
+            return findUserDetails(username);
+        }
+        UserDetails userDetails = userDetailsCache.get(username, UserDetails.class);
+        if (userDetails == null) {
+            userDetails = findUserDetails(username);
+            userDetailsCache.put(username, userDetails);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
+    }
+
+    private UserDetails findUserDetails(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         return org.springframework.security.core.userdetails.User.builder()
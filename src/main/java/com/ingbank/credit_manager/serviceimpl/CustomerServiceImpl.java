@@ -1,9 +1,11 @@
 package com.ingbank.credit_manager.serviceimpl;
 
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Customer;
 import com.ingbank.credit_manager.entity.User;
 import com.ingbank.credit_manager.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
@@ -24,4 +26,15 @@ public class CustomerServiceImpl implements CustomerService {
         }
         return user.getCustomer();
     }
+
+    /**
+     * Resolves only the customer id of the user, served from a bounded, expiring cache so authorization checks
+     * do not query the database on the hot path. Entries are evicted by {@code UserCacheEvictionListener}.
+     */
+    @Override
+    @Cacheable(cacheNames = CreditManagerConstants.CUSTOMER_ID_BY_USERNAME_CACHE)
+    public Long findCustomerIdByUsername(String username) {
+        return userService.findCustomerIdByUsername(username)
+                .orElseThrow(() -> new AccessDeniedException("User does not have an associated customer."));
+    }
 }
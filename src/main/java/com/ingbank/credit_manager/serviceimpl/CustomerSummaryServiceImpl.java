@@ -0,0 +1,73 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.repository.CustomerSummaryRepository;
+import com.ingbank.credit_manager.response.CustomerSummaryResponse;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps {@code customer_summary} in step with the loans: every loan creation and payment applies its delta to the row
+ * of the customer in the same transaction, so reading a summary costs one primary key lookup however many loans the
+ * customer has. The update also locks the row, serializing summary changes of one customer until commit.
+ * <p>
+ * Customers inserted without a summary row get one computed from all of their loans on the first change or read.
+ */
+@Service
+@Slf4j
+public class CustomerSummaryServiceImpl implements CustomerSummaryService {
+
+    private final CustomerSummaryRepository customerSummaryRepository;
+
+    @Autowired
+    public CustomerSummaryServiceImpl(CustomerSummaryRepository customerSummaryRepository) {
+        this.customerSummaryRepository = customerSummaryRepository;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Override
+    @Transactional
+    public CustomerSummaryResponse findByCustomerId(Long customerId) {
+        Optional<CustomerSummaryResponse> summary = customerSummaryRepository.findResponseByCustomerId(customerId);
+        if (summary.isEmpty() && customerSummaryRepository.rebuild(customerId) == 1) {
+            summary = customerSummaryRepository.findResponseByCustomerId(customerId);
+        }
+        return summary.orElseThrow(() -> new NotFoundException("Customer not found with requested customerId: " + customerId));
+    }
+
+    /**
+     * Called after the loan and its installments are written, which the rebuild of a missing row then includes.
+     */
+    @Override
+    @Transactional
+    public void loanCreated(Long customerId, BigDecimal installmentAmount, int installments, LocalDate firstDueDate) {
+        BigDecimal loanAmount = installmentAmount.multiply(BigDecimal.valueOf(installments));
+        if (customerSummaryRepository.addLoan(customerId, loanAmount, installmentAmount, firstDueDate) == 0) {
+            rebuild(customerId);
+        }
+    }
+
+    /**
+     * Called after the installments are marked as paid, with the sum of their amounts before the payment timing
+     * discount or penalty, which is what they added to the outstanding amount.
+     */
+    @Override
+    @Transactional
+    public void installmentsSettled(Long customerId, BigDecimal settledAmount, boolean loanFullyPaid) {
+        if (customerSummaryRepository.settleInstallments(customerId, settledAmount, loanFullyPaid ? 1 : 0) == 0) {
+            rebuild(customerId);
+        }
+    }
+
+    private void rebuild(Long customerId) {
+        log.info("Customer {} has no summary, computing it from its loans", customerId);
+        customerSummaryRepository.rebuild(customerId);
+    }
+}
@@ -0,0 +1,206 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.IdempotencyRecord;
+import com.ingbank.credit_manager.entity.IdempotencyRecordId;
+import com.ingbank.credit_manager.exception.IdempotencyKeyReusedException;
+import com.ingbank.credit_manager.exception.InvalidIdempotencyKeyException;
+import com.ingbank.credit_manager.repository.IdempotencyRecordRepository;
+import com.ingbank.credit_manager.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} of the calling user and replays the stored response to
+ * every retry, without running the request again.
+ * <p>
+ * Responses are kept in the bounded {@code idempotentResponses} cache and in the {@code idempotency_record} table,
+ * which is written in the transaction of the request itself, so a response is stored if and only if its changes
+ * are committed. Server errors are not stored and may be retried with the same key. Records older than
+ * {@code credit-manager.idempotency.retention} are purged periodically, a retry sent after that runs again.
+ * <p>
+ * Concurrent duplicates on this instance wait for the running execution and then replay its response. The record is
+ * inserted as a claim of the key before the request runs, so a duplicate running on another instance waits on the
+ * primary key until the claim commits, fails on it and replays the response that won, without running the request.
+ * Requests with effects outside the transaction, like appending to the payment journal, thus never run twice. A key
+ * sent again with a different request is rejected.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache idempotentResponsesCache;
+    private final Duration retention;
+    private final ConcurrentHashMap<IdempotencyRecordId, CompletableFuture<Void>> runningExecutions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  CacheManager cacheManager,
+                                  @Value("${credit-manager.idempotency.retention:24h}") Duration retention) {
+        if (retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException("Idempotency retention must be positive: " + retention);
+        }
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idempotentResponsesCache = cacheManager.getCache(CreditManagerConstants.IDEMPOTENT_RESPONSES_CACHE);
+        this.retention = retention;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Override
+    public <T> ResponseEntity<T> execute(String idempotencyKey, String operation, Object request, Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        IdempotencyRecordId id = new IdempotencyRecordId(SecurityContextHolder.getContext().getAuthentication().getName(), checkKey(idempotencyKey));
+        String fingerprint = fingerprint(operation, request);
+        while (true) {
+            IdempotencyRecord stored = find(id);
+            if (stored != null) {
+                return replay(stored, fingerprint, responseType);
+            }
+            CompletableFuture<Void> execution = new CompletableFuture<>();
+            CompletableFuture<Void> running = runningExecutions.putIfAbsent(id, execution);
+            if (running == null) {
+                try {
+                    return executeOnce(id, fingerprint, responseType, action);
+                } finally {
+                    runningExecutions.remove(id, execution);
+                    execution.complete(null);
+                }
+            }
+            log.debug("Idempotency key {} is being executed, waiting for its response", idempotencyKey);
+            running.join();
+        }
+    }
+
+    private <T> ResponseEntity<T> executeOnce(IdempotencyRecordId id, String fingerprint, Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        // an execution may have completed between the lookup and registering this one
+        IdempotencyRecord stored = find(id);
+        if (stored != null) {
+            return replay(stored, fingerprint, responseType);
+        }
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(id);
+        record.setRequestFingerprint(fingerprint);
+        ResponseEntity<T> response;
+        try {
+            response = transactionTemplate.execute(status -> {
+                idempotencyRecordRepository.saveAndFlush(record);
+                ResponseEntity<T> actionResponse = action.get();
+                if (actionResponse.getStatusCode().is5xxServerError()) {
+                    idempotencyRecordRepository.deleteClaim(id);
+                } else {
+                    record.setStatusCode(actionResponse.getStatusCode().value());
+                    record.setResponseBody(toJson(actionResponse.getBody()));
+                }
+                return actionResponse;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.info("Idempotency key {} was executed concurrently, replaying the committed response", id.getIdempotencyKey());
+            return replay(idempotencyRecordRepository.findById(id).orElseThrow(() -> e), fingerprint, responseType);
+        }
+        if (!response.getStatusCode().is5xxServerError() && idempotentResponsesCache != null) {
+            idempotentResponsesCache.put(id, record);
+        }
+        return response;
+    }
+
+    @Scheduled(cron = "${credit-manager.idempotency.purge.cron:0 15 * * * *}")
+    public void purgePeriodically() {
+        purgeExpired();
+    }
+
+    /**
+     * Deletes the records older than the retention. Their responses may still be replayed from the cache until it
+     * expires them, after {@code spring.cache.caffeine.spec}'s expireAfterWrite.
+     *
+     * @return the number of records deleted
+     */
+    @Override
+    public int purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int purged = transactionTemplate.execute(status -> idempotencyRecordRepository.deleteCreatedBefore(cutoff));
+        log.info("Purged {} idempotency records created before {}", purged, cutoff);
+        return purged;
+    }
+
+    /**
+     * A miss is loaded outside of the cache and put afterwards, like the user details, so the query never runs inside
+     * the cache's synchronized compute.
+     */
+    private IdempotencyRecord find(IdempotencyRecordId id) {
+        IdempotencyRecord record = idempotentResponsesCache == null ? null : idempotentResponsesCache.get(id, IdempotencyRecord.class);
+        if (record == null) {
+            record = idempotencyRecordRepository.findById(id).orElse(null);
+            if (record != null && idempotentResponsesCache != null) {
+                idempotentResponsesCache.put(id, record);
+            }
+        }
+        return record;
+    }
+
+    private <T> ResponseEntity<T> replay(IdempotencyRecord record, String fingerprint, Class<T> responseType) {
+        if (!record.getRequestFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException("key '" + record.getId().getIdempotencyKey() + "' was already used for a different request");
+        }
+        log.debug("Replaying the stored response of idempotency key {}", record.getId().getIdempotencyKey());
+        try {
+            T body = record.getResponseBody() == null ? null : objectMapper.readValue(record.getResponseBody(), responseType);
+            return ResponseEntity.status(record.getStatusCode()).header(CreditManagerConstants.IDEMPOTENT_REPLAYED_HEADER, "true").body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response of idempotency key " + record.getId().getIdempotencyKey() + " cannot be read", e);
+        }
+    }
+
+    private static String checkKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > CreditManagerConstants.IDEMPOTENCY_KEY_MAX_LENGTH) {
+            throw new InvalidIdempotencyKeyException("key must have 1 to " + CreditManagerConstants.IDEMPOTENCY_KEY_MAX_LENGTH + " characters");
+        }
+        return idempotencyKey;
+    }
+
+    /**
+     * Operation name and SHA-256 of the JSON request, to detect a key reused for another request.
+     */
+    private String fingerprint(String operation, Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return operation + ":" + HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request of " + operation + " cannot be fingerprinted", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored", e);
+        }
+    }
+}
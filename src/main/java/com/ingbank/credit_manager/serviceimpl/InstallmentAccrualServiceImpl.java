@@ -0,0 +1,158 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.service.InstallmentAccrualService;
+import com.ingbank.credit_manager.service.LoanInstallmentService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the time based amount of every unpaid installment for a business date, so payments and listings on that date
+ * read it instead of computing it.
+ * <p>
+ * The unpaid installments are split into id ranges of about {@code credit-manager.accrual.range-size} rows each, and
+ * the ranges are accrued in parallel by {@code credit-manager.accrual.threads} workers. A range is walked in id order
+ * in chunks of {@code credit-manager.accrual.chunk-size}, each chunk committed together with the id it reached in
+ * {@code accrual_checkpoint}; a run for the same date after a failure or restart continues from there.
+ * Installments created after the ranges are planned are not accrued, their payments compute the amount as before.
+ */
+@Service
+@Slf4j
+public class InstallmentAccrualServiceImpl implements InstallmentAccrualService {
+
+    private static final String DELETE_EARLIER_CHECKPOINTS = "DELETE FROM accrual_checkpoint WHERE business_date < ?";
+    private static final String COUNT_CHECKPOINTS = "SELECT COUNT(*) FROM accrual_checkpoint WHERE business_date = ?";
+    private static final String COUNT_UNPAID = "SELECT COUNT(*) FROM loan_installment WHERE is_paid = FALSE";
+    // ranges holding the same number of unpaid installments, however sparse the ids are
+    private static final String PLAN_RANGES = """
+            INSERT INTO accrual_checkpoint (business_date, range_start, range_end, last_id, completed)
+            SELECT ?, MIN(id), MAX(id), MIN(id) - 1, FALSE
+              FROM (SELECT id, NTILE(?) OVER (ORDER BY id) AS range_number FROM loan_installment WHERE is_paid = FALSE)
+             GROUP BY range_number""";
+    private static final String SELECT_OPEN_RANGES =
+            "SELECT range_start, range_end, last_id FROM accrual_checkpoint WHERE business_date = ? AND completed = FALSE ORDER BY range_start";
+    private static final String SELECT_CHUNK =
+            "SELECT id, amount, due_date FROM loan_installment WHERE id > ? AND id <= ? AND is_paid = FALSE ORDER BY id LIMIT ?";
+    // a payment committed since the chunk was read keeps its row as paid
+    private static final String ACCRUE = "UPDATE loan_installment SET accrued_amount = ?, accrual_date = ? WHERE id = ? AND is_paid = FALSE";
+    private static final String ADVANCE_CHECKPOINT = "UPDATE accrual_checkpoint SET last_id = ?, completed = ? WHERE business_date = ? AND range_start = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoanInstallmentService loanInstallmentService;
+    private final TransactionTemplate transactionTemplate;
+    private final int threads;
+    private final int rangeSize;
+    private final int chunkSize;
+    private final ReentrantLock running = new ReentrantLock();
+
+    @Autowired
+    public InstallmentAccrualServiceImpl(JdbcTemplate jdbcTemplate,
+                                         LoanInstallmentService loanInstallmentService,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${credit-manager.accrual.threads:4}") int threads,
+                                         @Value("${credit-manager.accrual.range-size:10000}") int rangeSize,
+                                         @Value("${credit-manager.accrual.chunk-size:500}") int chunkSize) {
+        if (threads <= 0 || rangeSize <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Accrual threads, range size and chunk size must be positive: " + threads + ", " + rangeSize + ", " + chunkSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.loanInstallmentService = loanInstallmentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threads = threads;
+        this.rangeSize = rangeSize;
+        this.chunkSize = chunkSize;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Scheduled(cron = "${credit-manager.accrual.cron:0 5 0 * * *}")
+    public void accrueDaily() {
+        accrue(LocalDate.now());
+    }
+
+    /**
+     * Accrues the ranges of the business date that are not completed yet, planning them on the first run of the date.
+     *
+     * @return the number of installments accrued by this run, 0 when another run is in progress
+     */
+    @Override
+    public long accrue(LocalDate businessDate) {
+        if (!running.tryLock()) {
+            log.warn("Accrual for {} skipped, a run is in progress", businessDate);
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> planRanges(businessDate));
+            List<AccrualRange> ranges = jdbcTemplate.query(SELECT_OPEN_RANGES, (rs, rowNum) ->
+                    new AccrualRange(rs.getLong("range_start"), rs.getLong("range_end"), rs.getLong("last_id")), businessDate);
+            long accrued;
+            try (ExecutorService workers = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("accrual-", 1).factory())) {
+                // a failed range fails the run once the others are done, their progress is kept for the next run
+                List<CompletableFuture<Long>> results = ranges.stream()
+                        .map(range -> CompletableFuture.supplyAsync(() -> accrueRange(businessDate, range), workers))
+                        .toList();
+                accrued = results.stream().mapToLong(CompletableFuture::join).sum();
+            }
+            log.info("Accrued {} installments for {} in {} ranges, {} ms", accrued, businessDate, ranges.size(), (System.nanoTime() - start) / 1_000_000);
+            return accrued;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private void planRanges(LocalDate businessDate) {
+        jdbcTemplate.update(DELETE_EARLIER_CHECKPOINTS, businessDate);
+        Long planned = jdbcTemplate.queryForObject(COUNT_CHECKPOINTS, Long.class, businessDate);
+        if (planned != null && planned > 0) {
+            log.info("Resuming accrual for {}", businessDate);
+            return;
+        }
+        Long unpaid = jdbcTemplate.queryForObject(COUNT_UNPAID, Long.class);
+        if (unpaid != null && unpaid > 0) {
+            jdbcTemplate.update(PLAN_RANGES, businessDate, (unpaid + rangeSize - 1) / rangeSize);
+        }
+    }
+
+    private long accrueRange(LocalDate businessDate, AccrualRange range) {
+        long accrued = 0;
+        Chunk chunk = new Chunk(range.lastId(), 0, false);
+        while (!chunk.completed()) {
+            long afterId = chunk.lastId();
+            chunk = transactionTemplate.execute(status -> accrueChunk(businessDate, range, afterId));
+            accrued += chunk.size();
+        }
+        return accrued;
+    }
+
+    private Chunk accrueChunk(LocalDate businessDate, AccrualRange range, long afterId) {
+        List<Object[]> accruals = jdbcTemplate.query(SELECT_CHUNK, (rs, rowNum) -> new Object[]{
+                loanInstallmentService.getTimeBasedInstallmentAmount(rs.getObject("due_date", LocalDate.class),
+                        Money.of(rs.getBigDecimal("amount")), businessDate).toBigDecimal(),
+                businessDate,
+                rs.getLong("id")}, afterId, range.end(), chunkSize);
+        jdbcTemplate.batchUpdate(ACCRUE, accruals);
+        boolean completed = accruals.size() < chunkSize;
+        long lastId = completed ? range.end() : (long) accruals.getLast()[2];
+        jdbcTemplate.update(ADVANCE_CHECKPOINT, lastId, completed, businessDate, range.start());
+        return new Chunk(lastId, accruals.size(), completed);
+    }
+
+    private record AccrualRange(long start, long end, long lastId) {
+    }
+
+    private record Chunk(long lastId, int size, boolean completed) {
+    }
+}
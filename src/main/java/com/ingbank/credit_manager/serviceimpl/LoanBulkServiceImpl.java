@@ -0,0 +1,158 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.exception.CustomerCreditLimitExceededException;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.response.CreateLoanResponse;
+import com.ingbank.credit_manager.service.LoanBulkService;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.AuthorizationComponent;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates loans from a newline delimited JSON stream of {@link CreateLoanRequest} records.
+ * Records are read and processed in chunks of {@code credit-manager.bulk.chunk-size}, each chunk in its own transaction,
+ * and one {@link CreateLoanResponse} line per record is written and flushed as soon as its chunk completes,
+ * so memory use is bounded by the chunk size regardless of the upload size.
+ */
+@Service
+@Slf4j
+public class LoanBulkServiceImpl implements LoanBulkService {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final LoanService loanService;
+    private final AuthorizationComponent authorizationComponent;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public LoanBulkServiceImpl(LoanService loanService,
+                               AuthorizationComponent authorizationComponent,
+                               Validator validator,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${credit-manager.bulk.chunk-size:500}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Bulk chunk size must be positive: " + chunkSize);
+        }
+        this.loanService = loanService;
+        this.authorizationComponent = authorizationComponent;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Override
+    public void createLoans(InputStream requests, OutputStream responses) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(requests, StandardCharsets.UTF_8));
+        List<BulkRecord> chunk = new ArrayList<>(chunkSize);
+        int processed = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(readRecord(line));
+            if (chunk.size() == chunkSize) {
+                processed += processChunk(chunk, responses);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processed += processChunk(chunk, responses);
+        }
+        log.debug("Bulk loan creation processed {} records", processed);
+    }
+
+    private BulkRecord readRecord(String line) {
+        CreateLoanRequest request;
+        try {
+            request = objectMapper.readValue(line, CreateLoanRequest.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Malformed bulk loan record - {}", e.getOriginalMessage());
+            return BulkRecord.rejected("Malformed record: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<CreateLoanRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+            log.warn("Bad bulk loan record - {}", message);
+            return BulkRecord.rejected(message);
+        }
+        try {
+            authorizationComponent.checkAccess(request.getCustomerId());
+        } catch (AccessDeniedException e) {
+            return BulkRecord.rejected("Insufficient permission: " + e.getMessage());
+        }
+        return new BulkRecord(request, null);
+    }
+
+    private int processChunk(List<BulkRecord> chunk, OutputStream responses) throws IOException {
+        List<CreateLoanResponse> chunkResponses;
+        try {
+            chunkResponses = transactionTemplate.execute(status -> chunk.stream().map(this::createLoan).toList());
+        } catch (RuntimeException e) {
+            log.error("Bulk loan chunk rolled back: {}", e.getMessage());
+            chunkResponses = chunk.stream()
+                    .map(bulkRecord -> error(bulkRecord.errorMessage() != null ? bulkRecord.errorMessage() : "Chunk rolled back: " + e.getMessage()))
+                    .toList();
+        }
+        for (CreateLoanResponse response : chunkResponses) {
+            responses.write(objectMapper.writeValueAsBytes(response));
+            responses.write(NEW_LINE);
+        }
+        responses.flush();
+        int size = chunk.size();
+        chunk.clear();
+        return size;
+    }
+
+    private CreateLoanResponse createLoan(BulkRecord bulkRecord) {
+        if (bulkRecord.errorMessage() != null) {
+            return error(bulkRecord.errorMessage());
+        }
+        try {
+            Loan loan = loanService.createLoan(bulkRecord.request());
+            return CreateLoanResponse.builder().loan(loan).build();
+        } catch (CustomerCreditLimitExceededException e) {
+            return error("Customer Credit limit exceeded: " + e.getMessage());
+        } catch (NotFoundException e) {
+            return error("Customer not found: " + e.getMessage());
+        }
+    }
+
+    private static CreateLoanResponse error(String message) {
+        return CreateLoanResponse.builder().errorMessage(message).build();
+    }
+
+    private record BulkRecord(CreateLoanRequest request, String errorMessage) {
+        static BulkRecord rejected(String errorMessage) {
+            return new BulkRecord(null, errorMessage);
+        }
+    }
+}
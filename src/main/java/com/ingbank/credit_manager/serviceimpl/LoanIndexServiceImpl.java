@@ -0,0 +1,166 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.repository.LoanRepository;
+import com.ingbank.credit_manager.response.LoanResponse;
+import com.ingbank.credit_manager.service.LoanIndexService;
+import com.ingbank.credit_manager.util.LoanIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps a {@link LoanIndex} of all loans when {@code credit-manager.loan.index.enabled} is set, so the loan listings are
+ * served from memory. It is loaded from the database on startup; loan creations and payments update it when their
+ * transaction commits, on the thread committing it.
+ * <p>
+ * A listing can miss a change for the moment between its commit and the update. An update that fails takes the index
+ * out of service, the listings go to the database until it is rebuilt.
+ */
+@Service
+@Slf4j
+public class LoanIndexServiceImpl implements LoanIndexService, SmartLifecycle {
+
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    // updates share it, a rebuild takes it alone so no update is applied to the index it replaces
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    private volatile LoanIndex index = new LoanIndex();
+    private volatile boolean running;
+
+    @Autowired
+    public LoanIndexServiceImpl(LoanRepository loanRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${credit-manager.loan.index.enabled:false}") boolean enabled) {
+        this.loanRepository = loanRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        if (enabled) {
+            Gauge.builder(CreditManagerConstants.LOAN_INDEX_LOANS_METRIC, this, service -> service.index.loans())
+                    .description("Loans held by the in-memory loan index")
+                    .register(meterRegistry);
+            Gauge.builder(CreditManagerConstants.LOAN_INDEX_BYTES_METRIC, this, service -> service.index.estimatedBytes())
+                    .description("Heap taken by the in-memory loan index, estimated from its arrays")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Override
+    public boolean isReady() {
+        return running;
+    }
+
+    @Override
+    public void loanCreated(Loan loan) {
+        if (!enabled) {
+            return;
+        }
+        LoanResponse row = new LoanResponse(loan.getId(), loan.getCustomer().getId(), loan.getLoanAmount(), loan.getNumberOfInstallments(),
+                loan.getCreateDate(), loan.getIsPaid());
+        afterCommit(() -> index.put(row));
+    }
+
+    @Override
+    public void loanPaid(Long customerId, Long loanId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> index.paid(customerId, loanId));
+    }
+
+    @Override
+    public List<LoanResponse> findLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid, long afterId, int limit) {
+        return index.find(customerId, numberOfInstallments, isPaid, afterId, limit);
+    }
+
+    /**
+     * Loads every loan into a new index and puts it in service.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        LoanIndex rebuilt = new LoanIndex();
+        rebuildLock.writeLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<LoanResponse> loans = loanRepository.streamAllLoans()) {
+                    loans.forEach(rebuilt::put);
+                }
+            });
+            rebuilt.trimToSize();
+            index = rebuilt;
+            running = true;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        log.info("Indexed {} loans of {} customers in about {} bytes, {} ms", rebuilt.loans(), rebuilt.customers(), rebuilt.estimatedBytes(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void start() {
+        if (enabled && !running) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // loaded before the payment journal replays and the web server starts, so no write is missed
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(update);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(update);
+            }
+        });
+    }
+
+    private void apply(Runnable update) {
+        rebuildLock.readLock().lock();
+        try {
+            update.run();
+        } catch (RuntimeException e) {
+            running = false;
+            log.error("Loan index update failed, loans are listed from the database until the index is rebuilt", e);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+}
@@ -1,28 +1,49 @@
 package com.ingbank.credit_manager.serviceimpl;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
+import com.ingbank.credit_manager.beans.KeysetPage;
+import com.ingbank.credit_manager.beans.Money;
 import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Loan;
 import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.entity.LoanSchedule;
 import com.ingbank.credit_manager.repository.LoanInstallmentRepository;
+import com.ingbank.credit_manager.repository.LoanScheduleRepository;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
 import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.util.KeysetCursor;
+import com.ingbank.credit_manager.util.LoanMetrics;
+import com.ingbank.credit_manager.util.PackedSchedules;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+/**
+ * Reads and writes the installments of a loan in either storage: one {@link LoanInstallment} row each, or one
+ * {@link LoanSchedule} row for loans flagged with {@code packedSchedule}, expanded to installments on demand.
+ */
 @Service
 @Slf4j
 public class LoanInstallmentServiceImpl implements LoanInstallmentService {
 
+    private static final long TIMING_RATE_NUMERATOR = CreditManagerConstants.PAYMENT_TIMING_BASED_INTEREST_RATE.unscaledValue().longValueExact();
+    private static final long TIMING_RATE_DENOMINATOR = BigDecimal.ONE.movePointRight(CreditManagerConstants.PAYMENT_TIMING_BASED_INTEREST_RATE.scale()).longValueExact();
+
     private final LoanInstallmentRepository loanInstallmentRepository;
+    private final LoanScheduleRepository loanScheduleRepository;
+    private final LoanMetrics loanMetrics;
 
     @Autowired
-    public LoanInstallmentServiceImpl(LoanInstallmentRepository loanInstallmentRepository) {
+    public LoanInstallmentServiceImpl(LoanInstallmentRepository loanInstallmentRepository, LoanScheduleRepository loanScheduleRepository, LoanMetrics loanMetrics) {
         this.loanInstallmentRepository = loanInstallmentRepository;
+        this.loanScheduleRepository = loanScheduleRepository;
+        this.loanMetrics = loanMetrics;
         log.trace("{} initialized", this.getClass().getName());
     }
 
@@ -32,36 +53,130 @@ public class LoanInstallmentServiceImpl implements LoanInstallmentService {
             log.warn("Installment amount cannot be less than zero '{}'", installmentAmount);
             return BigDecimal.ZERO;
         }
-        LocalDate now = LocalDate.now();
-        long daysDifference = java.time.temporal.ChronoUnit.DAYS.between(dueDate, now);
-        BigDecimal daysDiff = BigDecimal.valueOf(daysDifference);
-        if (daysDifference != 0) {
-            installmentAmount = installmentAmount.add(installmentAmount.multiply(CreditManagerConstants.PAYMENT_TIMING_BASED_INTEREST_RATE).multiply(daysDiff));
+        return getTimeBasedInstallmentAmount(dueDate, Money.of(installmentAmount)).toBigDecimal();
+    }
+
+    @Override
+    public Money getTimeBasedInstallmentAmount(LocalDate dueDate, Money installmentAmount) {
+        return getTimeBasedInstallmentAmount(dueDate, installmentAmount, LocalDate.now());
+    }
+
+    /**
+     * Amount of the installment when paid on the business date, as the payment on that date and the accrual job
+     * compute it.
+     */
+    @Override
+    public Money getTimeBasedInstallmentAmount(LocalDate dueDate, Money installmentAmount, LocalDate businessDate) {
+        if (installmentAmount.signum() <= 0) {
+            log.warn("Installment amount cannot be less than zero '{}'", installmentAmount);
+            return Money.ZERO;
+        }
+        long daysDifference = ChronoUnit.DAYS.between(dueDate, businessDate);
+        if (daysDifference == 0) {
+            return installmentAmount;
         }
-        return installmentAmount.setScale(2, RoundingMode.HALF_UP);
+        // amount + amount * rate * days, as the single fraction amount * (1 + rate * days) rounded once
+        return installmentAmount.multiply(TIMING_RATE_DENOMINATOR + TIMING_RATE_NUMERATOR * daysDifference, TIMING_RATE_DENOMINATOR);
     }
 
+    /**
+     * Returns flat installment rows in due date order, read by a constructor projection that takes the loan id from
+     * the foreign key, so neither the loan nor its customer is loaded. A loan stored as rows always has some, so only
+     * a packed schedule (or a missing loan) costs the schedule lookup.
+     */
     @Override
-    public List<LoanInstallment> listInstallmentsByLoanId(Long loanId) {
-        return loanInstallmentRepository.findByLoanId(loanId);
+    public List<LoanInstallmentResponse> listInstallmentsByLoanId(Long loanId) {
+        return loanMetrics.record(CreditManagerConstants.LIST_INSTALLMENTS_OPERATION, () -> {
+            List<LoanInstallmentResponse> installments = loanInstallmentRepository.findResponsesByLoanId(loanId);
+            return installments.isEmpty() ? packedResponses(loanId) : installments;
+        });
+    }
+
+    /**
+     * Returns the installments after the cursor in id order, which is due date order as a schedule is saved
+     * in one go from the first due date on.
+     */
+    @Override
+    public KeysetPage<LoanInstallmentResponse> listInstallmentsByLoanId(Long loanId, String cursor, int pageSize) {
+        return loanMetrics.record(CreditManagerConstants.LIST_INSTALLMENTS_OPERATION, () -> {
+            long afterId = KeysetCursor.decode(cursor);
+            int limit = KeysetPage.checkPageSize(pageSize) + 1;
+            List<LoanInstallmentResponse> installments = loanInstallmentRepository.findResponsesByLoanIdAfter(loanId, afterId, Limit.of(limit));
+            if (installments.isEmpty()) {
+                installments = packedResponses(loanId).stream().filter(installment -> installment.id() > afterId).limit(limit).toList();
+            }
+            return KeysetPage.of(installments, pageSize, LoanInstallmentResponse::id);
+        });
     }
 
     @Override
     public List<LoanInstallment> listInstallmentsByLoanIdAndIsPaid(Long loanId, Boolean isPaid) {
-        return loanInstallmentRepository.findByLoanIdAndIsPaid(loanId, false);
+        return loanInstallmentRepository.findByLoanIdAndIsPaid(loanId, isPaid);
     }
 
+    /**
+     * Returns the unpaid installments due before the given date, oldest first. Window and ordering are applied
+     * by the database so only payable rows are loaded. A packed schedule is read and locked for the payment, the
+     * other calls of the payment find it in the persistence context.
+     */
     @Override
-    public void saveLoanInstallment(Loan loan, BigDecimal totalLoanAmount, LocalDate dueDate) {
-        LoanInstallment installment = new LoanInstallment();
-        installment.setLoan(loan);
-        installment.setAmount(totalLoanAmount);
-        installment.setDueDate(dueDate);
-        loanInstallmentRepository.save(installment);
+    public List<LoanInstallment> listPayableInstallments(Loan loan, LocalDate dueDateBefore) {
+        if (Boolean.TRUE.equals(loan.getPackedSchedule())) {
+            LoanSchedule schedule = loanScheduleRepository.findForUpdate(loan.getId()).orElseThrow(() -> missingSchedule(loan));
+            return PackedSchedules.installments(schedule, loan).stream()
+                    .filter(installment -> !installment.getIsPaid() && installment.getDueDate().isBefore(dueDateBefore))
+                    .toList();
+        }
+        return loanInstallmentRepository.findByLoanIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(loan.getId(), dueDateBefore);
     }
 
     @Override
-    public void saveAllLoanInstallments(List<LoanInstallment> installments) {
+    public boolean hasUnpaidInstallmentsFrom(Loan loan, LocalDate dueDateFrom) {
+        if (Boolean.TRUE.equals(loan.getPackedSchedule())) {
+            LoanSchedule schedule = loanScheduleRepository.findById(loan.getId()).orElseThrow(() -> missingSchedule(loan));
+            return PackedSchedules.installments(schedule, loan).stream()
+                    .anyMatch(installment -> !installment.getIsPaid() && !installment.getDueDate().isBefore(dueDateFrom));
+        }
+        return loanInstallmentRepository.existsByLoanIdAndIsPaidFalseAndDueDateGreaterThanEqual(loan.getId(), dueDateFrom);
+    }
+
+    /**
+     * Builds the whole installment schedule of the loan in memory and persists it with a single saveAll,
+     * so ids come from the pooled sequence and inserts are flushed as JDBC batches. A packed schedule is one insert.
+     */
+    @Override
+    public List<LoanInstallment> saveLoanInstallments(Loan loan, BigDecimal installmentAmount, LocalDate firstDueDate) {
+        if (Boolean.TRUE.equals(loan.getPackedSchedule())) {
+            LoanSchedule schedule = loanScheduleRepository.save(PackedSchedules.create(loan, installmentAmount, firstDueDate));
+            return PackedSchedules.installments(schedule, loan);
+        }
+        int numberOfInstallments = loan.getNumberOfInstallments();
+        List<LoanInstallment> installments = new ArrayList<>(numberOfInstallments);
+        for (int i = 0; i < numberOfInstallments; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setLoan(loan);
+            installment.setAmount(installmentAmount);
+            installment.setDueDate(firstDueDate.plusMonths(i));
+            installments.add(installment);
+        }
+        return loanInstallmentRepository.saveAll(installments);
+    }
+
+    @Override
+    public void saveAllLoanInstallments(Loan loan, List<LoanInstallment> installments) {
+        if (Boolean.TRUE.equals(loan.getPackedSchedule())) {
+            // the schedule is managed, the change is flushed with the transaction
+            PackedSchedules.apply(loanScheduleRepository.findById(loan.getId()).orElseThrow(() -> missingSchedule(loan)), installments);
+            return;
+        }
         loanInstallmentRepository.saveAll(installments);
     }
+
+    private List<LoanInstallmentResponse> packedResponses(Long loanId) {
+        return loanScheduleRepository.findById(loanId).map(PackedSchedules::responses).orElse(List.of());
+    }
+
+    private static IllegalStateException missingSchedule(Loan loan) {
+        return new IllegalStateException("Loan " + loan.getId() + " is flagged with a packed schedule but has none");
+    }
 }
@@ -0,0 +1,222 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ingbank.credit_manager.beans.InstallmentPayment;
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.response.LoanBalanceResponse;
+import com.ingbank.credit_manager.service.LoanLedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Appends the origination and the payments of every loan to {@code loan_ledger} in the transaction writing them, and
+ * serves the balance of a loan from its snapshot in {@code loan_balance_snapshot} plus the entries written after it.
+ * <p>
+ * Entries are only inserted, in id order. The compaction folds them into the snapshots in chunks of
+ * {@code credit-manager.ledger.snapshot.chunk-size} entries, each chunk committed on its own; the highest entry id of
+ * all snapshots is where the next run continues. Entries younger than {@code credit-manager.ledger.snapshot.settle-time}
+ * are left for the next run, so a transaction that took a lower id but commits later than a higher one is not skipped
+ * as long as it commits within that time.
+ */
+@Service
+@Slf4j
+public class LoanLedgerServiceImpl implements LoanLedgerService {
+
+    private static final String APPEND = """
+            INSERT INTO loan_ledger (loan_id, entry_type, installment_id, amount, paid_amount, installments, entry_date)
+            VALUES (?, ?, ?, ?, ?, ?, ?)""";
+    private static final String SELECT_SNAPSHOT = """
+            SELECT loan_id, last_entry_id, loan_amount, number_of_installments, paid_installments, outstanding_amount, paid_amount, is_paid
+              FROM loan_balance_snapshot""";
+    private static final String SELECT_TAIL =
+            "SELECT id, loan_id, entry_type, amount, paid_amount, installments FROM loan_ledger WHERE loan_id = ? AND id > ? ORDER BY id";
+    private static final String SELECT_COMPACTED_UP_TO = "SELECT COALESCE(MAX(last_entry_id), 0) FROM loan_balance_snapshot";
+    // scans the entries after the compacted ones only
+    private static final String SELECT_SETTLED_UP_TO =
+            "SELECT COALESCE(MAX(id), 0) FROM loan_ledger WHERE id > ? AND recorded_at <= DATEADD(MILLISECOND, -?, LOCALTIMESTAMP)";
+    private static final String SELECT_CHUNK =
+            "SELECT id, loan_id, entry_type, amount, paid_amount, installments FROM loan_ledger WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+    private static final String WRITE_SNAPSHOT = """
+            MERGE INTO loan_balance_snapshot (loan_id, last_entry_id, loan_amount, number_of_installments, paid_installments,
+                                              outstanding_amount, paid_amount, is_paid) KEY (loan_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final RowMapper<Entry> ENTRY_MAPPER = (rs, rowNum) -> new Entry(rs.getLong("id"), rs.getLong("loan_id"),
+            rs.getString("entry_type"), rs.getBigDecimal("amount"), rs.getBigDecimal("paid_amount"), (Integer) rs.getObject("installments"));
+
+    private static final RowMapper<Snapshot> SNAPSHOT_MAPPER = (rs, rowNum) -> new Snapshot(rs.getLong("last_entry_id"),
+            new LoanBalanceResponse(rs.getLong("loan_id"), rs.getBigDecimal("loan_amount"), rs.getInt("number_of_installments"),
+                    rs.getInt("paid_installments"), rs.getBigDecimal("outstanding_amount"), rs.getBigDecimal("paid_amount"), rs.getBoolean("is_paid")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long settleMillis;
+    private final int chunkSize;
+    private final ReentrantLock compacting = new ReentrantLock();
+
+    @Autowired
+    public LoanLedgerServiceImpl(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${credit-manager.ledger.snapshot.settle-time:1m}") Duration settleTime,
+                                 @Value("${credit-manager.ledger.snapshot.chunk-size:1000}") int chunkSize) {
+        if (settleTime.isNegative() || chunkSize <= 0) {
+            throw new IllegalArgumentException("Ledger settle time must not be negative and chunk size must be positive: " + settleTime + ", " + chunkSize);
+        }
+        this.jdbcTemplate = namedParameterJdbcTemplate.getJdbcTemplate();
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settleMillis = settleTime.toMillis();
+        this.chunkSize = chunkSize;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Override
+    @Transactional
+    public void loanOriginated(Loan loan) {
+        jdbcTemplate.update(APPEND, loan.getId(), CreditManagerConstants.LEDGER_ORIGINATED, null, loan.getLoanAmount(), null,
+                loan.getNumberOfInstallments(), loan.getCreateDate());
+    }
+
+    /**
+     * Appends one entry per installment paid and one more when the loan is paid, in a single batch.
+     */
+    @Override
+    @Transactional
+    public void paymentRecorded(Long loanId, LocalDate paymentDate, List<InstallmentPayment> payments, boolean loanFullyPaid) {
+        List<Object[]> entries = new ArrayList<>(payments.size() + 1);
+        for (InstallmentPayment payment : payments) {
+            entries.add(new Object[]{loanId, CreditManagerConstants.LEDGER_INSTALLMENT_PAID, payment.installmentId(), payment.amount(),
+                    payment.paidAmount(), null, paymentDate});
+        }
+        if (loanFullyPaid) {
+            entries.add(new Object[]{loanId, CreditManagerConstants.LEDGER_LOAN_PAID, null, Money.ZERO.toBigDecimal(), null, null, paymentDate});
+        }
+        if (!entries.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPEND, entries);
+        }
+    }
+
+    /**
+     * Reads the snapshot before the tail, so a compaction committing in between only makes the tail longer.
+     */
+    @Override
+    public LoanBalanceResponse findBalance(Long loanId) {
+        List<Snapshot> snapshots = jdbcTemplate.query(SELECT_SNAPSHOT + " WHERE loan_id = ?", SNAPSHOT_MAPPER, loanId);
+        Snapshot snapshot = snapshots.isEmpty() ? Snapshot.empty(loanId) : snapshots.getFirst();
+        List<Entry> tail = jdbcTemplate.query(SELECT_TAIL, ENTRY_MAPPER, loanId, snapshot.lastEntryId());
+        if (snapshots.isEmpty() && tail.isEmpty()) {
+            throw new NotFoundException("Loan not found with request loanId: " + loanId);
+        }
+        for (Entry entry : tail) {
+            snapshot = snapshot.apply(entry);
+        }
+        return snapshot.balance();
+    }
+
+    @Scheduled(cron = "${credit-manager.ledger.snapshot.cron:0 */10 * * * *}")
+    public void compactPeriodically() {
+        compactSnapshots();
+    }
+
+    /**
+     * Folds the settled entries written since the last compaction into the snapshots of their loans.
+     *
+     * @return the number of entries folded by this run, 0 when another run is in progress
+     */
+    @Override
+    public long compactSnapshots() {
+        if (!compacting.tryLock()) {
+            log.warn("Ledger compaction skipped, a run is in progress");
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            long compactedUpTo = jdbcTemplate.queryForObject(SELECT_COMPACTED_UP_TO, Long.class);
+            long settledUpTo = jdbcTemplate.queryForObject(SELECT_SETTLED_UP_TO, Long.class, compactedUpTo, settleMillis);
+            long folded = 0;
+            while (compactedUpTo < settledUpTo) {
+                long afterId = compactedUpTo;
+                List<Entry> chunk = transactionTemplate.execute(status -> compactChunk(afterId, settledUpTo));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                folded += chunk.size();
+                compactedUpTo = chunk.getLast().id();
+            }
+            log.info("Compacted {} ledger entries up to {}, {} ms", folded, compactedUpTo, (System.nanoTime() - start) / 1_000_000);
+            return folded;
+        } finally {
+            compacting.unlock();
+        }
+    }
+
+    private List<Entry> compactChunk(long afterId, long upTo) {
+        List<Entry> chunk = jdbcTemplate.query(SELECT_CHUNK, ENTRY_MAPPER, afterId, upTo, chunkSize);
+        if (chunk.isEmpty()) {
+            return chunk;
+        }
+        Map<Long, Snapshot> snapshots = new LinkedHashMap<>();
+        chunk.forEach(entry -> snapshots.put(entry.loanId(), null));
+        namedParameterJdbcTemplate.query(SELECT_SNAPSHOT + " WHERE loan_id IN (:loanIds)", Map.of("loanIds", snapshots.keySet()), SNAPSHOT_MAPPER)
+                .forEach(snapshot -> snapshots.put(snapshot.balance().loanId(), snapshot));
+        for (Entry entry : chunk) {
+            Snapshot snapshot = snapshots.get(entry.loanId());
+            snapshots.put(entry.loanId(), (snapshot == null ? Snapshot.empty(entry.loanId()) : snapshot).apply(entry));
+        }
+        jdbcTemplate.batchUpdate(WRITE_SNAPSHOT, snapshots.values().stream().map(snapshot -> {
+            LoanBalanceResponse balance = snapshot.balance();
+            return new Object[]{balance.loanId(), snapshot.lastEntryId(), balance.loanAmount(), balance.numberOfInstallments(),
+                    balance.paidInstallments(), balance.outstandingAmount(), balance.paidAmount(), balance.isPaid()};
+        }).toList());
+        return chunk;
+    }
+
+    private record Entry(long id, long loanId, String type, BigDecimal amount, BigDecimal paidAmount, Integer installments) {
+    }
+
+    private record Snapshot(long lastEntryId, LoanBalanceResponse balance) {
+
+        static Snapshot empty(Long loanId) {
+            BigDecimal zero = Money.ZERO.toBigDecimal();
+            return new Snapshot(0, new LoanBalanceResponse(loanId, zero, 0, 0, zero, zero, false));
+        }
+
+        // the origination is the first entry of every loan
+        Snapshot apply(Entry entry) {
+            LoanBalanceResponse current = balance;
+            LoanBalanceResponse next = switch (entry.type()) {
+                case CreditManagerConstants.LEDGER_ORIGINATED -> new LoanBalanceResponse(current.loanId(), entry.amount(), entry.installments(),
+                        0, entry.amount(), Money.ZERO.toBigDecimal(), false);
+                case CreditManagerConstants.LEDGER_INSTALLMENT_PAID -> new LoanBalanceResponse(current.loanId(), current.loanAmount(),
+                        current.numberOfInstallments(), current.paidInstallments() + 1,
+                        Money.of(current.outstandingAmount()).subtract(Money.of(entry.amount())).toBigDecimal(),
+                        Money.of(current.paidAmount()).add(Money.of(entry.paidAmount())).toBigDecimal(), current.isPaid());
+                case CreditManagerConstants.LEDGER_LOAN_PAID -> new LoanBalanceResponse(current.loanId(), current.loanAmount(),
+                        current.numberOfInstallments(), current.paidInstallments(), Money.ZERO.toBigDecimal(), current.paidAmount(), true);
+                default -> throw new IllegalStateException("Unknown ledger entry type " + entry.type() + " of entry " + entry.id());
+            };
+            return new Snapshot(entry.id(), next);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import com.ingbank.credit_manager.beans.InstallmentPayment;
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
+import com.ingbank.credit_manager.exception.LoanIsAlreadyFullyPaidException;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import com.ingbank.credit_manager.service.LoanIndexService;
+import com.ingbank.credit_manager.service.LoanLedgerService;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Pays a loan with set-based SQL instead of loading and saving entities, selected with
+ * {@code credit-manager.payment.set-based}. Results are identical to {@link LoanServiceImpl#payLoan(PayLoanRequest)}:
+ * <ol>
+ *     <li>one select reads the loan flag and counts the payable and later unpaid installments, locking the loan row
+ *     so that payments of the same loan are serialized,</li>
+ *     <li>one merge walks the payable installments in due date order with a recursive query, takes the time based
+ *     amount of each from the daily accrual or computes it, marks the ones the remaining amount covers as paid and
+ *     returns them,</li>
+ *     <li>one update marks the loan as paid when nothing is left to pay,</li>
+ *     <li>one update applies the payment to the customer summary,</li>
+ *     <li>one batch appends the installments paid to the ledger.</li>
+ * </ol>
+ * The statements use the H2 dialect ({@code FINAL TABLE}, {@code MERGE ... USING}). They bypass Hibernate, so a loan
+ * marked as paid is evicted from the second-level cache. Loans with a packed schedule have no installment rows and are
+ * refused, they are paid through {@link LoanServiceImpl}.
+ */
+@Service
+@Slf4j
+public class LoanPaymentServiceImpl implements LoanPaymentService {
+
+    private static final String SELECT_PAYMENT_STATE = """
+            SELECT l.customer_id, l.is_paid, l.packed_schedule,
+                   (SELECT COUNT(*) FROM loan_installment i
+                     WHERE i.loan_id = l.id AND i.is_paid = FALSE AND i.due_date < :windowEnd) AS payable,
+                   EXISTS (SELECT 1 FROM loan_installment i
+                            WHERE i.loan_id = l.id AND i.is_paid = FALSE AND i.due_date >= :windowEnd) AS unpaid_after_window
+              FROM loan l
+             WHERE l.id = :loanId
+               FOR UPDATE""";
+
+    // the break and pay conditions of the entity path: stop at the first installment whose amount exceeds what is left,
+    // skip the ones whose time based amount exceeds it
+    private static final String PAY_INSTALLMENTS = """
+            SELECT id, amount, paid_amount FROM FINAL TABLE (
+              MERGE INTO loan_installment t USING (
+                WITH RECURSIVE allocation (position, id, paid_amount, remaining, stopped) AS (
+                  SELECT 0, CAST(NULL AS BIGINT), CAST(NULL AS NUMERIC(20, 2)), CAST(:amount AS NUMERIC(20, 2)), FALSE
+                  UNION ALL
+                  SELECT p.position, p.id,
+                         CASE WHEN a.remaining >= p.amount AND a.remaining >= p.due_amount THEN p.due_amount END,
+                         CASE WHEN a.remaining >= p.amount AND a.remaining >= p.due_amount THEN a.remaining - p.due_amount ELSE a.remaining END,
+                         a.remaining < p.amount
+                    FROM allocation a
+                    JOIN (SELECT id, amount, ROW_NUMBER() OVER (ORDER BY due_date, id) AS position,
+                                 CASE WHEN amount <= 0 THEN 0
+                                      WHEN accrual_date = :today THEN accrued_amount
+                                      ELSE CAST(ROUND(amount * (1 + CAST(:rate AS NUMERIC(20, 10)) * DATEDIFF(DAY, due_date, :today)), 2) AS NUMERIC(20, 2)) END AS due_amount
+                            FROM loan_installment
+                           WHERE loan_id = :loanId AND is_paid = FALSE AND due_date < :windowEnd) p ON p.position = a.position + 1
+                   WHERE NOT a.stopped)
+                SELECT id, paid_amount FROM allocation WHERE paid_amount IS NOT NULL) s ON t.id = s.id
+              WHEN MATCHED THEN UPDATE SET t.paid_amount = s.paid_amount, t.is_paid = TRUE, t.payment_date = :today)
+             ORDER BY due_date, id""";
+
+    private static final String MARK_LOAN_PAID = "UPDATE loan SET is_paid = TRUE WHERE id = :loanId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CustomerSummaryService customerSummaryService;
+    private final LoanLedgerService loanLedgerService;
+    private final LoanIndexService loanIndexService;
+
+    @Autowired
+    public LoanPaymentServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                  EntityManagerFactory entityManagerFactory,
+                                  CustomerSummaryService customerSummaryService,
+                                  LoanLedgerService loanLedgerService,
+                                  LoanIndexService loanIndexService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.customerSummaryService = customerSummaryService;
+        this.loanLedgerService = loanLedgerService;
+        this.loanIndexService = loanIndexService;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    /**
+     * The checks fail before any write, so they must not mark a surrounding transaction (e.g. the one storing an
+     * idempotent response) as rollback-only.
+     */
+    @Override
+    @Transactional(noRollbackFor = {NotFoundException.class, LoanIsAlreadyFullyPaidException.class, LoanInstallmentsMoreThan3MonthsCannotBePaidException.class})
+    public PaymentResult payLoan(PayLoanRequest request) {
+        return payLoan(request, LocalDate.now());
+    }
+
+    /**
+     * Pays the loan as of the payment date, which stands for today in every statement.
+     */
+    @Override
+    @Transactional(noRollbackFor = {NotFoundException.class, LoanIsAlreadyFullyPaidException.class, LoanInstallmentsMoreThan3MonthsCannotBePaidException.class})
+    public PaymentResult payLoan(PayLoanRequest request, LocalDate today) {
+        Long loanId = request.getLoanId();
+        // Installments have due date that still more than 3 calendar months cannot be paid.
+        Map<String, Object> parameters = Map.of(
+                "loanId", loanId,
+                "amount", Money.of(request.getAmount()).toBigDecimal(),
+                "rate", CreditManagerConstants.PAYMENT_TIMING_BASED_INTEREST_RATE,
+                "today", today,
+                "windowEnd", today.plusMonths(3));
+
+        PaymentState state = jdbcTemplate.query(SELECT_PAYMENT_STATE, parameters, rs -> rs.next()
+                ? new PaymentState(rs.getLong("customer_id"), rs.getBoolean("is_paid"), rs.getBoolean("packed_schedule"), rs.getInt("payable"), rs.getBoolean("unpaid_after_window"))
+                : null);
+        if (state == null) {
+            throw new NotFoundException("Loan not found with request loanId: " + loanId);
+        }
+        if (state.packedSchedule()) {
+            throw new IllegalStateException("Loan " + loanId + " has a packed schedule, which the set-based payment cannot pay");
+        }
+        if (state.loanPaid()) {
+            throw new LoanIsAlreadyFullyPaidException("Loan is already fully paid");
+        }
+        if (state.unpaidAfterWindow() && state.payable() == 0) {
+            throw new LoanInstallmentsMoreThan3MonthsCannotBePaidException("Loan installments more than 3 calendar months cannot be paid");
+        }
+
+        List<InstallmentPayment> payments = jdbcTemplate.query(PAY_INSTALLMENTS, parameters, (rs, rowNum) ->
+                new InstallmentPayment(rs.getLong("id"), rs.getBigDecimal("amount"), rs.getBigDecimal("paid_amount")));
+        // spent is what the payment timing made the installments cost, settled is their amount
+        Money spent = Money.ZERO;
+        Money settled = Money.ZERO;
+        for (InstallmentPayment payment : payments) {
+            spent = spent.add(Money.of(payment.paidAmount()));
+            settled = settled.add(Money.of(payment.amount()));
+        }
+        PaymentResult result = PaymentResult.builder().installmentsPaid(payments.size()).totalAmountSpent(spent.toBigDecimal()).build();
+        boolean loanFullyPaid = !state.unpaidAfterWindow() && result.getInstallmentsPaid() == state.payable();
+        if (loanFullyPaid) {
+            jdbcTemplate.update(MARK_LOAN_PAID, parameters);
+            evictLoan(loanId);
+            loanIndexService.loanPaid(state.customerId(), loanId);
+        }
+        result.setLoanFullyPaid(loanFullyPaid);
+        if (result.getInstallmentsPaid() > 0 || loanFullyPaid) {
+            customerSummaryService.installmentsSettled(state.customerId(), settled.toBigDecimal(), loanFullyPaid);
+            loanLedgerService.paymentRecorded(loanId, today, payments, loanFullyPaid);
+        }
+        log.debug("Paid {} installments of loan {} for {}", result.getInstallmentsPaid(), loanId, result.getTotalAmountSpent());
+        return result;
+    }
+
+    /**
+     * Evicts the loan now and again when the transaction completes, as a concurrent load may have put back the row as
+     * it was before the commit in between.
+     */
+    private void evictLoan(Long loanId) {
+        Cache cache = entityManagerFactory.getCache();
+        cache.evict(Loan.class, loanId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.evict(Loan.class, loanId);
+            }
+        });
+    }
+
+    private record PaymentState(long customerId, boolean loanPaid, boolean packedSchedule, int payable, boolean unpaidAfterWindow) {
+    }
+}
@@ -3,11 +3,15 @@ package com.ingbank.credit_manager.serviceimpl;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import com.ingbank.credit_manager.beans.InstallmentPayment;
+import com.ingbank.credit_manager.beans.KeysetPage;
+import com.ingbank.credit_manager.beans.Money;
 import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Customer;
 import com.ingbank.credit_manager.entity.Loan;
 import com.ingbank.credit_manager.entity.LoanInstallment;
@@ -19,11 +23,22 @@ import com.ingbank.credit_manager.repository.CustomerRepository;
 import com.ingbank.credit_manager.repository.LoanRepository;
 import com.ingbank.credit_manager.request.CreateLoanRequest;
 import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.LoanResponse;
+import com.ingbank.credit_manager.service.CreditLimitService;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import com.ingbank.credit_manager.service.LoanIndexService;
 import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanLedgerService;
+import com.ingbank.credit_manager.service.LoanPaymentService;
 import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.KeysetCursor;
+import com.ingbank.credit_manager.util.LoanMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @Slf4j
@@ -32,45 +47,86 @@ public class LoanServiceImpl implements LoanService {
     private final LoanRepository loanRepository;
     private final CustomerRepository customerRepository;
     private final LoanInstallmentService loanInstallmentService;
+    private final CreditLimitService creditLimitService;
+    private final LoanPaymentService loanPaymentService;
+    private final CustomerSummaryService customerSummaryService;
+    private final LoanLedgerService loanLedgerService;
+    private final LoanIndexService loanIndexService;
+    private final LoanMetrics loanMetrics;
+    private final boolean setBasedPayment;
+    private final boolean packedSchedules;
 
     @Autowired
     public LoanServiceImpl(LoanRepository loanRepository,
                            CustomerRepository customerRepository,
-                           LoanInstallmentService loanInstallmentService) {
+                           LoanInstallmentService loanInstallmentService,
+                           CreditLimitService creditLimitService,
+                           LoanPaymentService loanPaymentService,
+                           CustomerSummaryService customerSummaryService,
+                           LoanLedgerService loanLedgerService,
+                           LoanIndexService loanIndexService,
+                           LoanMetrics loanMetrics,
+                           @Value("${credit-manager.payment.set-based:false}") boolean setBasedPayment,
+                           @Value("${credit-manager.schedule.packed:false}") boolean packedSchedules) {
         this.loanRepository = loanRepository;
         this.customerRepository = customerRepository;
         this.loanInstallmentService = loanInstallmentService;
-        log.trace("{} initialized", this.getClass().getName());
+        this.creditLimitService = creditLimitService;
+        this.loanPaymentService = loanPaymentService;
+        this.customerSummaryService = customerSummaryService;
+        this.loanLedgerService = loanLedgerService;
+        this.loanIndexService = loanIndexService;
+        this.loanMetrics = loanMetrics;
+        // the set-based statements only know installment rows
+        this.setBasedPayment = setBasedPayment && !packedSchedules;
+        this.packedSchedules = packedSchedules;
+        if (setBasedPayment && packedSchedules) {
+            log.warn("Set-based payments are turned off by packed schedules");
+        }
+        log.trace("{} initialized with {} payments and {} schedules", this.getClass().getName(), this.setBasedPayment ? "set-based" : "entity",
+                this.packedSchedules ? "packed" : "row");
     }
 
+    /**
+     * Credit limit and customer lookup failures happen before any write, so they must not mark a surrounding
+     * transaction (e.g. a bulk creation chunk) as rollback-only.
+     */
+    @Transactional(noRollbackFor = {CustomerCreditLimitExceededException.class, NotFoundException.class})
     public Loan createLoan(CreateLoanRequest request) {
+        return loanMetrics.record(CreditManagerConstants.CREATE_LOAN_OPERATION, () -> createLoanOnce(request));
+    }
+
+    private Loan createLoanOnce(CreateLoanRequest request) {
         Long customerId = request.getCustomerId();
         BigDecimal amount = request.getAmount();
         Integer installments = request.getInstallments();
         BigDecimal interestRate = request.getInterestRate();
 
-        Customer customer = customerRepository.findById(customerId).orElseThrow(() -> new NotFoundException("Customer not found with requested customerId: " + customerId));
-        BigDecimal totalLoanAmount = amount.multiply(interestRate.add(BigDecimal.ONE)).setScale(2, RoundingMode.HALF_UP);
-        BigDecimal totalLimitUsage = customer.getUsedCreditLimit().add(totalLoanAmount).setScale(2, RoundingMode.HALF_UP);
-        BigDecimal availableLimit = customer.getCreditLimit().subtract(customer.getUsedCreditLimit()).setScale(2, RoundingMode.HALF_UP);
-        if (totalLimitUsage.compareTo(customer.getCreditLimit()) > 0) {
+        Money totalLoanAmount = Money.of(amount).multiply(interestRate.add(BigDecimal.ONE));
+        if (!creditLimitService.reserve(customerId, totalLoanAmount.toBigDecimal())) {
+            Customer customer = customerRepository.findById(customerId).orElseThrow(() -> new NotFoundException("Customer not found with requested customerId: " + customerId));
+            BigDecimal totalLimitUsage = customer.getUsedCreditLimit().add(totalLoanAmount.toBigDecimal()).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal availableLimit = customer.getCreditLimit().subtract(customer.getUsedCreditLimit()).setScale(2, RoundingMode.HALF_UP);
+            loanMetrics.creditLimitRejected();
             log.error("Customer exceeds credit limit. Current limit: {}, Available limit: {}, Total limit usage: {}", customer.getCreditLimit(), availableLimit, totalLimitUsage);
             throw new CustomerCreditLimitExceededException("Customer exceeds credit limit. Current limit: " + customer.getCreditLimit() + ", Available limit: " + availableLimit + ", Total limit usage: " + totalLimitUsage);
         }
+        // loaded after the reservation so the returned loan carries the updated used credit limit
+        Customer customer = customerRepository.findById(customerId).orElseThrow(() -> new NotFoundException("Customer not found with requested customerId: " + customerId));
 
         Loan loan = new Loan();
         loan.setCustomer(customer);
-        loan.setLoanAmount(totalLoanAmount);
+        loan.setLoanAmount(totalLoanAmount.toBigDecimal());
         loan.setNumberOfInstallments(installments);
+        loan.setPackedSchedule(packedSchedules);
         loanRepository.save(loan);
 
-        BigDecimal installmentAmount = totalLoanAmount.divide(BigDecimal.valueOf(installments), RoundingMode.HALF_UP);
-        for (int i = 1; i <= installments; i++) {
-            loanInstallmentService.saveLoanInstallment(loan, installmentAmount, LocalDate.now().plusMonths(i).withDayOfMonth(1) );
-        }
-
-        customer.setUsedCreditLimit(totalLimitUsage);
-        customerRepository.save(customer);
+        Money installmentAmount = totalLoanAmount.divide(installments);
+        LocalDate firstDueDate = LocalDate.now().plusMonths(1).withDayOfMonth(1);
+        loanInstallmentService.saveLoanInstallments(loan, installmentAmount.toBigDecimal(), firstDueDate);
+        customerSummaryService.loanCreated(customerId, installmentAmount.toBigDecimal(), installments, firstDueDate);
+        loanLedgerService.loanOriginated(loan);
+        loanIndexService.loanCreated(loan);
 
         return loan;
     }
@@ -80,62 +136,131 @@ public class LoanServiceImpl implements LoanService {
         return loanRepository.findByCustomerId(customerId);
     }
 
-    public List<Loan> listLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid) {
-        return loanRepository.findLoans(customerId, numberOfInstallments, isPaid);
+    /**
+     * Returns flat loan rows read by a constructor projection, so no loan or customer entity is loaded, or from the
+     * {@link LoanIndexService} when it is ready.
+     */
+    public List<LoanResponse> listLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid) {
+        return loanMetrics.record(CreditManagerConstants.LIST_LOANS_OPERATION, () -> loanIndexService.isReady()
+                ? loanIndexService.findLoans(customerId, numberOfInstallments, isPaid, KeysetCursor.FIRST, Integer.MAX_VALUE)
+                : loanRepository.findLoans(customerId, numberOfInstallments, isPaid));
+    }
+
+    /**
+     * Returns the loans after the cursor in id order, reading one row more than the page to know whether
+     * another page follows.
+     */
+    @Override
+    public KeysetPage<LoanResponse> listLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid, String cursor, int pageSize) {
+        return loanMetrics.record(CreditManagerConstants.LIST_LOANS_OPERATION, () -> {
+            long afterId = KeysetCursor.decode(cursor);
+            int limit = KeysetPage.checkPageSize(pageSize) + 1;
+            List<LoanResponse> loans = loanIndexService.isReady()
+                    ? loanIndexService.findLoans(customerId, numberOfInstallments, isPaid, afterId, limit)
+                    : loanRepository.findLoansAfter(customerId, numberOfInstallments, isPaid, afterId, Limit.of(limit));
+            return KeysetPage.of(loans, pageSize, LoanResponse::id);
+        });
     }
 
+    /**
+     * Pays the payable installments oldest first, through {@link LoanPaymentService} when
+     * {@code credit-manager.payment.set-based} is enabled, otherwise on the loaded entities. Loans with a packed schedule
+     * are always paid on the entities, as they have no installment rows. The installments, the loan the customer summary
+     * and the ledger entries are written in one transaction; the checks fail before any write.
+     */
+    @Transactional(noRollbackFor = {NotFoundException.class, LoanIsAlreadyFullyPaidException.class, LoanInstallmentsMoreThan3MonthsCannotBePaidException.class})
     public PaymentResult payLoan(PayLoanRequest request) {
-        BigDecimal amount = request.getAmount().setScale(2, RoundingMode.HALF_UP);
+        return payLoan(request, LocalDate.now());
+    }
+
+    /**
+     * Pays the loan as of the payment date, e.g. the day a journaled payment was accepted: the 3 months window, the
+     * payment timing interest and the payment date of the installments and the ledger entries are taken from it.
+     */
+    @Override
+    @Transactional(noRollbackFor = {NotFoundException.class, LoanIsAlreadyFullyPaidException.class, LoanInstallmentsMoreThan3MonthsCannotBePaidException.class})
+    public PaymentResult payLoan(PayLoanRequest request, LocalDate paymentDate) {
+        PaymentResult paymentResult = loanMetrics.record(CreditManagerConstants.PAY_LOAN_OPERATION,
+                () -> paysSetBased(request.getLoanId()) ? loanPaymentService.payLoan(request, paymentDate) : payLoanEntities(request, paymentDate));
+        loanMetrics.paymentCompleted(paymentResult);
+        return paymentResult;
+    }
+
+    // loans keep their packed schedule after credit-manager.schedule.packed is turned off; the flag never changes, so the
+    // cached loan tells without a lock
+    private boolean paysSetBased(Long loanId) {
+        return setBasedPayment && !loanRepository.findById(loanId).map(Loan::getPackedSchedule).map(Boolean.TRUE::equals).orElse(false);
+    }
+
+    private PaymentResult payLoanEntities(PayLoanRequest request, LocalDate today) {
+        Money amount = Money.of(request.getAmount());
         Long loanId = request.getLoanId();
         Loan loan = loanRepository.findById(loanId).orElseThrow(() -> new NotFoundException("Loan not found with request loanId: " + loanId));
         if (Boolean.TRUE.equals(loan.getIsPaid())) {
             throw new LoanIsAlreadyFullyPaidException("Loan is already fully paid");
         }
 
-        List<LoanInstallment> allInstallmentsUnpaid = loanInstallmentService.listInstallmentsByLoanIdAndIsPaid(loanId, false);
         // Installments have due date that still more than 3 calendar months cannot be paid.
-        List<LoanInstallment> installmentsUnpaidNext3Months = allInstallmentsUnpaid.stream()
-                .filter(installment -> installment.getDueDate().isBefore(LocalDate.now().plusMonths(3)))
-                .sorted(Comparator.comparing(LoanInstallment::getDueDate))
-                .toList();
+        LocalDate paymentWindowEnd = today.plusMonths(3);
+        List<LoanInstallment> installmentsUnpaidNext3Months = loanInstallmentService.listPayableInstallments(loan, paymentWindowEnd);
+        boolean hasUnpaidInstallmentsAfterWindow = loanInstallmentService.hasUnpaidInstallmentsFrom(loan, paymentWindowEnd);
 
-        if (!allInstallmentsUnpaid.isEmpty() && installmentsUnpaidNext3Months.isEmpty()) {
+        if (hasUnpaidInstallmentsAfterWindow && installmentsUnpaidNext3Months.isEmpty()) {
             throw new LoanInstallmentsMoreThan3MonthsCannotBePaidException("Loan installments more than 3 calendar months cannot be paid");
         }
 
-        int installmentsPaid = 0;
-        BigDecimal totalAmountSpent = BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
+        List<InstallmentPayment> payments = new ArrayList<>();
+        Money totalAmountSpent = Money.ZERO;
+        Money settledAmount = Money.ZERO;
 
         for (LoanInstallment installment : installmentsUnpaidNext3Months) {
-            if (amount.compareTo(installment.getAmount()) < 0) {
+            Money installmentAmount = Money.of(installment.getAmount());
+            if (amount.isLessThan(installmentAmount)) {
                 log.warn("amount to be paid {} is below of loan installment amount : {}", amount, installment.getAmount());
                 break;
             }
             log.debug("Amount to be paid {} for installment {}", amount, installment);
 
-            BigDecimal timeBasedInstallmentAmount = loanInstallmentService.getTimeBasedInstallmentAmount(installment.getDueDate(), installment.getAmount());
+            Money timeBasedInstallmentAmount = getTimeBasedInstallmentAmount(installment, installmentAmount, today);
 
-            if (amount.compareTo(timeBasedInstallmentAmount) >= 0) {
-                installment.setPaidAmount(timeBasedInstallmentAmount);
+            if (!amount.isLessThan(timeBasedInstallmentAmount)) {
+                installment.setPaidAmount(timeBasedInstallmentAmount.toBigDecimal());
                 installment.setIsPaid(true);
-                installment.setPaymentDate(LocalDate.now());
+                installment.setPaymentDate(today);
 
                 amount = amount.subtract(timeBasedInstallmentAmount);
                 totalAmountSpent = totalAmountSpent.add(timeBasedInstallmentAmount);
-                installmentsPaid++;
+                settledAmount = settledAmount.add(installmentAmount);
+                payments.add(new InstallmentPayment(installment.getId(), installment.getAmount(), installment.getPaidAmount()));
             }
         }
 
         // Check if the loan is fully paid
-        boolean loanFullyPaid = allInstallmentsUnpaid.stream().allMatch(LoanInstallment::getIsPaid);
+        int installmentsPaid = payments.size();
+        boolean loanFullyPaid = !hasUnpaidInstallmentsAfterWindow && installmentsPaid == installmentsUnpaidNext3Months.size();
         if (loanFullyPaid) {
             loan.setIsPaid(true);
             loanRepository.save(loan);
+            loanIndexService.loanPaid(loan.getCustomer().getId(), loanId);
+        }
+
+        loanInstallmentService.saveAllLoanInstallments(loan, installmentsUnpaidNext3Months);
+        if (installmentsPaid > 0 || loanFullyPaid) {
+            customerSummaryService.installmentsSettled(loan.getCustomer().getId(), settledAmount.toBigDecimal(), loanFullyPaid);
+            loanLedgerService.paymentRecorded(loanId, today, payments, loanFullyPaid);
         }
 
-        loanInstallmentService.saveAllLoanInstallments(installmentsUnpaidNext3Months);
+        return PaymentResult.builder().installmentsPaid(installmentsPaid).totalAmountSpent(totalAmountSpent.toBigDecimal()).loanFullyPaid(loanFullyPaid).build();
+    }
 
-        return PaymentResult.builder().installmentsPaid(installmentsPaid).totalAmountSpent(totalAmountSpent).loanFullyPaid(loanFullyPaid).build();
+    /**
+     * Uses the amount accrued by the daily job when it is for today, and computes it otherwise.
+     */
+    private Money getTimeBasedInstallmentAmount(LoanInstallment installment, Money installmentAmount, LocalDate today) {
+        if (today.equals(installment.getAccrualDate())) {
+            return Money.of(installment.getAccruedAmount());
+        }
+        return loanInstallmentService.getTimeBasedInstallmentAmount(installment.getDueDate(), installmentAmount, today);
     }
 
     @Override
@@ -146,4 +271,12 @@ public class LoanServiceImpl implements LoanService {
         }
         throw new NotFoundException("Loan not found with request loanId: " + loanId);
     }
+
+    /**
+     * Reads only the owning customer id of the loan, for access checks that do not need the loan itself.
+     */
+    @Override
+    public Long findCustomerIdByLoanId(Long loanId) {
+        return loanRepository.findCustomerIdById(loanId).orElseThrow(() -> new NotFoundException("Loan not found with request loanId: " + loanId));
+    }
 }
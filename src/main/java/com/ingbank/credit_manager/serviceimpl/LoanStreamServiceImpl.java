@@ -0,0 +1,94 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.repository.LoanInstallmentRepository;
+import com.ingbank.credit_manager.repository.LoanRepository;
+import com.ingbank.credit_manager.repository.LoanScheduleRepository;
+import com.ingbank.credit_manager.service.LoanStreamService;
+import com.ingbank.credit_manager.util.PackedSchedules;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes loans and installments as newline delimited JSON while they are read from a forward only JPA cursor.
+ * Rows are constructor projections, not managed entities, so memory use per request does not grow with the number
+ * of rows, unlike a materialized list. A loan with a packed schedule has no installment rows, its installments are
+ * expanded from the schedule instead.
+ */
+@Service
+@Slf4j
+public class LoanStreamServiceImpl implements LoanStreamService {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final LoanRepository loanRepository;
+    private final LoanInstallmentRepository loanInstallmentRepository;
+    private final LoanScheduleRepository loanScheduleRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LoanStreamServiceImpl(LoanRepository loanRepository,
+                                 LoanInstallmentRepository loanInstallmentRepository,
+                                 LoanScheduleRepository loanScheduleRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.loanRepository = loanRepository;
+        this.loanInstallmentRepository = loanInstallmentRepository;
+        this.loanScheduleRepository = loanScheduleRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Override
+    public void writeLoans(Long customerId, Integer numberOfInstallments, Boolean isPaid, OutputStream output) throws IOException {
+        int written = write(() -> loanRepository.streamLoans(customerId, numberOfInstallments, isPaid), output);
+        log.debug("Streamed {} loans of customer {}", written, customerId);
+    }
+
+    @Override
+    public void writeInstallments(Long loanId, OutputStream output) throws IOException {
+        int written = write(() -> loanInstallmentRepository.streamResponsesByLoanId(loanId), output);
+        if (written == 0) {
+            written = write(() -> loanScheduleRepository.findById(loanId).stream().flatMap(schedule -> PackedSchedules.responses(schedule).stream()), output);
+        }
+        log.debug("Streamed {} installments of loan {}", written, loanId);
+    }
+
+    // a JPA stream is only open inside a transaction, so the rows are written from within it
+    private <T> int write(Supplier<Stream<T>> query, OutputStream output) throws IOException {
+        try {
+            Integer written = transactionTemplate.execute(status -> {
+                int count = 0;
+                try (Stream<T> rows = query.get()) {
+                    Iterator<T> iterator = rows.iterator();
+                    while (iterator.hasNext()) {
+                        T row = iterator.next();
+                        output.write(objectMapper.writeValueAsBytes(row));
+                        output.write(NEW_LINE);
+                        count++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            output.flush();
+            return written == null ? 0 : written;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
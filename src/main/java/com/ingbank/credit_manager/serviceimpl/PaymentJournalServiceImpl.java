@@ -0,0 +1,257 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.ingbank.credit_manager.beans.JournaledPayment;
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
+import com.ingbank.credit_manager.exception.LoanIsAlreadyFullyPaidException;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.service.PaymentJournalService;
+import com.ingbank.credit_manager.util.PaymentJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Accepts payments into a {@link PaymentJournal} when {@code credit-manager.payment.journal.enabled} is set, and
+ * applies them in the background through {@link LoanService#payLoan(PayLoanRequest, LocalDate)} as of the day they
+ * were accepted.
+ * <p>
+ * Payments are applied in journal order, {@code credit-manager.payment.journal.batch-size} per transaction, together with
+ * the sequence of the last one in {@code payment_journal_checkpoint}. A batch either commits with its checkpoint or not
+ * at all, so the journal replayed after that sequence on startup applies every acknowledged payment exactly once.
+ * Payments refused by the loan checks are written to {@code payment_journal_refusal} with the reason, in the transaction
+ * of the checkpoint. A batch rolled back by any other failure is applied again one payment per transaction, and a
+ * payment still failing on its own is dead-lettered to {@code payment_journal_dead_letter} with its checkpoint, so it
+ * does not hold back the payments after it. Transient failures, such as a lock timeout or a deadlock against a payment
+ * of the same loan or a lost connection, are not dead-lettered but retried, as is a failure to write the checkpoint.
+ */
+@Service
+@Slf4j
+public class PaymentJournalServiceImpl implements PaymentJournalService, SmartLifecycle {
+
+    private static final String SELECT_APPLIED = "SELECT COALESCE(MAX(applied_sequence), 0) FROM payment_journal_checkpoint";
+    private static final String ADVANCE_CHECKPOINT = "MERGE INTO payment_journal_checkpoint (id, applied_sequence) KEY (id) VALUES (1, ?)";
+    private static final String INSERT_DEAD_LETTER = "INSERT INTO payment_journal_dead_letter (journal_sequence, loan_id, amount, accepted_on, error) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_REFUSAL = "INSERT INTO payment_journal_refusal (journal_sequence, loan_id, amount, accepted_on, reason) VALUES (?, ?, ?, ?, ?)";
+    // length of the error and reason columns
+    private static final int OUTCOME_TEXT_LENGTH = 1000;
+    private static final Duration IDLE_WAIT = Duration.ofSeconds(1);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final LoanService loanService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final DataSize segmentSize;
+    private final Duration groupCommitWindow;
+    private final int batchSize;
+
+    private volatile PaymentJournal journal;
+    private volatile Thread applier;
+    private volatile boolean running;
+    private volatile long appliedSequence;
+
+    @Autowired
+    public PaymentJournalServiceImpl(LoanService loanService,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${credit-manager.payment.journal.enabled:false}") boolean enabled,
+                                     @Value("${credit-manager.payment.journal.directory:payment-journal}") Path directory,
+                                     @Value("${credit-manager.payment.journal.segment-size:64MB}") DataSize segmentSize,
+                                     @Value("${credit-manager.payment.journal.group-commit-window:0ms}") Duration groupCommitWindow,
+                                     @Value("${credit-manager.payment.journal.batch-size:100}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Payment journal batch size must be positive: " + batchSize);
+        }
+        this.loanService = loanService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.groupCommitWindow = groupCommitWindow;
+        this.batchSize = batchSize;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends the payment to the journal with today's date and returns its sequence once it is forced to disk. The loan
+     * checks run when it is applied, as of that date.
+     */
+    @Override
+    public long accept(PayLoanRequest request) {
+        PaymentJournal current = journal;
+        if (!running || current == null) {
+            throw new IllegalStateException("Payment journal is not running");
+        }
+        return current.append(request.getLoanId(), Money.of(request.getAmount()), LocalDate.now());
+    }
+
+    @Override
+    public long appliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Replays the payments acknowledged but not applied before the last stop or crash, then starts the applier.
+     */
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        appliedSequence = jdbcTemplate.queryForObject(SELECT_APPLIED, Long.class);
+        journal = new PaymentJournal(directory, segmentSize.toBytes(), groupCommitWindow, appliedSequence);
+        long start = System.nanoTime();
+        long replayed = 0;
+        try {
+            for (int applied = applyBatch(); applied > 0; applied = applyBatch()) {
+                replayed += applied;
+            }
+        } catch (RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        log.info("Replayed {} journaled payments up to {}, {} ms", replayed, appliedSequence, (System.nanoTime() - start) / 1_000_000);
+        running = true;
+        applier = Thread.ofPlatform().name("payment-journal-applier").start(this::applyContinuously);
+    }
+
+    /**
+     * Stops accepting payments, then applies the ones acknowledged so far.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        journal.close();
+        try {
+            applier.join();
+            while (applyBatch() > 0) {
+                // applies what the applier left
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Journaled payments after {} are left for the next start", appliedSequence, e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // started before and stopped after the web server, so no request finds the journal closed
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void applyContinuously() {
+        while (running) {
+            try {
+                if (applyBatch() == 0) {
+                    journal.awaitDurable(appliedSequence, IDLE_WAIT);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Journaled payments after {} cannot be applied, retrying in {}", appliedSequence, RETRY_DELAY, e);
+                try {
+                    Thread.sleep(RETRY_DELAY);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int applyBatch() {
+        List<JournaledPayment> payments = journal.read(appliedSequence, batchSize);
+        if (payments.isEmpty()) {
+            return 0;
+        }
+        long lastSequence = payments.getLast().sequence();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                payments.forEach(this::apply);
+                jdbcTemplate.update(ADVANCE_CHECKPOINT, lastSequence);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Journaled payments {} to {} rolled back, applying them one by one", payments.getFirst().sequence(), lastSequence, e);
+            payments.forEach(this::applyAlone);
+            return payments.size();
+        }
+        advanced(lastSequence);
+        return payments.size();
+    }
+
+    private void applyAlone(JournaledPayment payment) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                apply(payment);
+                jdbcTemplate.update(ADVANCE_CHECKPOINT, payment.sequence());
+            });
+        } catch (TransientDataAccessException | RecoverableDataAccessException | DataAccessResourceFailureException | CannotCreateTransactionException e) {
+            // lock timeouts and deadlocks are PessimisticLockingFailureExceptions, a TransientDataAccessException; the
+            // applier retries the payment after a delay
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Journaled payment {} of loan {} cannot be applied, dead-lettered", payment.sequence(), payment.loanId(), e);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(INSERT_DEAD_LETTER, payment.sequence(), payment.loanId(), payment.amount().toBigDecimal(), payment.acceptedOn(),
+                        abbreviate(String.valueOf(e)));
+                jdbcTemplate.update(ADVANCE_CHECKPOINT, payment.sequence());
+            });
+        }
+        advanced(payment.sequence());
+    }
+
+    private void advanced(long sequence) {
+        appliedSequence = sequence;
+        journal.applied(sequence);
+    }
+
+    private static String abbreviate(String error) {
+        return error.length() <= OUTCOME_TEXT_LENGTH ? error : error.substring(0, OUTCOME_TEXT_LENGTH);
+    }
+
+    // the refusals happen before any write and leave the transaction intact, which records them with the checkpoint
+    private void apply(JournaledPayment payment) {
+        try {
+            loanService.payLoan(payment.toRequest(), payment.acceptedOn());
+        } catch (NotFoundException | LoanIsAlreadyFullyPaidException | LoanInstallmentsMoreThan3MonthsCannotBePaidException e) {
+            log.warn("Journaled payment {} of loan {} refused: {}", payment.sequence(), payment.loanId(), e.getMessage());
+            jdbcTemplate.update(INSERT_REFUSAL, payment.sequence(), payment.loanId(), payment.amount().toBigDecimal(), payment.acceptedOn(),
+                    abbreviate(e.getMessage()));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ingbank.credit_manager.serviceimpl;
 
+import java.util.Optional;
+
 import com.ingbank.credit_manager.entity.User;
 import com.ingbank.credit_manager.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,4 +21,8 @@ public class UserService {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
+
+    public Optional<Long> findCustomerIdByUsername(String username) {
+        return userRepository.findCustomerIdByUsername(username);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.ingbank.credit_manager.util;
 
-import com.ingbank.credit_manager.entity.Customer;
 import com.ingbank.credit_manager.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
@@ -26,8 +25,8 @@ public class AuthorizationComponent {
 
         if (!isAdmin) {
             // Ensure the user is accessing their own data
-            Customer customer = customerService.findByUsername(username);
-            if (customer == null || !customer.getId().equals(customerId)) {
+            Long userCustomerId = customerService.findCustomerIdByUsername(username);
+            if (!userCustomerId.equals(customerId)) {
                 throw new AccessDeniedException("You are not authorized to access this data.");
             }
         }
@@ -0,0 +1,50 @@
+package com.ingbank.credit_manager.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.ingbank.credit_manager.exception.InvalidPageRequestException;
+
+/**
+ * Opaque continuation token of a keyset paginated listing. The token carries the sort key of the last row
+ * returned, and the next page is read with {@code WHERE id > :afterId ORDER BY id}, so it stays stable while rows are
+ * inserted and costs the same at any depth, unlike an offset.
+ */
+public final class KeysetCursor {
+
+    /** Sort key before every row, used for the first page. */
+    public static final long FIRST = 0L;
+
+    private static final String VERSION_PREFIX = "v1:";
+
+    private KeysetCursor() {
+        // private constructor to prevent init
+    }
+
+    public static String encode(long afterId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((VERSION_PREFIX + afterId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Returns the sort key the cursor continues after, or {@link #FIRST} when no cursor is given.
+     *
+     * @throws InvalidPageRequestException if the cursor was not issued by {@link #encode(long)}
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (decoded.startsWith(VERSION_PREFIX)) {
+                long afterId = Long.parseLong(decoded.substring(VERSION_PREFIX.length()));
+                if (afterId >= FIRST) {
+                    return afterId;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed base64 or number, reported below
+        }
+        throw new InvalidPageRequestException("Invalid cursor: " + cursor);
+    }
+}
@@ -0,0 +1,276 @@
+package com.ingbank.credit_manager.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.response.LoanResponse;
+
+/**
+ * Loans of every customer kept in memory as columns in id order, with a bitmap of the paid loans and one bitmap per
+ * number of installments, so a filtered loan listing costs a few word operations per 64 loans of the customer.
+ * <p>
+ * The columns seen by a reader never change: writers build the next {@link CustomerLoans} of the customer inside
+ * {@link ConcurrentHashMap#compute} and readers work on the one they got. A loan appended in id order is written to the
+ * spare capacity after the size of the current one, where its readers do not look. Loans only change by being paid.
+ */
+public class LoanIndex {
+
+    // sizes of a 64-bit JVM with compressed references
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    // the map node, its boxed key and its table slot
+    private static final int CUSTOMER_ENTRY_BYTES = 32 + 16 + REFERENCE_BYTES;
+    private static final int INITIAL_CAPACITY = 4;
+    private static final short NO_INSTALLMENTS = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final ConcurrentHashMap<Long, CustomerLoans> customers = new ConcurrentHashMap<>();
+    // loans whose payment reached the index before their creation, see paid
+    private final Set<Long> paidBeforeCreated = ConcurrentHashMap.newKeySet();
+    private final LongAdder loans = new LongAdder();
+
+    /**
+     * Adds the loan, or marks it paid when it is already indexed and the row says it is.
+     */
+    public void put(LoanResponse loan) {
+        boolean paid = paidBeforeCreated.remove(loan.id()) | Boolean.TRUE.equals(loan.isPaid());
+        customers.compute(loan.customerId(), (customerId, current) -> {
+            if (current == null) {
+                loans.increment();
+                return CustomerLoans.EMPTY.append(loan, paid);
+            }
+            int position = Arrays.binarySearch(current.ids, 0, current.size, loan.id());
+            if (position >= 0) {
+                return paid ? current.markPaid(position) : current;
+            }
+            loans.increment();
+            int insertion = -position - 1;
+            return insertion == current.size ? current.append(loan, paid) : current.insert(insertion, loan, paid);
+        });
+    }
+
+    /**
+     * Marks the loan paid. A payment committed right after the creation of the loan can get here before it, so an
+     * unknown loan is remembered and marked paid when it is put.
+     */
+    public void paid(Long customerId, Long loanId) {
+        boolean[] found = new boolean[1];
+        customers.computeIfPresent(customerId, (id, current) -> {
+            int position = Arrays.binarySearch(current.ids, 0, current.size, loanId);
+            if (position < 0) {
+                return current;
+            }
+            found[0] = true;
+            return current.markPaid(position);
+        });
+        if (!found[0]) {
+            paidBeforeCreated.add(loanId);
+            // put may have run in between
+            customers.computeIfPresent(customerId, (id, current) -> {
+                int position = Arrays.binarySearch(current.ids, 0, current.size, loanId);
+                if (position >= 0 && paidBeforeCreated.remove(loanId)) {
+                    return current.markPaid(position);
+                }
+                return current;
+            });
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} loans of the customer after {@code afterId} in id order, filtered like
+     * {@code LoanRepository.findLoans}.
+     */
+    public List<LoanResponse> find(Long customerId, Integer numberOfInstallments, Boolean isPaid, long afterId, int limit) {
+        CustomerLoans current = customers.get(customerId);
+        if (current == null || limit <= 0) {
+            return List.of();
+        }
+        long[] selected = null;
+        if (numberOfInstallments != null) {
+            selected = current.installmentBitmap(numberOfInstallments);
+            if (selected == null) {
+                return List.of();
+            }
+        }
+        int position = Arrays.binarySearch(current.ids, 0, current.size, afterId);
+        int from = position >= 0 ? position + 1 : -position - 1;
+        List<LoanResponse> result = new ArrayList<>(Math.min(limit, current.size - from));
+        int words = words(current.size);
+        for (int word = from >>> 6; word < words && result.size() < limit; word++) {
+            long bits = -1L;
+            if (selected != null) {
+                bits &= selected[word];
+            }
+            if (isPaid != null) {
+                bits &= isPaid ? current.paid[word] : ~current.paid[word];
+            }
+            if (word == from >>> 6) {
+                bits &= -1L << from;
+            }
+            int remaining = current.size - (word << 6);
+            if (remaining < Long.SIZE) {
+                bits &= (1L << remaining) - 1;
+            }
+            for (; bits != 0 && result.size() < limit; bits &= bits - 1) {
+                result.add(current.response(customerId, (word << 6) + Long.numberOfTrailingZeros(bits)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the spare capacity left by the appends, e.g. once the index is loaded.
+     */
+    public void trimToSize() {
+        customers.replaceAll((customerId, current) -> current.trim());
+    }
+
+    public long loans() {
+        return loans.sum();
+    }
+
+    public int customers() {
+        return customers.size();
+    }
+
+    /**
+     * Estimates the heap taken by the index from the length of its arrays, for a 64-bit JVM with compressed references.
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (CustomerLoans current : customers.values()) {
+            bytes += CUSTOMER_ENTRY_BYTES + current.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    private static int words(int bits) {
+        return (bits + Long.SIZE - 1) >>> 6;
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        // arrays are padded to 8 bytes
+        return (ARRAY_HEADER_BYTES + (long) length * elementBytes + 7) & ~7L;
+    }
+
+    private record CustomerLoans(int size,
+                                 long[] ids,
+                                 long[] amounts,
+                                 short[] installments,
+                                 int[] createDays,
+                                 long[] paid,
+                                 int[] installmentValues,
+                                 long[][] installmentBitmaps) {
+
+        static final CustomerLoans EMPTY = new CustomerLoans(0, new long[0], new long[0], new short[0], new int[0], new long[0], new int[0], new long[0][]);
+
+        int capacity() {
+            return ids.length;
+        }
+
+        long[] installmentBitmap(int numberOfInstallments) {
+            for (int i = 0; i < installmentValues.length; i++) {
+                if (installmentValues[i] == numberOfInstallments) {
+                    return installmentBitmaps[i];
+                }
+            }
+            return null;
+        }
+
+        boolean isPaid(int position) {
+            return (paid[position >>> 6] & 1L << position) != 0;
+        }
+
+        LoanResponse response(Long customerId, int position) {
+            return new LoanResponse(ids[position], customerId, new Money(amounts[position]).toBigDecimal(),
+                    installments[position] == NO_INSTALLMENTS ? null : (int) installments[position],
+                    createDays[position] == NO_DATE ? null : LocalDate.ofEpochDay(createDays[position]),
+                    isPaid(position));
+        }
+
+        /**
+         * Writes the loan after the last one, growing the columns when they are full.
+         */
+        CustomerLoans append(LoanResponse loan, boolean loanPaid) {
+            CustomerLoans target = size < capacity() ? this : withCapacity(Math.max(INITIAL_CAPACITY, capacity() * 2));
+            int position = size;
+            target.ids[position] = loan.id();
+            target.amounts[position] = Money.of(loan.loanAmount()).minorUnits();
+            target.installments[position] = loan.numberOfInstallments() == null ? NO_INSTALLMENTS : loan.numberOfInstallments().shortValue();
+            target.createDays[position] = loan.createDate() == null ? NO_DATE : (int) loan.createDate().toEpochDay();
+            if (loanPaid) {
+                target.paid[position >>> 6] |= 1L << position;
+            }
+            int[] values = target.installmentValues;
+            long[][] bitmaps = target.installmentBitmaps;
+            if (loan.numberOfInstallments() != null) {
+                long[] bitmap = target.installmentBitmap(loan.numberOfInstallments());
+                if (bitmap == null) {
+                    values = Arrays.copyOf(values, values.length + 1);
+                    values[values.length - 1] = loan.numberOfInstallments();
+                    bitmap = new long[target.paid.length];
+                    bitmaps = Arrays.copyOf(bitmaps, bitmaps.length + 1);
+                    bitmaps[bitmaps.length - 1] = bitmap;
+                }
+                bitmap[position >>> 6] |= 1L << position;
+            }
+            return new CustomerLoans(size + 1, target.ids, target.amounts, target.installments, target.createDays, target.paid, values, bitmaps);
+        }
+
+        /**
+         * Rebuilds the columns with the loan at the position, for a loan put out of id order.
+         */
+        CustomerLoans insert(int position, LoanResponse loan, boolean loanPaid) {
+            CustomerLoans rebuilt = EMPTY.withCapacity(size + 1);
+            for (int i = 0; i <= size; i++) {
+                if (i == position) {
+                    rebuilt = rebuilt.append(loan, loanPaid);
+                }
+                if (i < size) {
+                    rebuilt = rebuilt.append(response(null, i), isPaid(i));
+                }
+            }
+            return rebuilt;
+        }
+
+        CustomerLoans markPaid(int position) {
+            if (isPaid(position)) {
+                return this;
+            }
+            long[] marked = paid.clone();
+            marked[position >>> 6] |= 1L << position;
+            return new CustomerLoans(size, ids, amounts, installments, createDays, marked, installmentValues, installmentBitmaps);
+        }
+
+        CustomerLoans trim() {
+            return size == capacity() ? this : withCapacity(size);
+        }
+
+        CustomerLoans withCapacity(int capacity) {
+            long[][] bitmaps = new long[installmentBitmaps.length][];
+            for (int i = 0; i < bitmaps.length; i++) {
+                bitmaps[i] = Arrays.copyOf(installmentBitmaps[i], words(capacity));
+            }
+            return new CustomerLoans(size, Arrays.copyOf(ids, capacity), Arrays.copyOf(amounts, capacity), Arrays.copyOf(installments, capacity),
+                    Arrays.copyOf(createDays, capacity), Arrays.copyOf(paid, words(capacity)), installmentValues, bitmaps);
+        }
+
+        long estimatedBytes() {
+            long bytes = (OBJECT_HEADER_BYTES + Integer.BYTES + 7L * REFERENCE_BYTES + 7) & ~7L;
+            bytes += 2 * arrayBytes(ids.length, Long.BYTES) + arrayBytes(installments.length, Short.BYTES)
+                    + arrayBytes(createDays.length, Integer.BYTES) + arrayBytes(paid.length, Long.BYTES)
+                    + arrayBytes(installmentValues.length, Integer.BYTES) + arrayBytes(installmentBitmaps.length, REFERENCE_BYTES);
+            for (long[] bitmap : installmentBitmaps) {
+                bytes += arrayBytes(bitmap.length, Long.BYTES);
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ingbank.credit_manager.util;
+
+import java.util.function.Supplier;
+
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.exception.CustomerCreditLimitExceededException;
+import com.ingbank.credit_manager.exception.InvalidPageRequestException;
+import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
+import com.ingbank.credit_manager.exception.LoanIsAlreadyFullyPaidException;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Domain metrics of the loan operations, published through the actuator {@code metrics} endpoint.
+ * <p>
+ * Every operation is timed by the {@code loan.operations} timer tagged with the operation and its outcome, so latency
+ * objectives can be set per operation on successful calls only. Percentiles and histogram buckets are configured with
+ * the {@code management.metrics.distribution.*} properties, like the built-in request and repository timers.
+ */
+@Component
+@Slf4j
+public class LoanMetrics {
+
+    static final String SUCCESS = "SUCCESS";
+
+    private final MeterRegistry meterRegistry;
+    private final Counter creditLimitRejections;
+    private final Counter installmentsPaid;
+    private final Counter loansFullyPaid;
+
+    @Autowired
+    public LoanMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.creditLimitRejections = Counter.builder(CreditManagerConstants.CREDIT_LIMIT_REJECTIONS_METRIC)
+                .description("Loans rejected as the customer exceeds the credit limit")
+                .register(meterRegistry);
+        this.installmentsPaid = Counter.builder(CreditManagerConstants.INSTALLMENTS_PAID_METRIC)
+                .description("Installments paid by loan payments")
+                .register(meterRegistry);
+        this.loansFullyPaid = Counter.builder(CreditManagerConstants.LOANS_FULLY_PAID_METRIC)
+                .description("Loans fully paid by a payment")
+                .register(meterRegistry);
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    /**
+     * Runs the call and records its duration, tagged with the outcome derived from the exception it throws, if any.
+     */
+    public <T> T record(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = SUCCESS;
+        try {
+            return call.get();
+        } catch (RuntimeException | Error e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(CreditManagerConstants.LOAN_OPERATIONS_METRIC)
+                    .description("Duration of loan operations")
+                    .tag(CreditManagerConstants.OPERATION_TAG, operation)
+                    .tag(CreditManagerConstants.OUTCOME_TAG, outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    public void creditLimitRejected() {
+        creditLimitRejections.increment();
+    }
+
+    public void paymentCompleted(PaymentResult paymentResult) {
+        installmentsPaid.increment(paymentResult.getInstallmentsPaid());
+        if (paymentResult.isLoanFullyPaid()) {
+            loansFullyPaid.increment();
+        }
+    }
+
+    /**
+     * Maps the domain exceptions to a fixed set of outcomes, keeping the tag cardinality bounded.
+     */
+    static String outcome(Throwable e) {
+        return switch (e) {
+            case CustomerCreditLimitExceededException ignored -> "CREDIT_LIMIT_EXCEEDED";
+            case NotFoundException ignored -> "NOT_FOUND";
+            case LoanIsAlreadyFullyPaidException ignored -> "ALREADY_PAID";
+            case LoanInstallmentsMoreThan3MonthsCannotBePaidException ignored -> "OUTSIDE_PAYMENT_WINDOW";
+            case InvalidPageRequestException ignored -> "INVALID_REQUEST";
+            default -> "ERROR";
+        };
+    }
+}
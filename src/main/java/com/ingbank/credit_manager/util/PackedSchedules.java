@@ -0,0 +1,133 @@
+package com.ingbank.credit_manager.util;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.entity.LoanSchedule;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
+
+/**
+ * Converts between a {@link LoanSchedule} and the installments it stands for. Installment {@code i} of the loan is due
+ * on the first due date plus {@code i} months, has the id
+ * {@code PACKED_INSTALLMENT_ID_OFFSET + loanId * PACKED_INSTALLMENT_ID_FACTOR + i} and is paid when bit {@code i} of
+ * the paid mask is set; the paid amount and payment date of every paid installment are packed in index order into
+ * {@code payments}, 12 bytes each. The ids are derived rather than allocated, from a range above any value of
+ * {@code loan_installment_id_seq}, so they are unique among all installments and ascend in due date order like the
+ * ids of installment rows.
+ */
+public final class PackedSchedules {
+
+    /** Installments a schedule can hold, one bit of the paid mask each. */
+    public static final int MAX_INSTALLMENTS = Integer.SIZE;
+
+    private static final int PAYMENT_BYTES = Long.BYTES + Integer.BYTES;
+
+    private PackedSchedules() {
+        // private constructor to prevent init
+    }
+
+    /**
+     * Returns the unpaid schedule of the loan, whose id must already be assigned.
+     */
+    public static LoanSchedule create(Loan loan, BigDecimal installmentAmount, LocalDate firstDueDate) {
+        int numberOfInstallments = loan.getNumberOfInstallments();
+        if (numberOfInstallments < 1 || numberOfInstallments > MAX_INSTALLMENTS) {
+            throw new IllegalArgumentException("A packed schedule holds 1 to " + MAX_INSTALLMENTS + " installments: " + numberOfInstallments);
+        }
+        LoanSchedule schedule = new LoanSchedule();
+        schedule.setLoanId(loan.getId());
+        schedule.setInstallmentAmount(installmentAmount);
+        schedule.setFirstDueDate(firstDueDate);
+        schedule.setNumberOfInstallments(numberOfInstallments);
+        schedule.setPaidMask(0);
+        schedule.setPaidInstallments(0);
+        schedule.setPayments(new byte[0]);
+        schedule.setNextDueDate(firstDueDate);
+        return schedule;
+    }
+
+    /**
+     * Expands the schedule to installments of the loan in due date order. They are not managed: changes are written
+     * back with {@link #apply(LoanSchedule, List)}.
+     */
+    public static List<LoanInstallment> installments(LoanSchedule schedule, Loan loan) {
+        int numberOfInstallments = schedule.getNumberOfInstallments();
+        ByteBuffer payments = ByteBuffer.wrap(schedule.getPayments());
+        List<LoanInstallment> installments = new ArrayList<>(numberOfInstallments);
+        for (int index = 0; index < numberOfInstallments; index++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setId(firstInstallmentId(schedule) + index);
+            installment.setLoan(loan);
+            installment.setAmount(schedule.getInstallmentAmount());
+            installment.setDueDate(schedule.getFirstDueDate().plusMonths(index));
+            if ((schedule.getPaidMask() & (1 << index)) != 0) {
+                installment.setPaidAmount(new Money(payments.getLong()).toBigDecimal());
+                installment.setPaymentDate(LocalDate.ofEpochDay(payments.getInt()));
+                installment.setIsPaid(true);
+            } else {
+                installment.setPaidAmount(Money.ZERO.toBigDecimal());
+            }
+            installments.add(installment);
+        }
+        return installments;
+    }
+
+    public static List<LoanInstallmentResponse> responses(LoanSchedule schedule) {
+        return installments(schedule, null).stream()
+                .map(installment -> new LoanInstallmentResponse(installment.getId(), schedule.getLoanId(), installment.getAmount(),
+                        installment.getPaidAmount(), installment.getDueDate(), installment.getPaymentDate(), installment.getIsPaid(), null, null))
+                .toList();
+    }
+
+    /**
+     * Writes the paid state, paid amount and payment date of the given installments of the schedule back into it.
+     */
+    public static void apply(LoanSchedule schedule, List<LoanInstallment> changed) {
+        List<LoanInstallment> installments = installments(schedule, null);
+        for (LoanInstallment installment : changed) {
+            installments.set(indexOf(schedule, installment.getId()), installment);
+        }
+        int paidMask = 0;
+        int paidInstallments = 0;
+        LocalDate nextDueDate = null;
+        for (int index = 0; index < installments.size(); index++) {
+            LoanInstallment installment = installments.get(index);
+            if (Boolean.TRUE.equals(installment.getIsPaid())) {
+                paidMask |= 1 << index;
+                paidInstallments++;
+            } else if (nextDueDate == null) {
+                nextDueDate = installment.getDueDate();
+            }
+        }
+        ByteBuffer payments = ByteBuffer.allocate(paidInstallments * PAYMENT_BYTES);
+        for (LoanInstallment installment : installments) {
+            if (Boolean.TRUE.equals(installment.getIsPaid())) {
+                payments.putLong(Money.of(installment.getPaidAmount()).minorUnits());
+                payments.putInt(Math.toIntExact(installment.getPaymentDate().toEpochDay()));
+            }
+        }
+        schedule.setPaidMask(paidMask);
+        schedule.setPaidInstallments(paidInstallments);
+        schedule.setPayments(payments.array());
+        schedule.setNextDueDate(nextDueDate);
+    }
+
+    private static long firstInstallmentId(LoanSchedule schedule) {
+        return CreditManagerConstants.PACKED_INSTALLMENT_ID_OFFSET + (long) schedule.getLoanId() * CreditManagerConstants.PACKED_INSTALLMENT_ID_FACTOR;
+    }
+
+    private static int indexOf(LoanSchedule schedule, long installmentId) {
+        long index = installmentId - firstInstallmentId(schedule);
+        if (index < 0 || index >= schedule.getNumberOfInstallments()) {
+            throw new IllegalArgumentException("Installment " + installmentId + " is not part of the schedule of loan " + schedule.getLoanId());
+        }
+        return (int) index;
+    }
+}
@@ -0,0 +1,435 @@
+package com.ingbank.credit_manager.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.ingbank.credit_manager.beans.JournaledPayment;
+import com.ingbank.credit_manager.beans.Money;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of payments in memory-mapped segment files, acknowledged with group commit: {@link #append}
+ * returns once the payment is forced to disk, and a single flusher thread forces everything appended within the
+ * group commit window at once, so many concurrent payments share one {@code force}.
+ * <p>
+ * A segment is named after the sequence of its first payment and holds fixed size records of the sequence, the loan id,
+ * the amount in minor units, the epoch day the payment was accepted and a CRC32C of the four. Opening the journal scans
+ * the segments up to the first record that is zero or fails its checksum, i.e. the end of the journal or a write torn
+ * by a crash, which was never acknowledged; appending continues there. A full segment is forced as a whole before the
+ * next one is created, and segments whose payments are all applied are deleted with {@link #applied(long)}.
+ */
+@Slf4j
+public class PaymentJournal implements Closeable {
+
+    public static final int RECORD_BYTES = 4 * Long.BYTES + Integer.BYTES;
+    private static final int CHECKSUMMED_BYTES = 4 * Long.BYTES;
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final long groupCommitWindowNanos;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition forced = lock.newCondition();
+    private final Thread flusher;
+
+    private Segment current;
+    private long lastSequence;
+    private long flushingUpTo;
+    private int forcedRecords;
+    private CompletableFuture<Long> nextFlush = new CompletableFuture<>();
+    private volatile long durableSequence;
+    private volatile long flushes;
+    private boolean closed;
+    private RuntimeException failure;
+
+    /**
+     * Opens the journal in the directory, creating it when missing. Payments up to {@code appliedSequence} are already
+     * applied; sequences continue after it when the journal holds none after it.
+     */
+    public PaymentJournal(Path directory, long segmentBytes, Duration groupCommitWindow, long appliedSequence) {
+        if (segmentBytes < RECORD_BYTES || segmentBytes > Integer.MAX_VALUE || groupCommitWindow.isNegative()) {
+            throw new IllegalArgumentException("Journal segments must hold at least one record within 2 GB and the group commit window must not be negative: "
+                    + segmentBytes + ", " + groupCommitWindow);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = (int) (segmentBytes / RECORD_BYTES);
+        this.groupCommitWindowNanos = groupCommitWindow.toNanos();
+        try {
+            Files.createDirectories(directory);
+            recover(appliedSequence);
+        } catch (IOException e) {
+            close(segments);
+            throw new UncheckedIOException("Cannot open payment journal in " + directory, e);
+        }
+        this.flusher = Thread.ofPlatform().name("payment-journal-flusher").daemon().start(this::flush);
+    }
+
+    private void recover(long appliedSequence) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        long expected = 0;
+        boolean ended = false;
+        for (Path file : files) {
+            if (ended || expected != 0 && !file.equals(segmentFile(expected))) {
+                // never written by this journal, segments are forced as a whole before the next one is created
+                log.warn("Payment journal segment {} does not follow sequence {}, set aside", file, expected - 1);
+                Files.move(file, file.resolveSibling(file.getFileName() + ".discarded"));
+                continue;
+            }
+            Segment segment = Segment.map(file, recordsPerSegment);
+            segments.put(segment.firstSequence(), segment);
+            int records = segment.scan();
+            expected = segment.firstSequence() + records;
+            ended = records < recordsPerSegment;
+        }
+        lastSequence = Math.max(expected - 1, appliedSequence);
+        if (lastSequence != expected - 1) {
+            // the checkpoint is past the end of the journal, which is all applied then; a new segment keeps the
+            // sequences within a segment without gaps
+            applied(segments, Long.MAX_VALUE);
+        }
+        if (segments.isEmpty() || lastSequence >= segments.lastEntry().getValue().lastSequence(recordsPerSegment)) {
+            segments.put(lastSequence + 1, Segment.create(directory, segmentFile(lastSequence + 1), lastSequence + 1, recordsPerSegment));
+        }
+        current = segments.lastEntry().getValue();
+        forcedRecords = (int) (lastSequence + 1 - current.firstSequence());
+        flushingUpTo = lastSequence;
+        durableSequence = lastSequence;
+        log.info("Payment journal {} opened at sequence {} in {} segments, {} applied", directory, lastSequence, segments.size(), appliedSequence);
+    }
+
+    /**
+     * Appends the payment accepted on the given day and waits for the group commit forcing it to disk.
+     *
+     * @return the sequence of the payment
+     * @throws UncheckedIOException when it cannot be forced, the payment is not acknowledged then
+     */
+    public long append(Long loanId, Money amount, LocalDate acceptedOn) {
+        long sequence;
+        CompletableFuture<Long> flush;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Payment journal " + directory + " is closed");
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Payment journal " + directory + " failed", failure);
+            }
+            if (lastSequence + 1 > current.lastSequence(recordsPerSegment)) {
+                roll();
+            }
+            sequence = ++lastSequence;
+            current.write(sequence, loanId, amount, acceptedOn);
+            flush = nextFlush;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flush.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return sequence;
+    }
+
+    // the waiters of the full segment are acknowledged by the next flush
+    private void roll() {
+        current.force(forcedRecords, recordsPerSegment - forcedRecords);
+        long firstSequence = lastSequence + 1;
+        try {
+            current = Segment.create(directory, segmentFile(firstSequence), firstSequence, recordsPerSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create payment journal segment " + firstSequence, e);
+        }
+        segments.put(firstSequence, current);
+        forcedRecords = 0;
+    }
+
+    private void flush() {
+        while (true) {
+            lock.lock();
+            try {
+                while (flushingUpTo == lastSequence && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (flushingUpTo == lastSequence) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (groupCommitWindowNanos > 0) {
+                // lets the payments arriving meanwhile join this flush
+                sleepNanos(groupCommitWindowNanos);
+            }
+            CompletableFuture<Long> flush;
+            Segment segment;
+            int from;
+            int to;
+            long upTo;
+            lock.lock();
+            try {
+                flush = nextFlush;
+                nextFlush = new CompletableFuture<>();
+                upTo = lastSequence;
+                segment = current;
+                from = forcedRecords;
+                to = (int) (upTo + 1 - segment.firstSequence());
+                forcedRecords = to;
+                flushingUpTo = upTo;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                segment.force(from, to - from);
+                flushes++;
+                durableSequence = upTo;
+                flush.complete(upTo);
+            } catch (RuntimeException e) {
+                // what was written may or may not be on disk, so nothing more is acknowledged
+                log.error("Payment journal {} cannot be forced up to sequence {}, no more payments are accepted", directory, upTo, e);
+                flush.completeExceptionally(e);
+                lock.lock();
+                try {
+                    failure = e;
+                    nextFlush.completeExceptionally(e);
+                    forced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            lock.lock();
+            try {
+                forced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} payments forced to disk after the given sequence, in sequence order.
+     */
+    public List<JournaledPayment> read(long afterSequence, int limit) {
+        long upTo = Math.min(durableSequence, afterSequence + limit);
+        List<JournaledPayment> payments = new ArrayList<>((int) Math.max(0, upTo - afterSequence));
+        for (long sequence = afterSequence + 1; sequence <= upTo; sequence++) {
+            Map.Entry<Long, Segment> segment = segments.floorEntry(sequence);
+            if (segment == null) {
+                throw new IllegalStateException("Payment " + sequence + " is no longer in journal " + directory);
+            }
+            payments.add(segment.getValue().read((int) (sequence - segment.getKey())));
+        }
+        return payments;
+    }
+
+    /**
+     * Waits until a payment after the given sequence is forced to disk, the timeout elapses or the journal is closed.
+     *
+     * @return whether a payment after the sequence is forced to disk
+     */
+    public boolean awaitDurable(long afterSequence, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (durableSequence <= afterSequence && !closed && failure == null && remaining > 0) {
+                remaining = forced.awaitNanos(remaining);
+            }
+            return durableSequence > afterSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments whose payments are all applied, except the one appended to.
+     */
+    public void applied(long appliedSequence) {
+        applied(segments.headMap(current.firstSequence()), appliedSequence);
+    }
+
+    private void applied(Map<Long, Segment> candidates, long appliedSequence) {
+        for (Map.Entry<Long, Segment> entry : candidates.entrySet()) {
+            Segment segment = entry.getValue();
+            if (segment.lastSequence(recordsPerSegment) > appliedSequence) {
+                return;
+            }
+            segments.remove(entry.getKey());
+            segment.close();
+            try {
+                Files.deleteIfExists(segment.file());
+            } catch (IOException e) {
+                log.warn("Applied payment journal segment {} cannot be deleted", segment.file(), e);
+            }
+        }
+    }
+
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Forces to disk performed so far, each covering every payment appended before it started.
+     */
+    public long flushes() {
+        return flushes;
+    }
+
+    /**
+     * Stops accepting payments, forces the ones appended and closes the segment files.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signal();
+            forced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        close(segments);
+        log.info("Payment journal {} closed at sequence {}", directory, durableSequence);
+    }
+
+    private static void close(Map<Long, Segment> segments) {
+        segments.values().forEach(Segment::close);
+    }
+
+    private Path segmentFile(long firstSequence) {
+        return directory.resolve("payments-%020d%s".formatted(firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private record Segment(Path file, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+
+        /**
+         * Creates the segment file and forces its size and its directory entry, so its records can be found after a crash.
+         */
+        static Segment create(Path directory, Path file, long firstSequence, int records) throws IOException {
+            Segment segment = open(file, firstSequence, records);
+            try {
+                segment.channel().force(true);
+                try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                    directoryChannel.force(true);
+                }
+            } catch (IOException e) {
+                segment.close();
+                throw e;
+            }
+            return segment;
+        }
+
+        static Segment map(Path file, int records) throws IOException {
+            String name = file.getFileName().toString();
+            long firstSequence = Long.parseLong(name.substring(name.indexOf('-') + 1, name.length() - SEGMENT_SUFFIX.length()));
+            return open(file, firstSequence, records);
+        }
+
+        private static Segment open(Path file, long firstSequence, int records) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new Segment(file, firstSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * RECORD_BYTES));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        long lastSequence(int records) {
+            return firstSequence + records - 1;
+        }
+
+        /**
+         * Counts the valid records from the start of the segment.
+         */
+        int scan() {
+            int records = buffer.capacity() / RECORD_BYTES;
+            for (int index = 0; index < records; index++) {
+                int offset = index * RECORD_BYTES;
+                if (buffer.getLong(offset) != firstSequence + index || buffer.getInt(offset + CHECKSUMMED_BYTES) != checksum(offset)) {
+                    if (buffer.getLong(offset) != 0) {
+                        log.warn("Torn payment journal record {} in {} discarded", firstSequence + index, file);
+                    }
+                    return index;
+                }
+            }
+            return records;
+        }
+
+        void write(long sequence, Long loanId, Money amount, LocalDate acceptedOn) {
+            int offset = (int) (sequence - firstSequence) * RECORD_BYTES;
+            buffer.putLong(offset, sequence);
+            buffer.putLong(offset + Long.BYTES, loanId);
+            buffer.putLong(offset + 2 * Long.BYTES, amount.minorUnits());
+            buffer.putLong(offset + 3 * Long.BYTES, acceptedOn.toEpochDay());
+            buffer.putInt(offset + CHECKSUMMED_BYTES, checksum(offset));
+        }
+
+        JournaledPayment read(int index) {
+            int offset = index * RECORD_BYTES;
+            return new JournaledPayment(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES), new Money(buffer.getLong(offset + 2 * Long.BYTES)),
+                    LocalDate.ofEpochDay(buffer.getLong(offset + 3 * Long.BYTES)));
+        }
+
+        void force(int fromRecord, int records) {
+            if (records > 0) {
+                buffer.force(fromRecord * RECORD_BYTES, records * RECORD_BYTES);
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Payment journal segment {} cannot be closed", file, e);
+            }
+        }
+
+        private int checksum(int offset) {
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(offset, CHECKSUMMED_BYTES));
+            return (int) crc.getValue();
+        }
+    }
+}
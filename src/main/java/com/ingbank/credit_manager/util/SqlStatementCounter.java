@@ -0,0 +1,93 @@
+package com.ingbank.credit_manager.util;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import com.ingbank.credit_manager.beans.SqlStatementStatistics;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Listener of the proxied data source that accounts every statement, whether issued by Hibernate or by a
+ * {@code JdbcTemplate}, to the {@link Scope} open on the executing thread. Statements on a thread without an open
+ * scope, like Flyway migrations at startup, are not accounted.
+ */
+public class SqlStatementCounter implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final ThreadLocal<SqlStatementStatistics> CURRENT = new ThreadLocal<>();
+    private static final String START_NANOS = "startNanos";
+
+    /**
+     * Starts accounting the statements of the current thread until the returned scope is closed. Scopes nest, the
+     * statements of an inner scope are added to the outer one when it closes.
+     */
+    public static Scope open() {
+        Scope scope = new Scope(new SqlStatementStatistics(), CURRENT.get());
+        CURRENT.set(scope.statistics());
+        return scope;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+        if (CURRENT.get() != null) {
+            executionInfo.addCustomValue(START_NANOS, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+        SqlStatementStatistics statistics = CURRENT.get();
+        Long startNanos = executionInfo.getCustomValue(START_NANOS, Long.class);
+        if (statistics == null || startNanos == null) {
+            return;
+        }
+        statistics.statementExecuted(queryInfoList.getFirst().getQuery(), rowsWritten(executionInfo.getResult()), System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        // rows are counted once the call returned
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        SqlStatementStatistics statistics = CURRENT.get();
+        if (statistics != null && executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName()) && Boolean.TRUE.equals(executionContext.getResult())) {
+            statistics.rowRead();
+        }
+    }
+
+    private static long rowsWritten(Object result) {
+        return switch (result) {
+            case Integer updateCount -> Math.max(updateCount, 0);
+            case Long updateCount -> Math.max(updateCount, 0);
+            case int[] batchCounts -> sumOfPositive(batchCounts);
+            case null, default -> 0;
+        };
+    }
+
+    private static long sumOfPositive(int[] counts) {
+        long sum = 0;
+        for (int count : counts) {
+            sum += Math.max(count, 0);
+        }
+        return sum;
+    }
+
+    public record Scope(SqlStatementStatistics statistics, SqlStatementStatistics outer) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                outer.add(statistics);
+                CURRENT.set(outer);
+            }
+        }
+    }
+}
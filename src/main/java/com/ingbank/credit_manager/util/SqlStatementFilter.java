@@ -0,0 +1,75 @@
+package com.ingbank.credit_manager.util;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.ingbank.credit_manager.beans.SqlStatementStatistics;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Accounts the SQL statements of every request, authentication included, and records them per endpoint in the
+ * {@code sql.request.*} metrics. Statements executed {@code repeatedStatementThreshold} times or more within one
+ * request are logged as a likely N+1.
+ */
+@Slf4j
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatedStatementThreshold;
+
+    public SqlStatementFilter(MeterRegistry meterRegistry, int repeatedStatementThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+        log.trace("{} initialized", this.getClass().getName());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                record(request, scope.statistics());
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementStatistics statistics) {
+        // the mapped pattern, not the path, to keep one series per endpoint
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        Tags tags = Tags.of(CreditManagerConstants.METHOD_TAG, request.getMethod(), CreditManagerConstants.URI_TAG, uri);
+
+        DistributionSummary.builder(CreditManagerConstants.SQL_STATEMENTS_METRIC).description("SQL statements per request")
+                .baseUnit("statements").tags(tags).register(meterRegistry).record(statistics.getStatements());
+        DistributionSummary.builder(CreditManagerConstants.SQL_ROWS_METRIC).description("Rows read or written by the SQL statements of a request")
+                .baseUnit("rows").tags(tags).register(meterRegistry).record(statistics.getRows());
+        Timer.builder(CreditManagerConstants.SQL_TIME_METRIC).description("Time spent executing the SQL statements of a request")
+                .tags(tags).register(meterRegistry).record(statistics.getElapsedNanos(), TimeUnit.NANOSECONDS);
+        log.debug("{} {} executed {} SQL statements, {} rows in {} ms", request.getMethod(), uri, statistics.getStatements(),
+                statistics.getRows(), TimeUnit.NANOSECONDS.toMillis(statistics.getElapsedNanos()));
+
+        Map<String, Integer> repeatedStatements = statistics.repeatedStatements(repeatedStatementThreshold);
+        if (!repeatedStatements.isEmpty()) {
+            Counter.builder(CreditManagerConstants.SQL_REPEATED_STATEMENTS_METRIC).description("Requests repeating a SQL statement, a likely N+1")
+                    .tags(tags).register(meterRegistry).increment();
+            repeatedStatements.forEach((sql, executions) ->
+                    log.warn("Possible N+1 on {} {}: statement executed {} times: {}", request.getMethod(), uri, executions, sql));
+        }
+    }
+}
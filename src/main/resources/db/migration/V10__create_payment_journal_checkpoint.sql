@@ -0,0 +1,7 @@
+-- sequence of the last journaled payment applied, written in the transaction applying it; the journal is replayed
+-- after it on startup
+CREATE TABLE payment_journal_checkpoint (
+    id               INTEGER NOT NULL,
+    applied_sequence BIGINT  NOT NULL,
+    CONSTRAINT pk_payment_journal_checkpoint PRIMARY KEY (id)
+);
@@ -0,0 +1,11 @@
+-- journaled payments that failed on their own with an error other than the loan checks; the checkpoint moved past
+-- them in the same transaction, so they are applied by hand from here
+CREATE TABLE payment_journal_dead_letter (
+    journal_sequence BIGINT         NOT NULL,
+    loan_id          BIGINT         NOT NULL,
+    amount           NUMERIC(20, 2) NOT NULL,
+    accepted_on      DATE           NOT NULL,
+    error            VARCHAR(1000)  NOT NULL,
+    failed_at        TIMESTAMP      DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT pk_payment_journal_dead_letter PRIMARY KEY (journal_sequence)
+);
@@ -0,0 +1,11 @@
+-- journaled payments refused by the loan checks when applied, after they were acknowledged; written in the
+-- transaction of their checkpoint, so each acknowledged payment is applied, refused here or dead-lettered
+CREATE TABLE payment_journal_refusal (
+    journal_sequence BIGINT         NOT NULL,
+    loan_id          BIGINT         NOT NULL,
+    amount           NUMERIC(20, 2) NOT NULL,
+    accepted_on      DATE           NOT NULL,
+    reason           VARCHAR(1000)  NOT NULL,
+    refused_at       TIMESTAMP      DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT pk_payment_journal_refusal PRIMARY KEY (journal_sequence)
+);
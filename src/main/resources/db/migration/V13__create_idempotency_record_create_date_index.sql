@@ -0,0 +1,2 @@
+-- the periodic purge deletes the records older than the retention
+CREATE INDEX idx_idempotency_record_create_date ON idempotency_record (create_date);
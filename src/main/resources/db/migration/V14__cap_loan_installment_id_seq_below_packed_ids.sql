@@ -0,0 +1,7 @@
+-- installment ids of packed schedules start at CreditManagerConstants.PACKED_INSTALLMENT_ID_OFFSET (2^52); the sequence
+-- stops an allocation block below it so installment rows never take one of them
+ALTER SEQUENCE loan_installment_id_seq MAXVALUE 4503599627370446;
+
+-- ledger entries of packed installments paid before the offset carry the old ids
+UPDATE loan_ledger SET installment_id = installment_id + 4503599627370496
+ WHERE installment_id IS NOT NULL AND loan_id IN (SELECT loan_id FROM loan_schedule);
@@ -0,0 +1,54 @@
+CREATE SEQUENCE customer_id_seq START WITH 1 INCREMENT BY 1;
+-- loan and loan_installment ids are handed out in blocks of CreditManagerConstants.ID_ALLOCATION_SIZE
+CREATE SEQUENCE loan_id_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE loan_installment_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE customer (
+    id                BIGINT DEFAULT NEXT VALUE FOR customer_id_seq NOT NULL,
+    name              VARCHAR(255),
+    surname           VARCHAR(255),
+    credit_limit      NUMERIC(20, 2),
+    used_credit_limit NUMERIC(20, 2),
+    CONSTRAINT pk_customer PRIMARY KEY (id)
+);
+
+CREATE TABLE app_user (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    username    VARCHAR(255) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    customer_id BIGINT,
+    CONSTRAINT pk_app_user PRIMARY KEY (id),
+    CONSTRAINT uk_app_user_username UNIQUE (username),
+    CONSTRAINT uk_app_user_customer_id UNIQUE (customer_id),
+    CONSTRAINT fk_app_user_customer FOREIGN KEY (customer_id) REFERENCES customer (id)
+);
+
+CREATE TABLE app_user_roles (
+    user_id BIGINT       NOT NULL,
+    role    VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_app_user_roles PRIMARY KEY (user_id, role),
+    CONSTRAINT fk_app_user_roles_user FOREIGN KEY (user_id) REFERENCES app_user (id)
+);
+
+CREATE TABLE loan (
+    id                     BIGINT DEFAULT NEXT VALUE FOR loan_id_seq NOT NULL,
+    customer_id            BIGINT NOT NULL,
+    loan_amount            NUMERIC(20, 2),
+    number_of_installments INTEGER,
+    create_date            DATE,
+    is_paid                BOOLEAN,
+    CONSTRAINT pk_loan PRIMARY KEY (id),
+    CONSTRAINT fk_loan_customer FOREIGN KEY (customer_id) REFERENCES customer (id)
+);
+
+CREATE TABLE loan_installment (
+    id           BIGINT DEFAULT NEXT VALUE FOR loan_installment_id_seq NOT NULL,
+    loan_id      BIGINT NOT NULL,
+    amount       NUMERIC(20, 2),
+    paid_amount  NUMERIC(20, 2),
+    due_date     DATE,
+    payment_date DATE,
+    is_paid      BOOLEAN,
+    CONSTRAINT pk_loan_installment PRIMARY KEY (id),
+    CONSTRAINT fk_loan_installment_loan FOREIGN KEY (loan_id) REFERENCES loan (id)
+);
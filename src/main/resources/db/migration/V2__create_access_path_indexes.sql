@@ -0,0 +1,5 @@
+-- LoanRepository.findByCustomerId and findLoans(customerId, numberOfInstallments, isPaid)
+CREATE INDEX idx_loan_customer_installments_paid ON loan (customer_id, number_of_installments, is_paid);
+
+-- LoanInstallmentRepository lookups by loan, unpaid flag and the due date window of payLoan
+CREATE INDEX idx_loan_installment_loan_paid_due ON loan_installment (loan_id, is_paid, due_date);
@@ -0,0 +1,5 @@
+-- keyset pages and streams of LoanRepository.findLoansAfter/streamLoans, read in id order per customer
+CREATE INDEX idx_loan_customer_id ON loan (customer_id, id);
+
+-- keyset pages and streams of the installments of a loan, read in id order
+CREATE INDEX idx_loan_installment_loan_id ON loan_installment (loan_id, id);
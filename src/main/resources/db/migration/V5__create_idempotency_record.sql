@@ -0,0 +1,10 @@
+-- responses of POST requests sent with an Idempotency-Key header, replayed to retries of the same request
+CREATE TABLE idempotency_record (
+    username            VARCHAR(255) NOT NULL,
+    idempotency_key     VARCHAR(255) NOT NULL,
+    request_fingerprint VARCHAR(255) NOT NULL,
+    status_code         INTEGER      NOT NULL,
+    response_body       CLOB,
+    create_date         TIMESTAMP    NOT NULL,
+    CONSTRAINT pk_idempotency_record PRIMARY KEY (username, idempotency_key)
+);
@@ -0,0 +1,23 @@
+-- per customer totals kept up to date by createLoan and payLoan, so the summary endpoint reads a single row
+CREATE TABLE customer_summary (
+    customer_id        BIGINT         NOT NULL,
+    outstanding_amount NUMERIC(20, 2) NOT NULL,
+    open_loan_count    INTEGER        NOT NULL,
+    next_due_date      DATE,
+    next_due_amount    NUMERIC(20, 2),
+    CONSTRAINT pk_customer_summary PRIMARY KEY (customer_id),
+    CONSTRAINT fk_customer_summary_customer FOREIGN KEY (customer_id) REFERENCES customer (id)
+);
+
+-- same aggregation as CustomerSummaryRepository.rebuild
+INSERT INTO customer_summary (customer_id, outstanding_amount, open_loan_count, next_due_date, next_due_amount)
+SELECT c.id,
+       COALESCE((SELECT SUM(i.amount) FROM loan l JOIN loan_installment i ON i.loan_id = l.id
+                  WHERE l.customer_id = c.id AND i.is_paid = FALSE), 0),
+       (SELECT COUNT(*) FROM loan l WHERE l.customer_id = c.id AND l.is_paid = FALSE),
+       n.due_date,
+       (SELECT SUM(i.amount) FROM loan l JOIN loan_installment i ON i.loan_id = l.id
+         WHERE l.customer_id = c.id AND i.is_paid = FALSE AND i.due_date = n.due_date)
+  FROM customer c
+  LEFT JOIN (SELECT l.customer_id, MIN(i.due_date) AS due_date FROM loan l JOIN loan_installment i ON i.loan_id = l.id
+              WHERE i.is_paid = FALSE GROUP BY l.customer_id) n ON n.customer_id = c.id;
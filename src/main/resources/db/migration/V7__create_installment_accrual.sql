@@ -0,0 +1,13 @@
+-- time based amount of the unpaid installments as of accrual_date, written by the daily accrual job
+ALTER TABLE loan_installment ADD COLUMN accrued_amount NUMERIC(20, 2);
+ALTER TABLE loan_installment ADD COLUMN accrual_date DATE;
+
+-- progress of the accrual of one business date per installment id range, so an interrupted run resumes after last_id
+CREATE TABLE accrual_checkpoint (
+    business_date DATE    NOT NULL,
+    range_start   BIGINT  NOT NULL,
+    range_end     BIGINT  NOT NULL,
+    last_id       BIGINT  NOT NULL,
+    completed     BOOLEAN NOT NULL,
+    CONSTRAINT pk_accrual_checkpoint PRIMARY KEY (business_date, range_start)
+);
@@ -0,0 +1,29 @@
+-- loans created with credit-manager.schedule.packed keep their installments in one loan_schedule row instead of
+-- loan_installment rows
+ALTER TABLE loan ADD COLUMN packed_schedule BOOLEAN DEFAULT FALSE NOT NULL;
+
+-- installment i is due on first_due_date plus i months and paid when bit i of paid_mask is set; payments holds the
+-- paid amount (8 bytes, minor units) and payment date (4 bytes, epoch day) of each paid installment in index order
+CREATE TABLE loan_schedule (
+    loan_id                BIGINT         NOT NULL,
+    installment_amount     NUMERIC(20, 2) NOT NULL,
+    first_due_date         DATE           NOT NULL,
+    number_of_installments INTEGER        NOT NULL,
+    paid_mask              INTEGER        NOT NULL,
+    paid_installments      INTEGER        NOT NULL,
+    payments               VARBINARY(384) NOT NULL,
+    next_due_date          DATE,
+    CONSTRAINT pk_loan_schedule PRIMARY KEY (loan_id),
+    CONSTRAINT fk_loan_schedule_loan FOREIGN KEY (loan_id) REFERENCES loan (id)
+);
+
+-- every unpaid installment stored as a row and the next one of every packed schedule, which is all the customer
+-- summary needs to find the earliest due date of a customer and the amount due on it
+CREATE VIEW unpaid_installment_due AS
+SELECT l.customer_id, i.due_date, i.amount
+  FROM loan l JOIN loan_installment i ON i.loan_id = l.id
+ WHERE i.is_paid = FALSE
+UNION ALL
+SELECT l.customer_id, s.next_due_date, s.installment_amount
+  FROM loan l JOIN loan_schedule s ON s.loan_id = l.id
+ WHERE s.next_due_date IS NOT NULL;
@@ -0,0 +1,44 @@
+-- append-only history of every loan: its origination, each installment paid and the loan paid in full, in the order
+-- they were written; nothing is ever updated or deleted
+CREATE TABLE loan_ledger (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    loan_id        BIGINT         NOT NULL,
+    entry_type     VARCHAR(16)    NOT NULL,
+    installment_id BIGINT,
+    amount         NUMERIC(20, 2) NOT NULL,
+    paid_amount    NUMERIC(20, 2),
+    installments   INTEGER,
+    entry_date     DATE           NOT NULL,
+    recorded_at    TIMESTAMP      DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT pk_loan_ledger PRIMARY KEY (id),
+    CONSTRAINT fk_loan_ledger_loan FOREIGN KEY (loan_id) REFERENCES loan (id)
+);
+
+-- the tail of a loan is replayed after its snapshot
+CREATE INDEX idx_loan_ledger_loan_id ON loan_ledger (loan_id, id);
+
+-- balance of a loan folded from its ledger entries up to last_entry_id by the periodic compaction
+CREATE TABLE loan_balance_snapshot (
+    loan_id                BIGINT         NOT NULL,
+    last_entry_id          BIGINT         NOT NULL,
+    loan_amount            NUMERIC(20, 2) NOT NULL,
+    number_of_installments INTEGER        NOT NULL,
+    paid_installments      INTEGER        NOT NULL,
+    outstanding_amount     NUMERIC(20, 2) NOT NULL,
+    paid_amount            NUMERIC(20, 2) NOT NULL,
+    is_paid                BOOLEAN        NOT NULL,
+    CONSTRAINT pk_loan_balance_snapshot PRIMARY KEY (loan_id),
+    CONSTRAINT fk_loan_balance_snapshot_loan FOREIGN KEY (loan_id) REFERENCES loan (id)
+);
+
+-- history of the loans written before, from their installment rows; packed schedules are not expanded here
+INSERT INTO loan_ledger (loan_id, entry_type, amount, installments, entry_date)
+SELECT id, 'ORIGINATED', loan_amount, number_of_installments, create_date FROM loan ORDER BY id;
+
+INSERT INTO loan_ledger (loan_id, entry_type, installment_id, amount, paid_amount, entry_date)
+SELECT loan_id, 'INSTALLMENT_PAID', id, amount, paid_amount, COALESCE(payment_date, due_date)
+  FROM loan_installment WHERE is_paid = TRUE ORDER BY loan_id, due_date, id;
+
+INSERT INTO loan_ledger (loan_id, entry_type, amount, entry_date)
+SELECT l.id, 'LOAN_PAID', 0, COALESCE((SELECT MAX(i.payment_date) FROM loan_installment i WHERE i.loan_id = l.id), l.create_date)
+  FROM loan l WHERE l.is_paid = TRUE ORDER BY l.id;
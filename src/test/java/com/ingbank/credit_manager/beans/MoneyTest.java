@@ -0,0 +1,111 @@
+package com.ingbank.credit_manager.beans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Property checks of {@link Money} against the {@link BigDecimal} arithmetic it replaces. Inputs come from a seeded
+ * {@link Random} so a failing case can be replayed from the assertion message.
+ */
+class MoneyTest {
+
+    private static final long SEED = 20250101L;
+    private static final int CASES = 10_000;
+    private static final long MAX_MINOR_UNITS = 1_000_000_000_000L;
+
+    private final Random random = new Random(SEED);
+
+    @Test
+    void testOfRoundsHalfUpLikeSetScale() {
+        for (int i = 0; i < CASES; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(-MAX_MINOR_UNITS * 10_000, MAX_MINOR_UNITS * 10_000), random.nextInt(7));
+            assertEquals(amount.setScale(2, RoundingMode.HALF_UP), Money.of(amount).toBigDecimal(), () -> "seed " + SEED + ", amount " + amount);
+        }
+    }
+
+    @Test
+    void testAddAndSubtractMatchBigDecimal() {
+        for (int i = 0; i < CASES; i++) {
+            Money left = randomMoney();
+            Money right = randomMoney();
+            assertEquals(left.toBigDecimal().add(right.toBigDecimal()), left.add(right).toBigDecimal(), () -> "seed " + SEED + ", " + left + " + " + right);
+            assertEquals(left.toBigDecimal().subtract(right.toBigDecimal()), left.subtract(right).toBigDecimal(), () -> "seed " + SEED + ", " + left + " - " + right);
+            assertEquals(Integer.signum(left.toBigDecimal().compareTo(right.toBigDecimal())), Integer.signum(left.compareTo(right)));
+        }
+    }
+
+    @Test
+    void testDivideMatchesBigDecimalHalfUp() {
+        for (int i = 0; i < CASES; i++) {
+            Money amount = randomMoney();
+            long divisor = random.nextBoolean() ? random.nextLong(1, 37) : -random.nextLong(1, 37);
+            BigDecimal expected = amount.toBigDecimal().divide(BigDecimal.valueOf(divisor), RoundingMode.HALF_UP);
+            assertEquals(expected, amount.divide(divisor).toBigDecimal(), () -> "seed " + SEED + ", " + amount + " / " + divisor);
+        }
+    }
+
+    @Test
+    void testMultiplyByDecimalFactorMatchesBigDecimalHalfUp() {
+        for (int i = 0; i < CASES; i++) {
+            Money amount = randomMoney();
+            BigDecimal factor = BigDecimal.valueOf(random.nextLong(-100_000, 100_000), random.nextInt(-1, 6));
+            BigDecimal expected = amount.toBigDecimal().multiply(factor).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, amount.multiply(factor).toBigDecimal(), () -> "seed " + SEED + ", " + amount + " * " + factor);
+        }
+    }
+
+    @Test
+    void testMultiplyByFractionMatchesBigDecimalHalfUp() {
+        for (int i = 0; i < CASES; i++) {
+            Money amount = randomMoney();
+            long numerator = random.nextLong(-5_000, 5_000);
+            long denominator = random.nextBoolean() ? 1_000 : random.nextLong(1, 10_000);
+            BigDecimal expected = amount.toBigDecimal().multiply(BigDecimal.valueOf(numerator))
+                    .divide(BigDecimal.valueOf(denominator), 2, RoundingMode.HALF_UP);
+            assertEquals(expected, amount.multiply(numerator, denominator).toBigDecimal(),
+                    () -> "seed " + SEED + ", " + amount + " * " + numerator + " / " + denominator);
+        }
+    }
+
+    @Test
+    void testTiesRoundAwayFromZero() {
+        assertEquals(new BigDecimal("0.01"), Money.of(new BigDecimal("0.005")).toBigDecimal());
+        assertEquals(new BigDecimal("-0.01"), Money.of(new BigDecimal("-0.005")).toBigDecimal());
+        assertEquals(new BigDecimal("0.01"), new Money(1).divide(2).toBigDecimal());
+        assertEquals(new BigDecimal("-0.01"), new Money(-1).divide(2).toBigDecimal());
+        assertEquals(new BigDecimal("-0.01"), new Money(1).divide(-2).toBigDecimal());
+        assertEquals(new BigDecimal("0.00"), new Money(1).divide(3).toBigDecimal());
+    }
+
+    @Test
+    void testOverflowThrows() {
+        Money max = new Money(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.add(new Money(1)));
+        assertThrows(ArithmeticException.class, () -> max.multiply(3, 2));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E+20")));
+    }
+
+    @Test
+    void testLargestRequestAmountFitsLoanArithmetic() {
+        BigDecimal largest = BigDecimal.ONE.movePointRight(CreditManagerConstants.AMOUNT_INTEGER_DIGITS).subtract(new BigDecimal("0.01"));
+        // a loan at the highest interest rate, its installment paid fifty years late
+        Money total = Money.of(largest).multiply(new BigDecimal("1.50"));
+        Money installment = total.divide(6);
+        Money late = installment.multiply(1_000 + 50 * 365, 1_000);
+
+        assertEquals(largest.multiply(new BigDecimal("1.50")).setScale(2, RoundingMode.HALF_UP), total.toBigDecimal());
+        assertEquals(installment.toBigDecimal().multiply(new BigDecimal("19.25")).setScale(2, RoundingMode.HALF_UP), late.toBigDecimal());
+        assertThrows(ArithmeticException.class, () -> Money.of(largest.movePointRight(4)).multiply(new BigDecimal("1.50")));
+    }
+
+    private Money randomMoney() {
+        return new Money(random.nextLong(-MAX_MINOR_UNITS, MAX_MINOR_UNITS));
+    }
+}
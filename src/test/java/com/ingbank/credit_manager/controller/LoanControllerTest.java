@@ -3,19 +3,26 @@ package com.ingbank.credit_manager.controller;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 
+import com.ingbank.credit_manager.beans.KeysetPage;
 import com.ingbank.credit_manager.beans.PaymentResult;
-import com.ingbank.credit_manager.entity.Customer;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Loan;
 import com.ingbank.credit_manager.exception.CustomerCreditLimitExceededException;
 import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
@@ -24,8 +31,17 @@ import com.ingbank.credit_manager.exception.NotFoundException;
 import com.ingbank.credit_manager.request.CreateLoanRequest;
 import com.ingbank.credit_manager.request.PayLoanRequest;
 import com.ingbank.credit_manager.response.CreateLoanResponse;
+import com.ingbank.credit_manager.response.CustomerSummaryResponse;
+import com.ingbank.credit_manager.response.LoanBalanceResponse;
+import com.ingbank.credit_manager.response.LoanResponse;
 import com.ingbank.credit_manager.response.PayLoanResponse;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import com.ingbank.credit_manager.service.IdempotencyService;
+import com.ingbank.credit_manager.service.LoanBulkService;
+import com.ingbank.credit_manager.service.LoanLedgerService;
 import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.service.LoanStreamService;
+import com.ingbank.credit_manager.service.PaymentJournalService;
 import com.ingbank.credit_manager.util.AuthorizationComponent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -40,9 +56,27 @@ class LoanControllerTest {
     @Mock
     private LoanService loanService;
 
+    @Mock
+    private LoanBulkService loanBulkService;
+
+    @Mock
+    private LoanStreamService loanStreamService;
+
     @Mock
     AuthorizationComponent authorizationComponent;
 
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private CustomerSummaryService customerSummaryService;
+
+    @Mock
+    private LoanLedgerService loanLedgerService;
+
+    @Mock
+    private PaymentJournalService paymentJournalService;
+
     @InjectMocks
     private LoanController subject;
 
@@ -62,7 +96,7 @@ class LoanControllerTest {
         mockLoan.setId(1L);
 
         when(loanService.createLoan(any(CreateLoanRequest.class))).thenReturn(mockLoan);
-        ResponseEntity<CreateLoanResponse> response = subject.createLoan(createLoanRequest);
+        ResponseEntity<CreateLoanResponse> response = subject.createLoan(createLoanRequest, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -74,7 +108,7 @@ class LoanControllerTest {
         when(loanService.createLoan(any(CreateLoanRequest.class)))
                 .thenThrow(new CustomerCreditLimitExceededException("Credit limit exceeded"));
 
-        ResponseEntity<CreateLoanResponse> response = subject.createLoan(createLoanRequest);
+        ResponseEntity<CreateLoanResponse> response = subject.createLoan(createLoanRequest, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody().getErrorMessage().contains("Credit limit exceeded"));
@@ -82,15 +116,39 @@ class LoanControllerTest {
 
     @Test
     void testListLoans() {
-        Loan mockLoan = new Loan();
-        mockLoan.setId(1L);
+        LoanResponse mockLoan = loanResponse(1L);
 
         when(loanService.listLoans(anyLong(), anyInt(), anyBoolean())).thenReturn(List.of(mockLoan));
 
-        ResponseEntity<List<Loan>> response = subject.listLoans(1L, 10, true);
+        ResponseEntity<List<LoanResponse>> response = subject.listLoans(1L, 10, true, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertFalse(Objects.requireNonNull(response.getBody()).isEmpty());
+        assertNull(response.getHeaders().getFirst(CreditManagerConstants.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testListLoansPageReturnsNextCursorHeader() {
+        LoanResponse mockLoan = loanResponse(1L);
+
+        when(loanService.listLoans(1L, null, null, "cursor", 1)).thenReturn(new KeysetPage<>(List.of(mockLoan), "next"));
+
+        ResponseEntity<List<LoanResponse>> response = subject.listLoans(1L, null, null, 1, "cursor");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(mockLoan), response.getBody());
+        assertEquals("next", response.getHeaders().getFirst(CreditManagerConstants.NEXT_CURSOR_HEADER));
+        verify(loanService, never()).listLoans(anyLong(), any(), any());
+    }
+
+    @Test
+    void testListLoansLastPageHasNoNextCursorHeader() {
+        when(loanService.listLoans(1L, null, false, null, CreditManagerConstants.DEFAULT_PAGE_SIZE)).thenReturn(new KeysetPage<>(List.of(), null));
+
+        ResponseEntity<List<LoanResponse>> response = subject.listLoans(1L, null, false, CreditManagerConstants.DEFAULT_PAGE_SIZE, null);
+
+        assertTrue(Objects.requireNonNull(response.getBody()).isEmpty());
+        assertFalse(response.getHeaders().containsKey(CreditManagerConstants.NEXT_CURSOR_HEADER));
     }
 
     @Test
@@ -98,25 +156,51 @@ class LoanControllerTest {
         PaymentResult paymentResult = PaymentResult.builder().loanFullyPaid(true).build();
 
         when(loanService.payLoan(any(PayLoanRequest.class))).thenReturn(paymentResult);
-        Loan loan = new Loan();
-        loan.setId(1L);
-        loan.setCustomer(new Customer());
-        when(loanService.findById(1L)).thenReturn(loan);
-        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest);
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(1L);
+        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(Objects.requireNonNull(response.getBody()).getPaymentResult().isLoanFullyPaid());
     }
 
+    @Test
+    void testPayLoanWithPaymentJournal() {
+        when(paymentJournalService.isEnabled()).thenReturn(true);
+        when(paymentJournalService.accept(payLoanRequest)).thenReturn(42L);
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(1L);
+        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest, null);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(42L, Objects.requireNonNull(response.getBody()).getJournalSequence());
+        assertNull(response.getBody().getPaymentResult());
+        verify(authorizationComponent).checkAccess(1L);
+        verify(loanService, never()).payLoan(any());
+    }
+
+    @Test
+    void testCreateLoanAndPayLoanWithIdempotencyKey() {
+        ResponseEntity<CreateLoanResponse> storedCreateLoanResponse = ResponseEntity.ok(CreateLoanResponse.builder().loan(new Loan()).build());
+        ResponseEntity<PayLoanResponse> storedPayLoanResponse = ResponseEntity.ok(PayLoanResponse.builder().paymentResult(PaymentResult.builder().build()).build());
+        when(idempotencyService.execute(eq("key-1"), eq(CreditManagerConstants.CREATE_LOAN_OPERATION), eq(createLoanRequest), eq(CreateLoanResponse.class), any()))
+                .thenReturn(storedCreateLoanResponse);
+        when(idempotencyService.execute(eq("key-2"), eq(CreditManagerConstants.PAY_LOAN_OPERATION), eq(payLoanRequest), eq(PayLoanResponse.class), any()))
+                .thenReturn(storedPayLoanResponse);
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(1L);
+
+        assertEquals(storedCreateLoanResponse, subject.createLoan(createLoanRequest, "key-1"));
+        assertEquals(storedPayLoanResponse, subject.payLoan(payLoanRequest, "key-2"));
+
+        verify(authorizationComponent, times(2)).checkAccess(1L);
+        verify(loanService, never()).createLoan(any());
+        verify(loanService, never()).payLoan(any());
+    }
+
     @Test
     void testPayLoanWhenLoanISAlreadyFullyPaid() {
         when(loanService.payLoan(any(PayLoanRequest.class)))
                 .thenThrow(new LoanIsAlreadyFullyPaidException("Loan is already fully paid"));
-        Loan loan = new Loan();
-        loan.setId(1L);
-        loan.setCustomer(new Customer());
-        when(loanService.findById(1L)).thenReturn(loan);
-        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest);
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(1L);
+        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(Objects.requireNonNull(response.getBody()).getErrorMessage().contains("Loan is already fully paid"));
@@ -126,11 +210,8 @@ class LoanControllerTest {
     void testPayLoanInstallmentsMoreThan3Months() {
         when(loanService.payLoan(any(PayLoanRequest.class)))
                 .thenThrow(new LoanInstallmentsMoreThan3MonthsCannotBePaidException("Installments cannot be paid"));
-        Loan loan = new Loan();
-        loan.setId(1L);
-        loan.setCustomer(new Customer());
-        when(loanService.findById(1L)).thenReturn(loan);
-        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest);
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(1L);
+        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(Objects.requireNonNull(response.getBody()).getErrorMessage().contains("Installments cannot be paid"));
@@ -140,13 +221,40 @@ class LoanControllerTest {
     void testPayLoanWhenLoanNotFound() {
         when(loanService.payLoan(any(PayLoanRequest.class)))
                 .thenThrow(new NotFoundException("Loan not found"));
-        Loan loan = new Loan();
-        loan.setId(1L);
-        loan.setCustomer(new Customer());
-        when(loanService.findById(1L)).thenReturn(loan);
-        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest);
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(1L);
+        ResponseEntity<PayLoanResponse> response = subject.payLoan(payLoanRequest, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(Objects.requireNonNull(response.getBody()).getErrorMessage().contains("Loan not found"));
     }
+
+    @Test
+    void testGetSummary() {
+        CustomerSummaryResponse summary = new CustomerSummaryResponse(1L, new BigDecimal("10000.00"), new BigDecimal("1200.00"),
+                new BigDecimal("1200.00"), 1, LocalDate.of(2025, 2, 1), new BigDecimal("100.00"));
+        when(customerSummaryService.findByCustomerId(1L)).thenReturn(summary);
+
+        ResponseEntity<CustomerSummaryResponse> response = subject.getSummary(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(summary, response.getBody());
+        verify(authorizationComponent).checkAccess(1L);
+    }
+
+    @Test
+    void testGetBalance() {
+        LoanBalanceResponse balance = new LoanBalanceResponse(5L, new BigDecimal("1200.00"), 12, 2, new BigDecimal("1000.00"), new BigDecimal("198.00"), false);
+        when(loanService.findCustomerIdByLoanId(5L)).thenReturn(1L);
+        when(loanLedgerService.findBalance(5L)).thenReturn(balance);
+
+        ResponseEntity<LoanBalanceResponse> response = subject.getBalance(5L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(balance, response.getBody());
+        verify(authorizationComponent).checkAccess(1L);
+    }
+
+    private static LoanResponse loanResponse(Long id) {
+        return new LoanResponse(id, 1L, new BigDecimal("1200.00"), 12, LocalDate.of(2025, 1, 1), false);
+    }
 }
@@ -2,21 +2,25 @@ package com.ingbank.credit_manager.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 
-import com.ingbank.credit_manager.entity.Customer;
-import com.ingbank.credit_manager.entity.Loan;
-import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.beans.KeysetPage;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
 import com.ingbank.credit_manager.service.LoanInstallmentService;
 import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.service.LoanStreamService;
 import com.ingbank.credit_manager.util.AuthorizationComponent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,38 +37,34 @@ class LoanInstallmentControllerTest {
     @Mock
     private LoanService loanService;
 
+    @Mock
+    private LoanStreamService loanStreamService;
+
     @Mock
     AuthorizationComponent authorizationComponent;
 
     @InjectMocks
     private LoanInstallmentController loanInstallmentController;
 
-    private LoanInstallment loanInstallment1;
-    private LoanInstallment loanInstallment2;
+    private LoanInstallmentResponse loanInstallment1;
+    private LoanInstallmentResponse loanInstallment2;
 
     @BeforeEach
     public void setUp() {
-        loanInstallment1 = new LoanInstallment();
-        loanInstallment1.setId(1L);
-        loanInstallment1.setAmount(new BigDecimal("1000.0"));
-
-        loanInstallment2 = new LoanInstallment();
-        loanInstallment2.setId(2L);
-        loanInstallment2.setAmount(new BigDecimal("2000.0"));
+        loanInstallment1 = new LoanInstallmentResponse(1L, 1L, new BigDecimal("1000.0"), BigDecimal.ZERO, LocalDate.of(2025, 1, 1), null, false, null, null);
+        loanInstallment2 = new LoanInstallmentResponse(2L, 1L, new BigDecimal("2000.0"), BigDecimal.ZERO, LocalDate.of(2025, 2, 1), null, false, null, null);
         MockitoAnnotations.initMocks(this);
     }
 
     @Test
     void testListInstallmentsByLoanId() {
-        List<LoanInstallment> mockInstallments = Arrays.asList(loanInstallment1, loanInstallment2);
+        List<LoanInstallmentResponse> mockInstallments = Arrays.asList(loanInstallment1, loanInstallment2);
         when(loanInstallmentService.listInstallmentsByLoanId(1L)).thenReturn(mockInstallments);
-        Loan loan = new Loan();
-        loan.setId(1L);
-        loan.setCustomer(new Customer());
-        when(loanService.findById(1L)).thenReturn(loan);
-        ResponseEntity<List<LoanInstallment>> response = loanInstallmentController.listInstallmentsByLoanId(1L);
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(2L);
+        ResponseEntity<List<LoanInstallmentResponse>> response = loanInstallmentController.listInstallmentsByLoanId(1L, null, null);
 
         assertNotNull(response.getBody());
+        assertNull(response.getHeaders().getFirst(CreditManagerConstants.NEXT_CURSOR_HEADER));
         assertEquals(2, response.getBody().size());
         assertEquals(loanInstallment1, response.getBody().get(0));
         assertEquals(loanInstallment2, response.getBody().get(1));
@@ -76,16 +76,26 @@ class LoanInstallmentControllerTest {
     void testListInstallmentsByLoanIdWhenNoInstallmentsFound() {
         when(loanInstallmentService.listInstallmentsByLoanId(1L)).thenReturn(List.of());
 
-        Loan loan = new Loan();
-        loan.setId(1L);
-        loan.setCustomer(new Customer());
-        when(loanService.findById(1L)).thenReturn(loan);
-        ResponseEntity<List<LoanInstallment>> response = loanInstallmentController.listInstallmentsByLoanId(1L);
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(2L);
+        ResponseEntity<List<LoanInstallmentResponse>> response = loanInstallmentController.listInstallmentsByLoanId(1L, null, null);
 
         assertNotNull(response.getBody());
         assertTrue(response.getBody().isEmpty());
 
         verify(loanInstallmentService, times(1)).listInstallmentsByLoanId(1L);
     }
+
+    @Test
+    void testListInstallmentsByLoanIdPageUsesDefaultPageSizeWithCursor() {
+        when(loanInstallmentService.listInstallmentsByLoanId(1L, "cursor", CreditManagerConstants.DEFAULT_PAGE_SIZE))
+                .thenReturn(new KeysetPage<>(List.of(loanInstallment1), "next"));
+
+        when(loanService.findCustomerIdByLoanId(1L)).thenReturn(2L);
+        ResponseEntity<List<LoanInstallmentResponse>> response = loanInstallmentController.listInstallmentsByLoanId(1L, null, "cursor");
+
+        assertEquals(List.of(loanInstallment1), response.getBody());
+        assertEquals("next", response.getHeaders().getFirst(CreditManagerConstants.NEXT_CURSOR_HEADER));
+        verify(loanInstallmentService, never()).listInstallmentsByLoanId(1L);
+    }
 }
 
@@ -0,0 +1,155 @@
+package com.ingbank.credit_manager.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import com.ingbank.credit_manager.beans.SqlStatementStatistics;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.util.MaxSqlStatements;
+import com.ingbank.credit_manager.util.SqlStatementCounter;
+import com.ingbank.credit_manager.util.TestTables;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+/**
+ * SQL statement budget of each loan endpoint, so an extra lookup or an N+1 on the request path fails here.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class SqlStatementBudgetTest {
+
+    private static final long CUSTOMER_ID = 9501L;
+    private static final long LOAN_ID = 9501L;
+    private static final int INSTALLMENTS = 6;
+    private static final RequestPostProcessor ADMIN = user("admin").roles("ADMIN");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Statement', 'Budget', 100000, 1200)", CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, ?, 1200, ?, CURRENT_DATE, FALSE)",
+                LOAN_ID, CUSTOMER_ID, INSTALLMENTS);
+        jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                " SELECT ? + x, ?, 200, 0, DATEADD(MONTH, x, CAST(? AS DATE)), NULL, FALSE FROM SYSTEM_RANGE(1, ?)",
+                LOAN_ID * 100, LOAN_ID, LocalDate.now().withDayOfMonth(1), INSTALLMENTS);
+        jdbcTemplate.update("INSERT INTO customer_summary (customer_id, outstanding_amount, open_loan_count, next_due_date, next_due_amount) VALUES (?, 1200, 1, ?, 200)",
+                CUSTOMER_ID, LocalDate.now().withDayOfMonth(1).plusMonths(1));
+        jdbcTemplate.update("INSERT INTO loan_ledger (loan_id, entry_type, amount, installments, entry_date) VALUES (?, 'ORIGINATED', 1200, ?, CURRENT_DATE)",
+                LOAN_ID, INSTALLMENTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @MaxSqlStatements(1)
+    void testListLoans() throws Exception {
+        mockMvc.perform(get("/api/v1/loans/{customerId}", CUSTOMER_ID).with(ADMIN)).andExpect(status().isOk());
+    }
+
+    @Test
+    // owner of the loan for the access check, installments
+    @MaxSqlStatements(2)
+    void testListInstallments() throws Exception {
+        mockMvc.perform(get("/api/v1/loans/installments/{loanId}", LOAN_ID).with(ADMIN)).andExpect(status().isOk());
+    }
+
+    @Test
+    // owner, loan, payable installments, installments after the window, batched installment update, customer summary,
+    // batched ledger insert
+    @MaxSqlStatements(7)
+    void testPayLoan() throws Exception {
+        mockMvc.perform(post("/api/v1/loans/pay").with(ADMIN).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"loanId\":" + LOAN_ID + ",\"amount\":400.00}")).andExpect(status().isOk());
+    }
+
+    @Test
+    // credit limit reservation, customer, id sequences, loan insert, batched installment insert, customer summary, ledger insert
+    @MaxSqlStatements(9)
+    void testCreateLoan() throws Exception {
+        mockMvc.perform(post("/api/v1/loans").with(ADMIN).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerId\":" + CUSTOMER_ID + ",\"amount\":1200,\"interestRate\":0.2,\"installments\":12}")).andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(1)
+    void testGetSummary() throws Exception {
+        mockMvc.perform(get("/api/v1/loans/{customerId}/summary", CUSTOMER_ID).with(ADMIN)).andExpect(status().isOk());
+    }
+
+    @Test
+    // owner of the loan for the access check, balance snapshot, ledger entries after it
+    @MaxSqlStatements(3)
+    void testGetBalance() throws Exception {
+        mockMvc.perform(get("/api/v1/loans/balance/{loanId}", LOAN_ID).with(ADMIN)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testBasicAuthenticationReadsTheUserOnce() throws Exception {
+        cacheManager.getCache(CreditManagerConstants.USER_DETAILS_CACHE).clear();
+        // query results included, the user lookup would come from the query cache otherwise
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        SqlStatementStatistics first = listLoansWithBasicAuthentication();
+        SqlStatementStatistics second = listLoansWithBasicAuthentication();
+
+        // user and roles on the first request only, then the listing
+        assertEquals(3, first.getStatements(), first::describe);
+        assertEquals(1, second.getStatements(), second::describe);
+    }
+
+    @Test
+    void testStatementsAreRecordedPerEndpoint() throws Exception {
+        mockMvc.perform(get("/api/v1/loans/installments/{loanId}", LOAN_ID).with(ADMIN)).andExpect(status().isOk());
+
+        assertTrue(meterRegistry.get(CreditManagerConstants.SQL_STATEMENTS_METRIC)
+                .tag(CreditManagerConstants.URI_TAG, "/api/v1/loans/installments/{loanId}").summary().totalAmount() > 0);
+        assertTrue(meterRegistry.get(CreditManagerConstants.SQL_ROWS_METRIC)
+                .tag(CreditManagerConstants.URI_TAG, "/api/v1/loans/installments/{loanId}").summary().totalAmount() >= INSTALLMENTS);
+    }
+
+    private SqlStatementStatistics listLoansWithBasicAuthentication() throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            mockMvc.perform(get("/api/v1/loans/{customerId}", CUSTOMER_ID).with(httpBasic("admin", "admin"))).andExpect(status().isOk());
+            return scope.statistics();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ingbank.credit_manager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ingbank.credit_manager.config.CacheConfig;
+import com.ingbank.credit_manager.entity.Customer;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
+import com.ingbank.credit_manager.util.KeysetCursor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "spring.jpa.show-sql=false"})
+@Import(CacheConfig.class)
+class LoanInstallmentRepositoryTest {
+
+    private static final LocalDate FIRST_DUE_DATE = LocalDate.of(2025, 1, 1);
+    private static final LocalDate PAYMENT_WINDOW_END = LocalDate.of(2025, 4, 15);
+    private static final int NUMBER_OF_INSTALLMENTS = 12;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long loanId;
+
+    @BeforeEach
+    void setUp() {
+        Loan loan = new Loan();
+        loan.setCustomer(entityManager.find(Customer.class, 1L));
+        loan.setLoanAmount(BigDecimal.valueOf(1200));
+        loan.setNumberOfInstallments(NUMBER_OF_INSTALLMENTS);
+        loanId = entityManager.persistAndGetId(loan, Long.class);
+
+        // 12 monthly installments from 2025-01-01, the first one already paid
+        for (int i = 0; i < NUMBER_OF_INSTALLMENTS; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setLoan(loan);
+            installment.setAmount(BigDecimal.valueOf(100));
+            installment.setDueDate(FIRST_DUE_DATE.plusMonths(i));
+            installment.setIsPaid(i == 0);
+            entityManager.persist(installment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testFindPayableInstallmentsLoadsOnlyRowsInsideWindow() {
+        List<LoanInstallment> result = loanInstallmentRepository.findByLoanIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(loanId, PAYMENT_WINDOW_END);
+
+        assertEquals(List.of(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1)),
+                result.stream().map(LoanInstallment::getDueDate).toList());
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertEquals(3, statistics.getEntityStatistics(LoanInstallment.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void testFindPayableInstallmentsWhenWindowIsEmpty() {
+        List<LoanInstallment> result = loanInstallmentRepository.findByLoanIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(loanId, FIRST_DUE_DATE.plusDays(1));
+
+        assertTrue(result.isEmpty());
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertEquals(0, statistics.getEntityStatistics(LoanInstallment.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void testKeysetPagesWalkScheduleInDueDateOrder() {
+        int pageSize = 5;
+        List<LocalDate> dueDates = new ArrayList<>();
+        long afterId = KeysetCursor.FIRST;
+        List<LoanInstallmentResponse> page;
+        do {
+            page = loanInstallmentRepository.findResponsesByLoanIdAfter(loanId, afterId, Limit.of(pageSize));
+            page.forEach(installment -> dueDates.add(installment.dueDate()));
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == pageSize);
+
+        assertEquals(FIRST_DUE_DATE.datesUntil(FIRST_DUE_DATE.plusMonths(NUMBER_OF_INSTALLMENTS), Period.ofMonths(1)).toList(), dueDates);
+        assertEquals(3, statistics.getQueryExecutionCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testFindResponsesCarryLoanIdWithoutLoadingEntities() {
+        List<LoanInstallmentResponse> result = loanInstallmentRepository.findResponsesByLoanId(loanId);
+
+        assertEquals(NUMBER_OF_INSTALLMENTS, result.size());
+        assertTrue(result.stream().allMatch(installment -> loanId.equals(installment.loanId())));
+        assertTrue(result.get(0).isPaid());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testExistsUnpaidInstallmentsFromDoesNotLoadEntities() {
+        assertTrue(loanInstallmentRepository.existsByLoanIdAndIsPaidFalseAndDueDateGreaterThanEqual(loanId, PAYMENT_WINDOW_END));
+        assertFalse(loanInstallmentRepository.existsByLoanIdAndIsPaidFalseAndDueDateGreaterThanEqual(loanId, FIRST_DUE_DATE.plusMonths(NUMBER_OF_INSTALLMENTS)));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
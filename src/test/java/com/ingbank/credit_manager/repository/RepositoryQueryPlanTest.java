@@ -0,0 +1,194 @@
+package com.ingbank.credit_manager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.ingbank.credit_manager.config.CacheConfig;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
+import com.ingbank.credit_manager.response.LoanResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Runs every repository query against a seeded dataset, then asks H2 for the plan of each captured statement
+ * and fails if any of them reads a table without an index.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({CacheConfig.class, RepositoryQueryPlanTest.StatementRecorderConfig.class})
+class RepositoryQueryPlanTest {
+
+    private static final int SEEDED_CUSTOMERS = 500;
+    private static final int LOANS_PER_CUSTOMER = 4;
+    private static final int INSTALLMENTS_PER_LOAN = 12;
+    private static final long FIRST_SEEDED_ID = 1000;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RecordingStatementInspector statementInspector;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit)" +
+                " SELECT ? + x, 'Name' || x, 'Surname' || x, 100000, 0 FROM SYSTEM_RANGE(1, ?)", FIRST_SEEDED_ID, SEEDED_CUSTOMERS);
+        jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid)" +
+                " SELECT ? + x, ? + 1 + MOD(x, ?), 1200, 6 * (1 + MOD(x, 4)), CURRENT_DATE, MOD(x, 5) = 0 FROM SYSTEM_RANGE(1, ?)",
+                FIRST_SEEDED_ID, FIRST_SEEDED_ID, SEEDED_CUSTOMERS, SEEDED_CUSTOMERS * LOANS_PER_CUSTOMER);
+        jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                " SELECT ? + x, ? + 1 + MOD(x, ?), 100, 0, DATEADD(MONTH, MOD(x, ?), DATE '2025-01-01'), NULL, MOD(x, 3) = 0" +
+                " FROM SYSTEM_RANGE(1, ?)",
+                FIRST_SEEDED_ID, FIRST_SEEDED_ID, SEEDED_CUSTOMERS * LOANS_PER_CUSTOMER, INSTALLMENTS_PER_LOAN,
+                SEEDED_CUSTOMERS * LOANS_PER_CUSTOMER * INSTALLMENTS_PER_LOAN);
+        entityManager.clear();
+        statementInspector.clear();
+    }
+
+    @Test
+    void testRepositoryQueriesUseIndexes() throws SQLException {
+        long customerId = FIRST_SEEDED_ID + 7;
+        long loanId = FIRST_SEEDED_ID + 42;
+        LocalDate dueDate = LocalDate.of(2025, 4, 15);
+
+        loanRepository.findByCustomerId(customerId);
+        loanRepository.findLoans(customerId, null, null);
+        loanRepository.findLoans(customerId, 12, false);
+        loanRepository.findLoansAfter(customerId, null, null, loanId, Limit.of(10));
+        loanRepository.findLoansAfter(customerId, 12, false, loanId, Limit.of(10));
+        try (Stream<LoanResponse> loans = loanRepository.streamLoans(customerId, null, null)) {
+            loans.forEach(loan -> { });
+        }
+        loanRepository.findCustomerIdById(loanId);
+        loanRepository.findById(loanId);
+        loanInstallmentRepository.findByLoanId(loanId);
+        loanInstallmentRepository.findByLoanIdAndIsPaid(loanId, false);
+        loanInstallmentRepository.findResponsesByLoanId(loanId);
+        loanInstallmentRepository.findResponsesByLoanIdAfter(loanId, FIRST_SEEDED_ID, Limit.of(10));
+        try (Stream<LoanInstallmentResponse> installments = loanInstallmentRepository.streamResponsesByLoanId(loanId)) {
+            installments.forEach(installment -> { });
+        }
+        loanInstallmentRepository.findByLoanIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(loanId, dueDate);
+        loanInstallmentRepository.existsByLoanIdAndIsPaidFalseAndDueDateGreaterThanEqual(loanId, dueDate);
+        customerRepository.findById(customerId);
+        customerRepository.reserveCreditLimit(customerId, BigDecimal.ONE);
+        userRepository.findByUsername("customer");
+        userRepository.findCustomerIdByUsername("customer");
+
+        Set<String> statements = statementInspector.statements();
+        assertFalse(statements.isEmpty());
+
+        List<String> tableScans = new ArrayList<>();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            if (plan.contains(".tableScan")) {
+                tableScans.add(plan);
+            }
+        }
+        assertTrue(tableScans.isEmpty(), () -> "Repository queries running as full table scans:\n" + String.join("\n\n", tableScans));
+    }
+
+    private String explain(String sql) throws SQLException {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                bindSampleParameters(statement);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    StringBuilder plan = new StringBuilder();
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1));
+                    }
+                    return plan.toString();
+                }
+            }
+        });
+    }
+
+    // H2 picks the access path when the statement is prepared, so any value of the right type gives the same plan
+    private static void bindSampleParameters(PreparedStatement statement) throws SQLException {
+        int parameterCount = statement.getParameterMetaData().getParameterCount();
+        for (int i = 1; i <= parameterCount; i++) {
+            switch (statement.getParameterMetaData().getParameterType(i)) {
+                case Types.BIGINT, Types.INTEGER, Types.NUMERIC, Types.DECIMAL -> statement.setLong(i, 1);
+                case Types.BOOLEAN -> statement.setBoolean(i, false);
+                case Types.DATE -> statement.setObject(i, LocalDate.now());
+                case Types.VARCHAR -> statement.setString(i, "customer");
+                default -> statement.setNull(i, Types.NULL);
+            }
+        }
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        private final Set<String> statements = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public String inspect(String sql) {
+            String normalized = sql.toLowerCase(Locale.ROOT);
+            if (normalized.contains(" where ") && !normalized.startsWith("insert")) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        Set<String> statements() {
+            return statements;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class StatementRecorderConfig {
+
+        @Bean
+        RecordingStatementInspector recordingStatementInspector() {
+            return new RecordingStatementInspector();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspectorCustomizer(RecordingStatementInspector recordingStatementInspector) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, recordingStatementInspector);
+        }
+    }
+}
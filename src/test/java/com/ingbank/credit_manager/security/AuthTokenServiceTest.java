@@ -0,0 +1,64 @@
+package com.ingbank.credit_manager.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+class AuthTokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+    private final AuthTokenService subject = new AuthTokenService(SECRET, Duration.ofMinutes(15), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void testIssueAndVerify() {
+        AuthTokenService.AuthToken authToken = subject.issue(new TestingAuthenticationToken("customer", null, "ROLE_CUSTOMER"));
+
+        Optional<Authentication> authentication = subject.verify(authToken.token());
+
+        assertEquals(NOW.plus(Duration.ofMinutes(15)), authToken.expiresAt());
+        assertTrue(authentication.isPresent());
+        assertTrue(authentication.get().isAuthenticated());
+        assertEquals("customer", authentication.get().getName());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_CUSTOMER"), authentication.get().getAuthorities());
+    }
+
+    @Test
+    void testVerifyWhenExpired() {
+        String token = subject.issue(new TestingAuthenticationToken("customer", null, "ROLE_CUSTOMER")).token();
+        AuthTokenService later = new AuthTokenService(SECRET, Duration.ofMinutes(15), Clock.fixed(NOW.plus(Duration.ofMinutes(15)), ZoneOffset.UTC));
+
+        assertFalse(later.verify(token).isPresent());
+    }
+
+    @Test
+    void testVerifyWhenTampered() {
+        String token = subject.issue(new TestingAuthenticationToken("customer", null, "ROLE_CUSTOMER")).token();
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString((NOW.getEpochSecond() + 900 + "|ROLE_ADMIN|customer").getBytes());
+
+        assertFalse(subject.verify(forgedPayload + token.substring(token.indexOf('.'))).isPresent());
+        assertFalse(subject.verify("not-a-token").isPresent());
+        assertFalse(subject.verify("%%%.%%%").isPresent());
+    }
+
+    @Test
+    void testVerifyWhenSignedWithOtherKey() {
+        AuthTokenService other = new AuthTokenService("", Duration.ofMinutes(15), Clock.fixed(NOW, ZoneOffset.UTC));
+        String token = other.issue(new TestingAuthenticationToken("admin", null, "ROLE_ADMIN")).token();
+
+        assertFalse(subject.verify(token).isPresent());
+    }
+}
@@ -0,0 +1,109 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ingbank.credit_manager.repository.CustomerRepository;
+import com.ingbank.credit_manager.util.TestTables;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hammers a single customer with concurrent reservations, with and without lock striping,
+ * and checks the credit limit is never over-allocated.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+class CreditLimitContentionTest {
+
+    private static final long CUSTOMER_ID = 9001L;
+    private static final BigDecimal CREDIT_LIMIT = new BigDecimal("10000.00");
+    private static final BigDecimal RESERVATION = new BigDecimal("7.00");
+    private static final int THREADS = 16;
+    private static final int RESERVATIONS_PER_THREAD = 200;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Hot', 'Account', ?, 0)",
+                CUSTOMER_ID, CREDIT_LIMIT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @ParameterizedTest(name = "lockStripes={0}")
+    @ValueSource(ints = {0, 64})
+    void testConcurrentReservationsNeverExceedLimit(int lockStripes) throws Exception {
+        CreditLimitServiceImpl subject = new CreditLimitServiceImpl(customerRepository, entityManagerFactory, lockStripes, 500);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                    boolean success = Boolean.TRUE.equals(transactionTemplate.execute(status -> subject.reserve(CUSTOMER_ID, RESERVATION)));
+                    (success ? reserved : rejected).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+
+        BigDecimal used = jdbcTemplate.queryForObject("SELECT used_credit_limit FROM customer WHERE id = ?", BigDecimal.class, CUSTOMER_ID);
+        int attempts = THREADS * RESERVATIONS_PER_THREAD;
+        log.info("lockStripes={} threads={} attempts={} reserved={} rejected={} throughput={} reservations/s",
+                lockStripes, THREADS, attempts, reserved.get(), rejected.get(), attempts * 1_000_000_000L / elapsedNanos);
+
+        assertEquals(attempts, reserved.get() + rejected.get());
+        assertEquals(0, RESERVATION.multiply(BigDecimal.valueOf(reserved.get())).compareTo(used));
+        assertTrue(used.compareTo(CREDIT_LIMIT) <= 0);
+        // the limit allows 1428 reservations and there are 3200 attempts, so it must be exhausted exactly
+        assertEquals(CREDIT_LIMIT.divideToIntegralValue(RESERVATION).intValue(), reserved.get());
+    }
+}
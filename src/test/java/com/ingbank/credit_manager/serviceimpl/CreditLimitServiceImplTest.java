@@ -0,0 +1,74 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import com.ingbank.credit_manager.entity.Customer;
+import com.ingbank.credit_manager.repository.CustomerRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class CreditLimitServiceImplTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+    }
+
+    @Test
+    void testReserve() {
+        CreditLimitServiceImpl subject = new CreditLimitServiceImpl(customerRepository, entityManagerFactory, 0, 500);
+        when(customerRepository.reserveCreditLimit(1L, BigDecimal.TEN)).thenReturn(1);
+
+        assertTrue(subject.reserve(1L, BigDecimal.TEN));
+        verify(customerRepository, times(1)).reserveCreditLimit(1L, BigDecimal.TEN);
+        verify(cache, times(1)).evict(Customer.class, 1L);
+    }
+
+    @Test
+    void testReserveWhenLimitExceeded() {
+        CreditLimitServiceImpl subject = new CreditLimitServiceImpl(customerRepository, entityManagerFactory, 0, 500);
+        when(customerRepository.reserveCreditLimit(1L, BigDecimal.TEN)).thenReturn(0);
+
+        assertFalse(subject.reserve(1L, BigDecimal.TEN));
+        verify(cache, never()).evict(Customer.class, 1L);
+    }
+
+    @Test
+    void testReserveReleasesStripeWithoutTransaction() {
+        CreditLimitServiceImpl subject = new CreditLimitServiceImpl(customerRepository, entityManagerFactory, 4, 500);
+        when(customerRepository.reserveCreditLimit(1L, BigDecimal.TEN)).thenReturn(1);
+
+        assertTrue(subject.reserve(1L, BigDecimal.TEN));
+        // another thread can take the same stripe right away
+        assertTrue(CompletableFuture.supplyAsync(() -> subject.reserve(1L, BigDecimal.TEN)).join());
+        verify(customerRepository, times(2)).reserveCreditLimit(1L, BigDecimal.TEN);
+    }
+
+    @Test
+    void testNegativeLockStripes() {
+        assertThrows(IllegalArgumentException.class, () -> new CreditLimitServiceImpl(customerRepository, entityManagerFactory, -1, 500));
+    }
+}
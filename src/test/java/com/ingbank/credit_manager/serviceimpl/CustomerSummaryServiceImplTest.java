@@ -0,0 +1,145 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.CustomerSummaryResponse;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.TestTables;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The maintained customer summary against the same figures aggregated from the loan tables, after every step of a
+ * seeded sequence of loan creations and payments through both payment paths.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+class CustomerSummaryServiceImplTest {
+
+    private static final long SEED = 20250301L;
+    private static final int STEPS = 60;
+    private static final long CUSTOMER_ID = 9701L;
+    private static final long LOAN_ID = 9701L;
+    private static final int[] INSTALLMENTS = {6, 9, 12, 24};
+
+    private final Random random = new Random(SEED);
+
+    @Autowired
+    private CustomerSummaryService subject;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanPaymentService loanPaymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        // no summary row, as for a customer written outside the application
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Customer', 'Summary', 100000000, 600)", CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, ?, 600, 3, CURRENT_DATE, FALSE)",
+                LOAN_ID, CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                " SELECT ? + x, ?, 200, 0, DATEADD(MONTH, x, CAST(? AS DATE)), NULL, FALSE FROM SYSTEM_RANGE(1, 3)",
+                LOAN_ID * 100, LOAN_ID, LocalDate.now().withDayOfMonth(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testMissingSummaryIsComputedFromTheLoans() {
+        CustomerSummaryResponse summary = subject.findByCustomerId(CUSTOMER_ID);
+
+        assertEquals(0, new BigDecimal("600").compareTo(summary.outstandingAmount()));
+        assertEquals(1, summary.openLoanCount());
+        assertEquals(LocalDate.now().withDayOfMonth(1).plusMonths(1), summary.nextDueDate());
+        assertEquals(0, new BigDecimal("200").compareTo(summary.nextDueAmount()));
+        assertEquals(0, new BigDecimal("600").compareTo(summary.usedCreditLimit()));
+    }
+
+    @Test
+    void testSummaryFollowsLoansAndPayments() {
+        for (int step = 0; step < STEPS; step++) {
+            String context = "seed " + SEED + ", step " + step;
+            if (random.nextInt(3) == 0) {
+                loanService.createLoan(CreateLoanRequest.builder().customerId(CUSTOMER_ID)
+                        .amount(BigDecimal.valueOf(random.nextLong(100, 1_000_000), 2))
+                        .interestRate(BigDecimal.valueOf(random.nextInt(1, 6), 1))
+                        .installments(INSTALLMENTS[random.nextInt(INSTALLMENTS.length)]).build());
+            } else {
+                List<Long> openLoans = jdbcTemplate.queryForList("SELECT id FROM loan WHERE customer_id = ? AND is_paid = FALSE ORDER BY id", Long.class, CUSTOMER_ID);
+                if (openLoans.isEmpty()) {
+                    continue;
+                }
+                PayLoanRequest request = PayLoanRequest.builder().loanId(openLoans.get(random.nextInt(openLoans.size())))
+                        .amount(BigDecimal.valueOf(random.nextLong(100, 2_000_000), 2)).build();
+                context += ", payment " + request.getAmount() + " of loan " + request.getLoanId();
+                try {
+                    if (random.nextBoolean()) {
+                        loanService.payLoan(request);
+                    } else {
+                        loanPaymentService.payLoan(request);
+                    }
+                } catch (LoanInstallmentsMoreThan3MonthsCannotBePaidException e) {
+                    // a rejected payment must leave the summary as it was
+                    context += ", rejected";
+                }
+            }
+            assertEquals(aggregated(), maintained(), context);
+        }
+    }
+
+    @Test
+    void testFindByCustomerIdWhenCustomerNotFound() {
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> subject.findByCustomerId(CUSTOMER_ID + 1));
+
+        assertEquals("Customer not found with requested customerId: " + (CUSTOMER_ID + 1), exception.getMessage());
+    }
+
+    private List<Object> maintained() {
+        CustomerSummaryResponse summary = subject.findByCustomerId(CUSTOMER_ID);
+        return Arrays.asList(summary.outstandingAmount().stripTrailingZeros(), summary.openLoanCount(), summary.nextDueDate(),
+                summary.nextDueAmount() == null ? null : summary.nextDueAmount().stripTrailingZeros());
+    }
+
+    private List<Object> aggregated() {
+        BigDecimal outstanding = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(i.amount), 0) FROM loan l JOIN loan_installment i ON i.loan_id = l.id" +
+                " WHERE l.customer_id = ? AND i.is_paid = FALSE", BigDecimal.class, CUSTOMER_ID);
+        Integer openLoans = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan WHERE customer_id = ? AND is_paid = FALSE", Integer.class, CUSTOMER_ID);
+        LocalDate nextDueDate = jdbcTemplate.queryForObject("SELECT MIN(i.due_date) FROM loan l JOIN loan_installment i ON i.loan_id = l.id" +
+                " WHERE l.customer_id = ? AND i.is_paid = FALSE", LocalDate.class, CUSTOMER_ID);
+        BigDecimal nextDueAmount = nextDueDate == null ? null : jdbcTemplate.queryForObject("SELECT SUM(i.amount) FROM loan l JOIN loan_installment i ON i.loan_id = l.id" +
+                " WHERE l.customer_id = ? AND i.is_paid = FALSE AND i.due_date = ?", BigDecimal.class, CUSTOMER_ID, nextDueDate);
+        return Arrays.asList(outstanding.stripTrailingZeros(), openLoans, nextDueDate,
+                nextDueAmount == null ? null : nextDueAmount.stripTrailingZeros());
+    }
+}
@@ -0,0 +1,264 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.controller.LoanController;
+import com.ingbank.credit_manager.exception.IdempotencyKeyReusedException;
+import com.ingbank.credit_manager.exception.InvalidIdempotencyKeyException;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.CreateLoanResponse;
+import com.ingbank.credit_manager.response.PayLoanResponse;
+import com.ingbank.credit_manager.service.IdempotencyService;
+import com.ingbank.credit_manager.util.TestTables;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+class IdempotencyServiceImplTest {
+
+    private static final long CUSTOMER_ID = 9301L;
+    private static final PayLoanRequest REQUEST = PayLoanRequest.builder().loanId(1L).amount(new BigDecimal("100.00")).build();
+
+    @Autowired
+    private IdempotencyService subject;
+
+    @Autowired
+    private LoanController loanController;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        authenticate("admin");
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Idempotent', 'Retry', 100000, 0)", CUSTOMER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        cacheManager.getCache(CreditManagerConstants.IDEMPOTENT_RESPONSES_CACHE).clear();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testRetryReplaysStoredResponseWithoutExecuting() {
+        ResponseEntity<PayLoanResponse> first = execute("retry-1", REQUEST, this::pay);
+        ResponseEntity<PayLoanResponse> retry = execute("retry-1", REQUEST, this::pay);
+
+        assertEquals(1, executions.get());
+        assertNull(first.getHeaders().getFirst(CreditManagerConstants.IDEMPOTENT_REPLAYED_HEADER));
+        assertEquals("true", retry.getHeaders().getFirst(CreditManagerConstants.IDEMPOTENT_REPLAYED_HEADER));
+        assertEquals(first.getStatusCode(), retry.getStatusCode());
+        assertEquals(first.getBody(), retry.getBody());
+    }
+
+    @Test
+    void testRetryReplaysFromTableWhenNotCached() {
+        ResponseEntity<PayLoanResponse> first = execute("retry-2", REQUEST, this::pay);
+        cacheManager.getCache(CreditManagerConstants.IDEMPOTENT_RESPONSES_CACHE).clear();
+
+        ResponseEntity<PayLoanResponse> retry = execute("retry-2", REQUEST, this::pay);
+
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), retry.getBody());
+    }
+
+    @Test
+    void testClientErrorIsStoredAndServerErrorIsNot() {
+        Supplier<ResponseEntity<PayLoanResponse>> rejected = () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(PayLoanResponse.builder().errorMessage("Loan is already fully paid").build());
+        };
+        execute("client-error", REQUEST, rejected);
+        ResponseEntity<PayLoanResponse> retry = execute("client-error", REQUEST, rejected);
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.BAD_REQUEST, retry.getStatusCode());
+        assertEquals("Loan is already fully paid", retry.getBody().getErrorMessage());
+
+        Supplier<ResponseEntity<PayLoanResponse>> failed = () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.internalServerError().build();
+        };
+        execute("server-error", REQUEST, failed);
+        execute("server-error", REQUEST, failed);
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        execute("reused", REQUEST, this::pay);
+        PayLoanRequest otherRequest = PayLoanRequest.builder().loanId(1L).amount(new BigDecimal("200.00")).build();
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> execute("reused", otherRequest, this::pay));
+        assertThrows(IdempotencyKeyReusedException.class, () -> subject.execute("reused", CreditManagerConstants.CREATE_LOAN_OPERATION, REQUEST, PayLoanResponse.class, this::pay));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testKeysAreScopedToTheUser() {
+        execute("shared", REQUEST, this::pay);
+        authenticate("user");
+        ResponseEntity<PayLoanResponse> otherUser = execute("shared", REQUEST, this::pay);
+
+        assertEquals(2, executions.get());
+        assertNull(otherUser.getHeaders().getFirst(CreditManagerConstants.IDEMPOTENT_REPLAYED_HEADER));
+    }
+
+    @Test
+    void testInvalidKeyIsRejected() {
+        assertThrows(InvalidIdempotencyKeyException.class, () -> execute(" ", REQUEST, this::pay));
+        assertThrows(InvalidIdempotencyKeyException.class, () -> execute("k".repeat(CreditManagerConstants.IDEMPOTENCY_KEY_MAX_LENGTH + 1), REQUEST, this::pay));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void testConcurrentDuplicatesExecuteOnce() throws Exception {
+        int duplicates = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        Supplier<ResponseEntity<PayLoanResponse>> slow = () -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return pay();
+        };
+        List<Future<ResponseEntity<PayLoanResponse>>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(duplicates)) {
+            for (int i = 0; i < duplicates; i++) {
+                responses.add(executor.submit(() -> {
+                    authenticate("admin");
+                    start.await();
+                    return execute("concurrent", REQUEST, slow);
+                }));
+            }
+            start.countDown();
+            for (Future<ResponseEntity<PayLoanResponse>> response : responses) {
+                assertEquals(responses.get(0).get().getBody(), response.get().getBody());
+            }
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void testDuplicateClaimedByAnotherInstanceIsReplayedWithoutExecuting() throws Exception {
+        ResponseEntity<PayLoanResponse> committedElsewhere = execute("other-instance", REQUEST, this::pay);
+        TransactionTemplate otherInstance = new TransactionTemplate(transactionManager);
+        CountDownLatch claimed = new CountDownLatch(1);
+
+        ResponseEntity<PayLoanResponse> response;
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            // the same key claimed by a concurrent execution, still running when this one starts and committed after
+            Future<?> concurrentExecution = executor.submit(() -> otherInstance.executeWithoutResult(status -> {
+                jdbcTemplate.update("INSERT INTO idempotency_record" +
+                        " SELECT username, 'this-instance', request_fingerprint, status_code, response_body, create_date FROM idempotency_record" +
+                        " WHERE idempotency_key = 'other-instance'");
+                claimed.countDown();
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            claimed.await();
+            response = execute("this-instance", REQUEST, this::pay);
+            concurrentExecution.get();
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals(committedElsewhere.getBody(), response.getBody());
+        assertEquals("true", response.getHeaders().getFirst(CreditManagerConstants.IDEMPOTENT_REPLAYED_HEADER));
+    }
+
+    @Test
+    void testRecordsOlderThanTheRetentionArePurged() {
+        execute("expired", REQUEST, this::pay);
+        execute("retained", REQUEST, this::pay);
+        jdbcTemplate.update("UPDATE idempotency_record SET create_date = DATEADD(DAY, -2, create_date) WHERE idempotency_key = 'expired'");
+        cacheManager.getCache(CreditManagerConstants.IDEMPOTENT_RESPONSES_CACHE).clear();
+
+        assertEquals(1, subject.purgeExpired());
+
+        assertNull(execute("expired", REQUEST, this::pay).getHeaders().getFirst(CreditManagerConstants.IDEMPOTENT_REPLAYED_HEADER));
+        assertEquals("true", execute("retained", REQUEST, this::pay).getHeaders().getFirst(CreditManagerConstants.IDEMPOTENT_REPLAYED_HEADER));
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void testCreateLoanRetryCreatesOneLoan() {
+        CreateLoanRequest request = CreateLoanRequest.builder().customerId(CUSTOMER_ID).amount(new BigDecimal("1200.00"))
+                .interestRate(new BigDecimal("0.1")).installments(12).build();
+
+        ResponseEntity<CreateLoanResponse> first = loanController.createLoan(request, "create-1");
+        ResponseEntity<CreateLoanResponse> retry = loanController.createLoan(request, "create-1");
+
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertEquals(first.getBody().getLoan().getId(), retry.getBody().getLoan().getId());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan WHERE customer_id = ?", Integer.class, CUSTOMER_ID));
+        assertEquals(new BigDecimal("1320.00"), jdbcTemplate.queryForObject("SELECT used_credit_limit FROM customer WHERE id = ?", BigDecimal.class, CUSTOMER_ID));
+
+        PayLoanRequest payment = PayLoanRequest.builder().loanId(first.getBody().getLoan().getId()).amount(new BigDecimal("110.00")).build();
+        ResponseEntity<PayLoanResponse> paid = loanController.payLoan(payment, "pay-1");
+        ResponseEntity<PayLoanResponse> paidRetry = loanController.payLoan(payment, "pay-1");
+
+        assertEquals(paid.getBody(), paidRetry.getBody());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan_installment i JOIN loan l ON l.id = i.loan_id" +
+                " WHERE l.customer_id = ? AND i.is_paid", Integer.class, CUSTOMER_ID));
+    }
+
+    private ResponseEntity<PayLoanResponse> execute(String key, PayLoanRequest request, Supplier<ResponseEntity<PayLoanResponse>> action) {
+        return subject.execute(key, CreditManagerConstants.PAY_LOAN_OPERATION, request, PayLoanResponse.class, action);
+    }
+
+    private ResponseEntity<PayLoanResponse> pay() {
+        int execution = executions.incrementAndGet();
+        PaymentResult result = PaymentResult.builder().installmentsPaid(execution).totalAmountSpent(new BigDecimal("100.00")).build();
+        return ResponseEntity.ok(PayLoanResponse.builder().paymentResult(result).build());
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null, "ROLE_ADMIN"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.InstallmentAccrualService;
+import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.TestTables;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Accrual in many small ranges and chunks, its restart from a checkpoint and the payments reading the accrued amount.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "credit-manager.accrual.range-size=4", "credit-manager.accrual.chunk-size=3"})
+@AutoConfigureTestDatabase
+class InstallmentAccrualServiceImplTest {
+
+    private static final long CUSTOMER_ID = 9801L;
+    private static final long LOAN_ID = 9801L;
+    private static final long OTHER_LOAN_ID = 9802L;
+    private static final int INSTALLMENTS = 24;
+    private static final int PAID_INSTALLMENTS = 5;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Autowired
+    private InstallmentAccrualService subject;
+
+    @Autowired
+    private LoanInstallmentService loanInstallmentService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanPaymentService loanPaymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Daily', 'Accrual', 100000, 0)", CUSTOMER_ID);
+        for (long loanId : new long[]{LOAN_ID, OTHER_LOAN_ID}) {
+            jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, ?, 4800, ?, CURRENT_DATE, FALSE)",
+                    loanId, CUSTOMER_ID, INSTALLMENTS);
+            // every 10 days from 50 days ago, the first ones paid
+            jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                    " SELECT ? + x, ?, 200 + x, 0, DATEADD(DAY, 10 * x - 60, CAST(? AS DATE)), NULL, x <= ? FROM SYSTEM_RANGE(1, ?)",
+                    loanId * 100, loanId, today, PAID_INSTALLMENTS, INSTALLMENTS);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        jdbcTemplate.update("UPDATE loan_installment SET accrued_amount = NULL, accrual_date = NULL WHERE accrual_date IS NOT NULL");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testAccruesEveryUnpaidInstallment() {
+        long accrued = subject.accrue(today);
+
+        assertTrue(accrued >= 2 * (INSTALLMENTS - PAID_INSTALLMENTS), "accrued " + accrued);
+        for (Map<String, Object> installment : installments(LOAN_ID)) {
+            if (Boolean.TRUE.equals(installment.get("is_paid"))) {
+                assertNull(installment.get("accrual_date"));
+            } else {
+                assertEquals(expectedAmount(installment), installment.get("accrued_amount"), installment::toString);
+                assertEquals(today, ((Date) installment.get("accrual_date")).toLocalDate());
+            }
+        }
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM accrual_checkpoint WHERE business_date = ? AND completed = FALSE", Integer.class, today));
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM accrual_checkpoint WHERE business_date = ?", Integer.class, today) > 1);
+    }
+
+    @Test
+    void testResumesFromTheCheckpoint() {
+        long resumeAfter = LOAN_ID * 100 + 15;
+        jdbcTemplate.update("INSERT INTO accrual_checkpoint (business_date, range_start, range_end, last_id, completed) VALUES (?, ?, ?, ?, FALSE)",
+                today, LOAN_ID * 100 + 1, LOAN_ID * 100 + INSTALLMENTS, resumeAfter);
+
+        assertEquals(INSTALLMENTS - 15, subject.accrue(today));
+
+        for (Map<String, Object> installment : installments(LOAN_ID)) {
+            boolean accrued = ((Number) installment.get("id")).longValue() > resumeAfter;
+            assertEquals(accrued, installment.get("accrual_date") != null, installment::toString);
+        }
+        assertEquals(0L, subject.accrue(today));
+    }
+
+    @Test
+    void testPaymentsUseTheAccruedAmount() {
+        jdbcTemplate.update("UPDATE loan_installment SET accrued_amount = amount + 50, accrual_date = ? WHERE loan_id IN (?, ?) AND is_paid = FALSE",
+                today, LOAN_ID, OTHER_LOAN_ID);
+        BigDecimal amount = new BigDecimal("260.00");
+
+        PaymentResult entityPayment = loanService.payLoan(PayLoanRequest.builder().loanId(LOAN_ID).amount(amount).build());
+        PaymentResult setBasedPayment = loanPaymentService.payLoan(PayLoanRequest.builder().loanId(OTHER_LOAN_ID).amount(amount).build());
+
+        // the first unpaid installment is 206 due today, paid for its accrued amount
+        assertEquals(1, entityPayment.getInstallmentsPaid());
+        assertEquals(0, new BigDecimal("256").compareTo(entityPayment.getTotalAmountSpent()));
+        assertEquals(entityPayment, setBasedPayment);
+    }
+
+    private List<Map<String, Object>> installments(long loanId) {
+        return jdbcTemplate.queryForList("SELECT id, amount, due_date, is_paid, accrued_amount, accrual_date FROM loan_installment WHERE loan_id = ? ORDER BY id", loanId);
+    }
+
+    private BigDecimal expectedAmount(Map<String, Object> installment) {
+        return loanInstallmentService.getTimeBasedInstallmentAmount(((Date) installment.get("due_date")).toLocalDate(),
+                Money.of((BigDecimal) installment.get("amount")), today).toBigDecimal();
+    }
+}
@@ -0,0 +1,136 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.exception.CustomerCreditLimitExceededException;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.response.CreateLoanResponse;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.AuthorizationComponent;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class LoanBulkServiceImplTest {
+
+    private static final String VALID_RECORD = "{\"customerId\":1,\"amount\":1000.00,\"interestRate\":0.2,\"installments\":6}";
+
+    @Mock
+    private LoanService loanService;
+
+    @Mock
+    private AuthorizationComponent authorizationComponent;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private LoanBulkServiceImpl subject;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        subject = new LoanBulkServiceImpl(loanService, authorizationComponent, Validation.buildDefaultValidatorFactory().getValidator(),
+                objectMapper, transactionManager, 2);
+    }
+
+    @Test
+    void testCreateLoansWritesOneResponsePerRecordInOrder() throws IOException {
+        Loan loan = new Loan();
+        loan.setId(1L);
+        when(loanService.createLoan(any(CreateLoanRequest.class)))
+                .thenReturn(loan)
+                .thenThrow(new CustomerCreditLimitExceededException("limit"));
+        String input = VALID_RECORD + "\n"
+                + "{\"customerId\":1,\"amount\":1000.00,\"interestRate\":0.2,\"installments\":7}\n"
+                + "\n"
+                + "not json\n"
+                + VALID_RECORD + "\n";
+
+        List<CreateLoanResponse> responses = createLoans(input);
+
+        assertEquals(4, responses.size());
+        assertEquals(1L, responses.get(0).getLoan().getId());
+        assertEquals("Installments must be one of [6, 9, 12, 24]", responses.get(1).getErrorMessage());
+        assertTrue(responses.get(2).getErrorMessage().startsWith("Malformed record"));
+        assertNull(responses.get(3).getLoan());
+        assertTrue(responses.get(3).getErrorMessage().contains("Customer Credit limit exceeded"));
+        verify(loanService, times(2)).createLoan(any(CreateLoanRequest.class));
+        // 4 records with chunk size 2
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testCreateLoansRejectsAmountBeyondMoneyRangeAsOneRecord() throws IOException {
+        Loan loan = new Loan();
+        loan.setId(1L);
+        when(loanService.createLoan(any(CreateLoanRequest.class))).thenReturn(loan);
+        String input = "{\"customerId\":1,\"amount\":9999999999999.99,\"interestRate\":0.5,\"installments\":6}\n"
+                + "{\"customerId\":1,\"amount\":10000000000000.00,\"interestRate\":0.5,\"installments\":6}\n";
+
+        List<CreateLoanResponse> responses = createLoans(input);
+
+        assertEquals(2, responses.size());
+        assertEquals(1L, responses.get(0).getLoan().getId());
+        assertEquals("Amount must be a valid value with up to 13 digits and 2 decimals", responses.get(1).getErrorMessage());
+        verify(loanService, times(1)).createLoan(any(CreateLoanRequest.class));
+        verify(transactionManager, times(0)).rollback(any());
+    }
+
+    @Test
+    void testCreateLoansWhenAccessDenied() throws IOException {
+        doThrow(new AccessDeniedException("denied")).when(authorizationComponent).checkAccess(1L);
+
+        List<CreateLoanResponse> responses = createLoans(VALID_RECORD);
+
+        assertEquals(1, responses.size());
+        assertEquals("Insufficient permission: denied", responses.get(0).getErrorMessage());
+        verify(loanService, times(0)).createLoan(any(CreateLoanRequest.class));
+    }
+
+    @Test
+    void testCreateLoansWhenChunkRollsBack() throws IOException {
+        Loan loan = new Loan();
+        loan.setId(1L);
+        when(loanService.createLoan(any(CreateLoanRequest.class))).thenReturn(loan).thenThrow(new IllegalStateException("db down"));
+
+        List<CreateLoanResponse> responses = createLoans(VALID_RECORD + "\n" + VALID_RECORD + "\n");
+
+        assertEquals(2, responses.size());
+        assertEquals("Chunk rolled back: db down", responses.get(0).getErrorMessage());
+        assertEquals("Chunk rolled back: db down", responses.get(1).getErrorMessage());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    private List<CreateLoanResponse> createLoans(String input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        subject.createLoans(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        List<CreateLoanResponse> responses = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            responses.add(objectMapper.readValue(line, CreateLoanResponse.class));
+        }
+        return responses;
+    }
+}
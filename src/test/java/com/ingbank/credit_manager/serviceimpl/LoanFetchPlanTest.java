@@ -0,0 +1,165 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.repository.LoanInstallmentRepository;
+import com.ingbank.credit_manager.repository.LoanRepository;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Counts the selects Hibernate issues for each use case of {@link Loan} and {@link LoanInstallment}, so that a
+ * mapping or query change that brings back an eager association or an N+1 fails here instead of in production.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+@Transactional
+@Import(LoanFetchPlanTest.SelectCounterConfig.class)
+class LoanFetchPlanTest {
+
+    private static final long CUSTOMER_ID = 9101L;
+    private static final long LOAN_ID = 9101L;
+    private static final int INSTALLMENTS = 6;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanInstallmentService loanInstallmentService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private SelectCounter selectCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        // written with JDBC, so the persistence context starts empty like it does for every request
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Fetch', 'Plan', 10000, 1200)", CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, ?, 1200, ?, CURRENT_DATE, FALSE)",
+                LOAN_ID, CUSTOMER_ID, INSTALLMENTS);
+        jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                " SELECT ? + x, ?, 200, 0, DATEADD(MONTH, x, CAST(? AS DATE)), NULL, FALSE FROM SYSTEM_RANGE(1, ?)",
+                LOAN_ID * 100, LOAN_ID, LocalDate.now().withDayOfMonth(1), INSTALLMENTS);
+        // rows written with JDBC are not seen by the second-level cache, and a hit would skip the counted select
+        entityManagerFactory.getCache().evictAll();
+        selectCounter.clear();
+    }
+
+    @Test
+    void testPaymentReadsLoanAndPayableInstallmentsOnly() {
+        loanService.payLoan(PayLoanRequest.builder().loanId(LOAN_ID).amount(new BigDecimal("400.00")).build());
+
+        // loan, payable installments, unpaid installments after the window
+        assertEquals(3, selectCounter.selects().size(), selectCounter::describe);
+        assertTrue(selectCounter.selects().stream().noneMatch(sql -> sql.contains("customer c")), selectCounter::describe);
+    }
+
+    @Test
+    void testAuthorizationReadsCustomerIdWithoutLoadingCustomer() {
+        Loan loan = loanService.findById(LOAN_ID);
+
+        assertEquals(CUSTOMER_ID, loan.getCustomer().getId());
+        assertFalse(Hibernate.isInitialized(loan.getCustomer()));
+        assertEquals(1, selectCounter.selects().size(), selectCounter::describe);
+    }
+
+    @Test
+    void testEntityListingsFetchAssociationsInOneSelect() {
+        List<Loan> loans = loanRepository.findByCustomerId(CUSTOMER_ID);
+        loans.forEach(loan -> loan.getCustomer().getName());
+
+        assertEquals(1, loans.size());
+        assertEquals(1, selectCounter.selects().size(), selectCounter::describe);
+
+        selectCounter.clear();
+        List<LoanInstallment> installments = loanInstallmentRepository.findByLoanId(LOAN_ID);
+        installments.forEach(installment -> installment.getLoan().getCustomer().getName());
+
+        assertEquals(INSTALLMENTS, installments.size());
+        assertEquals(1, selectCounter.selects().size(), selectCounter::describe);
+    }
+
+    @Test
+    void testProjectionListingsRunOneSelect() {
+        assertEquals(1, loanService.listLoans(CUSTOMER_ID, null, null).size());
+        assertEquals(INSTALLMENTS, loanInstallmentService.listInstallmentsByLoanId(LOAN_ID).size());
+        assertEquals(2, selectCounter.selects().size(), selectCounter::describe);
+    }
+
+    public static class SelectCounter implements StatementInspector {
+
+        private final List<String> selects = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            String normalized = sql.toLowerCase(Locale.ROOT);
+            if (normalized.startsWith("select")) {
+                selects.add(normalized);
+            }
+            return sql;
+        }
+
+        List<String> selects() {
+            return selects;
+        }
+
+        String describe() {
+            return String.join("\n", selects);
+        }
+
+        void clear() {
+            selects.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class SelectCounterConfig {
+
+        @Bean
+        SelectCounter selectCounter() {
+            return new SelectCounter();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer selectCounterCustomizer(SelectCounter selectCounter) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, selectCounter);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.ingbank.credit_manager.beans.KeysetPage;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.repository.LoanRepository;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.LoanResponse;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.TestTables;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loan listings served by the index against the same listings read from the database, after loans were seeded before
+ * the index was loaded, created through the service and paid through both payment paths.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "credit-manager.loan.index.enabled=true"})
+@AutoConfigureTestDatabase
+class LoanIndexServiceImplTest {
+
+    private static final long SEED = 20250715L;
+    private static final long CUSTOMER_ID = 10201L;
+    private static final int SEEDED_LOANS = 12;
+    private static final int CREATED_LOANS = 20;
+    private static final List<Integer> INSTALLMENTS = List.of(6, 9, 12, 24);
+
+    private final Random random = new Random(SEED);
+
+    @Autowired
+    private LoanIndexServiceImpl subject;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanPaymentService loanPaymentService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Long> seededLoanIds;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Loan', 'Index', 100000000, 0)", CUSTOMER_ID);
+        // two installments due next month each, so a payment of both pays the loan
+        for (int loan = 0; loan < SEEDED_LOANS; loan++) {
+            jdbcTemplate.update("INSERT INTO loan (customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, 200, 2, CURRENT_DATE, FALSE)", CUSTOMER_ID);
+        }
+        seededLoanIds = jdbcTemplate.queryForList("SELECT id FROM loan WHERE customer_id = ? ORDER BY id", Long.class, CUSTOMER_ID);
+        for (Long loanId : seededLoanIds) {
+            jdbcTemplate.update("INSERT INTO loan_installment (loan_id, amount, paid_amount, due_date, is_paid)" +
+                    " SELECT ?, 100, 0, DATEADD(DAY, x, DATEADD(MONTH, 1, CURRENT_DATE)), FALSE FROM SYSTEM_RANGE(1, 2)", loanId);
+        }
+        subject.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+        subject.rebuild();
+    }
+
+    @Test
+    void testListingsMatchTheDatabaseAfterCreationsAndPayments() {
+        assertTrue(subject.isReady());
+        assertListingsMatchTheDatabase();
+
+        for (int loan = 0; loan < CREATED_LOANS; loan++) {
+            createLoan();
+        }
+        for (int i = 0; i < seededLoanIds.size(); i += 2) {
+            PayLoanRequest request = PayLoanRequest.builder().loanId(seededLoanIds.get(i)).amount(new BigDecimal("1000.00")).build();
+            // every other payment takes the set-based path
+            assertTrue(i % 4 == 0 ? loanService.payLoan(request).isLoanFullyPaid() : loanPaymentService.payLoan(request).isLoanFullyPaid());
+        }
+        assertListingsMatchTheDatabase();
+
+        subject.rebuild();
+        assertListingsMatchTheDatabase();
+        assertTrue(meterRegistry.get(CreditManagerConstants.LOAN_INDEX_LOANS_METRIC).gauge().value() >= SEEDED_LOANS + CREATED_LOANS);
+        assertTrue(meterRegistry.get(CreditManagerConstants.LOAN_INDEX_BYTES_METRIC).gauge().value() > 0);
+    }
+
+    @Test
+    void testRolledBackCreationIsNotIndexed() {
+        List<LoanResponse> before = subject.findLoans(CUSTOMER_ID, null, null, 0, Integer.MAX_VALUE);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            createLoan();
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, subject.findLoans(CUSTOMER_ID, null, null, 0, Integer.MAX_VALUE));
+        assertListingsMatchTheDatabase();
+    }
+
+    private Loan createLoan() {
+        return loanService.createLoan(CreateLoanRequest.builder().customerId(CUSTOMER_ID)
+                .amount(BigDecimal.valueOf(random.nextLong(100_000, 1_000_000), 2))
+                .interestRate(new BigDecimal("0.2"))
+                .installments(INSTALLMENTS.get(random.nextInt(INSTALLMENTS.size())))
+                .build());
+    }
+
+    private void assertListingsMatchTheDatabase() {
+        List<Integer> installmentFilters = new ArrayList<>(INSTALLMENTS);
+        installmentFilters.add(2);
+        installmentFilters.add(null);
+        for (Integer installments : installmentFilters) {
+            for (Boolean isPaid : new Boolean[]{null, true, false}) {
+                List<LoanResponse> expected = loanRepository.findLoans(CUSTOMER_ID, installments, isPaid);
+                assertEquals(expected, loanService.listLoans(CUSTOMER_ID, installments, isPaid), installments + " installments, paid " + isPaid);
+
+                List<LoanResponse> paged = new ArrayList<>();
+                KeysetPage<LoanResponse> page = loanService.listLoans(CUSTOMER_ID, installments, isPaid, null, 5);
+                paged.addAll(page.items());
+                while (page.nextCursor() != null) {
+                    page = loanService.listLoans(CUSTOMER_ID, installments, isPaid, page.nextCursor(), 5);
+                    paged.addAll(page.items());
+                }
+                assertEquals(expected, paged);
+            }
+        }
+    }
+}
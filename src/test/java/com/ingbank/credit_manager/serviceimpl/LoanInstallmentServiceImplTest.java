@@ -1,37 +1,55 @@
 package com.ingbank.credit_manager.serviceimpl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 
+import com.ingbank.credit_manager.beans.KeysetPage;
+import com.ingbank.credit_manager.beans.Money;
 import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Loan;
 import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.entity.LoanSchedule;
 import com.ingbank.credit_manager.repository.LoanInstallmentRepository;
+import com.ingbank.credit_manager.repository.LoanScheduleRepository;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
+import com.ingbank.credit_manager.util.KeysetCursor;
+import com.ingbank.credit_manager.util.LoanMetrics;
+import com.ingbank.credit_manager.util.PackedSchedules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 
 class LoanInstallmentServiceImplTest {
 
     @Mock
     private LoanInstallmentRepository loanInstallmentRepository;
 
-    @InjectMocks
+    @Mock
+    private LoanScheduleRepository loanScheduleRepository;
+
     private LoanInstallmentServiceImpl subject;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        subject = new LoanInstallmentServiceImpl(loanInstallmentRepository, loanScheduleRepository, new LoanMetrics(new SimpleMeterRegistry()));
     }
 
     @Test
@@ -62,6 +80,33 @@ class LoanInstallmentServiceImplTest {
         assertEquals(expectedAmount, result);
     }
 
+    @Test
+    void testGetTimeBasedInstallmentAmountMatchesBigDecimalArithmetic() {
+        long seed = 20250101L;
+        Random random = new Random(seed);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal installmentAmount = BigDecimal.valueOf(random.nextLong(1, 100_000_000), 2);
+            long daysDifference = random.nextLong(-120, 400);
+            LocalDate dueDate = LocalDate.now().minusDays(daysDifference);
+            BigDecimal expectedAmount = installmentAmount.add(
+                    installmentAmount.multiply(CreditManagerConstants.PAYMENT_TIMING_BASED_INTEREST_RATE)
+                            .multiply(BigDecimal.valueOf(daysDifference))
+            ).setScale(2, RoundingMode.HALF_UP);
+
+            assertEquals(expectedAmount, subject.getTimeBasedInstallmentAmount(dueDate, installmentAmount),
+                    () -> "seed " + seed + ", amount " + installmentAmount + ", days " + daysDifference);
+            assertEquals(expectedAmount, subject.getTimeBasedInstallmentAmount(dueDate, Money.of(installmentAmount)).toBigDecimal());
+        }
+    }
+
+    @Test
+    void testGetTimeBasedInstallmentAmountOnBusinessDate() {
+        LocalDate businessDate = LocalDate.of(2025, 3, 11);
+
+        assertEquals(Money.of(new BigDecimal("1010.00")), subject.getTimeBasedInstallmentAmount(LocalDate.of(2025, 3, 1), Money.of(BigDecimal.valueOf(1000)), businessDate));
+        assertEquals(Money.of(new BigDecimal("990.00")), subject.getTimeBasedInstallmentAmount(LocalDate.of(2025, 3, 21), Money.of(BigDecimal.valueOf(1000)), businessDate));
+    }
+
     @Test
     void testGetTimeBasedInstallmentAmountWhenInstallmentAmountIsZero() {
         LocalDate dueDate = LocalDate.now();
@@ -73,11 +118,28 @@ class LoanInstallmentServiceImplTest {
     @Test
     void testListInstallmentsByLoanId() {
         Long loanId = 1L;
-        LoanInstallment installment = new LoanInstallment();
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(List.of(installment));
-        List<LoanInstallment> result = subject.listInstallmentsByLoanId(loanId);
+        LoanInstallmentResponse installment = installmentResponse(5L, loanId);
+        when(loanInstallmentRepository.findResponsesByLoanId(loanId)).thenReturn(List.of(installment));
+        List<LoanInstallmentResponse> result = subject.listInstallmentsByLoanId(loanId);
         assertEquals(1, result.size());
-        verify(loanInstallmentRepository, times(1)).findByLoanId(loanId);
+        verify(loanInstallmentRepository, times(1)).findResponsesByLoanId(loanId);
+        verify(loanInstallmentRepository, never()).findByLoanId(loanId);
+    }
+
+    @Test
+    void testListInstallmentsByLoanIdPageContinuesFromCursor() {
+        Long loanId = 1L;
+        LoanInstallmentResponse first = installmentResponse(5L, loanId);
+        LoanInstallmentResponse second = installmentResponse(6L, loanId);
+        when(loanInstallmentRepository.findResponsesByLoanIdAfter(loanId, 4L, Limit.of(2))).thenReturn(List.of(first, second));
+        when(loanInstallmentRepository.findResponsesByLoanIdAfter(loanId, 5L, Limit.of(2))).thenReturn(List.of(second));
+
+        KeysetPage<LoanInstallmentResponse> page = subject.listInstallmentsByLoanId(loanId, KeysetCursor.encode(4L), 1);
+        assertEquals(List.of(first), page.items());
+
+        KeysetPage<LoanInstallmentResponse> lastPage = subject.listInstallmentsByLoanId(loanId, page.nextCursor(), 1);
+        assertEquals(List.of(second), lastPage.items());
+        assertNull(lastPage.nextCursor());
     }
 
     @Test
@@ -91,27 +153,129 @@ class LoanInstallmentServiceImplTest {
     }
 
     @Test
-    void testSaveLoanInstallment() {
+    void testListInstallmentsByLoanIdAndIsPaidPassesIsPaid() {
+        Long loanId = 1L;
+        LoanInstallment installment = new LoanInstallment();
+        when(loanInstallmentRepository.findByLoanIdAndIsPaid(loanId, true)).thenReturn(List.of(installment));
+        List<LoanInstallment> result = subject.listInstallmentsByLoanIdAndIsPaid(loanId, true);
+        assertEquals(1, result.size());
+        verify(loanInstallmentRepository, times(1)).findByLoanIdAndIsPaid(loanId, true);
+        verify(loanInstallmentRepository, never()).findByLoanIdAndIsPaid(loanId, false);
+    }
+
+    @Test
+    void testListPayableInstallments() {
+        Long loanId = 1L;
+        LocalDate dueDateBefore = LocalDate.of(2025, 4, 1);
+        LoanInstallment installment = new LoanInstallment();
+        when(loanInstallmentRepository.findByLoanIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(loanId, dueDateBefore)).thenReturn(List.of(installment));
+        Loan loan = new Loan();
+        loan.setId(loanId);
+        List<LoanInstallment> result = subject.listPayableInstallments(loan, dueDateBefore);
+        assertEquals(1, result.size());
+        verify(loanInstallmentRepository, times(1)).findByLoanIdAndIsPaidFalseAndDueDateBeforeOrderByDueDateAsc(loanId, dueDateBefore);
+        verify(loanInstallmentRepository, never()).findByLoanIdAndIsPaid(any(), any());
+        verifyNoInteractions(loanScheduleRepository);
+    }
+
+    @Test
+    void testListPayableInstallmentsOfPackedSchedule() {
+        Loan loan = packedLoan();
+        LoanSchedule schedule = PackedSchedules.create(loan, BigDecimal.valueOf(1000), LocalDate.of(2025, 1, 1));
+        when(loanScheduleRepository.findForUpdate(loan.getId())).thenReturn(Optional.of(schedule));
+
+        List<LoanInstallment> result = subject.listPayableInstallments(loan, LocalDate.of(2025, 3, 15));
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1)),
+                result.stream().map(LoanInstallment::getDueDate).toList());
+        long firstId = CreditManagerConstants.PACKED_INSTALLMENT_ID_OFFSET + 700;
+        assertEquals(List.of(firstId, firstId + 1, firstId + 2), result.stream().map(LoanInstallment::getId).toList());
+        verifyNoInteractions(loanInstallmentRepository);
+    }
+
+    @Test
+    void testListInstallmentsByLoanIdOfPackedSchedule() {
+        Loan loan = packedLoan();
+        when(loanInstallmentRepository.findResponsesByLoanId(loan.getId())).thenReturn(List.of());
+        when(loanScheduleRepository.findById(loan.getId())).thenReturn(Optional.of(PackedSchedules.create(loan, BigDecimal.valueOf(1000), LocalDate.of(2025, 1, 1))));
+
+        List<LoanInstallmentResponse> result = subject.listInstallmentsByLoanId(loan.getId());
+
+        assertEquals(6, result.size());
+        assertEquals(new LoanInstallmentResponse(CreditManagerConstants.PACKED_INSTALLMENT_ID_OFFSET + 705, loan.getId(), BigDecimal.valueOf(1000), new BigDecimal("0.00"), LocalDate.of(2025, 6, 1), null, false, null, null),
+                result.get(5));
+    }
+
+    @Test
+    void testSaveLoanInstallments() {
         Loan loan = new Loan();
-        BigDecimal totalLoanAmount = BigDecimal.valueOf(1000);
-        LocalDate dueDate = LocalDate.now().plusMonths(1);
+        loan.setNumberOfInstallments(6);
+        BigDecimal installmentAmount = BigDecimal.valueOf(1000);
+        LocalDate firstDueDate = LocalDate.of(2025, 1, 1);
 
         // when
-        subject.saveLoanInstallment(loan, totalLoanAmount, dueDate);
+        subject.saveLoanInstallments(loan, installmentAmount, firstDueDate);
+
+        ArgumentCaptor<List<LoanInstallment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(loanInstallmentRepository, times(1)).saveAll(captor.capture());
+        verify(loanInstallmentRepository, never()).save(any(LoanInstallment.class));
+        verifyNoInteractions(loanScheduleRepository);
+        List<LoanInstallment> savedInstallments = captor.getValue();
+        assertEquals(6, savedInstallments.size());
+        for (int i = 0; i < savedInstallments.size(); i++) {
+            LoanInstallment savedInstallment = savedInstallments.get(i);
+            assertEquals(loan, savedInstallment.getLoan());
+            assertEquals(installmentAmount, savedInstallment.getAmount());
+            assertEquals(firstDueDate.plusMonths(i), savedInstallment.getDueDate());
+        }
+    }
+
+    @Test
+    void testSaveLoanInstallmentsOfPackedSchedule() {
+        Loan loan = packedLoan();
+        when(loanScheduleRepository.save(any(LoanSchedule.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<LoanInstallment> installments = subject.saveLoanInstallments(loan, BigDecimal.valueOf(1000), LocalDate.of(2025, 1, 1));
 
-        ArgumentCaptor<LoanInstallment> captor = ArgumentCaptor.forClass(LoanInstallment.class);
-        verify(loanInstallmentRepository, times(1)).save(captor.capture());
-        LoanInstallment savedInstallment = captor.getValue();
-        assertEquals(loan, savedInstallment.getLoan());
-        assertEquals(totalLoanAmount, savedInstallment.getAmount());
-        assertEquals(dueDate, savedInstallment.getDueDate());
+        assertEquals(6, installments.size());
+        verify(loanScheduleRepository, times(1)).save(any(LoanSchedule.class));
+        verifyNoInteractions(loanInstallmentRepository);
     }
 
     @Test
     void testSaveAllLoanInstallments() {
         LoanInstallment installment = new LoanInstallment();
         List<LoanInstallment> installments = List.of(installment);
-        subject.saveAllLoanInstallments(installments);
+        subject.saveAllLoanInstallments(new Loan(), installments);
         verify(loanInstallmentRepository, times(1)).saveAll(installments);
     }
+
+    @Test
+    void testSaveAllLoanInstallmentsOfPackedSchedule() {
+        Loan loan = packedLoan();
+        LoanSchedule schedule = PackedSchedules.create(loan, BigDecimal.valueOf(1000), LocalDate.of(2025, 1, 1));
+        when(loanScheduleRepository.findById(loan.getId())).thenReturn(Optional.of(schedule));
+        LoanInstallment paid = PackedSchedules.installments(schedule, loan).getFirst();
+        paid.setIsPaid(true);
+        paid.setPaidAmount(new BigDecimal("990.00"));
+        paid.setPaymentDate(LocalDate.of(2024, 12, 22));
+
+        subject.saveAllLoanInstallments(loan, List.of(paid));
+
+        assertEquals(1, schedule.getPaidInstallments());
+        assertEquals(LocalDate.of(2025, 2, 1), schedule.getNextDueDate());
+        verifyNoInteractions(loanInstallmentRepository);
+    }
+
+    private static Loan packedLoan() {
+        Loan loan = new Loan();
+        loan.setId(7L);
+        loan.setNumberOfInstallments(6);
+        loan.setPackedSchedule(true);
+        return loan;
+    }
+
+    private static LoanInstallmentResponse installmentResponse(Long id, Long loanId) {
+        return new LoanInstallmentResponse(id, loanId, BigDecimal.valueOf(100), BigDecimal.ZERO, LocalDate.of(2025, 1, 1), null, false, null, null);
+    }
 }
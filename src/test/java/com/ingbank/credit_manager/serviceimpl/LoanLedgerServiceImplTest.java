@@ -0,0 +1,175 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
+import com.ingbank.credit_manager.exception.LoanIsAlreadyFullyPaidException;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.LoanBalanceResponse;
+import com.ingbank.credit_manager.service.LoanLedgerService;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.TestTables;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The ledger written by loan creations and seeded payments through both payment paths, against the installment rows
+ * they update, and the balances replayed from it with and without snapshots.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "credit-manager.ledger.snapshot.settle-time=0s", "credit-manager.ledger.snapshot.chunk-size=3"})
+@AutoConfigureTestDatabase
+class LoanLedgerServiceImplTest {
+
+    private static final long SEED = 20250501L;
+    private static final int PAYMENTS = 30;
+    private static final long CUSTOMER_ID = 10001L;
+    private static final int[] INSTALLMENTS = {6, 9, 12};
+
+    private final Random random = new Random(SEED);
+
+    @Autowired
+    private LoanLedgerService subject;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanPaymentService loanPaymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Long> loanIds;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Loan', 'Ledger', 100000000, 0)", CUSTOMER_ID);
+        loanIds = IntStream.range(0, 4)
+                .mapToObj(i -> loanService.createLoan(CreateLoanRequest.builder().customerId(CUSTOMER_ID)
+                        .amount(BigDecimal.valueOf(random.nextLong(100_000, 1_000_000), 2))
+                        .interestRate(new BigDecimal("0.2"))
+                        .installments(INSTALLMENTS[i % INSTALLMENTS.length]).build()))
+                .map(Loan::getId)
+                .toList();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testLedgerFollowsTheInstallmentRows() {
+        for (int step = 0; step < PAYMENTS; step++) {
+            pay(step);
+            if (step % 7 == 0) {
+                subject.compactSnapshots();
+            }
+        }
+
+        assertTrue(loanIds.stream().mapToInt(loanId -> paidInstallmentRows(loanId).size()).sum() >= loanIds.size());
+        for (Long loanId : loanIds) {
+            assertEquals(paidInstallmentRows(loanId), paidInstallmentEntries(loanId), "loan " + loanId);
+            assertEquals(balanceFromRows(loanId), subject.findBalance(loanId), "loan " + loanId);
+        }
+    }
+
+    @Test
+    void testCompactionKeepsTheBalances() {
+        for (int step = 0; step < PAYMENTS; step++) {
+            pay(step);
+        }
+        List<LoanBalanceResponse> replayed = loanIds.stream().map(subject::findBalance).toList();
+        long entries = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan_ledger WHERE loan_id IN (SELECT id FROM loan WHERE customer_id = ?)", Long.class, CUSTOMER_ID);
+
+        assertTrue(subject.compactSnapshots() >= entries);
+        assertEquals(0L, subject.compactSnapshots());
+
+        assertEquals(replayed, loanIds.stream().map(subject::findBalance).toList());
+        for (LoanBalanceResponse balance : replayed) {
+            assertEquals(balance, snapshot(balance.loanId()));
+        }
+    }
+
+    @Test
+    void testUnsettledEntriesAreLeftForTheNextCompaction() {
+        subject.compactSnapshots();
+        Long loanId = loanIds.getFirst();
+        loanService.payLoan(PayLoanRequest.builder().loanId(loanId).amount(new BigDecimal("100000.00")).build());
+        // as if the payment committed a moment ago with the default settle time
+        jdbcTemplate.update("UPDATE loan_ledger SET recorded_at = DATEADD(MINUTE, 1, LOCALTIMESTAMP) WHERE loan_id = ? AND entry_type <> 'ORIGINATED'", loanId);
+
+        assertEquals(0L, subject.compactSnapshots());
+
+        assertEquals(0, snapshot(loanId).paidInstallments());
+        assertEquals(balanceFromRows(loanId), subject.findBalance(loanId));
+    }
+
+    @Test
+    void testFindBalanceWhenLoanHasNoEntries() {
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> subject.findBalance(-1L));
+
+        assertEquals("Loan not found with request loanId: -1", exception.getMessage());
+    }
+
+    private void pay(int step) {
+        PayLoanRequest request = PayLoanRequest.builder().loanId(loanIds.get(random.nextInt(loanIds.size())))
+                .amount(BigDecimal.valueOf(random.nextLong(10_000, 600_000), 2)).build();
+        try {
+            if (step % 2 == 0) {
+                loanService.payLoan(request);
+            } else {
+                loanPaymentService.payLoan(request);
+            }
+        } catch (LoanInstallmentsMoreThan3MonthsCannotBePaidException | LoanIsAlreadyFullyPaidException e) {
+            // nothing is written for a refused payment
+        }
+    }
+
+    private List<Map<String, Object>> paidInstallmentRows(Long loanId) {
+        return jdbcTemplate.queryForList("SELECT id, amount, paid_amount, payment_date FROM loan_installment WHERE loan_id = ? AND is_paid = TRUE ORDER BY id", loanId);
+    }
+
+    private List<Map<String, Object>> paidInstallmentEntries(Long loanId) {
+        return jdbcTemplate.queryForList("SELECT installment_id AS id, amount, paid_amount, entry_date AS payment_date FROM loan_ledger" +
+                " WHERE loan_id = ? AND entry_type = 'INSTALLMENT_PAID' ORDER BY installment_id", loanId);
+    }
+
+    private LoanBalanceResponse balanceFromRows(Long loanId) {
+        return jdbcTemplate.queryForObject("SELECT l.id, l.loan_amount, l.number_of_installments, COUNT(i.id) AS paid_installments," +
+                " CASE WHEN l.is_paid THEN 0 ELSE l.loan_amount - COALESCE(SUM(i.amount), 0) END AS outstanding_amount," +
+                " COALESCE(SUM(i.paid_amount), 0) AS paid_amount, l.is_paid" +
+                " FROM loan l LEFT JOIN loan_installment i ON i.loan_id = l.id AND i.is_paid = TRUE WHERE l.id = ?" +
+                " GROUP BY l.id, l.loan_amount, l.number_of_installments, l.is_paid", (rs, rowNum) -> new LoanBalanceResponse(rs.getLong("id"),
+                rs.getBigDecimal("loan_amount"), rs.getInt("number_of_installments"), rs.getInt("paid_installments"),
+                rs.getBigDecimal("outstanding_amount").setScale(2), rs.getBigDecimal("paid_amount").setScale(2), rs.getBoolean("is_paid")), loanId);
+    }
+
+    private LoanBalanceResponse snapshot(Long loanId) {
+        return jdbcTemplate.queryForObject("SELECT * FROM loan_balance_snapshot WHERE loan_id = ?", (rs, rowNum) -> new LoanBalanceResponse(rs.getLong("loan_id"),
+                rs.getBigDecimal("loan_amount"), rs.getInt("number_of_installments"), rs.getInt("paid_installments"),
+                rs.getBigDecimal("outstanding_amount"), rs.getBigDecimal("paid_amount"), rs.getBoolean("is_paid")), loanId);
+    }
+}
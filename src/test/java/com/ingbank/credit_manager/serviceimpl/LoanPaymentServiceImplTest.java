@@ -0,0 +1,142 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.TestTables;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Differential test of the set-based payment path against the entity path of {@link LoanServiceImpl}: every
+ * scenario is written to two identical loans, one is paid through each path, and the results, the installment rows
+ * and the loan flag must be equal. Scenarios come from a seeded {@link Random} so a failing one can be replayed.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+class LoanPaymentServiceImplTest {
+
+    private static final long SEED = 20250214L;
+    private static final int SCENARIOS = 300;
+    private static final long CUSTOMER_ID = 9201L;
+    private static final long FIRST_LOAN_ID = 20_000L;
+
+    private final Random random = new Random(SEED);
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanPaymentService subject;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Set', 'Based', 100000000, 0)", CUSTOMER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testSetBasedPaymentMatchesEntityPayment() {
+        int paidScenarios = 0;
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            long entityLoanId = FIRST_LOAN_ID + 2L * scenario;
+            long setBasedLoanId = entityLoanId + 1;
+            String description = seedScenario(entityLoanId, setBasedLoanId);
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 6_000_000), 2);
+            String context = "seed " + SEED + ", scenario " + scenario + ", " + description + ", payment " + amount;
+
+            String entityOutcome = pay(loanService::payLoan, entityLoanId, amount);
+            String setBasedOutcome = pay(subject::payLoan, setBasedLoanId, amount);
+
+            assertEquals(entityOutcome, setBasedOutcome, context);
+            assertEquals(installmentRows(entityLoanId), installmentRows(setBasedLoanId), context);
+            assertEquals(loanPaid(entityLoanId), loanPaid(setBasedLoanId), context);
+            if (entityOutcome.startsWith("PaymentResult") && !entityOutcome.contains("installmentsPaid=0")) {
+                paidScenarios++;
+            }
+        }
+        // the generated scenarios must exercise the allocation, not only the rejections
+        assertTrue(paidScenarios > SCENARIOS / 3, "only " + paidScenarios + " scenarios paid installments");
+    }
+
+    @Test
+    void testSetBasedPaymentWhenLoanNotFound() {
+        PayLoanRequest request = PayLoanRequest.builder().loanId(FIRST_LOAN_ID - 1).amount(BigDecimal.TEN).build();
+
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> subject.payLoan(request));
+        assertEquals("Loan not found with request loanId: " + (FIRST_LOAN_ID - 1), exception.getMessage());
+    }
+
+    /**
+     * Writes the same random loan twice: an installment schedule starting anywhere from eight months ago to four
+     * months ahead, with a random number of installments already paid and sometimes the whole loan marked paid.
+     */
+    private String seedScenario(long... loanIds) {
+        int numberOfInstallments = random.nextInt(1, 25);
+        BigDecimal installmentAmount = BigDecimal.valueOf(random.nextLong(100, 500_000), 2);
+        LocalDate firstDueDate = LocalDate.now().plusDays(random.nextInt(-240, 121));
+        int alreadyPaid = random.nextInt(4) == 0 ? random.nextInt(numberOfInstallments + 1) : 0;
+        boolean loanPaid = random.nextInt(20) == 0;
+        for (long loanId : loanIds) {
+            jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, ?, ?, ?, CURRENT_DATE, ?)",
+                    loanId, CUSTOMER_ID, installmentAmount.multiply(BigDecimal.valueOf(numberOfInstallments)), numberOfInstallments, loanPaid);
+            List<Object[]> installments = new ArrayList<>(numberOfInstallments);
+            for (int i = 0; i < numberOfInstallments; i++) {
+                boolean paid = i < alreadyPaid;
+                LocalDate dueDate = firstDueDate.plusMonths(i);
+                installments.add(new Object[]{loanId * 100 + i, loanId, installmentAmount, paid ? installmentAmount : BigDecimal.ZERO, dueDate, paid ? dueDate : null, paid});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid) VALUES (?, ?, ?, ?, ?, ?, ?)", installments);
+        }
+        return numberOfInstallments + " x " + installmentAmount + " from " + firstDueDate + ", " + alreadyPaid + " paid" + (loanPaid ? ", loan paid" : "");
+    }
+
+    private static String pay(Function<PayLoanRequest, PaymentResult> payment, long loanId, BigDecimal amount) {
+        try {
+            PaymentResult result = payment.apply(PayLoanRequest.builder().loanId(loanId).amount(amount).build());
+            return result.toString();
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    private List<List<Object>> installmentRows(long loanId) {
+        return jdbcTemplate.query("SELECT amount, paid_amount, due_date, payment_date, is_paid FROM loan_installment WHERE loan_id = ? ORDER BY id",
+                (rs, rowNum) -> Arrays.asList(rs.getBigDecimal(1), rs.getBigDecimal(2), rs.getDate(3), rs.getDate(4), rs.getBoolean(5)), loanId);
+    }
+
+    private Boolean loanPaid(long loanId) {
+        return jdbcTemplate.queryForObject("SELECT is_paid FROM loan WHERE id = ?", Boolean.class, loanId);
+    }
+}
@@ -3,10 +3,12 @@ package com.ingbank.credit_manager.serviceimpl;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -19,11 +21,16 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import com.ingbank.credit_manager.beans.InstallmentPayment;
+import com.ingbank.credit_manager.beans.KeysetPage;
+import com.ingbank.credit_manager.beans.Money;
 import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
 import com.ingbank.credit_manager.entity.Customer;
 import com.ingbank.credit_manager.entity.Loan;
 import com.ingbank.credit_manager.entity.LoanInstallment;
 import com.ingbank.credit_manager.exception.CustomerCreditLimitExceededException;
+import com.ingbank.credit_manager.exception.InvalidPageRequestException;
 import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
 import com.ingbank.credit_manager.exception.LoanIsAlreadyFullyPaidException;
 import com.ingbank.credit_manager.exception.NotFoundException;
@@ -31,12 +38,21 @@ import com.ingbank.credit_manager.repository.CustomerRepository;
 import com.ingbank.credit_manager.repository.LoanRepository;
 import com.ingbank.credit_manager.request.CreateLoanRequest;
 import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.LoanResponse;
+import com.ingbank.credit_manager.service.CreditLimitService;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import com.ingbank.credit_manager.service.LoanIndexService;
 import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanLedgerService;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.util.KeysetCursor;
+import com.ingbank.credit_manager.util.LoanMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 
 class LoanServiceImplTest {
 
@@ -49,12 +65,29 @@ class LoanServiceImplTest {
     @Mock
     private LoanInstallmentService loanInstallmentService;
 
-    @InjectMocks
+    @Mock
+    private CreditLimitService creditLimitService;
+
+    @Mock
+    private LoanPaymentService loanPaymentService;
+
+    @Mock
+    private CustomerSummaryService customerSummaryService;
+
+    @Mock
+    private LoanLedgerService loanLedgerService;
+
+    @Mock
+    private LoanIndexService loanIndexService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private LoanServiceImpl subject;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        subject = new LoanServiceImpl(loanRepository, customerRepository, loanInstallmentService, creditLimitService, loanPaymentService, customerSummaryService, loanLedgerService, loanIndexService, new LoanMetrics(meterRegistry), false, false);
     }
 
     @Test
@@ -78,15 +111,39 @@ class LoanServiceImplTest {
 
         Loan loan = new Loan();
         loan.setId(1L);
+        when(creditLimitService.reserve(customerId, new BigDecimal("5500.00"))).thenReturn(true);
         when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
         when(loanRepository.save(any(Loan.class))).thenReturn(loan);
         Loan createdLoan = subject.createLoan(request);
 
         assertNotNull(createdLoan);
+        assertEquals(customer, createdLoan.getCustomer());
+        verify(creditLimitService, times(1)).reserve(customerId, new BigDecimal("5500.00"));
         verify(loanRepository, times(1)).save(any(Loan.class));
-        verify(loanInstallmentService, times(installments)).saveLoanInstallment(
+        verify(loanInstallmentService, times(1)).saveLoanInstallments(
                 any(Loan.class), any(BigDecimal.class), any(LocalDate.class));
-        verify(customerRepository, times(1)).save(customer);
+        verify(customerSummaryService, times(1)).loanCreated(customerId, new BigDecimal("916.67"), 6, LocalDate.now().plusMonths(1).withDayOfMonth(1));
+        verify(loanLedgerService, times(1)).loanOriginated(createdLoan);
+        verify(loanIndexService, times(1)).loanCreated(createdLoan);
+        verify(customerRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreateLoanWithPackedSchedule() {
+        Long customerId = 1L;
+        CreateLoanRequest request = CreateLoanRequest.builder().customerId(customerId).amount(BigDecimal.valueOf(5000))
+                .installments(6).interestRate(BigDecimal.valueOf(0.1)).build();
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        when(creditLimitService.reserve(customerId, new BigDecimal("5500.00"))).thenReturn(true);
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        LoanServiceImpl packedSubject = new LoanServiceImpl(loanRepository, customerRepository, loanInstallmentService, creditLimitService, loanPaymentService, customerSummaryService, loanLedgerService, loanIndexService, new LoanMetrics(meterRegistry), false, true);
+
+        Loan createdLoan = packedSubject.createLoan(request);
+
+        assertTrue(createdLoan.getPackedSchedule());
+        verify(loanRepository, times(1)).save(createdLoan);
+        verify(loanInstallmentService, times(1)).saveLoanInstallments(createdLoan, new BigDecimal("916.67"), LocalDate.now().plusMonths(1).withDayOfMonth(1));
     }
 
     @Test
@@ -104,7 +161,7 @@ class LoanServiceImplTest {
         NotFoundException exception = assertThrows(NotFoundException.class, () -> subject.createLoan(request));
         assertEquals("Customer not found with requested customerId: 1", exception.getMessage());
         verify(loanRepository, never()).save(any(Loan.class));
-        verify(loanInstallmentService, never()).saveLoanInstallment(any(), any(), any());
+        verify(loanInstallmentService, never()).saveLoanInstallments(any(), any(), any());
         verify(customerRepository, never()).save(any());
     }
 
@@ -128,8 +185,11 @@ class LoanServiceImplTest {
         CustomerCreditLimitExceededException exception = assertThrows(CustomerCreditLimitExceededException.class, () -> subject.createLoan(request));
         assertTrue(exception.getMessage().contains("Customer exceeds credit limit"));
         verify(loanRepository, never()).save(any(Loan.class));
-        verify(loanInstallmentService, never()).saveLoanInstallment(any(), any(), any());
+        verify(loanInstallmentService, never()).saveLoanInstallments(any(), any(), any());
         verify(customerRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get(CreditManagerConstants.CREDIT_LIMIT_REJECTIONS_METRIC).counter().count());
+        assertEquals(1, meterRegistry.get(CreditManagerConstants.LOAN_OPERATIONS_METRIC)
+                .tag(CreditManagerConstants.OUTCOME_TAG, "CREDIT_LIMIT_EXCEEDED").timer().count());
     }
 
     @Test
@@ -150,27 +210,86 @@ class LoanServiceImplTest {
     @Test
     void testListLoansWithOptionalParameters() {
         Long customerId = 1L;
-        Loan loan = new Loan();
-        Customer customer = new Customer();
-        customer.setId(customerId);
-        loan.setCustomer(customer);
+        LoanResponse loan = loanResponse(1L, customerId);
         when(loanRepository.findLoans(customerId, 6, false)).thenReturn(List.of(loan));
 
-        List<Loan> loans = subject.listLoans(customerId, 6, false);
+        List<LoanResponse> loans = subject.listLoans(customerId, 6, false);
         assertNotNull(loans);
-        assertEquals(customerId, loans.get(0).getCustomer().getId());
+        assertEquals(customerId, loans.get(0).customerId());
         verify(loanRepository, times(1)).findLoans(customerId,6, false);
     }
 
+    @Test
+    void testListLoansFromReadyIndex() {
+        Long customerId = 1L;
+        List<LoanResponse> rows = List.of(loanResponse(1L, customerId));
+        when(loanIndexService.isReady()).thenReturn(true);
+        when(loanIndexService.findLoans(customerId, 6, false, KeysetCursor.FIRST, Integer.MAX_VALUE)).thenReturn(rows);
+        when(loanIndexService.findLoans(customerId, 6, false, 10L, 3)).thenReturn(rows);
+
+        assertEquals(rows, subject.listLoans(customerId, 6, false));
+        assertEquals(rows, subject.listLoans(customerId, 6, false, KeysetCursor.encode(10L), 2).items());
+        verifyNoInteractions(loanRepository);
+    }
+
+    @Test
+    void testListLoansPageReadsOneExtraRowForNextCursor() {
+        Long customerId = 1L;
+        List<LoanResponse> rows = List.of(loanResponse(11L, customerId), loanResponse(12L, customerId), loanResponse(13L, customerId));
+        when(loanRepository.findLoansAfter(customerId, null, false, 10L, Limit.of(3))).thenReturn(rows);
+
+        KeysetPage<LoanResponse> page = subject.listLoans(customerId, null, false, KeysetCursor.encode(10L), 2);
+
+        assertEquals(rows.subList(0, 2), page.items());
+        assertEquals(KeysetCursor.encode(12L), page.nextCursor());
+    }
+
+    @Test
+    void testListLoansFirstAndLastPage() {
+        Long customerId = 1L;
+        List<LoanResponse> rows = List.of(loanResponse(1L, customerId));
+        when(loanRepository.findLoansAfter(customerId, 6, null, KeysetCursor.FIRST, Limit.of(3))).thenReturn(rows);
+
+        KeysetPage<LoanResponse> page = subject.listLoans(customerId, 6, null, null, 2);
+
+        assertEquals(rows, page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testListLoansPageRejectsInvalidPageSizeAndCursor() {
+        assertThrows(InvalidPageRequestException.class, () -> subject.listLoans(1L, null, null, null, 0));
+        assertThrows(InvalidPageRequestException.class, () -> subject.listLoans(1L, null, null, null, CreditManagerConstants.MAX_PAGE_SIZE + 1));
+        assertThrows(InvalidPageRequestException.class, () -> subject.listLoans(1L, null, null, "not-a-cursor", 10));
+        verifyNoInteractions(loanRepository);
+    }
+
+    @Test
+    void testFindCustomerIdByLoanId() {
+        when(loanRepository.findCustomerIdById(1L)).thenReturn(Optional.of(2L));
+        when(loanRepository.findCustomerIdById(3L)).thenReturn(Optional.empty());
+
+        assertEquals(2L, subject.findCustomerIdByLoanId(1L));
+        assertThrows(NotFoundException.class, () -> subject.findCustomerIdByLoanId(3L));
+        verify(loanRepository, never()).findById(any());
+    }
+
+    private static LoanResponse loanResponse(Long id, Long customerId) {
+        return new LoanResponse(id, customerId, new BigDecimal("1200.00"), 6, LocalDate.of(2025, 1, 1), false);
+    }
+
     @Test
     void testPayLoan() {
         Long loanId = 1L;
         BigDecimal paymentAmount = BigDecimal.valueOf(400);
         PayLoanRequest request = PayLoanRequest.builder().loanId(loanId).amount(paymentAmount).build();
 
+        Customer customer = new Customer();
+        customer.setId(1L);
         Loan loan = new Loan();
         loan.setId(loanId);
         loan.setIsPaid(false);
+        loan.setCustomer(customer);
 
         LoanInstallment installment1 = new LoanInstallment();
         installment1.setId(1L);
@@ -185,8 +304,8 @@ class LoanServiceImplTest {
         List<LoanInstallment> unpaidInstallments = List.of(installment1, installment2);
 
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentService.listInstallmentsByLoanIdAndIsPaid(loanId, false)).thenReturn(unpaidInstallments);
-        when(loanInstallmentService.getTimeBasedInstallmentAmount(any(), any())).thenReturn(BigDecimal.valueOf(200), BigDecimal.valueOf(200));
+        when(loanInstallmentService.listPayableInstallments(eq(loan), any(LocalDate.class))).thenReturn(unpaidInstallments);
+        when(loanInstallmentService.getTimeBasedInstallmentAmount(any(LocalDate.class), any(Money.class), any(LocalDate.class))).thenReturn(Money.of(BigDecimal.valueOf(200)), Money.of(BigDecimal.valueOf(200)));
 
 
         PaymentResult result = subject.payLoan(request);
@@ -197,9 +316,74 @@ class LoanServiceImplTest {
         assertTrue(result.isLoanFullyPaid());
 
         verify(loanRepository, times(1)).findById(loanId);
-        verify(loanInstallmentService, times(1)).listInstallmentsByLoanIdAndIsPaid(loanId, false);
-        verify(loanInstallmentService, times(1)).saveAllLoanInstallments(unpaidInstallments);
+        verify(loanInstallmentService, times(1)).listPayableInstallments(eq(loan), any(LocalDate.class));
+        verify(loanInstallmentService, times(1)).saveAllLoanInstallments(loan, unpaidInstallments);
         verify(loanRepository, times(1)).save(loan);
+        verify(loanLedgerService, times(1)).paymentRecorded(loanId, LocalDate.now(), List.of(
+                new InstallmentPayment(1L, BigDecimal.valueOf(200), new BigDecimal("200.00")),
+                new InstallmentPayment(2L, BigDecimal.valueOf(200), new BigDecimal("200.00"))), true);
+        verify(loanIndexService, times(1)).loanPaid(1L, loanId);
+        verifyNoInteractions(loanPaymentService);
+    }
+
+    @Test
+    void testPayLoanUsesSetBasedPathWhenEnabled() {
+        PayLoanRequest request = PayLoanRequest.builder().loanId(1L).amount(BigDecimal.valueOf(500)).build();
+        PaymentResult paymentResult = PaymentResult.builder().installmentsPaid(2).totalAmountSpent(new BigDecimal("500.00")).build();
+        Loan loan = new Loan();
+        loan.setId(1L);
+        loan.setPackedSchedule(false);
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(loan));
+        when(loanPaymentService.payLoan(eq(request), any(LocalDate.class))).thenReturn(paymentResult);
+        LoanServiceImpl setBasedSubject = new LoanServiceImpl(loanRepository, customerRepository, loanInstallmentService, creditLimitService, loanPaymentService, customerSummaryService, loanLedgerService, loanIndexService, new LoanMetrics(meterRegistry), true, false);
+
+        assertEquals(paymentResult, setBasedSubject.payLoan(request));
+
+        verify(loanRepository, never()).save(any(Loan.class));
+        verifyNoInteractions(loanInstallmentService);
+    }
+
+    @Test
+    void testPayLoanPaysPackedLoanOnEntityPathWhenSetBasedIsEnabled() {
+        Long loanId = 1L;
+        PayLoanRequest request = PayLoanRequest.builder().loanId(loanId).amount(BigDecimal.valueOf(200)).build();
+        Customer customer = new Customer();
+        customer.setId(1L);
+        Loan loan = new Loan();
+        loan.setId(loanId);
+        loan.setIsPaid(false);
+        loan.setPackedSchedule(true);
+        loan.setCustomer(customer);
+        LoanInstallment installment = new LoanInstallment();
+        installment.setId(1L);
+        installment.setLoan(loan);
+        installment.setAmount(BigDecimal.valueOf(200));
+        installment.setDueDate(LocalDate.now().plusMonths(1));
+
+        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
+        when(loanInstallmentService.listPayableInstallments(eq(loan), any(LocalDate.class))).thenReturn(List.of(installment));
+        when(loanInstallmentService.getTimeBasedInstallmentAmount(any(LocalDate.class), any(Money.class), any(LocalDate.class))).thenReturn(Money.of(BigDecimal.valueOf(200)));
+        LoanServiceImpl setBasedSubject = new LoanServiceImpl(loanRepository, customerRepository, loanInstallmentService, creditLimitService, loanPaymentService, customerSummaryService, loanLedgerService, loanIndexService, new LoanMetrics(meterRegistry), true, false);
+
+        PaymentResult result = setBasedSubject.payLoan(request);
+
+        assertEquals(1, result.getInstallmentsPaid());
+        assertTrue(result.isLoanFullyPaid());
+        verify(loanInstallmentService, times(1)).saveAllLoanInstallments(loan, List.of(installment));
+        verifyNoInteractions(loanPaymentService);
+    }
+
+    @Test
+    void testPayLoanUsesEntityPathWithPackedSchedules() {
+        Long loanId = 1L;
+        PayLoanRequest request = PayLoanRequest.builder().loanId(loanId).amount(BigDecimal.valueOf(500)).build();
+        when(loanRepository.findById(loanId)).thenReturn(Optional.empty());
+        LoanServiceImpl packedSubject = new LoanServiceImpl(loanRepository, customerRepository, loanInstallmentService, creditLimitService, loanPaymentService, customerSummaryService, loanLedgerService, loanIndexService, new LoanMetrics(meterRegistry), true, true);
+
+        assertThrows(NotFoundException.class, () -> packedSubject.payLoan(request));
+
+        verify(loanRepository, times(1)).findById(loanId);
+        verifyNoInteractions(loanPaymentService);
     }
 
     @Test
@@ -249,12 +433,13 @@ class LoanServiceImplTest {
         installment.setDueDate(LocalDate.now().plusMonths(4));
         installment.setIsPaid(false);
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentService.listInstallmentsByLoanIdAndIsPaid(loanId, false)).thenReturn(List.of(installment));
+        when(loanInstallmentService.listPayableInstallments(eq(loan), any(LocalDate.class))).thenReturn(List.of());
+        when(loanInstallmentService.hasUnpaidInstallmentsFrom(eq(loan), any(LocalDate.class))).thenReturn(true);
         LoanInstallmentsMoreThan3MonthsCannotBePaidException exception = assertThrows(LoanInstallmentsMoreThan3MonthsCannotBePaidException.class, () -> subject.payLoan(request));
         assertEquals("Loan installments more than 3 calendar months cannot be paid", exception.getMessage());
 
         verify(loanRepository, times(1)).findById(loanId);
-        verify(loanInstallmentService, times(1)).listInstallmentsByLoanIdAndIsPaid(loanId, false);
+        verify(loanInstallmentService, times(1)).listPayableInstallments(eq(loan), any(LocalDate.class));
     }
 
     @Test
@@ -262,9 +447,12 @@ class LoanServiceImplTest {
         Long loanId = 1L;
         PayLoanRequest request = PayLoanRequest.builder().loanId(loanId).amount(BigDecimal.valueOf(250)).build();
 
+        Customer customer = new Customer();
+        customer.setId(1L);
         Loan loan = new Loan();
         loan.setId(loanId);
         loan.setIsPaid(false);
+        loan.setCustomer(customer);
 
         LoanInstallment installment1 = new LoanInstallment();
         installment1.setId(1L);
@@ -280,8 +468,8 @@ class LoanServiceImplTest {
         List<LoanInstallment> unpaidInstallments = List.of(installment1, installment2);
 
         when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentService.listInstallmentsByLoanIdAndIsPaid(loanId, false)).thenReturn(unpaidInstallments);
-        when(loanInstallmentService.getTimeBasedInstallmentAmount(any(), any())).thenReturn(BigDecimal.valueOf(200), BigDecimal.valueOf(300));
+        when(loanInstallmentService.listPayableInstallments(eq(loan), any(LocalDate.class))).thenReturn(unpaidInstallments);
+        when(loanInstallmentService.getTimeBasedInstallmentAmount(any(LocalDate.class), any(Money.class), any(LocalDate.class))).thenReturn(Money.of(BigDecimal.valueOf(200)), Money.of(BigDecimal.valueOf(300)));
         PaymentResult result = subject.payLoan(request);
 
         assertNotNull(result);
@@ -290,9 +478,12 @@ class LoanServiceImplTest {
         assertFalse(result.isLoanFullyPaid());
 
         verify(loanRepository, times(1)).findById(loanId);
-        verify(loanInstallmentService, times(1)).listInstallmentsByLoanIdAndIsPaid(loanId, false);
-        verify(loanInstallmentService, times(1)).saveAllLoanInstallments(anyList());
+        verify(loanInstallmentService, times(1)).listPayableInstallments(eq(loan), any(LocalDate.class));
+        verify(loanInstallmentService, times(1)).saveAllLoanInstallments(eq(loan), anyList());
         verify(loanRepository, never()).save(loan);
+        verify(loanLedgerService, times(1)).paymentRecorded(loanId, LocalDate.now(), List.of(
+                new InstallmentPayment(1L, BigDecimal.valueOf(200), new BigDecimal("200.00"))), false);
+        verify(customerSummaryService, times(1)).installmentsSettled(1L, new BigDecimal("200.00"), false);
     }
 
 }
@@ -0,0 +1,111 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.config.CacheConfig;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({CacheConfig.class, LoanStreamServiceImpl.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class LoanStreamServiceImplTest {
+
+    private static final long CUSTOMER_ID = 1L;
+    private static final long FIRST_SEEDED_ID = 1000;
+    private static final int LOANS = 300;
+    private static final int INSTALLMENTS = 240;
+
+    @Autowired
+    private LoanStreamServiceImpl subject;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // inserted in reverse id order, the stream must still come back in id order
+        jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid)" +
+                " SELECT ? + ? - x, ?, 1200, 6 * (1 + MOD(x, 4)), CURRENT_DATE, MOD(x, 5) = 0 FROM SYSTEM_RANGE(0, ? - 1)",
+                FIRST_SEEDED_ID, LOANS, CUSTOMER_ID, LOANS);
+        jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                " SELECT ? + x, ?, 100, 0, DATEADD(MONTH, x, DATE '2025-01-01'), NULL, FALSE FROM SYSTEM_RANGE(1, ?)",
+                FIRST_SEEDED_ID, FIRST_SEEDED_ID + 1, INSTALLMENTS);
+        entityManager.clear();
+    }
+
+    @Test
+    void testWriteLoansStreamsEveryMatchingLoanInIdOrder() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        subject.writeLoans(CUSTOMER_ID, null, null, output);
+
+        List<JsonNode> lines = readLines(output);
+        assertEquals(LOANS, lines.size());
+        for (int i = 0; i < LOANS; i++) {
+            assertEquals(FIRST_SEEDED_ID + 1 + i, lines.get(i).get("id").asLong());
+            assertEquals(CUSTOMER_ID, lines.get(i).get("customerId").asLong());
+        }
+        assertNoEntitiesLoaded();
+    }
+
+    @Test
+    void testWriteLoansAppliesFilters() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        subject.writeLoans(CUSTOMER_ID, 12, true, output);
+
+        List<JsonNode> lines = readLines(output);
+        assertTrue(lines.stream().allMatch(line -> line.get("numberOfInstallments").asInt() == 12 && line.get("isPaid").asBoolean()));
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan WHERE customer_id = ? AND number_of_installments = 12 AND is_paid",
+                Integer.class, CUSTOMER_ID), lines.size());
+    }
+
+    @Test
+    void testWriteInstallmentsStreamsScheduleInDueDateOrder() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        subject.writeInstallments(FIRST_SEEDED_ID + 1, output);
+
+        List<JsonNode> lines = readLines(output);
+        assertEquals(INSTALLMENTS, lines.size());
+        List<String> dueDates = lines.stream().map(line -> line.get("dueDate").asText()).toList();
+        assertEquals(dueDates.stream().sorted().toList(), dueDates);
+        assertTrue(lines.stream().allMatch(line -> line.get("loanId").asLong() == FIRST_SEEDED_ID + 1 && !line.has("loan")));
+        assertNoEntitiesLoaded();
+    }
+
+    private List<JsonNode> readLines(ByteArrayOutputStream output) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private void assertNoEntitiesLoaded() {
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+}
@@ -0,0 +1,198 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ingbank.credit_manager.beans.KeysetPage;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
+import com.ingbank.credit_manager.exception.LoanIsAlreadyFullyPaidException;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.response.CustomerSummaryResponse;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
+import com.ingbank.credit_manager.service.CustomerSummaryService;
+import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.service.LoanStreamService;
+import com.ingbank.credit_manager.util.TestTables;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Loans created with packed schedules against twins stored as installment rows: the same listings, the same results of
+ * a seeded sequence of payments and a customer summary matching both.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "credit-manager.schedule.packed=true"})
+@AutoConfigureTestDatabase
+class PackedScheduleTest {
+
+    private static final long SEED = 20250401L;
+    private static final int PAYMENTS = 40;
+    private static final long CUSTOMER_ID = 9901L;
+    private static final long ROW_LOAN_ID = 9901L;
+
+    private final Random random = new Random(SEED);
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanInstallmentService loanInstallmentService;
+
+    @Autowired
+    private LoanStreamService loanStreamService;
+
+    @Autowired
+    private LoanPaymentService loanPaymentService;
+
+    @Autowired
+    private CustomerSummaryService customerSummaryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Loan packedLoan;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Packed', 'Schedule', 100000, 0)", CUSTOMER_ID);
+        packedLoan = loanService.createLoan(CreateLoanRequest.builder().customerId(CUSTOMER_ID)
+                .amount(new BigDecimal("9000.00")).interestRate(new BigDecimal("0.2")).installments(12).build());
+        // the same loan stored as installment rows
+        jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, ?, 10800, 12, CURRENT_DATE, FALSE)",
+                ROW_LOAN_ID, CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                " SELECT ? + x, ?, 900, 0, DATEADD(MONTH, x, CAST(? AS DATE)), NULL, FALSE FROM SYSTEM_RANGE(0, 11)",
+                ROW_LOAN_ID * 100, ROW_LOAN_ID, LocalDate.now().plusMonths(1).withDayOfMonth(1));
+        jdbcTemplate.update("UPDATE customer_summary SET outstanding_amount = outstanding_amount + 10800, open_loan_count = open_loan_count + 1," +
+                " next_due_amount = next_due_amount + 900 WHERE customer_id = ?", CUSTOMER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testCreateLoanWritesOneScheduleRow() {
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan_schedule WHERE loan_id = ?", Integer.class, packedLoan.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan_installment WHERE loan_id = ?", Integer.class, packedLoan.getId()));
+        // the storage of the schedule does not show in the created loan returned by the API
+        assertFalse(objectMapper.valueToTree(packedLoan).has("packedSchedule"));
+    }
+
+    @Test
+    void testListingsMatchTheInstallmentRows() throws IOException {
+        List<LoanInstallmentResponse> packed = loanInstallmentService.listInstallmentsByLoanId(packedLoan.getId());
+
+        assertEquals(withoutIds(loanInstallmentService.listInstallmentsByLoanId(ROW_LOAN_ID)), withoutIds(packed));
+        // the derived ids lie above every value the installment sequence can hand out to a row
+        long maxSequenceValue = jdbcTemplate.queryForObject("SELECT MAXIMUM_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'LOAN_INSTALLMENT_ID_SEQ'", Long.class);
+        assertTrue(packed.stream().allMatch(installment -> installment.id() > maxSequenceValue));
+
+        KeysetPage<LoanInstallmentResponse> page = loanInstallmentService.listInstallmentsByLoanId(packedLoan.getId(), null, 5);
+        KeysetPage<LoanInstallmentResponse> nextPage = loanInstallmentService.listInstallmentsByLoanId(packedLoan.getId(), page.nextCursor(), 10);
+        assertEquals(packed.subList(0, 5), page.items());
+        assertEquals(packed.subList(5, 12), nextPage.items());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        loanStreamService.writeInstallments(packedLoan.getId(), output);
+        StringBuilder expected = new StringBuilder();
+        for (LoanInstallmentResponse installment : packed) {
+            expected.append(objectMapper.writeValueAsString(installment)).append('\n');
+        }
+        assertEquals(expected.toString(), output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testPaymentsMatchTheInstallmentRows() {
+        for (int step = 0; step < PAYMENTS; step++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(50_000, 400_000), 2);
+            String context = "seed " + SEED + ", payment " + step + " of " + amount;
+
+            assertEquals(pay(ROW_LOAN_ID, amount), pay(packedLoan.getId(), amount), context);
+            assertEquals(withoutIds(loanInstallmentService.listInstallmentsByLoanId(ROW_LOAN_ID)),
+                    withoutIds(loanInstallmentService.listInstallmentsByLoanId(packedLoan.getId())), context);
+            assertEquals(aggregated(), maintained(), context);
+        }
+    }
+
+    @Test
+    void testSetBasedPaymentRefusesPackedSchedules() {
+        PayLoanRequest request = PayLoanRequest.builder().loanId(packedLoan.getId()).amount(new BigDecimal("1000.00")).build();
+
+        assertThrows(IllegalStateException.class, () -> loanPaymentService.payLoan(request));
+    }
+
+    @Test
+    void testRebuiltSummaryCountsPackedSchedules() {
+        for (Long loanId : List.of(ROW_LOAN_ID, packedLoan.getId())) {
+            loanService.payLoan(PayLoanRequest.builder().loanId(loanId).amount(new BigDecimal("1000.00")).build());
+        }
+        jdbcTemplate.update("DELETE FROM customer_summary WHERE customer_id = ?", CUSTOMER_ID);
+
+        assertEquals(aggregated(), maintained());
+    }
+
+    // the outcome of a payment, or the exception it is refused with
+    private Object pay(Long loanId, BigDecimal amount) {
+        try {
+            return loanService.payLoan(PayLoanRequest.builder().loanId(loanId).amount(amount).build());
+        } catch (LoanInstallmentsMoreThan3MonthsCannotBePaidException | LoanIsAlreadyFullyPaidException e) {
+            return e.getClass();
+        }
+    }
+
+    private static List<List<Object>> withoutIds(List<LoanInstallmentResponse> installments) {
+        return installments.stream()
+                .map(installment -> Arrays.<Object>asList(installment.amount().stripTrailingZeros(), installment.paidAmount().stripTrailingZeros(),
+                        installment.dueDate(), installment.paymentDate(), installment.isPaid()))
+                .toList();
+    }
+
+    private List<Object> maintained() {
+        CustomerSummaryResponse summary = customerSummaryService.findByCustomerId(CUSTOMER_ID);
+        return Arrays.asList(summary.outstandingAmount().stripTrailingZeros(), summary.openLoanCount(), summary.nextDueDate(),
+                summary.nextDueAmount() == null ? null : summary.nextDueAmount().stripTrailingZeros());
+    }
+
+    // both loans are the same, so the figures are twice those of the installment rows
+    private List<Object> aggregated() {
+        BigDecimal outstanding = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM loan_installment WHERE loan_id = ? AND is_paid = FALSE",
+                BigDecimal.class, ROW_LOAN_ID);
+        Integer openLoans = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan WHERE customer_id = ? AND is_paid = FALSE", Integer.class, CUSTOMER_ID);
+        LocalDate nextDueDate = jdbcTemplate.queryForObject("SELECT MIN(due_date) FROM loan_installment WHERE loan_id = ? AND is_paid = FALSE",
+                LocalDate.class, ROW_LOAN_ID);
+        BigDecimal nextDueAmount = nextDueDate == null ? null : jdbcTemplate.queryForObject("SELECT SUM(amount) FROM loan_installment" +
+                " WHERE loan_id = ? AND is_paid = FALSE AND due_date = ?", BigDecimal.class, ROW_LOAN_ID, nextDueDate);
+        return Arrays.asList(outstanding.add(outstanding).stripTrailingZeros(), openLoans, nextDueDate,
+                nextDueAmount == null ? null : nextDueAmount.add(nextDueAmount).stripTrailingZeros());
+    }
+}
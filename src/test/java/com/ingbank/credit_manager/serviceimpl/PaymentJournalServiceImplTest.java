@@ -0,0 +1,331 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.ingbank.credit_manager.beans.Money;
+import com.ingbank.credit_manager.beans.PaymentResult;
+import com.ingbank.credit_manager.exception.LoanInstallmentsMoreThan3MonthsCannotBePaidException;
+import com.ingbank.credit_manager.exception.LoanIsAlreadyFullyPaidException;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.PaymentJournal;
+import com.ingbank.credit_manager.util.TestTables;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Payments journaled for one loan against the same payments made directly on its twin: applied in the background,
+ * replayed after a crash left them acknowledged but not applied, never applied twice across restarts, and set aside
+ * when one fails on its own.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+class PaymentJournalServiceImplTest {
+
+    private static final long SEED = 20250601L;
+    private static final int PAYMENTS = 12;
+    private static final long CUSTOMER_ID = 10101L;
+    private static final Long FAILING_LOAN_ID = 10199L;
+    // small segments, so the payments span several of them
+    private static final DataSize SEGMENT_SIZE = DataSize.ofBytes(5L * PaymentJournal.RECORD_BYTES);
+    private static final int BATCH_SIZE = 4;
+
+    private final Random random = new Random(SEED);
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @TempDir
+    Path directory;
+
+    private Long journaledLoanId;
+    private Long directLoanId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Payment', 'Journal', 100000000, 0)", CUSTOMER_ID);
+        journaledLoanId = createLoan();
+        directLoanId = createLoan();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testAcceptedPaymentsAreAppliedInTheBackground() throws InterruptedException {
+        PaymentJournalServiceImpl subject = journalService();
+        subject.start();
+        try {
+            long lastSequence = 0;
+            for (int payment = 0; payment < PAYMENTS; payment++) {
+                BigDecimal amount = nextAmount();
+                lastSequence = subject.accept(PayLoanRequest.builder().loanId(journaledLoanId).amount(amount).build());
+                payDirectly(amount);
+            }
+            awaitApplied(subject, lastSequence);
+        } finally {
+            subject.stop();
+        }
+
+        assertEquals((long) PAYMENTS, checkpoint());
+        assertEquals(installments(directLoanId), installments(journaledLoanId));
+    }
+
+    @Test
+    void testAcknowledgedPaymentsAreReplayedAfterACrash() throws IOException {
+        // acknowledged by a process that died before applying them, in the middle of writing one more
+        try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE.toBytes(), Duration.ZERO, 0)) {
+            for (int payment = 0; payment < PAYMENTS; payment++) {
+                BigDecimal amount = nextAmount();
+                journal.append(journaledLoanId, Money.of(amount), LocalDate.now());
+                payDirectly(amount);
+            }
+        }
+        tearLastRecord();
+
+        PaymentJournalServiceImpl subject = journalService();
+        subject.start();
+        subject.stop();
+
+        assertEquals((long) PAYMENTS, checkpoint());
+        assertEquals(installments(directLoanId), installments(journaledLoanId));
+        List<Map<String, Object>> applied = installments(journaledLoanId);
+        assertTrue(applied.stream().anyMatch(installment -> Boolean.TRUE.equals(installment.get("is_paid"))));
+
+        PaymentJournalServiceImpl restarted = journalService();
+        restarted.start();
+        restarted.stop();
+
+        assertEquals(PAYMENTS, restarted.appliedSequence());
+        assertEquals(applied, installments(journaledLoanId));
+    }
+
+    @Test
+    void testBatchFailingBeforeItsCheckpointIsReplayedOnce() {
+        try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE.toBytes(), Duration.ZERO, 0)) {
+            for (int payment = 0; payment < PAYMENTS; payment++) {
+                BigDecimal amount = nextAmount();
+                journal.append(journaledLoanId, Money.of(amount), LocalDate.now());
+                payDirectly(amount);
+            }
+        }
+        // the first batch pays its installments and then fails to write its checkpoint, as if the process died there
+        jdbcTemplate.execute("ALTER TABLE payment_journal_checkpoint ADD CONSTRAINT ck_no_checkpoint CHECK (applied_sequence < 0)");
+        PaymentJournalServiceImpl crashed = journalService();
+        try {
+            assertThrows(RuntimeException.class, crashed::start);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE payment_journal_checkpoint DROP CONSTRAINT ck_no_checkpoint");
+        }
+        entityManagerFactory.getCache().evictAll();
+
+        PaymentJournalServiceImpl subject = journalService();
+        subject.start();
+        subject.stop();
+
+        assertEquals((long) PAYMENTS, checkpoint());
+        assertEquals(installments(directLoanId), installments(journaledLoanId));
+    }
+
+    @Test
+    void testReplayedPaymentsArePaidAsOfTheDayTheyWereAccepted() {
+        // acknowledged on a day the process did not live to apply them
+        LocalDate acceptedOn = LocalDate.now().minusDays(20);
+        try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE.toBytes(), Duration.ZERO, 0)) {
+            for (int payment = 0; payment < PAYMENTS; payment++) {
+                BigDecimal amount = nextAmount();
+                journal.append(journaledLoanId, Money.of(amount), acceptedOn);
+                payDirectly(amount, acceptedOn);
+            }
+        }
+
+        PaymentJournalServiceImpl subject = journalService();
+        subject.start();
+        subject.stop();
+
+        assertEquals(installments(directLoanId), installments(journaledLoanId));
+        assertEquals(List.of(acceptedOn), jdbcTemplate.queryForList("SELECT DISTINCT payment_date FROM loan_installment WHERE loan_id = ? AND is_paid = TRUE",
+                LocalDate.class, journaledLoanId));
+    }
+
+    @Test
+    void testPaymentFailingOnItsOwnIsDeadLetteredWithoutHoldingBackTheOthers() {
+        long failingSequence = PAYMENTS / 2 + 2;
+        try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE.toBytes(), Duration.ZERO, 0)) {
+            for (int payment = 0; payment < PAYMENTS; payment++) {
+                BigDecimal amount = nextAmount();
+                journal.append(journaledLoanId, Money.of(amount), LocalDate.now());
+                payDirectly(amount);
+                if (payment == PAYMENTS / 2) {
+                    journal.append(FAILING_LOAN_ID, Money.of(amount), LocalDate.now());
+                }
+            }
+        }
+        // an unexpected failure rolls back the whole batch of the payment, not only the payment
+        LoanService failingLoanService = mock(LoanService.class, AdditionalAnswers.delegatesTo(loanService));
+        doThrow(new IllegalStateException("Loan " + FAILING_LOAN_ID + " cannot be paid"))
+                .when(failingLoanService).payLoan(argThat(request -> FAILING_LOAN_ID.equals(request.getLoanId())), any(LocalDate.class));
+
+        PaymentJournalServiceImpl subject = journalService(failingLoanService);
+        subject.start();
+        subject.stop();
+
+        assertEquals(PAYMENTS + 1L, checkpoint());
+        assertEquals(installments(directLoanId), installments(journaledLoanId));
+        assertEquals(List.of(failingSequence), jdbcTemplate.queryForList("SELECT journal_sequence FROM payment_journal_dead_letter WHERE loan_id = ?",
+                Long.class, FAILING_LOAN_ID));
+    }
+
+    @Test
+    void testPaymentFailingTransientlyIsRetriedNotDeadLettered() throws InterruptedException {
+        // times out on the loan lock in the batch and alone, then gets it
+        LoanService lockedLoanService = mock(LoanService.class, AdditionalAnswers.delegatesTo(loanService));
+        doThrow(new CannotAcquireLockException("Timeout trying to lock table"))
+                .doThrow(new CannotAcquireLockException("Timeout trying to lock table"))
+                .doReturn(PaymentResult.builder().installmentsPaid(1).totalAmountSpent(new BigDecimal("100.00")).build())
+                .when(lockedLoanService).payLoan(argThat(request -> FAILING_LOAN_ID.equals(request.getLoanId())), any(LocalDate.class));
+        PaymentJournalServiceImpl subject = journalService(lockedLoanService);
+        subject.start();
+        try {
+            long sequence = subject.accept(PayLoanRequest.builder().loanId(FAILING_LOAN_ID).amount(new BigDecimal("100.00")).build());
+            awaitApplied(subject, sequence);
+        } finally {
+            subject.stop();
+        }
+
+        assertEquals(1L, checkpoint());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment_journal_dead_letter", Integer.class));
+        verify(lockedLoanService, times(3)).payLoan(argThat(request -> FAILING_LOAN_ID.equals(request.getLoanId())), any(LocalDate.class));
+    }
+
+    @Test
+    void testRefusedPaymentsAreRecordedWithTheirCheckpoint() {
+        LocalDate acceptedOn = LocalDate.now();
+        try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_SIZE.toBytes(), Duration.ZERO, 0)) {
+            journal.append(FAILING_LOAN_ID, new Money(10_000), acceptedOn);
+            // pays every installment within the 3 months window, leaving none payable to the next one
+            journal.append(journaledLoanId, new Money(100_000_000), acceptedOn);
+            journal.append(journaledLoanId, new Money(10_000), acceptedOn);
+        }
+
+        PaymentJournalServiceImpl subject = journalService();
+        subject.start();
+        subject.stop();
+
+        assertEquals(3L, checkpoint());
+        assertEquals(List.of(
+                        Map.of("JOURNAL_SEQUENCE", 1L, "LOAN_ID", FAILING_LOAN_ID, "AMOUNT", new BigDecimal("100.00"), "REASON", "Loan not found with request loanId: " + FAILING_LOAN_ID),
+                        Map.of("JOURNAL_SEQUENCE", 3L, "LOAN_ID", journaledLoanId, "AMOUNT", new BigDecimal("100.00"), "REASON", "Loan installments more than 3 calendar months cannot be paid")),
+                jdbcTemplate.queryForList("SELECT journal_sequence, loan_id, amount, reason FROM payment_journal_refusal ORDER BY journal_sequence"));
+    }
+
+    private PaymentJournalServiceImpl journalService() {
+        return journalService(loanService);
+    }
+
+    private PaymentJournalServiceImpl journalService(LoanService loanService) {
+        return new PaymentJournalServiceImpl(loanService, jdbcTemplate, transactionManager, true, directory, SEGMENT_SIZE, Duration.ZERO, BATCH_SIZE);
+    }
+
+    private Long createLoan() {
+        return loanService.createLoan(CreateLoanRequest.builder().customerId(CUSTOMER_ID).amount(new BigDecimal("3000.00"))
+                .interestRate(new BigDecimal("0.2")).installments(12).build()).getId();
+    }
+
+    private BigDecimal nextAmount() {
+        return BigDecimal.valueOf(random.nextLong(10_000, 90_000), 2);
+    }
+
+    private void payDirectly(BigDecimal amount) {
+        payDirectly(amount, LocalDate.now());
+    }
+
+    private void payDirectly(BigDecimal amount, LocalDate paymentDate) {
+        try {
+            loanService.payLoan(PayLoanRequest.builder().loanId(directLoanId).amount(amount).build(), paymentDate);
+        } catch (LoanInstallmentsMoreThan3MonthsCannotBePaidException | LoanIsAlreadyFullyPaidException e) {
+            // refused the same way when the journaled payment is applied
+        }
+    }
+
+    private void tearLastRecord() throws IOException {
+        Path lastSegment;
+        try (Stream<Path> files = Files.list(directory)) {
+            lastSegment = files.sorted().toList().getLast();
+        }
+        long records = Files.size(lastSegment) / PaymentJournal.RECORD_BYTES;
+        try (FileChannel segment = FileChannel.open(lastSegment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (long index = 0; index < records; index++) {
+                ByteBuffer sequence = ByteBuffer.allocate(Long.BYTES);
+                segment.read(sequence, index * PaymentJournal.RECORD_BYTES);
+                if (sequence.flip().getLong() == 0) {
+                    segment.write(ByteBuffer.allocate(Long.BYTES * 2).putLong(PAYMENTS + 1).putLong(journaledLoanId).flip(), index * PaymentJournal.RECORD_BYTES);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void awaitApplied(PaymentJournalServiceImpl subject, long sequence) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (subject.appliedSequence() < sequence) {
+            assertTrue(System.nanoTime() < deadline, "applied up to " + subject.appliedSequence() + " of " + sequence);
+            Thread.sleep(10);
+        }
+    }
+
+    private long checkpoint() {
+        return jdbcTemplate.queryForObject("SELECT applied_sequence FROM payment_journal_checkpoint", Long.class);
+    }
+
+    private List<Map<String, Object>> installments(Long loanId) {
+        return jdbcTemplate.queryForList("SELECT i.amount, i.paid_amount, i.payment_date, i.is_paid, l.is_paid AS loan_is_paid" +
+                " FROM loan_installment i JOIN loan l ON l.id = i.loan_id WHERE i.loan_id = ? ORDER BY i.due_date", loanId);
+    }
+}
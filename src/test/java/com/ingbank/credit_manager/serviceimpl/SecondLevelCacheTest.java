@@ -0,0 +1,157 @@
+package com.ingbank.credit_manager.serviceimpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.ingbank.credit_manager.beans.SqlStatementStatistics;
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.User;
+import com.ingbank.credit_manager.repository.CustomerRepository;
+import com.ingbank.credit_manager.repository.UserRepository;
+import com.ingbank.credit_manager.request.CreateLoanRequest;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.LoanPaymentService;
+import com.ingbank.credit_manager.service.LoanService;
+import com.ingbank.credit_manager.util.SqlStatementCounter;
+import com.ingbank.credit_manager.util.TestTables;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reads served from the second-level cache, and writes through Hibernate, bulk HQL and plain SQL that must not leave
+ * a stale entry behind.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+class SecondLevelCacheTest {
+
+    private static final long CUSTOMER_ID = 9601L;
+    private static final long OTHER_CUSTOMER_ID = 9602L;
+    private static final long LOAN_ID = 9601L;
+    private static final int INSTALLMENTS = 2;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanPaymentService loanPaymentService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Second', 'Level', 100000, 400)", CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Other', 'Customer', 100000, 0)", OTHER_CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, ?, 400, ?, CURRENT_DATE, FALSE)",
+                LOAN_ID, CUSTOMER_ID, INSTALLMENTS);
+        jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                " SELECT ? + x, ?, 200, 0, DATEADD(MONTH, x - 1, CAST(? AS DATE)), NULL, FALSE FROM SYSTEM_RANGE(1, ?)",
+                LOAN_ID * 100, LOAN_ID, LocalDate.now().withDayOfMonth(1), INSTALLMENTS);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID, OTHER_CUSTOMER_ID);
+        // the regions are shared with the other test contexts through the caching provider
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    void testLoanIsReadFromTheCache() {
+        SqlStatementStatistics first = statements(() -> loanService.findById(LOAN_ID));
+        SqlStatementStatistics second = statements(() -> loanService.findById(LOAN_ID));
+
+        assertEquals(1, first.getStatements(), first::describe);
+        assertEquals(0, second.getStatements(), second::describe);
+        assertTrue(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", CreditManagerConstants.LOAN_CACHE_REGION).tag("result", "hit").functionCounter().count() > 0);
+    }
+
+    @Test
+    void testEntityPaymentUpdatesTheCachedLoan() {
+        assertEquals(false, loanService.findById(LOAN_ID).getIsPaid());
+
+        loanService.payLoan(PayLoanRequest.builder().loanId(LOAN_ID).amount(new BigDecimal("1000.00")).build());
+
+        assertEquals(true, loanService.findById(LOAN_ID).getIsPaid());
+    }
+
+    @Test
+    void testSetBasedPaymentEvictsTheCachedLoan() {
+        assertEquals(false, loanService.findById(LOAN_ID).getIsPaid());
+
+        loanPaymentService.payLoan(PayLoanRequest.builder().loanId(LOAN_ID).amount(new BigDecimal("1000.00")).build());
+
+        assertEquals(true, loanService.findById(LOAN_ID).getIsPaid());
+    }
+
+    @Test
+    void testCreditLimitReservationInvalidatesTheCachedCustomer() {
+        assertEquals(0, new BigDecimal("400").compareTo(customerRepository.findById(CUSTOMER_ID).orElseThrow().getUsedCreditLimit()));
+
+        loanService.createLoan(CreateLoanRequest.builder().customerId(CUSTOMER_ID).amount(new BigDecimal("1000"))
+                .interestRate(new BigDecimal("0.2")).installments(6).build());
+
+        assertEquals(0, new BigDecimal("1600").compareTo(customerRepository.findById(CUSTOMER_ID).orElseThrow().getUsedCreditLimit()));
+    }
+
+    @Test
+    void testCreditLimitReservationKeepsOtherCustomersCached() {
+        customerRepository.findById(OTHER_CUSTOMER_ID).orElseThrow();
+        customerRepository.findById(CUSTOMER_ID).orElseThrow();
+
+        loanService.createLoan(CreateLoanRequest.builder().customerId(CUSTOMER_ID).amount(new BigDecimal("1000"))
+                .interestRate(new BigDecimal("0.2")).installments(6).build());
+        SqlStatementStatistics other = statements(() -> customerRepository.findById(OTHER_CUSTOMER_ID).orElseThrow());
+        SqlStatementStatistics reserved = statements(() -> customerRepository.findById(CUSTOMER_ID).orElseThrow());
+
+        assertEquals(0, other.getStatements(), other::describe);
+        assertEquals(1, reserved.getStatements(), reserved::describe);
+    }
+
+    @Test
+    void testUserAndRolesAreReadFromTheCache() {
+        statements(() -> userRepository.findByUsername("admin").orElseThrow().getRoles().size());
+        SqlStatementStatistics cached = statements(() -> {
+            User user = userRepository.findByUsername("admin").orElseThrow();
+            assertEquals(Set.of("ROLE_ADMIN"), Set.copyOf(user.getRoles()));
+            return user;
+        });
+
+        assertEquals(0, cached.getStatements(), cached::describe);
+    }
+
+    private static SqlStatementStatistics statements(Supplier<?> call) {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            call.get();
+            return scope.statistics();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ingbank.credit_manager.util;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ingbank.credit_manager.service.CustomerService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class AuthorizationComponentTest {
+
+    @Mock
+    private CustomerService customerService;
+
+    @InjectMocks
+    private AuthorizationComponent subject;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testCheckAccessWhenAdmin() {
+        authenticate("admin", "ROLE_ADMIN");
+        assertDoesNotThrow(() -> subject.checkAccess(2L));
+        verify(customerService, never()).findCustomerIdByUsername(anyString());
+    }
+
+    @Test
+    void testCheckAccessWhenOwnCustomer() {
+        authenticate("customer", "ROLE_CUSTOMER");
+        when(customerService.findCustomerIdByUsername("customer")).thenReturn(1L);
+        assertDoesNotThrow(() -> subject.checkAccess(1L));
+    }
+
+    @Test
+    void testCheckAccessWhenOtherCustomer() {
+        authenticate("customer", "ROLE_CUSTOMER");
+        when(customerService.findCustomerIdByUsername("customer")).thenReturn(1L);
+        assertThrows(AccessDeniedException.class, () -> subject.checkAccess(2L));
+    }
+
+    private static void authenticate(String username, String role) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null, role));
+    }
+
+    @Nested
+    @SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+    @AutoConfigureTestDatabase
+    class CachedResolution {
+
+        @Autowired
+        private AuthorizationComponent authorizationComponent;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @AfterEach
+        void tearDown() {
+            SecurityContextHolder.clearContext();
+        }
+
+        @Test
+        void testCheckAccessDoesNotQueryDatabaseOnceCached() {
+            authenticate("customer2", "ROLE_CUSTOMER");
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            authorizationComponent.checkAccess(2L);
+
+            statistics.clear();
+            for (int i = 0; i < 10; i++) {
+                authorizationComponent.checkAccess(2L);
+            }
+            assertThrows(AccessDeniedException.class, () -> authorizationComponent.checkAccess(1L));
+
+            assertEquals(0, statistics.getPrepareStatementCount());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ingbank.credit_manager.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.ingbank.credit_manager.exception.InvalidPageRequestException;
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        for (long afterId : new long[]{KeysetCursor.FIRST, 1L, 50L, Long.MAX_VALUE}) {
+            assertEquals(afterId, KeysetCursor.decode(KeysetCursor.encode(afterId)));
+        }
+    }
+
+    @Test
+    void testMissingCursorStartsAtFirstRow() {
+        assertEquals(KeysetCursor.FIRST, KeysetCursor.decode(null));
+        assertEquals(KeysetCursor.FIRST, KeysetCursor.decode(" "));
+    }
+
+    @Test
+    void testDecodeRejectsForeignCursors() {
+        assertThrows(InvalidPageRequestException.class, () -> KeysetCursor.decode("not base64!"));
+        assertThrows(InvalidPageRequestException.class, () -> KeysetCursor.decode(encodeRaw("42")));
+        assertThrows(InvalidPageRequestException.class, () -> KeysetCursor.decode(encodeRaw("v1:abc")));
+        assertThrows(InvalidPageRequestException.class, () -> KeysetCursor.decode(encodeRaw("v1:-5")));
+    }
+
+    private static String encodeRaw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,124 @@
+package com.ingbank.credit_manager.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import com.ingbank.credit_manager.response.LoanResponse;
+import org.junit.jupiter.api.Test;
+
+class LoanIndexTest {
+
+    private static final long SEED = 20250715L;
+    private static final List<Integer> INSTALLMENTS = List.of(6, 9, 12, 24);
+
+    private final Random random = new Random(SEED);
+
+    @Test
+    void testFindMatchesFilteringTheRows() {
+        LoanIndex index = new LoanIndex();
+        List<LoanResponse> rows = new ArrayList<>();
+        // ids out of order, so both the appends and the inserts are exercised
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 600).boxed().toList());
+        Collections.shuffle(ids.subList(0, 300), random);
+        for (Long id : ids) {
+            LoanResponse row = loan(id, 1 + random.nextLong(5), random.nextInt(4) == 0);
+            rows.add(row);
+            index.put(row);
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            LoanResponse row = rows.get(i);
+            if (!row.isPaid() && random.nextInt(3) == 0) {
+                index.paid(row.customerId(), row.id());
+                rows.set(i, new LoanResponse(row.id(), row.customerId(), row.loanAmount(), row.numberOfInstallments(), row.createDate(), true));
+            }
+        }
+        rows.sort(Comparator.comparing(LoanResponse::id));
+
+        for (long customerId = 1; customerId <= 6; customerId++) {
+            for (Integer installments : List.of(6, 9, 12, 24, 36)) {
+                for (Boolean isPaid : new Boolean[]{null, true, false}) {
+                    assertEquals(filter(rows, customerId, null, isPaid, 0, Integer.MAX_VALUE), index.find(customerId, null, isPaid, 0, Integer.MAX_VALUE));
+                    assertEquals(filter(rows, customerId, installments, isPaid, 0, Integer.MAX_VALUE), index.find(customerId, installments, isPaid, 0, Integer.MAX_VALUE));
+                    long afterId = random.nextLong(600);
+                    int limit = 1 + random.nextInt(70);
+                    assertEquals(filter(rows, customerId, installments, isPaid, afterId, limit), index.find(customerId, installments, isPaid, afterId, limit));
+                }
+            }
+        }
+        assertEquals(600, index.loans());
+        assertEquals(5, index.customers());
+    }
+
+    @Test
+    void testPaymentArrivingBeforeTheCreationIsKept() {
+        LoanIndex index = new LoanIndex();
+        index.put(loan(1L, 1L, false));
+
+        index.paid(1L, 2L);
+        index.paid(7L, 3L);
+        index.put(loan(2L, 1L, false));
+        index.put(loan(3L, 7L, false));
+
+        assertEquals(List.of(2L), index.find(1L, null, true, 0, 10).stream().map(LoanResponse::id).toList());
+        assertEquals(List.of(3L), index.find(7L, null, true, 0, 10).stream().map(LoanResponse::id).toList());
+    }
+
+    @Test
+    void testReadersSeeAPrefixWhileLoansAreAppended() {
+        LoanIndex index = new LoanIndex();
+        int loans = 5_000;
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (long id = 1; id <= loans; id++) {
+                index.put(loan(id, 1L, false));
+                if (id % 3 == 0) {
+                    index.paid(1L, id - 1);
+                }
+            }
+        });
+        while (!writer.isDone()) {
+            List<LoanResponse> found = index.find(1L, null, null, 0, Integer.MAX_VALUE);
+            for (int i = 0; i < found.size(); i++) {
+                assertEquals(i + 1L, found.get(i).id());
+            }
+        }
+        writer.join();
+        assertEquals(loans / 3, index.find(1L, null, true, 0, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void testEstimatedBytesPerLoan() {
+        LoanIndex index = new LoanIndex();
+        for (long id = 1; id <= 10_000; id++) {
+            index.put(loan(id, 1 + id % 1000, false));
+        }
+        index.trimToSize();
+
+        long bytesPerLoan = index.estimatedBytes() / index.loans();
+        // 22 bytes of columns per loan, plus the arrays and the map entry of the customer shared by its 10 loans
+        assertTrue(bytesPerLoan >= 22 && bytesPerLoan <= 64, "bytes per loan: " + bytesPerLoan);
+    }
+
+    private LoanResponse loan(Long id, Long customerId, boolean paid) {
+        return new LoanResponse(id, customerId, BigDecimal.valueOf(random.nextLong(100_000, 10_000_000), 2),
+                INSTALLMENTS.get(random.nextInt(INSTALLMENTS.size())), LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365)), paid);
+    }
+
+    private static List<LoanResponse> filter(List<LoanResponse> rows, Long customerId, Integer installments, Boolean isPaid, long afterId, int limit) {
+        return rows.stream()
+                .filter(row -> row.customerId().equals(customerId) && row.id() > afterId)
+                .filter(row -> installments == null || installments.equals(row.numberOfInstallments()))
+                .filter(row -> isPaid == null || isPaid.equals(row.isPaid()))
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.ingbank.credit_manager.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.exception.NotFoundException;
+import com.ingbank.credit_manager.request.PayLoanRequest;
+import com.ingbank.credit_manager.service.LoanInstallmentService;
+import com.ingbank.credit_manager.service.LoanService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase
+class LoanMetricsTest {
+
+    private static final long CUSTOMER_ID = 9401L;
+    private static final long LOAN_ID = 9401L;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanInstallmentService loanInstallmentService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO customer (id, name, surname, credit_limit, used_credit_limit) VALUES (?, 'Loan', 'Metrics', 10000, 600)", CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO loan (id, customer_id, loan_amount, number_of_installments, create_date, is_paid) VALUES (?, ?, 600, 3, CURRENT_DATE, FALSE)",
+                LOAN_ID, CUSTOMER_ID);
+        jdbcTemplate.update("INSERT INTO loan_installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid)" +
+                " SELECT ? + x, ?, 200, 0, DATEADD(MONTH, x - 1, CAST(? AS DATE)), NULL, FALSE FROM SYSTEM_RANGE(1, 3)",
+                LOAN_ID * 100, LOAN_ID, LocalDate.now());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestTables.deleteTestRows(jdbcTemplate, CUSTOMER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void testOperationsAreTimedWithPercentilesPerOutcome() {
+        loanService.listLoans(CUSTOMER_ID, null, null);
+        loanInstallmentService.listInstallmentsByLoanId(LOAN_ID);
+        assertThrows(NotFoundException.class, () -> loanService.payLoan(PayLoanRequest.builder().loanId(-1L).amount(BigDecimal.TEN).build()));
+
+        assertPercentilesPublished(operationTimer(CreditManagerConstants.LIST_LOANS_OPERATION, LoanMetrics.SUCCESS));
+        assertPercentilesPublished(operationTimer(CreditManagerConstants.LIST_INSTALLMENTS_OPERATION, LoanMetrics.SUCCESS));
+        assertPercentilesPublished(operationTimer(CreditManagerConstants.PAY_LOAN_OPERATION, "NOT_FOUND"));
+        assertPercentilesPublished(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "LoanRepository").tag("method", "findLoans").timer());
+    }
+
+    @Test
+    void testPaymentOutcomesAreCounted() {
+        double installmentsPaid = meterRegistry.get(CreditManagerConstants.INSTALLMENTS_PAID_METRIC).counter().count();
+        double loansFullyPaid = meterRegistry.get(CreditManagerConstants.LOANS_FULLY_PAID_METRIC).counter().count();
+
+        loanService.payLoan(PayLoanRequest.builder().loanId(LOAN_ID).amount(new BigDecimal("1000.00")).build());
+
+        assertEquals(installmentsPaid + 3, meterRegistry.get(CreditManagerConstants.INSTALLMENTS_PAID_METRIC).counter().count());
+        assertEquals(loansFullyPaid + 1, meterRegistry.get(CreditManagerConstants.LOANS_FULLY_PAID_METRIC).counter().count());
+    }
+
+    private Timer operationTimer(String operation, String outcome) {
+        return meterRegistry.get(CreditManagerConstants.LOAN_OPERATIONS_METRIC)
+                .tag(CreditManagerConstants.OPERATION_TAG, operation)
+                .tag(CreditManagerConstants.OUTCOME_TAG, outcome)
+                .timer();
+    }
+
+    private static void assertPercentilesPublished(Timer timer) {
+        // histogram buckets are only published by registries that aggregate them, like Prometheus
+        assertTrue(timer.count() > 0);
+        assertEquals(3, timer.takeSnapshot().percentileValues().length);
+    }
+}
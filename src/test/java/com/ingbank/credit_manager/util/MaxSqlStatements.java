@@ -0,0 +1,20 @@
+package com.ingbank.credit_manager.util;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Fails the test when it executes more SQL statements than {@link #value()}, setup and teardown methods excluded.
+ * Requires the proxied data source of {@code credit-manager.sql.accounting.enabled}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementLimitExtension.class)
+public @interface MaxSqlStatements {
+
+    int value();
+}
@@ -0,0 +1,122 @@
+package com.ingbank.credit_manager.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.ingbank.credit_manager.constants.CreditManagerConstants;
+import com.ingbank.credit_manager.entity.Loan;
+import com.ingbank.credit_manager.entity.LoanInstallment;
+import com.ingbank.credit_manager.entity.LoanSchedule;
+import com.ingbank.credit_manager.response.LoanInstallmentResponse;
+import org.junit.jupiter.api.Test;
+
+class PackedSchedulesTest {
+
+    private static final LocalDate FIRST_DUE_DATE = LocalDate.of(2025, 1, 31);
+
+    @Test
+    void testCreateExpandsToUnpaidInstallments() {
+        Loan loan = loan(12);
+        LoanSchedule schedule = PackedSchedules.create(loan, new BigDecimal("250.50"), FIRST_DUE_DATE);
+
+        List<LoanInstallment> installments = PackedSchedules.installments(schedule, loan);
+
+        assertEquals(12, installments.size());
+        for (int index = 0; index < installments.size(); index++) {
+            LoanInstallment installment = installments.get(index);
+            assertEquals(CreditManagerConstants.PACKED_INSTALLMENT_ID_OFFSET + 300 + index, installment.getId());
+            assertEquals(loan, installment.getLoan());
+            assertEquals(new BigDecimal("250.50"), installment.getAmount());
+            assertEquals(FIRST_DUE_DATE.plusMonths(index), installment.getDueDate());
+            assertEquals(new BigDecimal("0.00"), installment.getPaidAmount());
+            assertFalse(installment.getIsPaid());
+            assertNull(installment.getPaymentDate());
+        }
+        assertEquals(FIRST_DUE_DATE, schedule.getNextDueDate());
+    }
+
+    @Test
+    void testApplyPacksThePayments() {
+        Loan loan = loan(24);
+        LoanSchedule schedule = PackedSchedules.create(loan, new BigDecimal("100.00"), FIRST_DUE_DATE);
+        List<LoanInstallment> installments = PackedSchedules.installments(schedule, loan);
+        pay(installments.get(0), "99.17", LocalDate.of(2025, 1, 20));
+        pay(installments.get(2), "100.00", LocalDate.of(2025, 3, 31));
+
+        PackedSchedules.apply(schedule, List.of(installments.get(0), installments.get(2)));
+
+        assertEquals(0b101, schedule.getPaidMask());
+        assertEquals(2, schedule.getPaidInstallments());
+        assertEquals(24, schedule.getPayments().length);
+        assertEquals(FIRST_DUE_DATE.plusMonths(1), schedule.getNextDueDate());
+        assertEquals(installments, PackedSchedules.installments(schedule, loan));
+    }
+
+    @Test
+    void testApplyKeepsEarlierPayments() {
+        Loan loan = loan(32);
+        LoanSchedule schedule = PackedSchedules.create(loan, new BigDecimal("10.00"), FIRST_DUE_DATE);
+        List<LoanInstallment> installments = PackedSchedules.installments(schedule, loan);
+        for (LoanInstallment installment : installments) {
+            pay(installment, "9.99", installment.getDueDate().minusDays(1));
+            PackedSchedules.apply(schedule, List.of(installment));
+        }
+
+        assertEquals(-1, schedule.getPaidMask());
+        assertEquals(32, schedule.getPaidInstallments());
+        assertNull(schedule.getNextDueDate());
+        assertEquals(installments, PackedSchedules.installments(schedule, loan));
+        byte[] payments = schedule.getPayments().clone();
+        PackedSchedules.apply(schedule, List.of());
+        assertArrayEquals(payments, schedule.getPayments());
+    }
+
+    @Test
+    void testResponsesMatchTheInstallments() {
+        Loan loan = loan(6);
+        LoanSchedule schedule = PackedSchedules.create(loan, new BigDecimal("500.00"), FIRST_DUE_DATE);
+        LoanInstallment paid = PackedSchedules.installments(schedule, loan).get(1);
+        pay(paid, "495.00", LocalDate.of(2025, 2, 18));
+        PackedSchedules.apply(schedule, List.of(paid));
+
+        List<LoanInstallmentResponse> responses = PackedSchedules.responses(schedule);
+
+        assertEquals(6, responses.size());
+        assertEquals(new LoanInstallmentResponse(CreditManagerConstants.PACKED_INSTALLMENT_ID_OFFSET + 301, 3L, new BigDecimal("500.00"), new BigDecimal("495.00"),
+                FIRST_DUE_DATE.plusMonths(1), LocalDate.of(2025, 2, 18), true, null, null), responses.get(1));
+        assertTrue(responses.stream().filter(response -> response.id() != CreditManagerConstants.PACKED_INSTALLMENT_ID_OFFSET + 301).noneMatch(LoanInstallmentResponse::isPaid));
+    }
+
+    @Test
+    void testRejectsForeignInstallmentsAndOversizedLoans() {
+        Loan loan = loan(6);
+        LoanSchedule schedule = PackedSchedules.create(loan, new BigDecimal("500.00"), FIRST_DUE_DATE);
+        LoanInstallment foreign = new LoanInstallment();
+        foreign.setId(CreditManagerConstants.PACKED_INSTALLMENT_ID_OFFSET + 306);
+
+        assertThrows(IllegalArgumentException.class, () -> PackedSchedules.apply(schedule, List.of(foreign)));
+        assertThrows(IllegalArgumentException.class, () -> PackedSchedules.create(loan(PackedSchedules.MAX_INSTALLMENTS + 1), BigDecimal.TEN, FIRST_DUE_DATE));
+    }
+
+    private static Loan loan(int numberOfInstallments) {
+        Loan loan = new Loan();
+        loan.setId(3L);
+        loan.setNumberOfInstallments(numberOfInstallments);
+        loan.setPackedSchedule(true);
+        return loan;
+    }
+
+    private static void pay(LoanInstallment installment, String paidAmount, LocalDate paymentDate) {
+        installment.setIsPaid(true);
+        installment.setPaidAmount(new BigDecimal(paidAmount));
+        installment.setPaymentDate(paymentDate);
+    }
+}
@@ -0,0 +1,145 @@
+package com.ingbank.credit_manager.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import com.ingbank.credit_manager.beans.JournaledPayment;
+import com.ingbank.credit_manager.beans.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PaymentJournalTest {
+
+    private static final long SEGMENT_BYTES = 1024L * PaymentJournal.RECORD_BYTES;
+    private static final LocalDate ACCEPTED_ON = LocalDate.of(2025, 6, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendedPaymentsAreReadAfterReopening() {
+        try (PaymentJournal journal = open(SEGMENT_BYTES, 0)) {
+            for (long loanId = 1; loanId <= 5; loanId++) {
+                assertEquals(loanId, journal.append(loanId, new Money(loanId * 1000), ACCEPTED_ON));
+            }
+            assertEquals(5, journal.durableSequence());
+        }
+
+        try (PaymentJournal journal = open(SEGMENT_BYTES, 0)) {
+            assertEquals(payments(1, 5), journal.read(0, 10));
+            assertEquals(payments(3, 4), journal.read(2, 2));
+            assertEquals(6, journal.append(6L, new Money(6000), ACCEPTED_ON));
+        }
+    }
+
+    @Test
+    void testConcurrentPaymentsShareTheFlushes() {
+        int threads = 16;
+        int paymentsPerThread = 10;
+        try (PaymentJournal journal = new PaymentJournal(directory, SEGMENT_BYTES, Duration.ofMillis(20), 0);
+             ExecutorService payers = Executors.newFixedThreadPool(threads)) {
+            List<CompletableFuture<Long>> sequences = IntStream.range(0, threads * paymentsPerThread)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> journal.append((long) i, new Money(i), ACCEPTED_ON), payers))
+                    .toList();
+
+            assertEquals(LongStream.rangeClosed(1, threads * paymentsPerThread).boxed().toList(),
+                    sequences.stream().map(CompletableFuture::join).sorted().toList());
+            assertTrue(journal.flushes() <= threads * paymentsPerThread / 2, "flushes: " + journal.flushes());
+            assertEquals(threads * paymentsPerThread, journal.read(0, Integer.MAX_VALUE).size());
+        }
+    }
+
+    @Test
+    void testTornRecordIsDiscarded() throws IOException {
+        try (PaymentJournal journal = open(SEGMENT_BYTES, 0)) {
+            LongStream.rangeClosed(1, 3).forEach(loanId -> journal.append(loanId, new Money(loanId * 1000), ACCEPTED_ON));
+        }
+        // the fourth record written up to its checksum when the process died
+        try (FileChannel segment = FileChannel.open(segments().getFirst(), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.allocate(4 * Long.BYTES).putLong(4).putLong(4).putLong(4000).putLong(ACCEPTED_ON.toEpochDay()).flip(), 3L * PaymentJournal.RECORD_BYTES);
+        }
+
+        try (PaymentJournal journal = open(SEGMENT_BYTES, 0)) {
+            assertEquals(payments(1, 3), journal.read(0, 10));
+            assertEquals(4, journal.append(4L, new Money(4000), ACCEPTED_ON));
+        }
+        try (PaymentJournal journal = open(SEGMENT_BYTES, 0)) {
+            assertEquals(payments(1, 4), journal.read(0, 10));
+        }
+    }
+
+    @Test
+    void testFullSegmentsRollAndAppliedOnesAreDeleted() throws IOException {
+        try (PaymentJournal journal = open(4L * PaymentJournal.RECORD_BYTES, 0)) {
+            LongStream.rangeClosed(1, 10).forEach(loanId -> journal.append(loanId, new Money(loanId * 1000), ACCEPTED_ON));
+            assertEquals(3, segments().size());
+            assertEquals(payments(1, 10), journal.read(0, 10));
+
+            journal.applied(7);
+            assertEquals(2, segments().size());
+            journal.applied(10);
+            assertEquals(1, segments().size());
+        }
+
+        try (PaymentJournal journal = open(4L * PaymentJournal.RECORD_BYTES, 10)) {
+            assertEquals(List.of(), journal.read(10, 10));
+            assertEquals(11, journal.append(11L, new Money(11000), ACCEPTED_ON));
+            assertEquals(12, journal.append(12L, new Money(12000), ACCEPTED_ON));
+        }
+    }
+
+    @Test
+    void testSequencesContinueAfterACheckpointPastTheJournal() {
+        try (PaymentJournal journal = open(SEGMENT_BYTES, 0)) {
+            LongStream.rangeClosed(1, 3).forEach(loanId -> journal.append(loanId, new Money(loanId * 1000), ACCEPTED_ON));
+        }
+
+        try (PaymentJournal journal = open(SEGMENT_BYTES, 41)) {
+            assertEquals(42, journal.append(42L, new Money(42000), ACCEPTED_ON));
+        }
+        try (PaymentJournal journal = open(SEGMENT_BYTES, 41)) {
+            assertEquals(payments(42, 42), journal.read(41, 10));
+        }
+    }
+
+    @Test
+    void testAppendAfterCloseFails() {
+        PaymentJournal journal = open(SEGMENT_BYTES, 0);
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> journal.append(1L, new Money(1000), ACCEPTED_ON));
+    }
+
+    private PaymentJournal open(long segmentBytes, long appliedSequence) {
+        return new PaymentJournal(directory, segmentBytes, Duration.ZERO, appliedSequence);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(PaymentJournal.SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static List<JournaledPayment> payments(long fromSequence, long toSequence) {
+        return LongStream.rangeClosed(fromSequence, toSequence)
+                .mapToObj(sequence -> new JournaledPayment(sequence, sequence, new Money(sequence * 1000), ACCEPTED_ON))
+                .toList();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ingbank.credit_manager.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ingbank.credit_manager.beans.SqlStatementStatistics;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+/**
+ * Accounts the SQL statements of a test method annotated with {@link MaxSqlStatements} and fails it when they exceed
+ * the limit, listing the statements. Requests performed through {@code MockMvc} run on the test thread, so their
+ * statements are accounted to the test.
+ */
+public class SqlStatementLimitExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementLimitExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), SqlStatementCounter.open());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementCounter.Scope scope = context.getStore(NAMESPACE).remove(context.getUniqueId(), SqlStatementCounter.Scope.class);
+        scope.close();
+        SqlStatementStatistics statistics = scope.statistics();
+        AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), MaxSqlStatements.class).ifPresent(limit ->
+                assertTrue(statistics.getStatements() <= limit.value(), () -> "Expected at most " + limit.value() + " SQL statements but "
+                        + statistics.getStatements() + " were executed:\n" + statistics.describe()));
+    }
+}
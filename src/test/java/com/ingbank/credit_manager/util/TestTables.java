@@ -0,0 +1,34 @@
+package com.ingbank.credit_manager.util;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Deletes the rows a test wrote to the shared database, leaving the seed data of the migrations. The tables are listed
+ * children first, so a new table takes one entry in the list of the rows it belongs to.
+ */
+public final class TestTables {
+
+    // tables keyed by loan_id, deleted for the loans of the test customers
+    private static final List<String> LOAN_TABLES = List.of("loan_schedule", "loan_balance_snapshot", "loan_ledger", "loan_installment");
+
+    // tables keyed by customer_id, deleted for the test customers after the loan tables
+    private static final List<String> CUSTOMER_TABLES = List.of("loan", "customer_summary");
+
+    // tables without seed rows, emptied entirely
+    private static final List<String> STATE_TABLES = List.of("accrual_checkpoint", "idempotency_record", "payment_journal_checkpoint",
+            "payment_journal_dead_letter", "payment_journal_refusal");
+
+    private TestTables() {
+    }
+
+    public static void deleteTestRows(JdbcTemplate jdbcTemplate, long... customerIds) {
+        STATE_TABLES.forEach(table -> jdbcTemplate.update("DELETE FROM " + table));
+        for (long customerId : customerIds) {
+            LOAN_TABLES.forEach(table -> jdbcTemplate.update("DELETE FROM " + table + " WHERE loan_id IN (SELECT id FROM loan WHERE customer_id = ?)", customerId));
+            CUSTOMER_TABLES.forEach(table -> jdbcTemplate.update("DELETE FROM " + table + " WHERE customer_id = ?", customerId));
+            jdbcTemplate.update("DELETE FROM customer WHERE id = ?", customerId);
+        }
+    }
+}